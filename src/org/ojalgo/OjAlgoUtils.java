@@ -22,8 +22,10 @@
 package org.ojalgo;
 
 import java.util.Date;
+import java.util.Optional;
 
 import org.ojalgo.machine.Hardware;
+import org.ojalgo.machine.HardwareProbe;
 import org.ojalgo.machine.VirtualMachine;
 import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.type.StandardType;
@@ -32,7 +34,8 @@ public abstract class OjAlgoUtils {
 
     /**
      * This is set for you, but you may want to set it to something different/better. Create a
-     * {@linkplain Hardware} instance and then call {@linkplain Hardware#virtualise()}.
+     * {@linkplain Hardware} instance and then call {@linkplain Hardware#virtualise()}. On Linux the hardware is
+     * detected (see {@linkplain HardwareProbe}), otherwise one of {@linkplain Hardware#PREDEFINED} is used.
      */
     public static VirtualMachine ENVIRONMENT = null;
 
@@ -42,9 +45,22 @@ public abstract class OjAlgoUtils {
         final long tmpMemory = VirtualMachine.getMemory();
         final int tmpThreads = VirtualMachine.getThreads();
 
-        for (final Hardware hw : Hardware.PREDEFINED) {
-            if (hw.architecture.equals(tmpArchitecture) && (hw.threads <= tmpThreads) && (hw.memory >= tmpMemory)) {
-                ENVIRONMENT = hw.virtualise();
+        final Optional<Hardware> tmpDetected = HardwareProbe.detect();
+
+        if (tmpDetected.isPresent()) {
+
+            ENVIRONMENT = tmpDetected.get().virtualise();
+
+        } else {
+
+            for (final Hardware hw : Hardware.PREDEFINED) {
+                if (hw.architecture.equals(tmpArchitecture) && (hw.threads <= tmpThreads) && (hw.memory >= tmpMemory)) {
+                    ENVIRONMENT = hw.virtualise();
+                }
+            }
+
+            if ((ENVIRONMENT == null) && (System.getProperty(HardwareProbe.BENCHMARK) != null)) {
+                ENVIRONMENT = HardwareProbe.measure().virtualise();
             }
         }
 
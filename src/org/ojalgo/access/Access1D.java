@@ -26,6 +26,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.atomic.DoubleAdder;
 import java.util.stream.BaseStream;
+import java.util.stream.DoubleStream;
 import java.util.stream.StreamSupport;
 
 import org.ojalgo.function.VoidFunction;
@@ -441,6 +442,14 @@ public interface Access1D<N extends Number> extends Structure1D, Iterable<N> {
         return retVal.doubleValue();
     }
 
+    /**
+     * All the elements as a primitive stream – no element view or {@link Number} objects. Parallel streams
+     * split on cache line (or segment) boundaries.
+     */
+    default DoubleStream doubleStream(final boolean parallel) {
+        return StreamSupport.doubleStream(DoubleSpliterator.of(this), parallel);
+    }
+
     double doubleValue(long index);
 
     /**
@@ -0,0 +1,197 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.access;
+
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A primitive (double) spliterator over a range of indices. Elements are delivered as plain doubles – there
+ * are no element view objects. Always {@link Spliterator#SIZED} and {@link Spliterator#SUBSIZED}. Splits
+ * happen on cache line boundaries, unless a subclass knows of better boundaries – segment boundaries for
+ * segmented arrays.
+ *
+ * @author apete
+ */
+public abstract class DoubleSpliterator implements Spliterator.OfDouble {
+
+    static final class AccessView extends DoubleSpliterator {
+
+        private final Access1D<?> myValues;
+
+        AccessView(final Access1D<?> values, final long first, final long limit) {
+            super(first, limit);
+            myValues = values;
+        }
+
+        @Override
+        protected double doubleValue(final long index) {
+            return myValues.doubleValue(index);
+        }
+
+        @Override
+        protected DoubleSpliterator make(final long first, final long limit) {
+            return new AccessView(myValues, first, limit);
+        }
+
+    }
+
+    static final class ArrayView extends DoubleSpliterator {
+
+        private final double[] myData;
+
+        ArrayView(final double[] data, final long first, final long limit) {
+            super(first, limit);
+            myData = data;
+        }
+
+        @Override
+        public void forEachRemaining(final DoubleConsumer action) {
+            final double[] tmpData = myData;
+            final int tmpLimit = (int) this.limit();
+            for (int i = (int) this.advance(); i < tmpLimit; i++) {
+                action.accept(tmpData[i]);
+            }
+        }
+
+        @Override
+        protected double doubleValue(final long index) {
+            return myData[(int) index];
+        }
+
+        @Override
+        protected DoubleSpliterator make(final long first, final long limit) {
+            return new ArrayView(myData, first, limit);
+        }
+
+    }
+
+    public static final int CHARACTERISTICS = Spliterator.NONNULL | Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+
+    /**
+     * 8 doubles = 64 bytes, a typical cache line
+     */
+    static final long GRANULE = 8L;
+
+    public static DoubleSpliterator of(final Access1D<?> values) {
+        return DoubleSpliterator.of(values, 0L, values.count());
+    }
+
+    public static DoubleSpliterator of(final Access1D<?> values, final long first, final long limit) {
+        return new AccessView(values, first, limit);
+    }
+
+    public static DoubleSpliterator of(final double[] data, final int first, final int limit) {
+        return new ArrayView(data, first, limit);
+    }
+
+    private long myCursor;
+    private final long myLimit;
+
+    protected DoubleSpliterator(final long first, final long limit) {
+        super();
+        myCursor = first;
+        myLimit = limit;
+    }
+
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    public long estimateSize() {
+        return myLimit - myCursor;
+    }
+
+    @Override
+    public void forEachRemaining(final DoubleConsumer action) {
+        final long tmpLimit = myLimit;
+        for (long i = this.advance(); i < tmpLimit; i++) {
+            action.accept(this.doubleValue(i));
+        }
+    }
+
+    @Override
+    public long getExactSizeIfKnown() {
+        return myLimit - myCursor;
+    }
+
+    public boolean tryAdvance(final DoubleConsumer action) {
+        if (myCursor < myLimit) {
+            action.accept(this.doubleValue(myCursor++));
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    public DoubleSpliterator trySplit() {
+
+        final long tmpSplit = this.split(myCursor, myLimit);
+
+        if ((myCursor < tmpSplit) && (tmpSplit < myLimit)) {
+            final DoubleSpliterator retVal = this.make(myCursor, tmpSplit);
+            myCursor = tmpSplit;
+            return retVal;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Consumes all remaining elements
+     *
+     * @return The cursor position before advancing
+     */
+    protected final long advance() {
+        final long retVal = myCursor;
+        myCursor = myLimit;
+        return retVal;
+    }
+
+    protected abstract double doubleValue(long index);
+
+    protected final long limit() {
+        return myLimit;
+    }
+
+    protected abstract DoubleSpliterator make(long first, long limit);
+
+    /**
+     * The default implementation returns the middle of the range rounded down to a multiple of 8 (a cache line
+     * of doubles), and doesn't split ranges smaller than 2 cache lines.
+     *
+     * @return The index at which to split [first, limit), anything not strictly within that range means don't
+     *         split
+     */
+    protected long split(final long first, final long limit) {
+
+        if ((limit - first) < (GRANULE + GRANULE)) {
+            return first;
+        }
+
+        final long tmpMiddle = first + ((limit - first) / 2L);
+        final long retVal = tmpMiddle & -GRANULE;
+
+        return retVal > first ? retVal : tmpMiddle;
+    }
+
+}
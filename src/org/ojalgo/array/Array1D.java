@@ -30,6 +30,8 @@ import java.util.Spliterator;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveAction;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
 
 import org.ojalgo.ProgrammingError;
 import org.ojalgo.access.Access1D;
@@ -379,6 +381,15 @@ public final class Array1D<N extends Number> extends AbstractList<N>
         return length;
     }
 
+    @Override
+    public DoubleStream doubleStream(final boolean parallel) {
+        if (myStep == 1L) {
+            return StreamSupport.doubleStream(myDelegate.doubleSpliterator(myFirst, myLimit), parallel);
+        } else {
+            return Access1D.super.doubleStream(parallel);
+        }
+    }
+
     public double doubleValue(final long index) {
         return myDelegate.doubleValue(myFirst + (myStep * index));
     }
@@ -156,6 +156,15 @@ public final class Array2D<N extends Number> implements Access2D<N>, Access2D.El
             return myDelegate.function();
         }
 
+        /**
+         * Always dense (but maybe segmented), regardless of size. Different elements can safely be set
+         * concurrently by different threads – not so with the sparse arrays {@link #makeZero(long, long)}
+         * may return.
+         */
+        public final Array2D<N> makeDense(final long rows, final long columns) {
+            return myDelegate.makeToBeFilled(rows, columns).asArray2D(rows);
+        }
+
         public final Array2D<N> makeEye(final long rows, final long columns) {
 
             final BasicArray<N> tmpDelegate = myDelegate.makeStructuredZero(rows, columns);
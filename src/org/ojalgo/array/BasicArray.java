@@ -22,8 +22,11 @@
 package org.ojalgo.array;
 
 import java.io.Serializable;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
 
 import org.ojalgo.access.Access1D;
+import org.ojalgo.access.DoubleSpliterator;
 import org.ojalgo.access.Mutate1D;
 import org.ojalgo.access.StructureAnyD;
 import org.ojalgo.array.blas.AMAX;
@@ -171,6 +174,11 @@ public abstract class BasicArray<N extends Number> implements Access1D<N>, Acces
         super();
     }
 
+    @Override
+    public DoubleStream doubleStream(final boolean parallel) {
+        return StreamSupport.doubleStream(this.doubleSpliterator(0L, this.count()), parallel);
+    }
+
     public long indexOfLargest() {
         return this.indexOfLargest(0L, this.count(), 1L);
     }
@@ -278,6 +286,14 @@ public abstract class BasicArray<N extends Number> implements Access1D<N>, Acces
 
     protected abstract void visit(long first, long limit, long step, VoidFunction<N> visitor);
 
+    /**
+     * The elements in [first, limit) as primitive doubles. Subclasses split along their own (contiguous)
+     * storage when they can.
+     */
+    DoubleSpliterator doubleSpliterator(final long first, final long limit) {
+        return DoubleSpliterator.of(this, first, limit);
+    }
+
     /**
      * Safe to cast as DenseArray.
      */
@@ -201,6 +201,28 @@ public abstract class BufferArray extends PlainArray<Double> {
         return new DoubleBufferArray(DoubleBuffer.allocate(capacity), null);
     }
 
+    /**
+     * Maps (read-only) a region of little-endian doubles, such as the blocks written by
+     * {@link org.ojalgo.netio.ColumnarFile}. Nothing is copied. A single buffer can't address more than 2^31
+     * elements, and larger regions are mapped as segments of the given size.
+     *
+     * @param channel The file channel to map; may be closed once this method returns
+     * @param position Byte offset of the first element
+     * @param segment The (max) number of elements per mapped segment; must be a power of 2
+     * @param count Number of elements
+     */
+    public static Array1D<Double> map(final FileChannel channel, final long position, final int segment, final long count) throws IOException {
+        return BufferArray.map(channel, position, segment, new long[] { count }).asArray1D();
+    }
+
+    /**
+     * @see #map(FileChannel, long, int, long)
+     */
+    public static Array2D<Double> map(final FileChannel channel, final long position, final int segment, final long rows, final long columns)
+            throws IOException {
+        return BufferArray.map(channel, position, segment, new long[] { rows, columns }).asArray2D(rows);
+    }
+
     public static BufferArray wrap(final DoubleBuffer data) {
         return new DoubleBufferArray(data, null);
     }
@@ -286,6 +308,33 @@ public abstract class BufferArray extends PlainArray<Double> {
         }
     }
 
+    private static BasicArray<Double> map(final FileChannel channel, final long position, final int segment, final long[] structure) throws IOException {
+
+        if ((segment <= 0) || (Integer.bitCount(segment) != 1)) {
+            throw new IllegalArgumentException("Segment size must be a power of 2!");
+        }
+
+        final long tmpCount = StructureAnyD.count(structure);
+
+        if (tmpCount <= segment) {
+            return BufferArray.map(channel, position, (int) tmpCount);
+        }
+
+        final BasicArray<Double>[] tmpSegments = new BufferArray[(int) ((tmpCount + segment - 1L) / segment)];
+        for (int s = 0; s < tmpSegments.length; s++) {
+            final long tmpFirst = (long) s * segment;
+            tmpSegments[s] = BufferArray.map(channel, position + (tmpFirst * DOUBLE_ELEMENT_SIZE), (int) Math.min(segment, tmpCount - tmpFirst));
+        }
+
+        return new SegmentedArray<>(tmpSegments, DIRECT64);
+    }
+
+    private static BufferArray map(final FileChannel channel, final long position, final int count) throws IOException {
+        final MappedByteBuffer tmpMap = channel.map(MapMode.READ_ONLY, position, count * DOUBLE_ELEMENT_SIZE);
+        tmpMap.order(ByteOrder.LITTLE_ENDIAN);
+        return new DoubleBufferArray(tmpMap.asDoubleBuffer(), null);
+    }
+
     protected static void fill(final BufferArray data, final Access1D<?> value) {
         final int tmpLimit = (int) Math.min(data.count(), value.count());
         for (int i = 0; i < tmpLimit; i++) {
@@ -30,6 +30,7 @@ import java.util.stream.DoubleStream;
 import java.util.stream.StreamSupport;
 
 import org.ojalgo.access.Access1D;
+import org.ojalgo.access.DoubleSpliterator;
 import org.ojalgo.access.Mutate1D;
 import org.ojalgo.array.blas.AMAX;
 import org.ojalgo.array.blas.AXPY;
@@ -583,6 +584,11 @@ public class Primitive64Array extends PrimitiveArray {
         visitor.invoke(data[index]);
     }
 
+    @Override
+    DoubleSpliterator doubleSpliterator(final long first, final long limit) {
+        return DoubleSpliterator.of(data, (int) first, (int) limit);
+    }
+
     @Override
     void modify(final long extIndex, final int intIndex, final Access1D<Double> left, final BinaryFunction<Double> function) {
         data[intIndex] = function.invoke(left.doubleValue(extIndex), data[intIndex]);
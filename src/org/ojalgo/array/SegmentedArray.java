@@ -24,8 +24,10 @@ package org.ojalgo.array;
 import static org.ojalgo.constant.PrimitiveMath.*;
 
 import java.util.Arrays;
+import java.util.function.DoubleConsumer;
 
 import org.ojalgo.access.Access1D;
+import org.ojalgo.access.DoubleSpliterator;
 import org.ojalgo.function.BinaryFunction;
 import org.ojalgo.function.NullaryFunction;
 import org.ojalgo.function.UnaryFunction;
@@ -43,6 +45,56 @@ import org.ojalgo.function.VoidFunction;
  */
 final class SegmentedArray<N extends Number> extends BasicArray<N> {
 
+    /**
+     * Splits on segment boundaries while the range spans more than one segment.
+     */
+    final class SegmentView extends DoubleSpliterator {
+
+        SegmentView(final long first, final long limit) {
+            super(first, limit);
+        }
+
+        @Override
+        public void forEachRemaining(final DoubleConsumer action) {
+
+            final long tmpLimit = this.limit();
+
+            for (long i = this.advance(); i < tmpLimit;) {
+
+                final BasicArray<N> tmpSegment = mySegments[(int) (i >> myIndexBits)];
+                final long tmpSegmentLimit = Math.min(tmpLimit - (i & ~myIndexMask), tmpSegment.count());
+
+                for (long j = i & myIndexMask; j < tmpSegmentLimit; j++, i++) {
+                    action.accept(tmpSegment.doubleValue(j));
+                }
+            }
+        }
+
+        @Override
+        protected double doubleValue(final long index) {
+            return SegmentedArray.this.doubleValue(index);
+        }
+
+        @Override
+        protected DoubleSpliterator make(final long first, final long limit) {
+            return new SegmentView(first, limit);
+        }
+
+        @Override
+        protected long split(final long first, final long limit) {
+
+            final long tmpFirstSegment = first >> myIndexBits;
+            final long tmpLastSegment = (limit - 1L) >> myIndexBits;
+
+            if (tmpFirstSegment == tmpLastSegment) {
+                return super.split(first, limit);
+            } else {
+                return ((tmpFirstSegment + tmpLastSegment + 1L) / 2L) << myIndexBits;
+            }
+        }
+
+    }
+
     private final int myIndexBits;
     private final long myIndexMask;
     private final ArrayFactory<N, ?> mySegmentFactory;
@@ -454,6 +506,11 @@ final class SegmentedArray<N extends Number> extends BasicArray<N> {
         }
     }
 
+    @Override
+    DoubleSpliterator doubleSpliterator(final long first, final long limit) {
+        return new SegmentView(first, limit);
+    }
+
     @Override
     boolean isPrimitive() {
         return mySegments[0].isPrimitive();
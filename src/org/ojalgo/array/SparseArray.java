@@ -23,10 +23,14 @@ package org.ojalgo.array;
 
 import java.math.MathContext;
 import java.util.Arrays;
+import java.util.Spliterators;
 import java.util.function.Consumer;
+import java.util.stream.DoubleStream;
 import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 import org.ojalgo.access.Access1D;
+import org.ojalgo.access.DoubleSpliterator;
 import org.ojalgo.access.ElementView1D;
 import org.ojalgo.access.Mutate1D;
 import org.ojalgo.constant.PrimitiveMath;
@@ -35,7 +39,6 @@ import org.ojalgo.function.NullaryFunction;
 import org.ojalgo.function.PrimitiveFunction;
 import org.ojalgo.function.UnaryFunction;
 import org.ojalgo.function.VoidFunction;
-import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.scalar.PrimitiveScalar;
 import org.ojalgo.scalar.Scalar;
 import org.ojalgo.type.context.NumberContext;
@@ -50,6 +53,13 @@ import org.ojalgo.type.context.NumberContext;
  */
 public final class SparseArray<N extends Number> extends BasicArray<N> {
 
+    @FunctionalInterface
+    public interface NonzeroPrimitiveCallback {
+
+        void call(long index, double value);
+
+    }
+
     public static final class NonzeroView<N extends Number> implements ElementView1D<N, NonzeroView<N>> {
 
         private int myCursor = -1;
@@ -80,13 +90,6 @@ public final class SparseArray<N extends Number> extends BasicArray<N> {
             return myLastCursor - myCursor;
         }
 
-        public void forEachRemaining(final Consumer<? super NonzeroView<N>> action) {
-
-            BasicLogger.debug("forEachRemaining [{}, {})", myCursor, myLastCursor);
-
-            ElementView1D.super.forEachRemaining(action);
-        }
-
         public N getNumber() {
             return myValues.get(myCursor);
         }
@@ -385,6 +388,21 @@ public final class SparseArray<N extends Number> extends BasicArray<N> {
         this.set(index, modifier.invoke(this.get(index)));
     }
 
+    /**
+     * The indices of the nonzero elements, in increasing order – the same order as
+     * {@link #nonzeroValues(boolean)}.
+     */
+    public LongStream nonzeroIndices(final boolean parallel) {
+        return StreamSupport.longStream(Spliterators.spliterator(myIndices, 0, myActualLength, DoubleSpliterator.CHARACTERISTICS), parallel);
+    }
+
+    /**
+     * The values of the nonzero elements, ordered by their indices.
+     */
+    public DoubleStream nonzeroValues(final boolean parallel) {
+        return StreamSupport.doubleStream(myValues.doubleSpliterator(0L, myActualLength), parallel);
+    }
+
     public NonzeroView<N> nonzeros() {
         return new NonzeroView<>(myIndices, myValues, myActualLength);
     }
@@ -423,6 +441,25 @@ public final class SparseArray<N extends Number> extends BasicArray<N> {
         }
     }
 
+    /**
+     * Primitive (double) values – no element views. The callback is invoked in index order.
+     */
+    public void visitPrimitiveNonzerosInRange(final long first, final long limit, final NonzeroPrimitiveCallback visitor) {
+
+        int tmpCursor = this.index(first);
+        if (tmpCursor < 0) {
+            tmpCursor = -(tmpCursor + 1);
+        }
+
+        final long[] tmpIndices = myIndices;
+        final DenseArray<N> tmpValues = myValues;
+        final int tmpLength = myActualLength;
+
+        for (long tmpIndex; (tmpCursor < tmpLength) && ((tmpIndex = tmpIndices[tmpCursor]) < limit); tmpCursor++) {
+            visitor.call(tmpIndex, tmpValues.doubleValue(tmpCursor));
+        }
+    }
+
     public void visitOne(final long index, final VoidFunction<N> visitor) {
         if (this.isPrimitive()) {
             visitor.invoke(this.doubleValue(index));
@@ -21,15 +21,27 @@
  */
 package org.ojalgo.concurrent;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
-final class DaemonFactory implements ThreadFactory {
+final class DaemonFactory implements ThreadFactory, ForkJoinWorkerThreadFactory {
+
+    static final class Worker extends ForkJoinWorkerThread {
+
+        Worker(final ForkJoinPool pool) {
+            super(pool);
+        }
+
+    }
 
     static final DaemonFactory INSTANCE = new DaemonFactory();
 
     private static final String OJALGO_DAEMON_GROUP = "ojAlgo-daemon-group";
     private static final String PREFIX = "ojAlgo-daemon-";
+    private static final String WORKER_PREFIX = "ojAlgo-worker-";
     private static final int PRIORITY = Thread.NORM_PRIORITY - 1;
 
     private final AtomicInteger myNextThreadID = new AtomicInteger(1);
@@ -42,6 +54,17 @@ final class DaemonFactory implements ThreadFactory {
         myThreadGroup = new ThreadGroup(OJALGO_DAEMON_GROUP);
     }
 
+    public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+
+        final ForkJoinWorkerThread retVal = new Worker(pool);
+
+        retVal.setName(WORKER_PREFIX + myNextThreadID.getAndIncrement());
+        retVal.setDaemon(true);
+        retVal.setPriority(PRIORITY);
+
+        return retVal;
+    }
+
     public Thread newThread(final Runnable runnable) {
 
         final String tmpName = PREFIX + myNextThreadID.getAndIncrement();
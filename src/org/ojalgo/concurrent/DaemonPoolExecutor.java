@@ -59,6 +59,17 @@ public final class DaemonPoolExecutor extends ThreadPoolExecutor {
         return INSTANCE.getActiveCount() < OjAlgoUtils.ENVIRONMENT.threads;
     }
 
+    /**
+     * @return A new pool of (at most) the specified number of daemon threads. Tasks submitted while all
+     *         threads are busy are queued. Idle threads are allowed to time out.
+     */
+    public static DaemonPoolExecutor makeFixed(final int threads) {
+        final DaemonPoolExecutor retVal = new DaemonPoolExecutor(threads, threads, 2L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                DaemonFactory.INSTANCE);
+        retVal.allowCoreThreadTimeOut(true);
+        return retVal;
+    }
+
     static final DaemonPoolExecutor makeSingle() {
         return new DaemonPoolExecutor(1, 1, Long.MAX_VALUE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), DaemonFactory.INSTANCE);
     }
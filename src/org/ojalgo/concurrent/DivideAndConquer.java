@@ -21,17 +21,52 @@
  */
 package org.ojalgo.concurrent;
 
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-
-import org.ojalgo.OjAlgoUtils;
-import org.ojalgo.ProgrammingError;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
+ * Recursively splits an index range in halves, processing the parts in parallel, until the parts are small
+ * enough or there are no more workers to hand them to. Executes as fork-join tasks (work stealing, no
+ * blocked threads) in the pool of the current {@link ParallelScope}, and the number of workers is capped by
+ * that scope. The invoking thread always processes (at least) one of the parts itself. Any parallel operation
+ * nested inside {@link #conquer(int, int)} gets the share of the workers that was assigned to that part,
+ * rather than a new full set, so nesting does not oversubscribe.
+ *
  * @author apete
  */
 public abstract class DivideAndConquer extends Object {
 
+    final class Part extends RecursiveAction {
+
+        private final int myFirst;
+        private final int myLimit;
+        private final ParallelScope myScope;
+        private final int myThreshold;
+        private final int myWorkers;
+
+        Part(final ParallelScope scope, final int first, final int limit, final int threshold, final int workers) {
+
+            super();
+
+            myScope = scope;
+            myFirst = first;
+            myLimit = limit;
+            myThreshold = threshold;
+            myWorkers = workers;
+        }
+
+        @Override
+        protected void compute() {
+            DivideAndConquer.this.divide(myScope, myFirst, myLimit, myThreshold, myWorkers);
+        }
+
+    }
+
+    /**
+     * Don't split further if the current worker already has this many forked, not yet stolen, tasks queued.
+     */
+    private static final int SURPLUS = 3;
+
     public DivideAndConquer() {
         super();
     }
@@ -45,42 +80,50 @@ public abstract class DivideAndConquer extends Object {
      */
     public final void invoke(final int first, final int limit, final int threshold) {
 
-        final int modifiedThreshold = Math.max(1, (threshold * threshold) / (limit - first));
-        final int availableWorkers = OjAlgoUtils.ENVIRONMENT.threads - (DaemonPoolExecutor.INSTANCE.getActiveCount() / 2);
+        final ParallelScope tmpScope = ParallelScope.current();
+
+        final int modifiedThreshold = Math.max(1, (threshold * threshold) / Math.max(1, limit - first));
 
-        this.divide(first, limit, modifiedThreshold, availableWorkers);
+        this.divide(tmpScope, first, limit, modifiedThreshold, tmpScope.getParallelism());
     }
 
     protected abstract void conquer(final int first, final int limit);
 
-    final void divide(final int first, final int limit, final int threshold, final int workers) {
+    final void divide(final ParallelScope scope, final int first, final int limit, final int threshold, final int workers) {
 
         final int count = limit - first;
+        final boolean tmpWorker = scope.isWorker();
 
-        if ((count > threshold) && (workers > 1)) {
+        if ((count > threshold) && (workers > 1) && (!tmpWorker || (ForkJoinTask.getSurplusQueuedTaskCount() < SURPLUS))) {
 
             final int split = first + (count / 2);
             final int tmpWorkers = workers / 2;
 
-            final Future<?> tmpFirstPart = DaemonPoolExecutor.INSTANCE.submit(() -> {
-                DivideAndConquer.this.divide(first, split, threshold, tmpWorkers);
-            });
+            final Part tmpFirstPart = new Part(scope, first, split, threshold, tmpWorkers);
+            final Part tmpSecondPart = new Part(scope, split, limit, threshold, workers - tmpWorkers);
 
-            final Future<?> tmpSecondPart = DaemonPoolExecutor.INSTANCE.submit(() -> {
-                DivideAndConquer.this.divide(split, limit, threshold, tmpWorkers);
-            });
-
-            try {
-                tmpFirstPart.get();
-                tmpSecondPart.get();
-            } catch (final InterruptedException | ExecutionException exception) {
-                exception.printStackTrace();
-                throw new ProgrammingError(exception);
+            if (tmpWorker) {
+                ForkJoinTask.invokeAll(tmpFirstPart, tmpSecondPart);
+            } else {
+                scope.getPool().execute(tmpSecondPart);
+                tmpFirstPart.compute();
+                tmpSecondPart.join();
             }
 
         } else {
 
-            this.conquer(first, limit);
+            final ParallelScope tmpScope = scope.narrow(workers);
+
+            if (tmpScope == ParallelScope.current()) {
+                this.conquer(first, limit);
+            } else {
+                final ParallelScope tmpPrevious = ParallelScope.enter(tmpScope);
+                try {
+                    this.conquer(first, limit);
+                } finally {
+                    ParallelScope.restore(tmpPrevious);
+                }
+            }
         }
     }
 
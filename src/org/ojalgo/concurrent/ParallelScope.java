@@ -0,0 +1,236 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.ProgrammingError;
+
+/**
+ * Decides where, and with how many workers, {@link DivideAndConquer} tasks execute. Outside of any explicit
+ * scope work is forked to a shared ojAlgo pool and split in (at most) as many parts as there are hardware
+ * threads. Wrapping a computation in {@link #call(ForkJoinPool, int, Callable)} (or any of its variants)
+ * redirects all parallel work it triggers, including nested parallel operations, to the given pool and caps
+ * the number of parts that may run concurrently. The calling thread always participates.
+ * <p>
+ * The scope is bound to the calling thread (and handed on to the pool threads that do the work). Code that
+ * fans out tasks of its own, rather than using {@link DivideAndConquer}, should {@link #fork(Runnable)} them.
+ * Work that the computation explicitly submits to other executors, such as {@link DaemonPoolExecutor}, is not
+ * affected.
+ *
+ * @author apete
+ */
+public final class ParallelScope {
+
+    /**
+     * Executed by one of the pool threads, or by the thread waiting for it – whichever gets to it first.
+     */
+    private static final class Forked extends FutureTask<Object> {
+
+        Forked(final ParallelScope scope, final Runnable task) {
+            super(() -> {
+                final ParallelScope tmpPrevious = ParallelScope.enter(scope);
+                try {
+                    task.run();
+                } finally {
+                    ParallelScope.restore(tmpPrevious);
+                }
+            }, null);
+        }
+
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            this.run(); // No-op if already started
+            return super.get();
+        }
+
+        @Override
+        public Object get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            this.run(); // No-op if already started
+            return super.get(timeout, unit);
+        }
+
+    }
+
+    static final ForkJoinPool POOL = new ForkJoinPool(Math.max(2, OjAlgoUtils.ENVIRONMENT.threads), DaemonFactory.INSTANCE, null, false);
+
+    private static final ThreadLocal<ParallelScope> CURRENT = new ThreadLocal<>();
+    private static final ParallelScope DEFAULT = new ParallelScope(POOL, 0);
+
+    /**
+     * Use the default (shared) pool, but never more than parallelism concurrent workers (including the
+     * calling thread).
+     */
+    public static <T> T call(final int parallelism, final Callable<T> computation) {
+        return ParallelScope.call(POOL, parallelism, computation);
+    }
+
+    /**
+     * Use the supplied pool, and as many concurrent workers as it is configured for.
+     */
+    public static <T> T call(final ForkJoinPool pool, final Callable<T> computation) {
+        return ParallelScope.call(pool, pool.getParallelism(), computation);
+    }
+
+    /**
+     * @param pool Where forked work is executed
+     * @param parallelism The max number of concurrent workers, including the calling thread
+     * @param computation Executed in the calling thread
+     * @return Whatever the computation returns
+     */
+    public static <T> T call(final ForkJoinPool pool, final int parallelism, final Callable<T> computation) {
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        final ParallelScope tmpPrevious = CURRENT.get();
+        CURRENT.set(new ParallelScope(pool, parallelism));
+        try {
+            return computation.call();
+        } catch (final RuntimeException | Error cause) {
+            throw cause;
+        } catch (final Exception cause) {
+            throw new ProgrammingError(cause);
+        } finally {
+            ParallelScope.restore(tmpPrevious);
+        }
+    }
+
+    /**
+     * Execute the task in the current scope's pool. The task runs within that scope, narrowed to a single
+     * worker, so any parallel operations it starts are executed sequentially. Callers should size their
+     * fan-out using {@link #parallelism()} and do a share of the work themselves. A busy pool may not start
+     * the task at all before someone waits for it – then it is executed by the waiting thread.
+     *
+     * @return The task, to wait for
+     */
+    public static Future<?> fork(final Runnable task) {
+
+        final ParallelScope tmpScope = ParallelScope.current();
+
+        final Forked retVal = new Forked(tmpScope.narrow(1), task);
+        tmpScope.getPool().execute(retVal);
+        return retVal;
+    }
+
+    /**
+     * @return The max number of concurrent workers available to parallel operations started by the calling
+     *         thread
+     */
+    public static int parallelism() {
+        return ParallelScope.current().getParallelism();
+    }
+
+    /**
+     * @see #call(int, Callable)
+     */
+    public static void run(final int parallelism, final Runnable computation) {
+        ParallelScope.call(POOL, parallelism, Executors.callable(computation));
+    }
+
+    /**
+     * @see #call(ForkJoinPool, Callable)
+     */
+    public static void run(final ForkJoinPool pool, final Runnable computation) {
+        ParallelScope.call(pool, pool.getParallelism(), Executors.callable(computation));
+    }
+
+    /**
+     * @see #call(ForkJoinPool, int, Callable)
+     */
+    public static void run(final ForkJoinPool pool, final int parallelism, final Runnable computation) {
+        ParallelScope.call(pool, parallelism, Executors.callable(computation));
+    }
+
+    static ParallelScope current() {
+        final ParallelScope retVal = CURRENT.get();
+        return retVal != null ? retVal : DEFAULT;
+    }
+
+    static ParallelScope enter(final ParallelScope scope) {
+        final ParallelScope retVal = CURRENT.get();
+        CURRENT.set(scope);
+        return retVal;
+    }
+
+    static void restore(final ParallelScope previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    private final int myParallelism;
+    private final ForkJoinPool myPool;
+
+    private ParallelScope(final ForkJoinPool pool, final int parallelism) {
+
+        super();
+
+        myPool = pool;
+        myParallelism = parallelism;
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelScope [parallelism=" + this.getParallelism() + ", pool=" + myPool + "]";
+    }
+
+    int getParallelism() {
+        return myParallelism > 0 ? myParallelism : OjAlgoUtils.ENVIRONMENT.threads;
+    }
+
+    ForkJoinPool getPool() {
+        return myPool;
+    }
+
+    /**
+     * @return true if the current thread is one of this scope's pool threads
+     */
+    boolean isWorker() {
+        final Thread tmpThread = Thread.currentThread();
+        return (tmpThread instanceof ForkJoinWorkerThread) && (((ForkJoinWorkerThread) tmpThread).getPool() == myPool);
+    }
+
+    /**
+     * @return A scope, with the same pool, allowing at most the specified number of workers
+     */
+    ParallelScope narrow(final int parallelism) {
+        if (parallelism >= this.getParallelism()) {
+            return this;
+        } else {
+            return new ParallelScope(myPool, Math.max(1, parallelism));
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BinaryOperator;
+
+/**
+ * Reduces a range of elements to a single result such that the result is bit-identical regardless of the
+ * number of threads. The elements are split in blocks of {@link #BLOCK} elements (the last block may be
+ * smaller), the blocks are reduced separately – in parallel if there are more than a threshold number of
+ * them – and then the
+ * partial results are merged pairwise in a fixed (tree shaped) order. How the elements are grouped and in
+ * which order the partial results are combined depends only on the number of elements; not on the number of
+ * threads or on which thread finishes first.
+ *
+ * @author apete
+ */
+public final class ReproducibleReduction {
+
+    /**
+     * Reduces the elements in [first, limit) sequentially. May be called concurrently for different blocks.
+     */
+    @FunctionalInterface
+    public interface Block<T> {
+
+        T reduce(long first, long limit);
+
+    }
+
+    /**
+     * The number of elements reduced (sequentially) per block. Results are reproducible for as long as this
+     * is not changed.
+     */
+    public static int BLOCK = 4096;
+
+    /**
+     * The default number of blocks (not elements) that are reduced sequentially. Does not affect the results.
+     */
+    public static int THRESHOLD = 16;
+
+    /**
+     * @see #invoke(long, int, Block, BinaryOperator)
+     */
+    public static <T> T invoke(final long count, final Block<T> block, final BinaryOperator<T> merger) {
+        return ReproducibleReduction.invoke(count, THRESHOLD, block, merger);
+    }
+
+    /**
+     * @param count The number of elements
+     * @param threshold With at most this many blocks everything is done in the invoking thread, otherwise the
+     *        blocks are split in parts of (roughly) this many blocks that are reduced in parallel
+     * @param block Reduces one block of elements
+     * @param merger Merges two partial results – always called from the invoking thread, in a fixed order. It
+     *        may modify and return its first argument.
+     */
+    public static <T> T invoke(final long count, final int threshold, final Block<T> block, final BinaryOperator<T> merger) {
+
+        final int tmpBlock = Math.max(1, BLOCK);
+        final long tmpBlocks = (count + tmpBlock - 1L) / tmpBlock;
+
+        if (tmpBlocks <= 1L) {
+            return block.reduce(0L, count);
+        }
+
+        if (tmpBlocks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException();
+        }
+
+        final List<T> tmpPartResults = new ArrayList<>((int) tmpBlocks);
+        for (int b = 0; b < tmpBlocks; b++) {
+            tmpPartResults.add(null);
+        }
+
+        if (tmpBlocks > threshold) {
+
+            final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    ReproducibleReduction.reduce(count, tmpBlock, first, limit, block, tmpPartResults);
+                }
+            };
+
+            tmpConquerer.invoke(0, (int) tmpBlocks, Math.max(1, threshold));
+
+        } else {
+
+            ReproducibleReduction.reduce(count, tmpBlock, 0, (int) tmpBlocks, block, tmpPartResults);
+        }
+
+        for (int tmpLength = (int) tmpBlocks; tmpLength > 1; tmpLength = (tmpLength + 1) / 2) {
+            for (int i = 0, j = 0; j < tmpLength; i++, j += 2) {
+                if ((j + 1) < tmpLength) {
+                    tmpPartResults.set(i, merger.apply(tmpPartResults.get(j), tmpPartResults.get(j + 1)));
+                } else {
+                    tmpPartResults.set(i, tmpPartResults.get(j));
+                }
+            }
+        }
+
+        return tmpPartResults.get(0);
+    }
+
+    private static <T> void reduce(final long count, final int size, final int first, final int limit, final Block<T> block,
+            final List<T> partResults) {
+        for (int b = first; b < limit; b++) {
+            partResults.set(b, block.reduce(b * (long) size, Math.min(count, (b + 1L) * size)));
+        }
+    }
+
+    private ReproducibleReduction() {
+        super();
+    }
+
+}
@@ -0,0 +1,412 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.finance;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.access.Access1D;
+import org.ojalgo.access.Access2D;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+
+/**
+ * Covariance matrix estimation from a matrix of returns – observations (time) in rows and variables (assets)
+ * in columns. The returns are centered once, then the (lower triangle of the) Gram matrix is computed with a
+ * blocked kernel, 4 columns at the time, and mirrored.
+ * <p>
+ * The static methods estimate from a complete return matrix. An instance maintains an estimate that is
+ * updated incrementally, one observation at the time, in O(n<sup>2</sup>) rather than O(n<sup>2</sup>T).
+ *
+ * @author apete
+ */
+public final class CovarianceEstimator {
+
+    /**
+     * Number of groups (of 4 columns) below which the Gram matrix is not computed in parallel
+     */
+    public static int THRESHOLD = 16;
+
+    /**
+     * Exponentially weighted covariances – observation t (of T) is given the weight lambda<sup>T-1-t</sup>,
+     * and the weights are normalised to sum to 1. The mean is weighted the same way.
+     *
+     * @param returns Observations in rows and variables in columns, the last row is the most recent
+     * @param lambda The decay factor, (0,1]. RiskMetrics used 0.94 for daily data.
+     */
+    public static PrimitiveDenseStore exponential(final Access2D<?> returns, final double lambda) {
+
+        if ((lambda <= ZERO) || (lambda > ONE)) {
+            throw new IllegalArgumentException();
+        }
+
+        final int tmpObservations = (int) returns.countRows();
+
+        final double[] tmpWeights = new double[tmpObservations];
+        double tmpFactor = ONE;
+        double tmpSum = ZERO;
+        for (int t = tmpObservations - 1; t >= 0; t--) {
+            tmpWeights[t] = tmpFactor;
+            tmpSum += tmpFactor;
+            tmpFactor *= lambda;
+        }
+        for (int t = 0; t < tmpObservations; t++) {
+            tmpWeights[t] /= tmpSum;
+        }
+
+        return CovarianceEstimator.estimate(returns, tmpWeights, ONE);
+    }
+
+    /**
+     * Sample covariances (dividing by T-1). The same as {@link org.ojalgo.random.SampleSet#getCovariance(org.ojalgo.random.SampleSet)}
+     * for all pairs of columns, but with a fraction of the work.
+     *
+     * @param returns Observations in rows and variables in columns
+     */
+    public static PrimitiveDenseStore sample(final Access2D<?> returns) {
+        return CovarianceEstimator.estimate(returns, null, ONE / (returns.countRows() - 1L));
+    }
+
+    /**
+     * Ledoit-Wolf shrinkage of the sample covariances towards a multiple of the identity matrix, with the
+     * asymptotically optimal shrinkage intensity. Always well conditioned, also when there are more
+     * variables than observations.
+     *
+     * @param returns Observations in rows and variables in columns
+     * @see <a href="http://www.ledoit.net/ole1a.pdf">A well-conditioned estimator for large-dimensional
+     *      covariance matrices</a>
+     */
+    public static PrimitiveDenseStore shrunk(final Access2D<?> returns) {
+
+        final int tmpObservations = (int) returns.countRows();
+        final int tmpVariables = (int) returns.countColumns();
+
+        final double[] tmpCentered = CovarianceEstimator.center(returns, null);
+
+        // Maximum likelihood estimate (dividing by T) as in the paper
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(tmpVariables, tmpVariables);
+        CovarianceEstimator.gram(retVal.data, tmpCentered, tmpObservations, tmpVariables, ONE / tmpObservations);
+        final double[] tmpCovariances = retVal.data;
+
+        double tmpTrace = ZERO;
+        double tmpFrobenius2 = ZERO;
+        for (int j = 0; j < tmpVariables; j++) {
+            for (int i = 0; i < tmpVariables; i++) {
+                final double tmpValue = tmpCovariances[i + (j * tmpVariables)];
+                tmpFrobenius2 += tmpValue * tmpValue;
+            }
+            tmpTrace += tmpCovariances[j + (j * tmpVariables)];
+        }
+        final double tmpMu = tmpTrace / tmpVariables;
+
+        // ||S - mu*I||^2
+        final double tmpDelta2 = (tmpFrobenius2 - (tmpMu * tmpTrace)) / tmpVariables;
+
+        // Sum over t of ||x_t*x_t' - S||^2 == Sum over t of ||x_t||^4 - T*||S||^2
+        final double[] tmpNorms2 = new double[tmpObservations];
+        for (int j = 0; j < tmpVariables; j++) {
+            for (int t = 0, ij = j * tmpObservations; t < tmpObservations; t++, ij++) {
+                tmpNorms2[t] += tmpCentered[ij] * tmpCentered[ij];
+            }
+        }
+        double tmpSum4 = ZERO;
+        for (int t = 0; t < tmpObservations; t++) {
+            tmpSum4 += tmpNorms2[t] * tmpNorms2[t];
+        }
+        final double tmpBeta2 = Math.min(tmpDelta2,
+                Math.max(ZERO, (tmpSum4 - (tmpObservations * tmpFrobenius2)) / ((double) tmpObservations * tmpObservations * tmpVariables)));
+
+        final double tmpIntensity = tmpDelta2 > ZERO ? tmpBeta2 / tmpDelta2 : ONE;
+
+        for (int ij = 0; ij < tmpCovariances.length; ij++) {
+            tmpCovariances[ij] *= ONE - tmpIntensity;
+        }
+        for (int j = 0; j < tmpVariables; j++) {
+            tmpCovariances[j + (j * tmpVariables)] += tmpIntensity * tmpMu;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * @param weights Observation weights that sum to 1, or null for equal weights
+     * @return The centered (and, with weights, scaled by the square root of the weights) returns, column
+     *         major
+     */
+    static double[] center(final Access2D<?> returns, final double[] weights) {
+
+        final int tmpObservations = (int) returns.countRows();
+        final int tmpVariables = (int) returns.countColumns();
+
+        final double[] retVal = new double[tmpObservations * tmpVariables];
+
+        for (int j = 0; j < tmpVariables; j++) {
+
+            final int tmpFirst = j * tmpObservations;
+
+            double tmpMean = ZERO;
+            for (int t = 0; t < tmpObservations; t++) {
+                final double tmpValue = returns.doubleValue(t, j);
+                retVal[tmpFirst + t] = tmpValue;
+                tmpMean += weights != null ? weights[t] * tmpValue : tmpValue;
+            }
+            if (weights == null) {
+                tmpMean /= tmpObservations;
+            }
+
+            for (int t = 0; t < tmpObservations; t++) {
+                final double tmpValue = retVal[tmpFirst + t] - tmpMean;
+                retVal[tmpFirst + t] = weights != null ? Math.sqrt(weights[t]) * tmpValue : tmpValue;
+            }
+        }
+
+        return retVal;
+    }
+
+    static PrimitiveDenseStore estimate(final Access2D<?> returns, final double[] weights, final double scale) {
+
+        final int tmpVariables = (int) returns.countColumns();
+
+        final double[] tmpCentered = CovarianceEstimator.center(returns, weights);
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(tmpVariables, tmpVariables);
+
+        CovarianceEstimator.gram(retVal.data, tmpCentered, (int) returns.countRows(), tmpVariables, scale);
+
+        return retVal;
+    }
+
+    /**
+     * product = scale * data' * data, where data is (column major) rows x columns. Only the lower triangle
+     * is calculated, then copied to the upper.
+     */
+    static void gram(final double[] product, final double[] data, final int rows, final int columns, final double scale) {
+
+        final int tmpGroups = (columns + 3) / 4;
+
+        if (tmpGroups > THRESHOLD) {
+
+            final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int first, final int limit) {
+                    CovarianceEstimator.gram(product, data, rows, columns, scale, first, limit);
+                }
+
+            };
+
+            tmpConquerer.invoke(0, tmpGroups, THRESHOLD);
+
+        } else {
+
+            CovarianceEstimator.gram(product, data, rows, columns, scale, 0, tmpGroups);
+        }
+
+        for (int j = 1; j < columns; j++) {
+            for (int i = 0; i < j; i++) {
+                product[i + (j * columns)] = product[j + (i * columns)];
+            }
+        }
+    }
+
+    static void gram(final double[] product, final double[] data, final int rows, final int columns, final double scale, final int firstGroup,
+            final int limitGroup) {
+
+        for (int g = firstGroup; g < limitGroup; g++) {
+
+            final int j0 = g * 4;
+            final int tmpWidth = Math.min(4, columns - j0);
+
+            if (tmpWidth == 4) {
+
+                final int c0 = j0 * rows, c1 = c0 + rows, c2 = c1 + rows, c3 = c2 + rows;
+
+                // Column i is streamed once for 4 dot products
+                for (int i = j0; i < columns; i++) {
+
+                    final int ci = i * rows;
+
+                    double s0 = ZERO, s1 = ZERO, s2 = ZERO, s3 = ZERO;
+                    for (int t = 0; t < rows; t++) {
+                        final double tmpValue = data[ci + t];
+                        s0 += data[c0 + t] * tmpValue;
+                        s1 += data[c1 + t] * tmpValue;
+                        s2 += data[c2 + t] * tmpValue;
+                        s3 += data[c3 + t] * tmpValue;
+                    }
+
+                    // Only the lower triangle; i >= j
+                    final int tmpIndex = i + (j0 * columns);
+                    product[tmpIndex] = scale * s0;
+                    if (i >= (j0 + 1)) {
+                        product[tmpIndex + columns] = scale * s1;
+                    }
+                    if (i >= (j0 + 2)) {
+                        product[tmpIndex + (2 * columns)] = scale * s2;
+                    }
+                    if (i >= (j0 + 3)) {
+                        product[tmpIndex + (3 * columns)] = scale * s3;
+                    }
+                }
+
+            } else {
+
+                for (int j = j0; j < (j0 + tmpWidth); j++) {
+                    final int cj = j * rows;
+                    for (int i = j; i < columns; i++) {
+                        final int ci = i * rows;
+                        double tmpSum = ZERO;
+                        for (int t = 0; t < rows; t++) {
+                            tmpSum += data[cj + t] * data[ci + t];
+                        }
+                        product[i + (j * columns)] = scale * tmpSum;
+                    }
+                }
+            }
+        }
+    }
+
+    private long myCount = 0L;
+    private final double myLambda;
+    private final double[] myMeans;
+    /**
+     * Column major, only the lower triangle is maintained. With lambda == 1 it's the sum of the squared
+     * deviations (the co-moments), otherwise the covariances.
+     */
+    private final double[] myMoments;
+    private final int myVariables;
+
+    /**
+     * Equally weighted, incrementally updated, sample covariances.
+     *
+     * @param numberOfVariables The number of variables (assets)
+     */
+    public CovarianceEstimator(final int numberOfVariables) {
+        this(numberOfVariables, ONE);
+    }
+
+    /**
+     * Exponentially weighted, incrementally updated, covariances. The first observation only initialises the
+     * mean, after that each update is m += (1-lambda)*d and C = lambda*(C + (1-lambda)*d*d') where d is the
+     * deviation from the previous mean. With lambda == 1 the estimate is the sample covariance (dividing by
+     * n-1).
+     *
+     * @param numberOfVariables The number of variables (assets)
+     * @param lambda The decay factor, (0,1]
+     */
+    public CovarianceEstimator(final int numberOfVariables, final double lambda) {
+
+        super();
+
+        if ((lambda <= ZERO) || (lambda > ONE)) {
+            throw new IllegalArgumentException();
+        }
+
+        myVariables = numberOfVariables;
+        myLambda = lambda;
+        myMeans = new double[numberOfVariables];
+        myMoments = new double[numberOfVariables * numberOfVariables];
+    }
+
+    public long count() {
+        return myCount;
+    }
+
+    /**
+     * @return A new matrix with the current covariance estimates
+     */
+    public PrimitiveDenseStore getCovariances() {
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(myVariables, myVariables);
+        final double[] tmpData = retVal.data;
+
+        final double tmpScale = myLambda == ONE ? (myCount > 1L ? ONE / (myCount - 1L) : ZERO) : ONE;
+
+        for (int j = 0; j < myVariables; j++) {
+            for (int i = j; i < myVariables; i++) {
+                final double tmpValue = tmpScale * myMoments[i + (j * myVariables)];
+                tmpData[i + (j * myVariables)] = tmpValue;
+                tmpData[j + (i * myVariables)] = tmpValue;
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * @return A new matrix (column vector) with the current mean estimates
+     */
+    public PrimitiveDenseStore getMeans() {
+        return PrimitiveDenseStore.FACTORY.columns(myMeans);
+    }
+
+    /**
+     * Add an observation – a rank-1 update of the lower triangle.
+     *
+     * @param returns One return per variable
+     */
+    public void update(final Access1D<?> returns) {
+
+        final double[] tmpDeviations = new double[myVariables];
+
+        myCount++;
+
+        if (myLambda == ONE) {
+
+            // Welford
+            final double tmpWeight = ONE / myCount;
+            for (int i = 0; i < myVariables; i++) {
+                tmpDeviations[i] = returns.doubleValue(i) - myMeans[i];
+                myMeans[i] += tmpWeight * tmpDeviations[i];
+            }
+
+            for (int j = 0; j < myVariables; j++) {
+                // (x - new mean)[j] == (1 - 1/n) * d[j]
+                final double tmpFactor = (ONE - tmpWeight) * tmpDeviations[j];
+                for (int i = j, ij = j + (j * myVariables); i < myVariables; i++, ij++) {
+                    myMoments[ij] += tmpDeviations[i] * tmpFactor;
+                }
+            }
+
+        } else if (myCount == 1L) {
+
+            for (int i = 0; i < myVariables; i++) {
+                myMeans[i] = returns.doubleValue(i);
+            }
+
+        } else {
+
+            final double tmpAlpha = ONE - myLambda;
+            for (int i = 0; i < myVariables; i++) {
+                tmpDeviations[i] = returns.doubleValue(i) - myMeans[i];
+                myMeans[i] += tmpAlpha * tmpDeviations[i];
+            }
+
+            for (int j = 0; j < myVariables; j++) {
+                final double tmpFactor = tmpAlpha * tmpDeviations[j];
+                for (int i = j, ij = j + (j * myVariables); i < myVariables; i++, ij++) {
+                    myMoments[ij] = myLambda * (myMoments[ij] + (tmpDeviations[i] * tmpFactor));
+                }
+            }
+        }
+    }
+
+}
@@ -44,14 +44,15 @@ import org.ojalgo.matrix.PrimitiveMatrix;
 import org.ojalgo.matrix.decomposition.Eigenvalue;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
 import org.ojalgo.random.Deterministic;
 import org.ojalgo.random.RandomNumber;
 import org.ojalgo.random.RandomUtils;
 import org.ojalgo.random.SampleSet;
 import org.ojalgo.random.process.GeometricBrownianMotion;
+import org.ojalgo.series.AlignedPanel;
 import org.ojalgo.series.CalendarDateSeries;
 import org.ojalgo.series.CoordinationSet;
-import org.ojalgo.series.primitive.PrimitiveSeries;
 import org.ojalgo.type.CalendarDate;
 import org.ojalgo.type.CalendarDateUnit;
 
@@ -125,93 +126,76 @@ public abstract class FinanceUtils {
     /**
      * @param timeSeriesCollection
      * @return Annualised covariances
+     * @see CovarianceEstimator
      */
     public static <V extends Number> BasicMatrix makeCovarianceMatrix(final Collection<CalendarDateSeries<V>> timeSeriesCollection) {
 
-        final CoordinationSet<V> tmpCoordinator = new CoordinationSet<>(timeSeriesCollection).prune();
+        final CoordinationSet<V> tmpCoordinator = new CoordinationSet<>(timeSeriesCollection);
 
-        final ArrayList<SampleSet> tmpSampleSets = new ArrayList<>();
+        final ArrayList<String> tmpNames = new ArrayList<>();
         for (final CalendarDateSeries<V> tmpTimeSeries : timeSeriesCollection) {
-            final double[] values = tmpCoordinator.get(tmpTimeSeries.getName()).asPrimitive().toRawCopy1D();
-            final int tmpSize1 = values.length - 1;
-
-            final double[] retVal = new double[tmpSize1];
-
-            for (int i = 0; i < tmpSize1; i++) {
-                retVal[i] = PrimitiveFunction.LOG.invoke(values[i + 1] / values[i]);
-            }
-            final SampleSet tmpMakeUsingLogarithmicChanges = SampleSet.wrap(Access1D.wrapAccess1D(retVal));
-            tmpSampleSets.add(tmpMakeUsingLogarithmicChanges);
+            tmpNames.add(tmpTimeSeries.getName());
         }
 
-        final int tmpSize = timeSeriesCollection.size();
+        final AlignedPanel tmpPanel = tmpCoordinator.align(tmpNames);
 
-        final Builder<PrimitiveMatrix> retValStore = PrimitiveMatrix.FACTORY.getBuilder(tmpSize, tmpSize);
+        final double tmpToYearFactor = (double) CalendarDateUnit.YEAR.size() / (double) tmpPanel.getResolution().size();
 
-        final double tmpToYearFactor = (double) CalendarDateUnit.YEAR.size() / (double) tmpCoordinator.getResolution().size();
-
-        SampleSet tmpRowSet;
-        SampleSet tmpColSet;
-
-        for (int j = 0; j < tmpSize; j++) {
+        final PrimitiveDenseStore tmpCovariances = CovarianceEstimator.sample(FinanceUtils.makeLogarithmicChanges(tmpPanel));
+        tmpCovariances.modifyAll(PrimitiveFunction.MULTIPLY.second(tmpToYearFactor));
 
-            tmpColSet = tmpSampleSets.get(j);
-
-            for (int i = 0; i < tmpSize; i++) {
-
-                tmpRowSet = tmpSampleSets.get(i);
-
-                retValStore.set(i, j, tmpToYearFactor * tmpRowSet.getCovariance(tmpColSet));
-            }
-        }
-
-        return retValStore.build();
+        return PrimitiveMatrix.FACTORY.copy(tmpCovariances);
     }
 
     /**
      * @param listOfTimeSeries An ordered collection of time series
      * @param mayBeMissingValues Individual series may be missing some values - try to fix this or not
      * @return Annualised covariances
+     * @see CovarianceEstimator
      */
     public static <N extends Number> PrimitiveMatrix makeCovarianceMatrix(final List<CalendarDateSeries<N>> listOfTimeSeries,
             final boolean mayBeMissingValues) {
 
-        final int tmpSize = listOfTimeSeries.size();
-
         final CoordinationSet<N> tmpUncoordinated = new CoordinationSet<>(listOfTimeSeries);
         final CalendarDateUnit tmpDataResolution = tmpUncoordinated.getResolution();
-        if (mayBeMissingValues) {
-            tmpUncoordinated.complete();
-        }
 
-        final CoordinationSet<N> tmpCoordinated = tmpUncoordinated.prune(tmpDataResolution);
+        final ArrayList<String> tmpNames = new ArrayList<>();
+        for (final CalendarDateSeries<N> tmpTimeSeries : listOfTimeSeries) {
+            tmpNames.add(tmpTimeSeries.getName());
+        }
 
-        final Builder<PrimitiveMatrix> tmpMatrixBuilder = PrimitiveMatrix.FACTORY.getBuilder(tmpSize, tmpSize);
+        final AlignedPanel tmpPanel = tmpUncoordinated.align(tmpNames, tmpDataResolution, mayBeMissingValues, AlignedPanel.Fill.FORWARD);
 
         final double tmpToYearFactor = (double) CalendarDateUnit.YEAR.size() / (double) tmpDataResolution.size();
 
-        SampleSet tmpSampleSet;
-        final SampleSet[] tmpSampleSets = new SampleSet[tmpSize];
+        final PrimitiveDenseStore tmpCovariances = CovarianceEstimator.sample(FinanceUtils.makeLogarithmicChanges(tmpPanel));
+        tmpCovariances.modifyAll(PrimitiveFunction.MULTIPLY.second(tmpToYearFactor));
 
-        for (int j = 0; j < tmpSize; j++) {
+        return PrimitiveMatrix.FACTORY.copy(tmpCovariances);
+    }
 
-            final PrimitiveSeries tmpPrimitiveSeries = tmpCoordinated.get(listOfTimeSeries.get(j).getName()).asPrimitive();
+    /**
+     * @return The logarithmic changes of the aligned series as columns of a matrix
+     */
+    static PrimitiveDenseStore makeLogarithmicChanges(final AlignedPanel panel) {
 
-            tmpSampleSet = SampleSet.wrap(tmpPrimitiveSeries.quotients().log().toDataSeries());
+        final int tmpRows = Math.max(0, panel.countRows() - 1);
+        final int tmpColumns = panel.countColumns();
 
-            tmpMatrixBuilder.set(j, j, tmpToYearFactor * tmpSampleSet.getVariance());
+        final MatrixStore<Double> tmpBlock = panel.getBlock();
 
-            for (int i = 0; i < j; i++) {
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(tmpRows, tmpColumns);
 
-                final double tmpCovariance = tmpToYearFactor * tmpSampleSets[i].getCovariance(tmpSampleSet);
-                tmpMatrixBuilder.set(i, j, tmpCovariance);
-                tmpMatrixBuilder.set(j, i, tmpCovariance);
+        for (int j = 0; (tmpRows > 0) && (j < tmpColumns); j++) {
+            double tmpPrevious = tmpBlock.doubleValue(0, j);
+            for (int i = 0; i < tmpRows; i++) {
+                final double tmpNext = tmpBlock.doubleValue(i + 1, j);
+                retVal.set(i, j, PrimitiveFunction.LOG.invoke(tmpNext / tmpPrevious));
+                tmpPrevious = tmpNext;
             }
-
-            tmpSampleSets[j] = tmpSampleSet;
         }
 
-        return tmpMatrixBuilder.get();
+        return retVal;
     }
 
     public static CalendarDateSeries<BigDecimal> makeDatePriceSeries(final double[] prices, final Date startDate, final CalendarDateUnit resolution) {
@@ -21,6 +21,7 @@
  */
 package org.ojalgo.finance.data;
 
+import java.io.File;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -95,6 +96,20 @@ public abstract class DataSource<DP extends DatePrice> implements BasicParser<DP
         }
     }
 
+    /**
+     * Parses the file in parallel, see {@link #parseInParallel(File, java.util.function.Consumer)}.
+     */
+    public List<DP> getHistoricalPrices(final File file) {
+
+        final ArrayList<DP> retVal = new ArrayList<>();
+
+        this.parseInParallel(file, i -> retVal.add(i));
+
+        Collections.sort(retVal);
+
+        return retVal;
+    }
+
     public List<DP> getHistoricalPrices(final Reader reader) {
 
         final ArrayList<DP> retVal = new ArrayList<>();
@@ -117,13 +132,24 @@ public abstract class DataSource<DP extends DatePrice> implements BasicParser<DP
         }
     }
 
+    /**
+     * Parses the file in parallel, see {@link #parseInParallel(File, java.util.function.Consumer)}, putting
+     * the prices directly in the series.
+     */
+    public CalendarDateSeries<Double> getPriceSeries(final File file) {
+
+        final CalendarDateSeries<Double> retVal = new CalendarDateSeries<Double>(myResolution).name(mySymbol);
+
+        this.parseInParallel(file, dp -> retVal.put(dp.getKey(), dp.getValue()));
+
+        return retVal;
+    }
+
     public CalendarDateSeries<Double> getPriceSeries(final Reader reader) {
 
         final CalendarDateSeries<Double> retVal = new CalendarDateSeries<Double>(myResolution).name(mySymbol);
 
-        for (final DatePrice tmpDatePrice : this.getHistoricalPrices(reader)) {
-            retVal.put(tmpDatePrice.getKey(), tmpDatePrice.getValue());
-        }
+        this.parse(reader, dp -> retVal.put(dp.getKey(), dp.getValue()));
 
         return retVal;
     }
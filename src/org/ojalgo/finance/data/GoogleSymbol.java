@@ -116,7 +116,9 @@ public class GoogleSymbol extends DataSource<GoogleSymbol.Data> {
             int tmpExclusiveEnd = line.indexOf(ASCII.COMMA, tmpInclusiveBegin);
             String tmpString = line.substring(tmpInclusiveBegin, tmpExclusiveEnd);
             final Calendar tmpCalendar = new GregorianCalendar();
-            tmpCalendar.setTime(DATE_FORMAT.parse(tmpString));
+            synchronized (DATE_FORMAT) {
+                tmpCalendar.setTime(DATE_FORMAT.parse(tmpString));
+            }
             this.getResolution().round(tmpCalendar);
             retVal = new Data(tmpCalendar);
 
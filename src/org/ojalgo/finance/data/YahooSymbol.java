@@ -30,6 +30,8 @@ import java.net.CookieStore;
 import java.net.HttpCookie;
 import java.net.URI;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -38,6 +40,7 @@ import java.util.Properties;
 import org.ojalgo.RecoverableCondition;
 import org.ojalgo.netio.ASCII;
 import org.ojalgo.netio.BasicLogger;
+import org.ojalgo.netio.ByteLine;
 import org.ojalgo.netio.ResourceLocator;
 import org.ojalgo.type.CalendarDateUnit;
 
@@ -122,10 +125,25 @@ public class YahooSymbol extends DataSource<YahooSymbol.Data> {
 
     }
 
+    private static double parse(final ByteLine line, final int field) {
+        try {
+            return line.doubleValue(field);
+        } catch (final NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+
     public YahooSymbol(final String symbol) {
         this(symbol, CalendarDateUnit.DAY);
     }
 
+    /**
+     * Only to parse already downloaded data – does not connect to look up the crumb, and there is no symbol.
+     */
+    YahooSymbol(final CalendarDateUnit resolution) {
+        super("query1.finance.yahoo.com", null, resolution);
+    }
+
     public YahooSymbol(final String symbol, final CalendarDateUnit resolution) {
 
         super("query1.finance.yahoo.com", symbol, resolution);
@@ -181,6 +199,54 @@ public class YahooSymbol extends DataSource<YahooSymbol.Data> {
         tmpResourceLocator.cookies(COOKIE_MANAGER);
     }
 
+    /**
+     * Same as {@link #parse(String)}, but directly from the bytes – thread safe, and without any intermediate
+     * Strings.
+     */
+    @Override
+    public YahooSymbol.Data parse(final ByteLine line) throws RecoverableCondition {
+
+        if (line.split(ASCII.COMMA).countFields() < 7) {
+            return null;
+        }
+
+        // yyyy-MM-dd (or, as accepted by parse(String), with unpadded month/day)
+        final byte[] tmpArray = line.array();
+        final int tmpStart = line.start(0);
+        final int tmpEnd = line.end(0);
+
+        int tmpDash1 = tmpStart;
+        while ((tmpDash1 < tmpEnd) && (tmpArray[tmpDash1] != '-')) {
+            tmpDash1++;
+        }
+        int tmpDash2 = tmpDash1 + 1;
+        while ((tmpDash2 < tmpEnd) && (tmpArray[tmpDash2] != '-')) {
+            tmpDash2++;
+        }
+        if (tmpDash2 >= tmpEnd) {
+            return null;
+        }
+
+        final Data retVal;
+        try {
+            final int tmpYear = (int) ByteLine.parseLong(tmpArray, tmpStart, tmpDash1);
+            final int tmpMonth = (int) ByteLine.parseLong(tmpArray, tmpDash1 + 1, tmpDash2);
+            final int tmpDay = (int) ByteLine.parseLong(tmpArray, tmpDash2 + 1, tmpEnd);
+            retVal = new Data(LocalDate.of(tmpYear, tmpMonth, tmpDay).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        } catch (final RuntimeException cause) {
+            return null;
+        }
+
+        retVal.open = YahooSymbol.parse(line, 1);
+        retVal.high = YahooSymbol.parse(line, 2);
+        retVal.low = YahooSymbol.parse(line, 3);
+        retVal.close = YahooSymbol.parse(line, 4);
+        retVal.adjustedClose = YahooSymbol.parse(line, 5);
+        retVal.volume = YahooSymbol.parse(line, 6);
+
+        return retVal;
+    }
+
     @Override
     public YahooSymbol.Data parse(final String line) throws RecoverableCondition {
 
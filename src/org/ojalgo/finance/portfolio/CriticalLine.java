@@ -0,0 +1,447 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.finance.portfolio;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+
+/**
+ * Markowitz' critical line algorithm: min (1/2) w'Cw - t r'w subject to 1'w = 1 and l &lt;= w &lt;= u, traced
+ * for all risk tolerances t (the inverse of the risk aversion) from infinity down to 0. The optimal weights
+ * are piecewise linear in t – they only change direction at the turning points where an asset hits a bound
+ * or leaves one.
+ * <p>
+ * The inverse of the covariances of the free assets is updated (bordered/deflated) as assets enter or leave
+ * the free set – O(n<sup>2</sup>) per turning point instead of a new factorisation. The candidates for
+ * entering the free set are evaluated in parallel.
+ *
+ * @author apete
+ */
+final class CriticalLine {
+
+    /**
+     * Number of candidate (bounded) assets below which they're not evaluated in parallel
+     */
+    static int THRESHOLD = 64;
+
+    private static final double DEGENERATE = 1E-9;
+    private static final double EPSILON = 1E-12;
+
+    private double[] myA1;
+    private double[] myA2;
+    private double myC1;
+    private double myC3;
+    private final double[][] myCovariances;
+    /**
+     * The positions (in the inverse) of the free assets
+     */
+    private final int[] myFree;
+    private int myFreeCount = 0;
+    private double[] myH;
+    /**
+     * The inverse of the covariances of the free assets
+     */
+    private final double[][] myInverse;
+    private final boolean[] myIsFree;
+    private double myL1;
+    private double[] myL2;
+    private double myL3;
+    private final double[] myLower;
+    private final double[] myReturns;
+    private final List<Double> myTolerances = new ArrayList<>();
+    private final List<double[]> myTurningPoints = new ArrayList<>();
+    private final double[] myUpper;
+    private final double[] myWeights;
+
+    /**
+     * @param covariances Must be positive definite
+     * @param returns Expected (excess) returns
+     * @param lower Finite lower limits
+     * @param upper Upper limits, or NaN if there is none
+     */
+    CriticalLine(final double[][] covariances, final double[] returns, final double[] lower, final double[] upper) {
+
+        super();
+
+        final int tmpSize = returns.length;
+
+        myCovariances = covariances;
+        myReturns = returns;
+        myLower = lower;
+
+        double tmpLowerSum = ZERO;
+        for (int i = 0; i < tmpSize; i++) {
+            tmpLowerSum += lower[i];
+        }
+
+        // A missing upper limit is implied by the budget and the other lower limits
+        myUpper = new double[tmpSize];
+        for (int i = 0; i < tmpSize; i++) {
+            final double tmpImplied = ONE - (tmpLowerSum - lower[i]);
+            myUpper[i] = Double.isNaN(upper[i]) ? tmpImplied : Math.min(upper[i], tmpImplied);
+        }
+
+        myWeights = new double[tmpSize];
+        myFree = new int[tmpSize];
+        myIsFree = new boolean[tmpSize];
+        myInverse = new double[tmpSize][tmpSize];
+
+        this.trace();
+    }
+
+    int countTurningPoints() {
+        return myTurningPoints.size();
+    }
+
+    double getTolerance(final int index) {
+        return myTolerances.get(index);
+    }
+
+    double[] getWeights(final int index) {
+        return myTurningPoints.get(index);
+    }
+
+    /**
+     * @param tolerance The risk tolerance (the inverse of the risk aversion)
+     * @return The optimal weights, interpolated between the turning points
+     */
+    double[] getWeights(final double tolerance) {
+
+        final int tmpLast = myTurningPoints.size() - 1;
+
+        // Index 0 is the corner at t = infinity, it's also optimal down to t at index 1
+        if ((tmpLast == 0) || (tolerance >= myTolerances.get(1))) {
+            return myTurningPoints.get(Math.min(1, tmpLast)).clone();
+        }
+
+        int k = 1;
+        while ((k < tmpLast) && (tolerance < myTolerances.get(k + 1))) {
+            k++;
+        }
+        if (k == tmpLast) {
+            return myTurningPoints.get(tmpLast).clone();
+        }
+
+        final double tmpHigh = myTolerances.get(k);
+        final double tmpLow = myTolerances.get(k + 1);
+        final double tmpAlpha = (tolerance - tmpLow) / (tmpHigh - tmpLow);
+
+        final double[] tmpHighWeights = myTurningPoints.get(k);
+        final double[] tmpLowWeights = myTurningPoints.get(k + 1);
+
+        final double[] retVal = new double[tmpLowWeights.length];
+        for (int i = 0; i < retVal.length; i++) {
+            retVal[i] = tmpLowWeights[i] + (tmpAlpha * (tmpHighWeights[i] - tmpLowWeights[i]));
+        }
+        return retVal;
+    }
+
+    private void add(final int asset) {
+
+        final int tmpCount = myFreeCount;
+        final double[] tmpAb = new double[tmpCount];
+        double tmpbAb = ZERO;
+        for (int p = 0; p < tmpCount; p++) {
+            double tmpSum = ZERO;
+            final double[] tmpRow = myInverse[p];
+            for (int q = 0; q < tmpCount; q++) {
+                tmpSum += tmpRow[q] * myCovariances[myFree[q]][asset];
+            }
+            tmpAb[p] = tmpSum;
+            tmpbAb += myCovariances[myFree[p]][asset] * tmpSum;
+        }
+        final double tmpS = myCovariances[asset][asset] - tmpbAb;
+
+        for (int p = 0; p < tmpCount; p++) {
+            final double tmpFactor = tmpAb[p] / tmpS;
+            final double[] tmpRow = myInverse[p];
+            for (int q = 0; q < tmpCount; q++) {
+                tmpRow[q] += tmpFactor * tmpAb[q];
+            }
+            tmpRow[tmpCount] = -tmpFactor;
+            myInverse[tmpCount][p] = -tmpFactor;
+        }
+        myInverse[tmpCount][tmpCount] = ONE / tmpS;
+
+        myFree[tmpCount] = asset;
+        myIsFree[asset] = true;
+        myFreeCount++;
+    }
+
+    /**
+     * Evaluates the risk tolerance at which a bounded asset would become free
+     */
+    private double evaluate(final int asset, final double previous) {
+
+        final int tmpCount = myFreeCount;
+
+        double tmpba1 = ZERO, tmpba2 = ZERO, tmpbl2 = ZERO, tmpbAb = ZERO;
+        for (int p = 0; p < tmpCount; p++) {
+            final double tmpB = myCovariances[myFree[p]][asset];
+            tmpba1 += tmpB * myA1[p];
+            tmpba2 += tmpB * myA2[p];
+            tmpbl2 += tmpB * myL2[p];
+            double tmpSum = ZERO;
+            final double[] tmpRow = myInverse[p];
+            for (int q = 0; q < tmpCount; q++) {
+                tmpSum += tmpRow[q] * myCovariances[myFree[q]][asset];
+            }
+            tmpbAb += tmpB * tmpSum;
+        }
+
+        final double tmpCii = myCovariances[asset][asset];
+        final double tmpS = tmpCii - tmpbAb;
+        if (tmpS <= EPSILON) {
+            return NaN;
+        }
+
+        final double tmpW = myWeights[asset];
+
+        // Bordered inverse: x'A'y = x'Ay + (x'Ab - x_i)(y'Ab - y_i)/s
+        final double tmpC1 = myC1 + (((tmpba1 - ONE) * (tmpba1 - ONE)) / tmpS);
+        final double tmpC3 = myC3 + (((tmpba1 - ONE) * (tmpba2 - myReturns[asset])) / tmpS);
+        final double tmpA1 = (ONE - tmpba1) / tmpS;
+        final double tmpA2 = (myReturns[asset] - tmpba2) / tmpS;
+        final double tmpH = myH[asset] - (tmpCii * tmpW);
+        final double tmpL2 = ((tmpH - tmpbl2) + (tmpbAb * tmpW)) / tmpS;
+        final double tmpL1 = myL1 - tmpW;
+        final double tmpL3 = (myL3 - (tmpba1 * tmpW)) + (((tmpba1 - ONE) * ((tmpbl2 - (tmpbAb * tmpW)) - tmpH)) / tmpS);
+
+        final double tmpC = (-tmpC1 * tmpA2) + (tmpC3 * tmpA1);
+        if (Math.abs(tmpC) <= EPSILON) {
+            return NaN;
+        }
+
+        final double retVal = ((((ONE - tmpL1) + tmpL3) * tmpA1) - (tmpC1 * (tmpW + tmpL2))) / tmpC;
+
+        return retVal < previous ? retVal : NaN;
+    }
+
+    /**
+     * Calculates the quantities, that only depend on the free set, used to find the next turning point and
+     * the weights.
+     */
+    private void prepare() {
+
+        final int tmpSize = myWeights.length;
+        final int tmpCount = myFreeCount;
+
+        myH = new double[tmpSize];
+        myL1 = ZERO;
+        for (int b = 0; b < tmpSize; b++) {
+            if (!myIsFree[b]) {
+                final double tmpW = myWeights[b];
+                myL1 += tmpW;
+                if (tmpW != ZERO) {
+                    for (int i = 0; i < tmpSize; i++) {
+                        myH[i] += myCovariances[i][b] * tmpW;
+                    }
+                }
+            }
+        }
+
+        myA1 = new double[tmpCount];
+        myA2 = new double[tmpCount];
+        myL2 = new double[tmpCount];
+        myC1 = ZERO;
+        myC3 = ZERO;
+        myL3 = ZERO;
+        for (int p = 0; p < tmpCount; p++) {
+            final double[] tmpRow = myInverse[p];
+            double tmpA1 = ZERO, tmpA2 = ZERO, tmpL2 = ZERO;
+            for (int q = 0; q < tmpCount; q++) {
+                final int tmpAsset = myFree[q];
+                tmpA1 += tmpRow[q];
+                tmpA2 += tmpRow[q] * myReturns[tmpAsset];
+                tmpL2 += tmpRow[q] * myH[tmpAsset];
+            }
+            myA1[p] = tmpA1;
+            myA2[p] = tmpA2;
+            myL2[p] = tmpL2;
+            myC1 += tmpA1;
+            myC3 += tmpA2;
+            myL3 += tmpL2;
+        }
+    }
+
+    private void remove(final int position) {
+
+        final int tmpLast = myFreeCount - 1;
+        final double tmpPivot = myInverse[position][position];
+
+        for (int p = 0; p <= tmpLast; p++) {
+            if (p != position) {
+                final double tmpFactor = myInverse[p][position] / tmpPivot;
+                final double[] tmpRow = myInverse[p];
+                for (int q = 0; q <= tmpLast; q++) {
+                    if (q != position) {
+                        tmpRow[q] -= tmpFactor * myInverse[position][q];
+                    }
+                }
+            }
+        }
+
+        if (position != tmpLast) {
+            for (int p = 0; p <= tmpLast; p++) {
+                myInverse[position][p] = myInverse[tmpLast][p];
+            }
+            for (int p = 0; p <= tmpLast; p++) {
+                myInverse[p][position] = myInverse[p][tmpLast];
+            }
+        }
+
+        myIsFree[myFree[position]] = false;
+        myFree[position] = myFree[tmpLast];
+        myFreeCount--;
+    }
+
+    private void trace() {
+
+        final int tmpSize = myWeights.length;
+
+        // The corner portfolio at t = infinity: the assets with the highest returns at their upper limits
+        final Integer[] tmpOrder = new Integer[tmpSize];
+        double tmpSum = ZERO;
+        for (int i = 0; i < tmpSize; i++) {
+            tmpOrder[i] = i;
+            myWeights[i] = myLower[i];
+            tmpSum += myLower[i];
+        }
+        Arrays.sort(tmpOrder, (i1, i2) -> Double.compare(myReturns[i2], myReturns[i1]));
+
+        if (tmpSum > (ONE + EPSILON)) {
+            throw new IllegalArgumentException("The lower limits sum to more than 1!");
+        }
+
+        int tmpFirstFree = -1;
+        for (int k = 0; (tmpFirstFree < 0) && (k < tmpSize); k++) {
+            final int i = tmpOrder[k];
+            final double tmpValue = Math.min(myUpper[i], myLower[i] + (ONE - tmpSum));
+            tmpSum += tmpValue - myLower[i];
+            myWeights[i] = tmpValue;
+            if (tmpSum >= (ONE - EPSILON)) {
+                tmpFirstFree = i;
+            }
+        }
+
+        if (tmpFirstFree < 0) {
+            throw new IllegalArgumentException("The upper limits sum to less than 1!");
+        }
+
+        this.add(tmpFirstFree);
+        myTolerances.add(POSITIVE_INFINITY);
+        myTurningPoints.add(myWeights.clone());
+
+        double tmpPrevious = POSITIVE_INFINITY;
+        final double[] tmpCandidates = new double[tmpSize];
+
+        this.prepare();
+
+        for (int iter = 0; iter < (4 * (tmpSize + 1)); iter++) {
+
+            // Strictly below the previous turning point, or an asset could leave and enter again at the same point
+            final double tmpLimit = tmpPrevious == POSITIVE_INFINITY ? tmpPrevious : tmpPrevious * (ONE - DEGENERATE);
+
+            // A free asset hits one of its limits
+            double tmpIn = NaN;
+            int tmpInPosition = -1;
+            double tmpInBound = NaN;
+            if (myFreeCount > 1) {
+                for (int j = 0; j < myFreeCount; j++) {
+                    final int i = myFree[j];
+                    final double tmpC = (-myC1 * myA2[j]) + (myC3 * myA1[j]);
+                    if (Math.abs(tmpC) > EPSILON) {
+                        final double tmpBound = tmpC > ZERO ? myUpper[i] : myLower[i];
+                        final double tmpValue = ((((ONE - myL1) + myL3) * myA1[j]) - (myC1 * (tmpBound + myL2[j]))) / tmpC;
+                        if ((tmpValue < tmpLimit) && !(tmpValue <= tmpIn)) {
+                            tmpIn = tmpValue;
+                            tmpInPosition = j;
+                            tmpInBound = tmpBound;
+                        }
+                    }
+                }
+            }
+
+            // A bounded asset leaves its limit
+            if (myFreeCount < tmpSize) {
+                if (tmpSize > THRESHOLD) {
+                    final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                        @Override
+                        public void conquer(final int first, final int limit) {
+                            for (int i = first; i < limit; i++) {
+                                tmpCandidates[i] = myIsFree[i] ? NaN : CriticalLine.this.evaluate(i, tmpLimit);
+                            }
+                        }
+
+                    };
+                    tmpConquerer.invoke(0, tmpSize, THRESHOLD);
+                } else {
+                    for (int i = 0; i < tmpSize; i++) {
+                        tmpCandidates[i] = myIsFree[i] ? NaN : this.evaluate(i, tmpLimit);
+                    }
+                }
+            }
+            double tmpOut = NaN;
+            int tmpOutAsset = -1;
+            for (int i = 0; i < tmpSize; i++) {
+                if (!myIsFree[i] && !Double.isNaN(tmpCandidates[i]) && !(tmpCandidates[i] <= tmpOut)) {
+                    tmpOut = tmpCandidates[i];
+                    tmpOutAsset = i;
+                }
+            }
+
+            double tmpTolerance;
+            if (!(tmpIn > ZERO) && !(tmpOut > ZERO)) {
+                tmpTolerance = ZERO;
+            } else if ((tmpIn > ZERO) && !(tmpIn <= tmpOut)) {
+                tmpTolerance = tmpIn;
+                myWeights[myFree[tmpInPosition]] = tmpInBound;
+                this.remove(tmpInPosition);
+                this.prepare();
+            } else {
+                tmpTolerance = tmpOut;
+                this.add(tmpOutAsset);
+                this.prepare();
+            }
+
+            final double tmpGamma = (((-tmpTolerance * myC3) + ONE) - myL1 + myL3) / myC1;
+            for (int p = 0; p < myFreeCount; p++) {
+                myWeights[myFree[p]] = (-myL2[p] + (tmpGamma * myA1[p])) + (tmpTolerance * myA2[p]);
+            }
+
+            myTolerances.add(tmpTolerance);
+            myTurningPoints.add(myWeights.clone());
+            tmpPrevious = tmpTolerance;
+
+            if (tmpTolerance == ZERO) {
+                return;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.finance.portfolio;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.concurrent.ParallelScope;
+import org.ojalgo.matrix.BasicMatrix;
+import org.ojalgo.matrix.PrimitiveMatrix;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+
+/**
+ * Calculates many points on the efficient frontier of a {@link MarkowitzModel} at once, rather than calling
+ * {@link MarkowitzModel#setRiskAversion(Number)} and re-solving from scratch for each point.
+ * <ul>
+ * <li>If there are no constraints other than the budget and (finite lower) limits on the individual assets
+ * the entire frontier is traced by the critical line algorithm – the optimal weights are piecewise linear in
+ * the risk tolerance, and any point is an interpolation between two turning points.</li>
+ * <li>Otherwise the risk aversions are split in segments that are solved in parallel, each with its own
+ * optimisation model. Within a segment each solve is warm started from the previous solution.</li>
+ * </ul>
+ *
+ * @author apete
+ */
+public final class FrontierSweep {
+
+    /**
+     * A portfolio on the efficient frontier
+     */
+    public static final class Point {
+
+        private final double myMeanReturn;
+        private final double myReturnVariance;
+        private final double myRiskAversion;
+        private final Optimisation.State myState;
+        private final double[] myWeights;
+
+        Point(final double riskAversion, final Optimisation.State state, final double[] weights, final double[][] covariances, final double[] returns) {
+
+            super();
+
+            myRiskAversion = riskAversion;
+            myState = state;
+            myWeights = weights;
+
+            double tmpReturn = ZERO;
+            double tmpVariance = ZERO;
+            for (int i = 0; i < weights.length; i++) {
+                tmpReturn += weights[i] * returns[i];
+                double tmpSum = ZERO;
+                for (int j = 0; j < weights.length; j++) {
+                    tmpSum += covariances[i][j] * weights[j];
+                }
+                tmpVariance += weights[i] * tmpSum;
+            }
+            myMeanReturn = tmpReturn;
+            myReturnVariance = tmpVariance;
+        }
+
+        public double getMeanReturn() {
+            return myMeanReturn;
+        }
+
+        public double getReturnVariance() {
+            return myReturnVariance;
+        }
+
+        /**
+         * @return The risk aversion, or {@link Double#POSITIVE_INFINITY} for the minimum variance portfolio
+         */
+        public double getRiskAversion() {
+            return myRiskAversion;
+        }
+
+        /**
+         * @return The state of the optimisation that produced this point. If it is not feasible the weights
+         *         (and everything derived from them) are NaN.
+         */
+        public Optimisation.State getState() {
+            return myState;
+        }
+
+        public double getVolatility() {
+            return Math.sqrt(myReturnVariance);
+        }
+
+        public BasicMatrix getWeights() {
+            return PrimitiveMatrix.FACTORY.columns(myWeights);
+        }
+
+        @Override
+        public String toString() {
+            return myRiskAversion + " " + myState + ": " + myMeanReturn + " / " + this.getVolatility() + " " + Arrays.toString(myWeights);
+        }
+
+    }
+
+    private CriticalLine myCriticalLine = null;
+    private double[] myCriticalLower = null;
+    private double[] myCriticalUpper = null;
+    private final double[][] myCovariances;
+    private final MarkowitzModel myModel;
+    private final double[] myReturns;
+
+    /**
+     * The model's covariances and returns are copied here – later changes to those are not seen by this
+     * sweep. The model's limits, constraints and shorting are read each time a sweep is executed (the critical
+     * line is recalculated if they changed). The model's risk aversion (and target return/variance) are
+     * ignored.
+     */
+    public FrontierSweep(final MarkowitzModel model) {
+
+        super();
+
+        myModel = model;
+
+        final int tmpSize = model.size();
+        final BasicMatrix tmpCovariances = model.getCovariances();
+        final BasicMatrix tmpReturns = model.calculateAssetReturns();
+
+        myCovariances = new double[tmpSize][tmpSize];
+        myReturns = new double[tmpSize];
+        for (int i = 0; i < tmpSize; i++) {
+            for (int j = 0; j < tmpSize; j++) {
+                myCovariances[i][j] = tmpCovariances.doubleValue(i, j);
+            }
+            myReturns[i] = tmpReturns.doubleValue(i);
+        }
+    }
+
+    /**
+     * @return The turning points of the frontier, from the maximum return portfolio (risk aversion 0) to the
+     *         minimum variance portfolio
+     * @throws IllegalStateException If the model is not {@link #isParametric()}
+     */
+    public List<Point> getTurningPoints() {
+
+        final CriticalLine tmpCriticalLine = this.getCriticalLine();
+        if (tmpCriticalLine == null) {
+            throw new IllegalStateException("Not parametric!");
+        }
+
+        final int tmpCount = tmpCriticalLine.countTurningPoints();
+        final List<Point> retVal = new ArrayList<>(tmpCount);
+        for (int k = 0; k < tmpCount; k++) {
+            retVal.add(new Point(ONE / tmpCriticalLine.getTolerance(k), Optimisation.State.OPTIMAL, tmpCriticalLine.getWeights(k), myCovariances, myReturns));
+        }
+        return retVal;
+    }
+
+    /**
+     * @return true if the entire frontier can be traced parametrically (by the critical line algorithm)
+     */
+    public boolean isParametric() {
+        return this.getCriticalLine() != null;
+    }
+
+    /**
+     * @param riskAversions Any number of (positive) risk aversion factors, in any order
+     * @return The optimal portfolios, in the same order as the risk aversions
+     */
+    public List<Point> sweep(final double... riskAversions) {
+
+        final CriticalLine tmpCriticalLine = this.getCriticalLine();
+
+        if (tmpCriticalLine != null) {
+
+            final List<Point> retVal = new ArrayList<>(riskAversions.length);
+            for (int i = 0; i < riskAversions.length; i++) {
+                retVal.add(new Point(riskAversions[i], Optimisation.State.OPTIMAL, tmpCriticalLine.getWeights(ONE / riskAversions[i]), myCovariances, myReturns));
+            }
+            return retVal;
+
+        } else {
+
+            return this.solve(riskAversions);
+        }
+    }
+
+    /**
+     * @return The critical line for the model's current limits and shorting, or null if there is none
+     */
+    private CriticalLine getCriticalLine() {
+
+        if (!myModel.getConstraints().isEmpty()) {
+            return null;
+        }
+
+        final int tmpSize = myReturns.length;
+        final double[] tmpLower = new double[tmpSize];
+        final double[] tmpUpper = new double[tmpSize];
+
+        for (int i = 0; i < tmpSize; i++) {
+
+            final BigDecimal tmpLowerLimit = myModel.getVariable(i).getLowerLimit();
+            final BigDecimal tmpUpperLimit = myModel.getVariable(i).getUpperLimit();
+
+            if (!myModel.isShortingAllowed() && ((tmpLowerLimit == null) || (tmpLowerLimit.signum() == -1))) {
+                tmpLower[i] = ZERO;
+            } else if (tmpLowerLimit != null) {
+                tmpLower[i] = tmpLowerLimit.doubleValue();
+            } else {
+                // There is no corner portfolio at infinite risk tolerance
+                return null;
+            }
+
+            tmpUpper[i] = tmpUpperLimit != null ? tmpUpperLimit.doubleValue() : NaN;
+        }
+
+        if ((myCriticalLine == null) || !Arrays.equals(tmpLower, myCriticalLower) || !Arrays.equals(tmpUpper, myCriticalUpper)) {
+            myCriticalLine = new CriticalLine(myCovariances, myReturns, tmpLower, tmpUpper);
+            myCriticalLower = tmpLower;
+            myCriticalUpper = tmpUpper;
+        }
+
+        return myCriticalLine;
+    }
+
+    private List<Point> solve(final double[] riskAversions) {
+
+        final int tmpCount = riskAversions.length;
+        final Map<int[], LowerUpper> tmpConstraints = myModel.getConstraints();
+        final boolean tmpShortingAllowed = myModel.isShortingAllowed();
+
+        // Solving in order of risk aversion makes consecutive solutions close
+        final Integer[] tmpOrder = new Integer[tmpCount];
+        for (int i = 0; i < tmpCount; i++) {
+            tmpOrder[i] = i;
+        }
+        Arrays.sort(tmpOrder, (i1, i2) -> Double.compare(riskAversions[i1], riskAversions[i2]));
+
+        final Point[] tmpPoints = new Point[tmpCount];
+
+        final int tmpSegments = Math.max(1, Math.min(tmpCount, ParallelScope.parallelism()));
+        final List<Future<?>> tmpFutures = new ArrayList<>(tmpSegments);
+
+        for (int s = 0; s < tmpSegments; s++) {
+
+            final int tmpFirst = (s * tmpCount) / tmpSegments;
+            final int tmpLimit = ((s + 1) * tmpCount) / tmpSegments;
+
+            // The models are built here, the model (variables) isn't thread safe
+            final ExpressionsBasedModel tmpModel = myModel.makeModel(tmpConstraints);
+
+            final Runnable tmpSegment = () -> {
+                for (int k = tmpFirst; k < tmpLimit; k++) {
+
+                    final int tmpIndex = tmpOrder[k];
+
+                    tmpModel.getExpression(OptimisedPortfolio.VARIANCE).weight(riskAversions[tmpIndex] / TWO);
+
+                    // Warm started from the model's current variable values
+                    final Optimisation.Result tmpResult = tmpModel.minimise();
+
+                    final double[] tmpWeights = new double[myReturns.length];
+                    if (tmpResult.getState().isFeasible()) {
+                        for (int i = 0; i < tmpWeights.length; i++) {
+                            tmpWeights[i] = tmpShortingAllowed ? tmpResult.doubleValue(i) : Math.max(ZERO, tmpResult.doubleValue(i));
+                        }
+                    } else {
+                        Arrays.fill(tmpWeights, NaN);
+                    }
+
+                    tmpPoints[tmpIndex] = new Point(riskAversions[tmpIndex], tmpResult.getState(), tmpWeights, myCovariances, myReturns);
+                }
+            };
+
+            if (s < (tmpSegments - 1)) {
+                tmpFutures.add(ParallelScope.fork(tmpSegment));
+            } else {
+                tmpSegment.run();
+            }
+        }
+
+        try {
+            for (final Future<?> tmpFuture : tmpFutures) {
+                tmpFuture.get();
+            }
+        } catch (final InterruptedException | ExecutionException exception) {
+            throw new ProgrammingError(exception);
+        }
+
+        return Collections.unmodifiableList(Arrays.asList(tmpPoints));
+    }
+
+}
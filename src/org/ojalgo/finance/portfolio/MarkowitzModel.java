@@ -25,6 +25,7 @@ import static org.ojalgo.constant.BigMath.*;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
+import java.util.Map;
 
 import org.ojalgo.access.Access1D;
 import org.ojalgo.constant.PrimitiveMath;
@@ -319,6 +320,10 @@ public final class MarkowitzModel extends OptimisedPortfolio {
 
     }
 
+    final Map<int[], LowerUpper> getConstraints() {
+        return myConstraints;
+    }
+
     final Scalar<?> calculatePortfolioReturn(final Access1D<?> weightsVctr, final BasicMatrix returnsVctr) {
         return super.calculatePortfolioReturn(MATRIX_FACTORY.columns(weightsVctr), returnsVctr);
     }
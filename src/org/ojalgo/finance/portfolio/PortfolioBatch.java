@@ -0,0 +1,487 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.finance.portfolio;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.concurrent.ParallelScope;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.BasicMatrix;
+import org.ojalgo.matrix.decomposition.Cholesky;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.convex.ConvexSolver;
+
+/**
+ * Optimises many (small) Markowitz portfolios on subsets of a shared universe of assets – the same problem
+ * as {@link MarkowitzModel} with a risk aversion factor, but without building an
+ * {@link org.ojalgo.optimisation.ExpressionsBasedModel} for each portfolio.
+ * <ul>
+ * <li>The covariances of each distinct asset subset are extracted once, and factorised once, and kept in a
+ * (bounded, least recently used) cache.</li>
+ * <li>Portfolios with shorting allowed and no other constraints than the budget are solved in closed form
+ * using the cached factorisation. The others are solved by a {@link ConvexSolver} built directly from the
+ * cached covariances.</li>
+ * <li>The portfolios are solved concurrently by a fixed number of workers, each holding one problem at the
+ * time.</li>
+ * </ul>
+ *
+ * @author apete
+ */
+public final class PortfolioBatch {
+
+    /**
+     * Specifies one portfolio. All indices are into this portfolio's assets, not into the universe.
+     */
+    public static final class Specification {
+
+        private final int[] myAssets;
+        private final List<int[]> myConstraintIndices = new ArrayList<>();
+        private final List<LowerUpper> myConstraintLimits = new ArrayList<>();
+        private final double[] myLowerLimits;
+        private final double[] myReturns;
+        private double myRiskAversion = NaN;
+        private boolean myShortingAllowed = false;
+        private final double[] myUpperLimits;
+
+        /**
+         * @param assets The indices of the portfolio's assets in the universe
+         * @param expectedExcessReturns One per asset
+         */
+        public Specification(final int[] assets, final double[] expectedExcessReturns) {
+
+            super();
+
+            if (assets.length != expectedExcessReturns.length) {
+                throw new IllegalArgumentException("Wrong dimensions!");
+            }
+
+            myAssets = assets.clone();
+            myReturns = expectedExcessReturns.clone();
+            myLowerLimits = new double[assets.length];
+            myUpperLimits = new double[assets.length];
+            Arrays.fill(myLowerLimits, NaN);
+            Arrays.fill(myUpperLimits, NaN);
+        }
+
+        /**
+         * Constrain the sum of the weights of some of the assets. Either (but not both) of the limits may be
+         * null.
+         */
+        public void addConstraint(final Number lowerLimit, final Number upperLimit, final int... assetIndices) {
+            myConstraintIndices.add(assetIndices.clone());
+            myConstraintLimits.add(new LowerUpper(lowerLimit, upperLimit));
+        }
+
+        public void setLowerLimit(final int assetIndex, final Number lowerLimit) {
+            myLowerLimits[assetIndex] = lowerLimit != null ? lowerLimit.doubleValue() : NaN;
+        }
+
+        /**
+         * If not set, the risk aversion of the shared {@link MarketEquilibrium} is used.
+         */
+        public void setRiskAversion(final Number factor) {
+            myRiskAversion = factor != null ? factor.doubleValue() : NaN;
+        }
+
+        public void setShortingAllowed(final boolean allowed) {
+            myShortingAllowed = allowed;
+        }
+
+        public void setUpperLimit(final int assetIndex, final Number upperLimit) {
+            myUpperLimits[assetIndex] = upperLimit != null ? upperLimit.doubleValue() : NaN;
+        }
+
+        public int size() {
+            return myAssets.length;
+        }
+
+        double getLowerLimit(final int assetIndex) {
+            final double retVal = myLowerLimits[assetIndex];
+            if (!myShortingAllowed && (Double.isNaN(retVal) || (retVal < ZERO))) {
+                return ZERO;
+            }
+            return retVal;
+        }
+
+        boolean isClosedForm() {
+            if (!myShortingAllowed || !myConstraintIndices.isEmpty()) {
+                return false;
+            }
+            for (int i = 0; i < myAssets.length; i++) {
+                if (!Double.isNaN(myLowerLimits[i]) || !Double.isNaN(myUpperLimits[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+    /**
+     * The covariances of an asset subset, and their factorisation. Immutable once created – shared by the
+     * workers.
+     */
+    static final class Block {
+
+        final PrimitiveDenseStore covariances;
+        /**
+         * [C]<sup>-1</sup>[1], or null if [C] is not positive definite
+         */
+        final double[] inverseOnes;
+        /**
+         * Column major lower triangular Cholesky factor, or null if [C] is not positive definite
+         */
+        final double[] lower;
+
+        Block(final double[][] universe, final int[] assets) {
+
+            super();
+
+            final int tmpSize = assets.length;
+
+            covariances = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, tmpSize);
+            for (int j = 0; j < tmpSize; j++) {
+                final double[] tmpRow = universe[assets[j]];
+                for (int i = 0; i < tmpSize; i++) {
+                    covariances.data[i + (j * tmpSize)] = tmpRow[assets[i]];
+                }
+            }
+
+            final Cholesky<Double> tmpCholesky = Cholesky.PRIMITIVE.make(covariances);
+            if (tmpCholesky.decompose(covariances) && tmpCholesky.isSPD()) {
+                lower = PrimitiveDenseStore.FACTORY.copy(tmpCholesky.getL()).data;
+                final double[] tmpOnes = new double[tmpSize];
+                Arrays.fill(tmpOnes, ONE);
+                inverseOnes = this.solve(tmpOnes);
+            } else {
+                lower = null;
+                inverseOnes = null;
+            }
+        }
+
+        /**
+         * Solves [C][X] = [rhs] using the Cholesky factor. Thread safe.
+         */
+        double[] solve(final double[] rhs) {
+
+            final int tmpSize = rhs.length;
+            final double[] retVal = rhs.clone();
+
+            // [L][Y] = [rhs]
+            for (int j = 0; j < tmpSize; j++) {
+                retVal[j] /= lower[j + (j * tmpSize)];
+                final double tmpValue = retVal[j];
+                for (int i = j + 1; i < tmpSize; i++) {
+                    retVal[i] -= lower[i + (j * tmpSize)] * tmpValue;
+                }
+            }
+
+            // [L]<sup>T</sup>[X] = [Y]
+            for (int i = tmpSize - 1; i >= 0; i--) {
+                double tmpValue = retVal[i];
+                for (int k = i + 1; k < tmpSize; k++) {
+                    tmpValue -= lower[k + (i * tmpSize)] * retVal[k];
+                }
+                retVal[i] = tmpValue / lower[i + (i * tmpSize)];
+            }
+
+            return retVal;
+        }
+
+    }
+
+    private static final class Key {
+
+        private final int[] myAssets;
+        private final int myHashCode;
+
+        Key(final int[] assets) {
+            super();
+            myAssets = assets;
+            myHashCode = Arrays.hashCode(assets);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return (obj instanceof Key) && Arrays.equals(myAssets, ((Key) obj).myAssets);
+        }
+
+        @Override
+        public int hashCode() {
+            return myHashCode;
+        }
+
+    }
+
+    private final Map<Key, Block> myCache;
+    private final Optimisation.Options myOptions = new Optimisation.Options();
+    private final int myPoolSize;
+    private final double myRiskAversion;
+    private final double[][] myUniverse;
+
+    /**
+     * @param universe The shared covariances (and default risk aversion)
+     * @param poolSize The (max) number of portfolios optimised concurrently – also limited by the {@link ParallelScope}
+     */
+    public PortfolioBatch(final MarketEquilibrium universe, final int poolSize) {
+        this(universe, poolSize, 1024);
+    }
+
+    /**
+     * @param universe The shared covariances (and default risk aversion)
+     * @param poolSize The (max) number of portfolios optimised concurrently – also limited by the {@link ParallelScope}
+     * @param cacheCapacity The max number of asset subsets to keep the covariances/factorisations of
+     */
+    public PortfolioBatch(final MarketEquilibrium universe, final int poolSize, final int cacheCapacity) {
+
+        super();
+
+        if ((poolSize < 1) || (cacheCapacity < 0)) {
+            throw new IllegalArgumentException();
+        }
+
+        final int tmpSize = universe.size();
+        final BasicMatrix tmpCovariances = universe.getCovariances();
+
+        myUniverse = new double[tmpSize][tmpSize];
+        for (int i = 0; i < tmpSize; i++) {
+            for (int j = 0; j < tmpSize; j++) {
+                myUniverse[i][j] = tmpCovariances.doubleValue(i, j);
+            }
+        }
+
+        myRiskAversion = universe.getRiskAversion().doubleValue();
+        myPoolSize = poolSize;
+
+        myCache = new LinkedHashMap<Key, Block>(16, 0.75F, true) {
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Block> eldest) {
+                return this.size() > cacheCapacity;
+            }
+
+        };
+
+        myOptions.solution = myOptions.solution.newPrecision(8).newScale(10);
+    }
+
+    /**
+     * @param specifications The portfolios to optimise
+     * @return The results (state and asset weights) in the same order as the specifications
+     */
+    public List<Optimisation.Result> optimise(final List<Specification> specifications) {
+
+        final int tmpCount = specifications.size();
+        final Optimisation.Result[] tmpResults = new Optimisation.Result[tmpCount];
+        final AtomicInteger tmpNext = new AtomicInteger();
+
+        final Runnable tmpWorker = () -> {
+            for (int s = tmpNext.getAndIncrement(); s < tmpCount; s = tmpNext.getAndIncrement()) {
+                tmpResults[s] = this.optimise(specifications.get(s));
+            }
+        };
+
+        final int tmpWorkers = Math.min(Math.min(myPoolSize, ParallelScope.parallelism()), tmpCount);
+        final List<Future<?>> tmpFutures = new ArrayList<>(tmpWorkers);
+        for (int w = 1; w < tmpWorkers; w++) {
+            tmpFutures.add(ParallelScope.fork(tmpWorker));
+        }
+        tmpWorker.run();
+
+        try {
+            for (final Future<?> tmpFuture : tmpFutures) {
+                tmpFuture.get();
+            }
+        } catch (final InterruptedException | ExecutionException exception) {
+            throw new ProgrammingError(exception);
+        }
+
+        return Collections.unmodifiableList(Arrays.asList(tmpResults));
+    }
+
+    /**
+     * @return The optimal asset weights (and state)
+     */
+    public Optimisation.Result optimise(final Specification specification) {
+
+        final Block tmpBlock = this.getBlock(specification.myAssets);
+        final double tmpRiskAversion = Double.isNaN(specification.myRiskAversion) ? myRiskAversion : specification.myRiskAversion;
+
+        if (specification.isClosedForm() && (tmpBlock.lower != null)) {
+            return PortfolioBatch.solve(tmpBlock, specification.myReturns, tmpRiskAversion);
+        } else {
+            return this.solve(tmpBlock, specification, tmpRiskAversion);
+        }
+    }
+
+    Block getBlock(final int[] assets) {
+
+        final Key tmpKey = new Key(assets.clone());
+
+        Block retVal;
+        synchronized (myCache) {
+            retVal = myCache.get(tmpKey);
+        }
+
+        if (retVal == null) {
+            // Calculated outside the lock; occasionally more than once
+            retVal = new Block(myUniverse, assets);
+            synchronized (myCache) {
+                final Block tmpExisting = myCache.putIfAbsent(tmpKey, retVal);
+                if (tmpExisting != null) {
+                    retVal = tmpExisting;
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    int sizeOfCache() {
+        synchronized (myCache) {
+            return myCache.size();
+        }
+    }
+
+    /**
+     * min (RAF/2) w'Cw - w'r subject to 1'w = 1 has the solution w = C<sup>-1</sup>(r - g1)/RAF where g is
+     * such that the weights sum to 1.
+     */
+    private static Optimisation.Result solve(final Block block, final double[] returns, final double riskAversion) {
+
+        final int tmpSize = returns.length;
+
+        final double[] tmpInvR = block.solve(returns);
+
+        double tmpSumInvR = ZERO;
+        double tmpSumInvOnes = ZERO;
+        for (int i = 0; i < tmpSize; i++) {
+            tmpSumInvR += tmpInvR[i];
+            tmpSumInvOnes += block.inverseOnes[i];
+        }
+        final double tmpGamma = (tmpSumInvR - riskAversion) / tmpSumInvOnes;
+
+        final Primitive64Array tmpWeights = Primitive64Array.make(tmpSize);
+        double tmpReturn = ZERO;
+        for (int i = 0; i < tmpSize; i++) {
+            final double tmpWeight = (tmpInvR[i] - (tmpGamma * block.inverseOnes[i])) / riskAversion;
+            tmpWeights.set(i, tmpWeight);
+            tmpReturn += tmpWeight * returns[i];
+        }
+
+        // (RAF/2) w'Cw == (r - g1)'w/2
+        final double tmpValue = ((tmpReturn - tmpGamma) / TWO) - tmpReturn;
+
+        return new Optimisation.Result(Optimisation.State.OPTIMAL, tmpValue, tmpWeights);
+    }
+
+    private Optimisation.Result solve(final Block block, final Specification specification, final double riskAversion) {
+
+        final int tmpSize = specification.size();
+
+        final PrimitiveDenseStore tmpQ = block.covariances.copy();
+        tmpQ.modifyAll(PrimitiveFunction.MULTIPLY.second(riskAversion));
+
+        final PrimitiveDenseStore tmpC = PrimitiveDenseStore.FACTORY.columns(specification.myReturns);
+
+        final PrimitiveDenseStore tmpAE = PrimitiveDenseStore.FACTORY.makeZero(1, tmpSize);
+        tmpAE.fillAll(ONE);
+        final PrimitiveDenseStore tmpBE = PrimitiveDenseStore.FACTORY.makeZero(1, 1);
+        tmpBE.set(0, ONE);
+
+        // [AI][X] <= [BI], one row per finite limit
+        final List<double[]> tmpRows = new ArrayList<>();
+        final List<Double> tmpRHS = new ArrayList<>();
+        for (int i = 0; i < tmpSize; i++) {
+            final double tmpLower = specification.getLowerLimit(i);
+            if (!Double.isNaN(tmpLower)) {
+                final double[] tmpRow = new double[tmpSize];
+                tmpRow[i] = NEG;
+                tmpRows.add(tmpRow);
+                tmpRHS.add(-tmpLower);
+            }
+            final double tmpUpper = specification.myUpperLimits[i];
+            if (!Double.isNaN(tmpUpper)) {
+                final double[] tmpRow = new double[tmpSize];
+                tmpRow[i] = ONE;
+                tmpRows.add(tmpRow);
+                tmpRHS.add(tmpUpper);
+            }
+        }
+        for (int c = 0; c < specification.myConstraintIndices.size(); c++) {
+            final int[] tmpIndices = specification.myConstraintIndices.get(c);
+            final LowerUpper tmpLimits = specification.myConstraintLimits.get(c);
+            if (tmpLimits.lower != null) {
+                final double[] tmpRow = new double[tmpSize];
+                for (final int i : tmpIndices) {
+                    tmpRow[i] = NEG;
+                }
+                tmpRows.add(tmpRow);
+                tmpRHS.add(-tmpLimits.lower.doubleValue());
+            }
+            if (tmpLimits.upper != null) {
+                final double[] tmpRow = new double[tmpSize];
+                for (final int i : tmpIndices) {
+                    tmpRow[i] = ONE;
+                }
+                tmpRows.add(tmpRow);
+                tmpRHS.add(tmpLimits.upper.doubleValue());
+            }
+        }
+
+        final ConvexSolver.Builder tmpBuilder = ConvexSolver.getBuilder(tmpQ, tmpC).equalities(tmpAE, tmpBE);
+        if (tmpRows.size() > 0) {
+            final PrimitiveDenseStore tmpAI = PrimitiveDenseStore.FACTORY.rows(tmpRows.toArray(new double[tmpRows.size()][]));
+            final PrimitiveDenseStore tmpBI = PrimitiveDenseStore.FACTORY.makeZero(tmpRHS.size(), 1);
+            for (int r = 0; r < tmpRHS.size(); r++) {
+                tmpBI.set(r, tmpRHS.get(r));
+            }
+            tmpBuilder.inequalities(tmpAI, tmpBI);
+        }
+
+        final Optimisation.Result tmpResult = tmpBuilder.build(myOptions).solve();
+
+        final Primitive64Array tmpWeights = Primitive64Array.make(tmpSize);
+        if (tmpResult.getState().isFeasible()) {
+            for (int i = 0; i < tmpSize; i++) {
+                final double tmpWeight = tmpResult.doubleValue(i);
+                tmpWeights.set(i, specification.myShortingAllowed ? tmpWeight : Math.max(ZERO, tmpWeight));
+            }
+        }
+
+        return new Optimisation.Result(tmpResult.getState(), tmpResult.getValue(), tmpWeights);
+    }
+
+}
@@ -21,20 +21,13 @@
  */
 package org.ojalgo.finance.portfolio.simulator;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 import org.ojalgo.access.Access2D;
-import org.ojalgo.array.Array1D;
-import org.ojalgo.array.Array2D;
-import org.ojalgo.array.Primitive64Array;
-import org.ojalgo.finance.portfolio.SimplePortfolio;
-import org.ojalgo.function.aggregator.Aggregator;
-import org.ojalgo.function.aggregator.AggregatorFunction;
-import org.ojalgo.function.aggregator.PrimitiveAggregator;
 import org.ojalgo.random.process.GeometricBrownian1D;
 import org.ojalgo.random.process.GeometricBrownianMotion;
 import org.ojalgo.random.process.RandomProcess;
+import org.ojalgo.random.process.SimulationEngine;
 
 public class PortfolioSimulator {
 
@@ -69,48 +62,19 @@ public class PortfolioSimulator {
         return this.simulate(aNumberOfRealisations, aNumberOfSteps, aStepSize, Integer.valueOf(rebalancingInterval));
     }
 
+    /**
+     * @param engine Determines the random number seed and the parallelism
+     * @param rebalancingInterval The number of steps between each rebalancing (to the initial weights), 0
+     *        means never.
+     */
+    public RandomProcess.SimulationResults simulate(final SimulationEngine engine, final int aNumberOfRealisations, final int aNumberOfSteps,
+            final double aStepSize, final int rebalancingInterval) {
+        return engine.simulate(myProcess, aNumberOfRealisations, aNumberOfSteps, aStepSize, rebalancingInterval);
+    }
+
     RandomProcess.SimulationResults simulate(final int aNumberOfRealisations, final int aNumberOfSteps, final double aStepSize,
             final Integer rebalancingInterval) {
-
-        final int tmpProcDim = myProcess.size();
-
-        final Primitive64Array tmpInitialValues = myProcess.getValues();
-        final Number[] tmpValues = new Number[tmpProcDim];
-        for (int p = 0; p < tmpProcDim; p++) {
-            tmpValues[p] = tmpInitialValues.get(p);
-        }
-        final List<BigDecimal> tmpWeights = new SimplePortfolio(tmpValues).normalise().getWeights();
-
-        final Array2D<Double> tmpRealisationValues = Array2D.PRIMITIVE64.makeZero(aNumberOfRealisations, aNumberOfSteps);
-
-        for (int r = 0; r < aNumberOfRealisations; r++) {
-
-            for (int s = 0; s < aNumberOfSteps; s++) {
-
-                if ((rebalancingInterval != null) && (s != 0) && ((s % rebalancingInterval) == 0)) {
-
-                    final double tmpPortfolioValue = tmpRealisationValues.doubleValue(r, s - 1);
-
-                    for (int p = 0; p < tmpProcDim; p++) {
-                        myProcess.setValue(p, tmpPortfolioValue * tmpWeights.get(p).doubleValue());
-                    }
-                }
-
-                final Array1D<Double> tmpRealisation = myProcess.step(aStepSize);
-
-                final AggregatorFunction<Double> tmpAggregator = Aggregator.SUM.getFunction(PrimitiveAggregator.getSet());
-                tmpRealisation.visitAll(tmpAggregator);
-                tmpRealisationValues.set(r, s, tmpAggregator.doubleValue());
-            }
-
-            myProcess.setValues(tmpInitialValues);
-        }
-
-        final AggregatorFunction<Double> tmpAggregator = Aggregator.SUM.getFunction(PrimitiveAggregator.getSet());
-        for (int i = 0; i < tmpInitialValues.count(); i++) {
-            tmpAggregator.invoke(tmpInitialValues.doubleValue(i));
-        }
-
-        return new RandomProcess.SimulationResults(tmpAggregator.doubleValue(), tmpRealisationValues);
+        final int tmpInterval = rebalancingInterval != null ? rebalancingInterval.intValue() : 0;
+        return this.simulate(new SimulationEngine(), aNumberOfRealisations, aNumberOfSteps, aStepSize, tmpInterval);
     }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.function.aggregator;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.function.PrimitiveFunction;
+
+/**
+ * Compensated (Neumaier) summation – the rounding error of each addition is accumulated separately and
+ * added back when the sum is read.
+ *
+ * @author apete
+ */
+final class NeumaierSum {
+
+    private double myCompensation = ZERO;
+    private double mySum = ZERO;
+
+    NeumaierSum() {
+        super();
+    }
+
+    void add(final double addend) {
+
+        final double tmpSum = mySum + addend;
+
+        if (PrimitiveFunction.ABS.invoke(mySum) >= PrimitiveFunction.ABS.invoke(addend)) {
+            myCompensation += (mySum - tmpSum) + addend;
+        } else {
+            myCompensation += (addend - tmpSum) + mySum;
+        }
+
+        mySum = tmpSum;
+    }
+
+    /**
+     * Add another compensated sum – its sum and its compensation
+     */
+    void add(final NeumaierSum other) {
+        this.add(other.mySum);
+        myCompensation += other.myCompensation;
+    }
+
+    void reset() {
+        myCompensation = ZERO;
+        mySum = ZERO;
+    }
+
+    void set(final NeumaierSum other) {
+        myCompensation = other.myCompensation;
+        mySum = other.mySum;
+    }
+
+    double sum() {
+        // With infinite terms the compensation is NaN, and of no use anyway
+        return Double.isFinite(mySum) ? mySum + myCompensation : mySum;
+    }
+
+}
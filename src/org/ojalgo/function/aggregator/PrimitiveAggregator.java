@@ -31,6 +31,51 @@ import org.ojalgo.type.context.NumberContext;
 
 public final class PrimitiveAggregator extends AggregatorSet<Double> {
 
+    /**
+     * Running sums are accumulated using Neumaier's variant of Kahan summation – the rounding error of each
+     * addition is collected in a separate compensation term that is added back when the sum is extracted. The
+     * error bound is then (practically) independent of the number of terms.
+     */
+    static abstract class CompensatedSum implements AggregatorFunction<Double> {
+
+        private final NeumaierSum mySum = new NeumaierSum();
+
+        CompensatedSum() {
+            super();
+        }
+
+        public final Double getNumber() {
+            return Double.valueOf(this.doubleValue());
+        }
+
+        public final int intValue() {
+            return (int) this.doubleValue();
+        }
+
+        public final void invoke(final Double anArg) {
+            this.invoke(anArg.doubleValue());
+        }
+
+        public final AggregatorFunction<Double> reset() {
+            mySum.reset();
+            return this;
+        }
+
+        public final Scalar<Double> toScalar() {
+            return PrimitiveScalar.of(this.doubleValue());
+        }
+
+        final void add(final double addend) {
+            mySum.add(addend);
+        }
+
+        final double sum() {
+            return mySum.sum();
+        }
+
+    }
+
+
     public static final ThreadLocal<AggregatorFunction<Double>> CARDINALITY = new ThreadLocal<AggregatorFunction<Double>>() {
 
         @Override
@@ -233,28 +278,14 @@ public final class PrimitiveAggregator extends AggregatorSet<Double> {
 
         @Override
         protected AggregatorFunction<Double> initialValue() {
-            return new AggregatorFunction<Double>() {
-
-                private double myValue = ZERO;
+            return new CompensatedSum() {
 
                 public double doubleValue() {
-                    return myValue;
-                }
-
-                public Double getNumber() {
-                    return Double.valueOf(this.doubleValue());
-                }
-
-                public int intValue() {
-                    return (int) this.doubleValue();
+                    return this.sum();
                 }
 
                 public void invoke(final double anArg) {
-                    myValue += PrimitiveFunction.ABS.invoke(anArg);
-                }
-
-                public void invoke(final Double anArg) {
-                    this.invoke(anArg.doubleValue());
+                    this.add(PrimitiveFunction.ABS.invoke(anArg));
                 }
 
                 public void merge(final Double result) {
@@ -265,14 +296,6 @@ public final class PrimitiveAggregator extends AggregatorSet<Double> {
                     return PrimitiveFunction.ABS.invoke(result1) + PrimitiveFunction.ABS.invoke(result2);
                 }
 
-                public AggregatorFunction<Double> reset() {
-                    myValue = ZERO;
-                    return this;
-                }
-
-                public Scalar<Double> toScalar() {
-                    return PrimitiveScalar.of(this.doubleValue());
-                }
             };
         }
     };
@@ -281,32 +304,17 @@ public final class PrimitiveAggregator extends AggregatorSet<Double> {
 
         @Override
         protected AggregatorFunction<Double> initialValue() {
-            return new AggregatorFunction<Double>() {
-
-                private double myValue = ZERO;
+            return new CompensatedSum() {
 
                 public double doubleValue() {
-                    //return myValue; // more than 100x slower
-                    return PrimitiveFunction.SQRT.invoke(myValue);
-                }
-
-                public Double getNumber() {
-                    return Double.valueOf(this.doubleValue());
-                }
-
-                public int intValue() {
-                    return (int) this.doubleValue();
+                    return PrimitiveFunction.SQRT.invoke(this.sum());
                 }
 
                 public void invoke(final double anArg) {
-                    myValue += anArg * anArg;
+                    this.add(anArg * anArg);
                     //myValue = PrimitiveFunction.HYPOT.invoke(myValue, anArg); // more than 100x slower
                 }
 
-                public void invoke(final Double anArg) {
-                    this.invoke(anArg.doubleValue());
-                }
-
                 public void merge(final Double result) {
                     this.invoke(result.doubleValue());
                 }
@@ -315,14 +323,6 @@ public final class PrimitiveAggregator extends AggregatorSet<Double> {
                     return PrimitiveFunction.HYPOT.invoke(result1, result2);
                 }
 
-                public AggregatorFunction<Double> reset() {
-                    myValue = ZERO;
-                    return this;
-                }
-
-                public Scalar<Double> toScalar() {
-                    return PrimitiveScalar.of(this.doubleValue());
-                }
             };
         }
     };
@@ -483,46 +483,24 @@ public final class PrimitiveAggregator extends AggregatorSet<Double> {
 
         @Override
         protected AggregatorFunction<Double> initialValue() {
-            return new AggregatorFunction<Double>() {
-
-                private double myValue = ZERO;
+            return new CompensatedSum() {
 
                 public double doubleValue() {
-                    return myValue;
-                }
-
-                public Double getNumber() {
-                    return Double.valueOf(this.doubleValue());
-                }
-
-                public int intValue() {
-                    return (int) this.doubleValue();
+                    return this.sum();
                 }
 
                 public void invoke(final double anArg) {
-                    myValue += anArg;
-                }
-
-                public void invoke(final Double anArg) {
-                    this.invoke(anArg.doubleValue());
+                    this.add(anArg);
                 }
 
                 public void merge(final Double result) {
-                    this.invoke(result.doubleValue());
+                    this.add(result.doubleValue());
                 }
 
                 public Double merge(final Double result1, final Double result2) {
                     return result1 + result2;
                 }
 
-                public AggregatorFunction<Double> reset() {
-                    myValue = ZERO;
-                    return this;
-                }
-
-                public Scalar<Double> toScalar() {
-                    return PrimitiveScalar.of(this.doubleValue());
-                }
             };
         }
     };
@@ -531,46 +509,24 @@ public final class PrimitiveAggregator extends AggregatorSet<Double> {
 
         @Override
         protected AggregatorFunction<Double> initialValue() {
-            return new AggregatorFunction<Double>() {
-
-                private double myValue = ZERO;
+            return new CompensatedSum() {
 
                 public double doubleValue() {
-                    return myValue;
-                }
-
-                public Double getNumber() {
-                    return Double.valueOf(this.doubleValue());
-                }
-
-                public int intValue() {
-                    return (int) this.doubleValue();
+                    return this.sum();
                 }
 
                 public void invoke(final double anArg) {
-                    myValue += anArg * anArg;
-                }
-
-                public void invoke(final Double anArg) {
-                    this.invoke(anArg.doubleValue());
+                    this.add(anArg * anArg);
                 }
 
                 public void merge(final Double result) {
-                    myValue += result;
+                    this.add(result.doubleValue());
                 }
 
                 public Double merge(final Double result1, final Double result2) {
                     return result1 + result2;
                 }
 
-                public AggregatorFunction<Double> reset() {
-                    myValue = ZERO;
-                    return this;
-                }
-
-                public Scalar<Double> toScalar() {
-                    return PrimitiveScalar.of(this.doubleValue());
-                }
             };
         }
     };
@@ -0,0 +1,182 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.function.aggregator;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.access.Access1D;
+import org.ojalgo.concurrent.ReproducibleReduction;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.function.VoidFunction;
+
+/**
+ * Count, sum, mean, variance, min and max – all calculated in one pass over the data. The sum is compensated
+ * (Neumaier), and the mean and variance are updated incrementally (Welford). Instances can be merged (Chan et
+ * al.), which is what makes parallel aggregation possible.
+ *
+ * @author apete
+ */
+public final class PrimitiveStatistics implements VoidFunction<Double> {
+
+    /**
+     * Computed by {@link ReproducibleReduction} – the results are identical regardless of the number of
+     * threads. Works for any {@link Access1D}; {@link org.ojalgo.array.Array1D},
+     * {@link org.ojalgo.matrix.store.MatrixStore} and others.
+     */
+    public static PrimitiveStatistics of(final Access1D<?> values) {
+        return ReproducibleReduction.invoke(values.count(), (first, limit) -> {
+            final PrimitiveStatistics retVal = new PrimitiveStatistics();
+            for (long i = first; i < limit; i++) {
+                retVal.invoke(values.doubleValue(i));
+            }
+            return retVal;
+        }, PrimitiveStatistics::merge);
+    }
+
+    private long myCount = 0L;
+    private double myMaximum = NEGATIVE_INFINITY;
+    private double myMean = ZERO;
+    private double myMinimum = POSITIVE_INFINITY;
+    /**
+     * Sum of squared deviations from the (current) mean
+     */
+    private double mySquares = ZERO;
+    private final NeumaierSum mySum = new NeumaierSum();
+
+    public PrimitiveStatistics() {
+        super();
+    }
+
+    public long count() {
+        return myCount;
+    }
+
+    /**
+     * @return The largest value, or NaN if there are no values
+     */
+    public double getMaximum() {
+        return myCount > 0L ? myMaximum : NaN;
+    }
+
+    /**
+     * @return The arithmetic mean, or NaN if there are no values
+     */
+    public double getMean() {
+        return myCount > 0L ? myMean : NaN;
+    }
+
+    /**
+     * @return The smallest value, or NaN if there are no values
+     */
+    public double getMinimum() {
+        return myCount > 0L ? myMinimum : NaN;
+    }
+
+    public double getStandardDeviation() {
+        return PrimitiveFunction.SQRT.invoke(this.getVariance());
+    }
+
+    public double getSum() {
+        return mySum.sum();
+    }
+
+    /**
+     * @return The sample variance (divided by count - 1), or NaN if there are less than 2 values
+     */
+    public double getVariance() {
+        return myCount > 1L ? mySquares / (myCount - 1L) : NaN;
+    }
+
+    public void invoke(final double arg) {
+
+        myCount++;
+
+        mySum.add(arg);
+
+        final double tmpDelta = arg - myMean;
+        myMean += tmpDelta / myCount;
+        mySquares += tmpDelta * (arg - myMean);
+
+        if (arg < myMinimum) {
+            myMinimum = arg;
+        }
+        if (arg > myMaximum) {
+            myMaximum = arg;
+        }
+    }
+
+    public void invoke(final Double arg) {
+        this.invoke(arg.doubleValue());
+    }
+
+    /**
+     * Combine with the statistics of another set of values. The result is as if this instance had been
+     * invoked with all of those values as well (but rounding may differ).
+     */
+    public PrimitiveStatistics merge(final PrimitiveStatistics other) {
+
+        if (other.count() == 0L) {
+            return this;
+        }
+
+        if (myCount == 0L) {
+            myCount = other.myCount;
+            myMaximum = other.myMaximum;
+            myMean = other.myMean;
+            myMinimum = other.myMinimum;
+            mySquares = other.mySquares;
+            mySum.set(other.mySum);
+            return this;
+        }
+
+        final long tmpCount = myCount + other.myCount;
+        final double tmpDelta = other.myMean - myMean;
+
+        myMean += (tmpDelta * other.myCount) / tmpCount;
+        mySquares += other.mySquares + (((tmpDelta * tmpDelta) * myCount * other.myCount) / tmpCount);
+        myCount = tmpCount;
+
+        mySum.add(other.mySum);
+
+        myMinimum = PrimitiveFunction.MIN.invoke(myMinimum, other.myMinimum);
+        myMaximum = PrimitiveFunction.MAX.invoke(myMaximum, other.myMaximum);
+
+        return this;
+    }
+
+    public PrimitiveStatistics reset() {
+        myCount = 0L;
+        myMaximum = NEGATIVE_INFINITY;
+        myMean = ZERO;
+        myMinimum = POSITIVE_INFINITY;
+        mySquares = ZERO;
+        mySum.reset();
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + myCount + " sum=" + this.getSum() + " mean=" + this.getMean() + " variance=" + this.getVariance() + " min=" + this.getMinimum()
+                + " max=" + this.getMaximum();
+    }
+
+}
@@ -56,7 +56,7 @@ abstract class AbstractMachine extends BasicMachine {
 
     protected AbstractMachine(final Hardware hardware, final Runtime runtime) {
 
-        super(runtime.maxMemory(), runtime.availableProcessors());
+        super(Math.min(runtime.maxMemory(), HardwareProbe.getMemoryLimit()), Math.min(runtime.availableProcessors(), HardwareProbe.getThreadLimit()));
 
         architecture = hardware.architecture;
 
@@ -0,0 +1,395 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.machine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Determines the actual hardware, and the share of it available to this JVM, at runtime – rather than
+ * matching against {@link Hardware#PREDEFINED}.
+ * <ul>
+ * <li>{@link #detect()} reads the cache hierarchy (size and number of sharing threads per level) and the
+ * number of online CPUs from Linux' <code>/sys/devices/system/cpu</code>, and the total RAM from
+ * <code>/proc/meminfo</code>.</li>
+ * <li>{@link #getThreadLimit()} and {@link #getMemoryLimit()} read cgroup (v1 or v2) CPU quota, cpuset and
+ * memory limits. Inside a container these are often lower than what the JVM reports, and
+ * {@link VirtualMachine} applies them.</li>
+ * <li>{@link #measure()} is the fallback for other OS:s – it estimates the cache sizes with a pointer chasing
+ * micro-benchmark. That takes a second or so, and is only used automatically if the system property
+ * {@value #BENCHMARK} is set.</li>
+ * </ul>
+ *
+ * @author apete
+ */
+public final class HardwareProbe {
+
+    /**
+     * Set this system property (to anything) to have the micro-benchmark run on startup, when the hardware
+     * can't be detected otherwise.
+     */
+    public static final String BENCHMARK = "org.ojalgo.machine.benchmark";
+
+    private static final String CGROUP = "sys/fs/cgroup";
+    private static final String CPU = "sys/devices/system/cpu";
+    private static final long K = AbstractMachine.K;
+    private static final Path ROOT = Paths.get("/");
+
+    private static final long MEMORY_LIMIT = HardwareProbe.memoryLimit(ROOT);
+    private static final int THREAD_LIMIT = HardwareProbe.threadLimit(ROOT);
+
+    /**
+     * @return The detected hardware, or nothing if this is not a (readable) Linux system
+     */
+    public static Optional<Hardware> detect() {
+        return HardwareProbe.detect(ROOT, VirtualMachine.getArchitecture());
+    }
+
+    /**
+     * @return The cgroup memory limit in bytes, or {@link Long#MAX_VALUE} if there is none
+     */
+    public static long getMemoryLimit() {
+        return MEMORY_LIMIT;
+    }
+
+    /**
+     * @return The number of threads that may execute concurrently, as limited by a cgroup CPU quota or
+     *         cpuset, or {@link Integer#MAX_VALUE} if there is no such limit
+     */
+    public static int getThreadLimit() {
+        return THREAD_LIMIT;
+    }
+
+    /**
+     * Estimates the cache sizes by measuring the latency of dependent (pointer chasing) reads over
+     * increasingly large working sets – a cache boundary shows as a jump in latency. Cache sharing is not
+     * measured; L1 and L2 are assumed private to a core and L3 shared by all threads.
+     */
+    public static Hardware measure() {
+
+        final int tmpThreads = VirtualMachine.getThreads();
+        final long tmpMemory = VirtualMachine.getMemory();
+
+        final List<Long> tmpCaches = new ArrayList<>();
+
+        double tmpPlateau = Double.NaN;
+        long tmpPrevious = 0L;
+        for (long tmpSize = 4L * K; (tmpSize <= (64L * K * K)) && (tmpCaches.size() < 3); tmpSize *= 2L) {
+            final double tmpLatency = HardwareProbe.latency((int) (tmpSize / 4L));
+            if (Double.isNaN(tmpPlateau)) {
+                tmpPlateau = tmpLatency;
+            } else if (tmpLatency > (1.5 * tmpPlateau)) {
+                tmpCaches.add(tmpPrevious);
+                tmpPlateau = tmpLatency;
+            }
+            tmpPrevious = tmpSize;
+        }
+
+        final List<BasicMachine> tmpLevels = new ArrayList<>();
+        tmpLevels.add(new BasicMachine(tmpMemory, tmpThreads));
+        for (int l = tmpCaches.size() - 1; l >= 0; l--) {
+            tmpLevels.add(new BasicMachine(tmpCaches.get(l), l >= 2 ? tmpThreads : 1));
+        }
+        if (tmpLevels.size() == 1) {
+            tmpLevels.add(new BasicMachine(32L * K, 1));
+        }
+
+        return new Hardware(VirtualMachine.getArchitecture(), tmpLevels.toArray(new BasicMachine[tmpLevels.size()]));
+    }
+
+    /**
+     * @param list Linux CPU list format, e.g. "0-3,8,10-11"
+     * @return The number of CPUs in the list
+     */
+    static int countList(final String list) {
+
+        int retVal = 0;
+
+        for (final String tmpPart : list.trim().split(",")) {
+            if (tmpPart.length() > 0) {
+                final int tmpDash = tmpPart.indexOf('-');
+                if (tmpDash > 0) {
+                    retVal += (Integer.parseInt(tmpPart.substring(tmpDash + 1).trim()) - Integer.parseInt(tmpPart.substring(0, tmpDash).trim())) + 1;
+                } else {
+                    retVal++;
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    static Optional<Hardware> detect(final Path root, final String architecture) {
+
+        final Path tmpCPU = root.resolve(CPU);
+
+        final String tmpOnline = HardwareProbe.read(tmpCPU.resolve("online"));
+        if (tmpOnline == null) {
+            return Optional.empty();
+        }
+        final int tmpThreads = HardwareProbe.countList(tmpOnline);
+
+        // level -> { size, sharing threads } for data and unified caches of the first CPU
+        final TreeMap<Integer, long[]> tmpCaches = new TreeMap<>();
+        for (int i = 0;; i++) {
+            final Path tmpIndex = tmpCPU.resolve("cpu0/cache/index" + i);
+            final String tmpLevel = HardwareProbe.read(tmpIndex.resolve("level"));
+            if (tmpLevel == null) {
+                break;
+            }
+            final String tmpType = HardwareProbe.read(tmpIndex.resolve("type"));
+            final String tmpSize = HardwareProbe.read(tmpIndex.resolve("size"));
+            final String tmpShared = HardwareProbe.read(tmpIndex.resolve("shared_cpu_list"));
+            if ((tmpSize != null) && !"Instruction".equals(tmpType)) {
+                final long tmpBytes = HardwareProbe.parseSize(tmpSize);
+                final int tmpSharing = tmpShared != null ? Math.max(1, Math.min(tmpThreads, HardwareProbe.countList(tmpShared))) : 1;
+                final long[] tmpExisting = tmpCaches.get(Integer.parseInt(tmpLevel));
+                if ((tmpExisting == null) || (tmpExisting[0] < tmpBytes)) {
+                    tmpCaches.put(Integer.parseInt(tmpLevel), new long[] { tmpBytes, tmpSharing });
+                }
+            }
+        }
+
+        if (tmpCaches.isEmpty()) {
+            return Optional.empty();
+        }
+
+        long tmpMemory = VirtualMachine.getMemory();
+        final String tmpMemInfo = HardwareProbe.read(root.resolve("proc/meminfo"));
+        if (tmpMemInfo != null) {
+            for (final String tmpLine : tmpMemInfo.split("\n")) {
+                if (tmpLine.startsWith("MemTotal:")) {
+                    tmpMemory = HardwareProbe.parseSize(tmpLine.substring(9).replace("kB", "K").replace(" ", ""));
+                }
+            }
+        }
+
+        final BasicMachine[] tmpLevels = new BasicMachine[1 + Math.min(3, tmpCaches.size())];
+        tmpLevels[0] = new BasicMachine(tmpMemory, tmpThreads);
+        int tmpIndex = tmpLevels.length;
+        for (final long[] tmpCache : tmpCaches.values()) {
+            if (tmpIndex > 1) {
+                tmpLevels[--tmpIndex] = new BasicMachine(tmpCache[0], (int) tmpCache[1]);
+            }
+        }
+
+        return Optional.of(new Hardware(architecture, tmpLevels));
+    }
+
+    static long memoryLimit(final Path root) {
+
+        long retVal = Long.MAX_VALUE;
+
+        for (final Path tmpDirectory : HardwareProbe.cgroups(root, "memory")) {
+            for (final String tmpFile : new String[] { "memory.max", "memory.limit_in_bytes" }) {
+                final String tmpValue = HardwareProbe.read(tmpDirectory.resolve(tmpFile));
+                if ((tmpValue != null) && !"max".equals(tmpValue)) {
+                    try {
+                        final long tmpLimit = Long.parseLong(tmpValue);
+                        // v1 reports "no limit" as a huge, page aligned, number
+                        if ((tmpLimit > 0L) && (tmpLimit < (Long.MAX_VALUE / 2L))) {
+                            retVal = Math.min(retVal, tmpLimit);
+                        }
+                    } catch (final NumberFormatException ignore) {
+                        // Not a limit
+                    }
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    static long parseSize(final String size) {
+
+        final String tmpSize = size.trim().toUpperCase();
+        final char tmpUnit = tmpSize.charAt(tmpSize.length() - 1);
+
+        switch (tmpUnit) {
+        case 'K':
+            return Long.parseLong(tmpSize.substring(0, tmpSize.length() - 1)) * K;
+        case 'M':
+            return Long.parseLong(tmpSize.substring(0, tmpSize.length() - 1)) * K * K;
+        case 'G':
+            return Long.parseLong(tmpSize.substring(0, tmpSize.length() - 1)) * K * K * K;
+        default:
+            return Long.parseLong(tmpSize);
+        }
+    }
+
+    static int threadLimit(final Path root) {
+
+        int retVal = Integer.MAX_VALUE;
+
+        for (final Path tmpDirectory : HardwareProbe.cgroups(root, "cpu")) {
+
+            final String tmpMax = HardwareProbe.read(tmpDirectory.resolve("cpu.max"));
+            if (tmpMax != null) {
+                final String[] tmpParts = tmpMax.split("\\s+");
+                if ((tmpParts.length == 2) && !"max".equals(tmpParts[0])) {
+                    retVal = Math.min(retVal, HardwareProbe.quota(tmpParts[0], tmpParts[1]));
+                }
+            }
+
+            final String tmpQuota = HardwareProbe.read(tmpDirectory.resolve("cpu.cfs_quota_us"));
+            final String tmpPeriod = HardwareProbe.read(tmpDirectory.resolve("cpu.cfs_period_us"));
+            if ((tmpQuota != null) && (tmpPeriod != null) && !tmpQuota.startsWith("-")) {
+                retVal = Math.min(retVal, HardwareProbe.quota(tmpQuota, tmpPeriod));
+            }
+        }
+
+        for (final Path tmpDirectory : HardwareProbe.cgroups(root, "cpuset")) {
+            for (final String tmpFile : new String[] { "cpuset.cpus.effective", "cpuset.cpus" }) {
+                final String tmpCPUs = HardwareProbe.read(tmpDirectory.resolve(tmpFile));
+                if ((tmpCPUs != null) && (tmpCPUs.length() > 0)) {
+                    retVal = Math.min(retVal, HardwareProbe.countList(tmpCPUs));
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * The directories, most specific first, where the limits of the specified controller could be found –
+     * the process' own cgroup (from /proc/self/cgroup) as well as the mount root (which is what a container
+     * typically sees).
+     */
+    private static List<Path> cgroups(final Path root, final String controller) {
+
+        final List<Path> retVal = new ArrayList<>();
+
+        final Path tmpMount = root.resolve(CGROUP);
+
+        final String tmpMembership = HardwareProbe.read(root.resolve("proc/self/cgroup"));
+        if (tmpMembership != null) {
+            for (final String tmpLine : tmpMembership.split("\n")) {
+                final String[] tmpParts = tmpLine.split(":", 3);
+                if (tmpParts.length == 3) {
+                    final String tmpRelative = tmpParts[2].startsWith("/") ? tmpParts[2].substring(1) : tmpParts[2];
+                    if (tmpParts[1].length() == 0) {
+                        HardwareProbe.addDirectory(retVal, tmpMount.resolve(tmpRelative));
+                    } else {
+                        for (final String tmpController : tmpParts[1].split(",")) {
+                            if (tmpController.equals(controller)) {
+                                HardwareProbe.addDirectory(retVal, tmpMount.resolve(tmpParts[1]).resolve(tmpRelative));
+                                HardwareProbe.addDirectory(retVal, tmpMount.resolve(controller).resolve(tmpRelative));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        HardwareProbe.addDirectory(retVal, tmpMount.resolve(controller));
+        HardwareProbe.addDirectory(retVal, tmpMount);
+
+        return retVal;
+    }
+
+    private static void addDirectory(final List<Path> directories, final Path candidate) {
+        if (Files.isDirectory(candidate) && !directories.contains(candidate)) {
+            directories.add(candidate);
+        }
+    }
+
+    /**
+     * @return Average nanoseconds per dependent read, over a random cyclic permutation of this many ints
+     *         (one per cache line)
+     */
+    private static double latency(final int size) {
+
+        final int tmpStride = (int) (Hardware.CPU_CACHE_LINE_SIZE / 4L);
+        final int tmpLines = Math.max(2, size / tmpStride);
+
+        // Sattolo's algorithm – a single cycle through all cache lines
+        final int[] tmpOrder = new int[tmpLines];
+        for (int i = 0; i < tmpLines; i++) {
+            tmpOrder[i] = i;
+        }
+        final Random tmpRandom = new Random(tmpLines);
+        for (int i = tmpLines - 1; i > 0; i--) {
+            final int j = tmpRandom.nextInt(i);
+            final int tmpSwap = tmpOrder[i];
+            tmpOrder[i] = tmpOrder[j];
+            tmpOrder[j] = tmpSwap;
+        }
+
+        final int[] tmpNext = new int[tmpLines * tmpStride];
+        for (int i = 0; i < tmpLines; i++) {
+            tmpNext[i * tmpStride] = tmpOrder[i] * tmpStride;
+        }
+
+        final int tmpSteps = 1 << 20;
+
+        int tmpPosition = 0;
+        long tmpBest = Long.MAX_VALUE;
+        for (int r = 0; r < 5; r++) {
+            final long tmpStart = System.nanoTime();
+            for (int s = 0; s < tmpSteps; s++) {
+                tmpPosition = tmpNext[tmpPosition];
+            }
+            tmpBest = Math.min(tmpBest, System.nanoTime() - tmpStart);
+        }
+
+        // Using the final position prevents the loop from being eliminated
+        return ((double) tmpBest + (tmpPosition & 1)) / tmpSteps;
+    }
+
+    private static int quota(final String quota, final String period) {
+        try {
+            final double tmpQuota = Double.parseDouble(quota);
+            final double tmpPeriod = Double.parseDouble(period);
+            return (int) Math.max(1.0, Math.ceil(tmpQuota / tmpPeriod));
+        } catch (final NumberFormatException cause) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @return The (trimmed) file contents, or null if it can't be read
+     */
+    private static String read(final Path file) {
+        try {
+            if (Files.isReadable(file)) {
+                return new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim();
+            } else {
+                return null;
+            }
+        } catch (final IOException | SecurityException cause) {
+            return null;
+        }
+    }
+
+    private HardwareProbe() {
+        super();
+    }
+
+}
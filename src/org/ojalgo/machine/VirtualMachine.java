@@ -48,12 +48,18 @@ public final class VirtualMachine extends AbstractMachine {
         }
     }
 
+    /**
+     * The max heap size, but no more than a container (cgroup) memory limit
+     */
     public static long getMemory() {
-        return Runtime.getRuntime().maxMemory();
+        return Math.min(Runtime.getRuntime().maxMemory(), HardwareProbe.getMemoryLimit());
     }
 
+    /**
+     * The number of available processors, but no more than a container (cgroup) CPU quota or cpuset allows
+     */
     public static int getThreads() {
-        return Runtime.getRuntime().availableProcessors();
+        return Math.min(Runtime.getRuntime().availableProcessors(), HardwareProbe.getThreadLimit());
     }
 
     private final Hardware myHardware;
@@ -45,7 +45,6 @@ import org.ojalgo.function.NullaryFunction;
 import org.ojalgo.function.UnaryFunction;
 import org.ojalgo.function.VoidFunction;
 import org.ojalgo.function.aggregator.Aggregator;
-import org.ojalgo.function.aggregator.AggregatorFunction;
 import org.ojalgo.function.aggregator.AggregatorSet;
 import org.ojalgo.function.aggregator.BigAggregator;
 import org.ojalgo.matrix.MatrixUtils;
@@ -471,37 +470,7 @@ public final class BigDenseStore extends BigArray implements PhysicalStore<BigDe
     }
 
     public BigDecimal aggregateAll(final Aggregator aggregator) {
-
-        final int tmpRowDim = myRowDim;
-        final int tmpColDim = myColDim;
-
-        final AggregatorFunction<BigDecimal> tmpMainAggr = aggregator.getFunction(BigAggregator.getSet());
-
-        if (tmpColDim > AggregateAll.THRESHOLD) {
-
-            final DivideAndConquer tmpConquerer = new DivideAndConquer() {
-
-                @Override
-                public void conquer(final int aFirst, final int aLimit) {
-
-                    final AggregatorFunction<BigDecimal> tmpPartAggr = aggregator.getFunction(BigAggregator.getSet());
-
-                    BigDenseStore.this.visit(tmpRowDim * aFirst, tmpRowDim * aLimit, 1, tmpPartAggr);
-
-                    synchronized (tmpMainAggr) {
-                        tmpMainAggr.merge(tmpPartAggr.getNumber());
-                    }
-                }
-            };
-
-            tmpConquerer.invoke(0, tmpColDim, AggregateAll.THRESHOLD);
-
-        } else {
-
-            BigDenseStore.this.visit(0, this.size(), 1, tmpMainAggr);
-        }
-
-        return tmpMainAggr.getNumber();
+        return AggregateAll.invoke(this, aggregator, BigAggregator.getSet());
     }
 
     public void applyCholesky(final int iterationPoint, final BasicArray<BigDecimal> multipliers) {
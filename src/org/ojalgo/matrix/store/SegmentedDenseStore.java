@@ -0,0 +1,1242 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+import static org.ojalgo.function.PrimitiveFunction.*;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.ojalgo.access.Access1D;
+import org.ojalgo.access.Access2D;
+import org.ojalgo.access.Mutate1D;
+import org.ojalgo.array.BufferArray;
+import org.ojalgo.array.DenseArray;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.array.blas.AXPY;
+import org.ojalgo.array.blas.DOT;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.function.BinaryFunction;
+import org.ojalgo.function.FunctionSet;
+import org.ojalgo.function.NullaryFunction;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.function.UnaryFunction;
+import org.ojalgo.function.VoidFunction;
+import org.ojalgo.function.aggregator.Aggregator;
+import org.ojalgo.function.aggregator.AggregatorSet;
+import org.ojalgo.function.aggregator.PrimitiveAggregator;
+import org.ojalgo.matrix.MatrixUtils;
+import org.ojalgo.matrix.store.operation.AggregateAll;
+import org.ojalgo.matrix.store.operation.ApplyCholesky;
+import org.ojalgo.matrix.store.operation.FillMatchingBoth;
+import org.ojalgo.matrix.store.operation.HouseholderLeft;
+import org.ojalgo.matrix.store.operation.HouseholderRight;
+import org.ojalgo.matrix.store.operation.ModifyAll;
+import org.ojalgo.matrix.store.operation.MultiplyBoth;
+import org.ojalgo.matrix.store.operation.SubstituteBackwards;
+import org.ojalgo.matrix.store.operation.SubstituteForwards;
+import org.ojalgo.matrix.transformation.Householder;
+import org.ojalgo.matrix.transformation.Rotation;
+import org.ojalgo.scalar.PrimitiveScalar;
+import org.ojalgo.scalar.Scalar;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * A dense double valued {@link PhysicalStore} that is not limited to {@link DenseArray#MAX_ARRAY_SIZE}
+ * elements. The (column major) elements are stored in a sequence of segments, and each segment holds a
+ * number of whole columns – a column never straddles two segments. Only the number of rows is limited (by
+ * the capacity of a single segment).
+ * <ul>
+ * <li>{@link #FACTORY} allocates the segments as ordinary double[] on the heap.</li>
+ * <li>{@link #DIRECT} allocates the segments off-heap (direct buffers). Apart from the buffer objects
+ * themselves, the garbage collector never sees (scans or copies) that memory.</li>
+ * </ul>
+ * The bulk operations (fill, modify, axpy, multiply, substitute, Householder transformations and the
+ * Cholesky kernel) work column by column, and process different columns in parallel. On-heap segments are
+ * processed in place. Off-heap columns are copied to a (small) work array and back.
+ *
+ * @author apete
+ */
+public final class SegmentedDenseStore implements PhysicalStore<Double> {
+
+    @FunctionalInterface
+    interface ColumnsKernel {
+
+        /**
+         * @param data Column major, local column c (first &lt;= c &lt; limit) starts at index c * rows
+         * @param first The first local column to process
+         * @param limit The local column limit
+         * @param offset Add to a local column index to get the matrix column index
+         */
+        void invoke(double[] data, int first, int limit, int offset);
+
+    }
+
+    @FunctionalInterface
+    interface SegmentKernel {
+
+        void invoke(DenseArray<Double> segment, int index);
+
+    }
+
+    static final class StoreFactory implements PhysicalStore.Factory<Double, SegmentedDenseStore> {
+
+        private final DenseArray.Factory<Double> mySegmentFactory;
+
+        StoreFactory(final DenseArray.Factory<Double> segmentFactory) {
+            super();
+            mySegmentFactory = segmentFactory;
+        }
+
+        public AggregatorSet<Double> aggregator() {
+            return PrimitiveAggregator.getSet();
+        }
+
+        public DenseArray.Factory<Double> array() {
+            return mySegmentFactory;
+        }
+
+        public MatrixStore.Factory<Double> builder() {
+            return MatrixStore.PRIMITIVE;
+        }
+
+        public SegmentedDenseStore columns(final Access1D<?>... source) {
+
+            final SegmentedDenseStore retVal = this.makeZero(source[0].count(), source.length);
+
+            retVal.columns(0, source.length, THRESHOLD, true, (data, first, limit, offset) -> {
+                final int tmpRowDim = retVal.myRowDim;
+                for (int j = first; j < limit; j++) {
+                    final Access1D<?> tmpColumn = source[j + offset];
+                    for (int i = 0; i < tmpRowDim; i++) {
+                        data[i + (j * tmpRowDim)] = tmpColumn.doubleValue(i);
+                    }
+                }
+            });
+
+            return retVal;
+        }
+
+        public SegmentedDenseStore columns(final double[]... source) {
+
+            final SegmentedDenseStore retVal = this.makeZero(source[0].length, source.length);
+
+            retVal.columns(0, source.length, THRESHOLD, true, (data, first, limit, offset) -> {
+                final int tmpRowDim = retVal.myRowDim;
+                for (int j = first; j < limit; j++) {
+                    System.arraycopy(source[j + offset], 0, data, j * tmpRowDim, tmpRowDim);
+                }
+            });
+
+            return retVal;
+        }
+
+        public SegmentedDenseStore columns(final List<? extends Number>... source) {
+
+            final SegmentedDenseStore retVal = this.makeZero(source[0].size(), source.length);
+
+            for (int j = 0; j < source.length; j++) {
+                final List<? extends Number> tmpColumn = source[j];
+                for (int i = 0; i < retVal.myRowDim; i++) {
+                    retVal.set(i, j, tmpColumn.get(i).doubleValue());
+                }
+            }
+
+            return retVal;
+        }
+
+        public SegmentedDenseStore columns(final Number[]... source) {
+
+            final SegmentedDenseStore retVal = this.makeZero(source[0].length, source.length);
+
+            for (int j = 0; j < source.length; j++) {
+                final Number[] tmpColumn = source[j];
+                for (int i = 0; i < retVal.myRowDim; i++) {
+                    retVal.set(i, j, tmpColumn[i].doubleValue());
+                }
+            }
+
+            return retVal;
+        }
+
+        public SegmentedDenseStore conjugate(final Access2D<?> source) {
+            return this.transpose(source);
+        }
+
+        public SegmentedDenseStore copy(final Access2D<?> source) {
+
+            final SegmentedDenseStore retVal = this.makeZero(source.countRows(), source.countColumns());
+
+            retVal.fillMatching(source);
+
+            return retVal;
+        }
+
+        public FunctionSet<Double> function() {
+            return PrimitiveFunction.getSet();
+        }
+
+        public SegmentedDenseStore makeEye(final long rows, final long columns) {
+
+            final SegmentedDenseStore retVal = this.makeZero(rows, columns);
+
+            retVal.fillDiagonal(0L, 0L, ONE);
+
+            return retVal;
+        }
+
+        public SegmentedDenseStore makeFilled(final long rows, final long columns, final NullaryFunction<?> supplier) {
+
+            final SegmentedDenseStore retVal = this.makeZero(rows, columns);
+
+            for (int s = 0; s < retVal.mySegments.length; s++) {
+                final DenseArray<Double> tmpSegment = retVal.mySegments[s];
+                final long tmpCount = tmpSegment.count();
+                for (long i = 0L; i < tmpCount; i++) {
+                    tmpSegment.set(i, supplier.doubleValue());
+                }
+            }
+
+            return retVal;
+        }
+
+        public Householder<Double> makeHouseholder(final int length) {
+            return new Householder.Primitive(length);
+        }
+
+        public Rotation<Double> makeRotation(final int low, final int high, final double cos, final double sin) {
+            return new Rotation.Primitive(low, high, cos, sin);
+        }
+
+        public Rotation<Double> makeRotation(final int low, final int high, final Double cos, final Double sin) {
+            return new Rotation.Primitive(low, high, cos, sin);
+        }
+
+        public SegmentedDenseStore makeZero(final long rows, final long columns) {
+            return new SegmentedDenseStore(this, rows, columns, SegmentedDenseStore.columnsPerSegment(rows, columns));
+        }
+
+        public SegmentedDenseStore rows(final Access1D<?>... source) {
+            return this.transpose(this.columns(source));
+        }
+
+        public SegmentedDenseStore rows(final double[]... source) {
+            return this.transpose(this.columns(source));
+        }
+
+        public SegmentedDenseStore rows(final List<? extends Number>... source) {
+            return this.transpose(this.columns(source));
+        }
+
+        public SegmentedDenseStore rows(final Number[]... source) {
+            return this.transpose(this.columns(source));
+        }
+
+        public Scalar.Factory<Double> scalar() {
+            return PrimitiveScalar.FACTORY;
+        }
+
+        public SegmentedDenseStore transpose(final Access2D<?> source) {
+
+            final SegmentedDenseStore retVal = this.makeZero(source.countColumns(), source.countRows());
+
+            retVal.columns(0, retVal.myColDim, THRESHOLD, true, (data, first, limit, offset) -> {
+                final int tmpRowDim = retVal.myRowDim;
+                for (int j = first; j < limit; j++) {
+                    for (int i = 0; i < tmpRowDim; i++) {
+                        data[i + (j * tmpRowDim)] = source.doubleValue(j + offset, i);
+                    }
+                }
+            });
+
+            return retVal;
+        }
+
+    }
+
+    /**
+     * Segments on the heap
+     */
+    public static final PhysicalStore.Factory<Double, SegmentedDenseStore> FACTORY = new StoreFactory(Primitive64Array.FACTORY);
+
+    /**
+     * Segments off the heap – direct buffers
+     */
+    public static final PhysicalStore.Factory<Double, SegmentedDenseStore> DIRECT = new StoreFactory(BufferArray.DIRECT64);
+
+    /**
+     * The (target) number of elements in each segment. Segments always contain whole columns, so with very
+     * many rows a segment may be larger.
+     */
+    public static long SEGMENT = 1L << 24;
+
+    /**
+     * Column parallelism threshold for the simple (linear) operations.
+     */
+    public static int THRESHOLD = 64;
+
+    /**
+     * The max number of elements copied to a work array (off-heap segments) at once.
+     */
+    static final int BUFFER = 1 << 16;
+
+    static int columnsPerSegment(final long rows, final long columns) {
+        return (int) Math.max(1L, Math.min(columns, SEGMENT / Math.max(1L, rows)));
+    }
+
+    private final int myColDim;
+    private final int myColumnsPerSegment;
+    private final StoreFactory myFactory;
+    private final int myRowDim;
+    private final DenseArray<Double>[] mySegments;
+
+    @SuppressWarnings("unchecked")
+    SegmentedDenseStore(final PhysicalStore.Factory<Double, SegmentedDenseStore> factory, final long rows, final long columns, final int columnsPerSegment) {
+
+        super();
+
+        if ((rows > Integer.MAX_VALUE) || (columns > Integer.MAX_VALUE) || (columnsPerSegment < 1)) {
+            throw new IllegalArgumentException();
+        }
+
+        myFactory = (StoreFactory) factory;
+        myRowDim = (int) rows;
+        myColDim = (int) columns;
+        myColumnsPerSegment = columnsPerSegment;
+
+        final int tmpNumberOfSegments = (myColDim + columnsPerSegment - 1) / columnsPerSegment;
+        mySegments = (DenseArray<Double>[]) new DenseArray<?>[tmpNumberOfSegments];
+        for (int s = 0; s < tmpNumberOfSegments; s++) {
+            final long tmpColumns = Math.min(columnsPerSegment, myColDim - ((long) s * columnsPerSegment));
+            mySegments[s] = myFactory.array().makeZero(rows * tmpColumns);
+        }
+    }
+
+    public void add(final long index, final double addend) {
+        final int tmpSegment = (int) (index / this.getSegmentSize());
+        mySegments[tmpSegment].add(index - (tmpSegment * this.getSegmentSize()), addend);
+    }
+
+    public void add(final long row, final long col, final double addend) {
+        mySegments[(int) (col / myColumnsPerSegment)].add(this.local(row, col), addend);
+    }
+
+    public void add(final long row, final long col, final Number addend) {
+        this.add(row, col, addend.doubleValue());
+    }
+
+    public void add(final long index, final Number addend) {
+        this.add(index, addend.doubleValue());
+    }
+
+    public Double aggregateAll(final Aggregator aggregator) {
+        return AggregateAll.invoke(this, aggregator, PrimitiveAggregator.getSet());
+    }
+
+    public List<Double> asList() {
+        return new AbstractList<Double>() {
+
+            @Override
+            public Double get(final int index) {
+                return SegmentedDenseStore.this.get(index);
+            }
+
+            @Override
+            public Double set(final int index, final Double value) {
+                final Double retVal = SegmentedDenseStore.this.get(index);
+                SegmentedDenseStore.this.set(index, value);
+                return retVal;
+            }
+
+            @Override
+            public int size() {
+                return (int) Math.min(Integer.MAX_VALUE, SegmentedDenseStore.this.count());
+            }
+        };
+    }
+
+    /**
+     * [y] = a * [this] + [y]. When [y] is a {@link SegmentedDenseStore} with the same segmentation the
+     * segments are processed pairwise, in parallel.
+     */
+    public void axpy(final double a, final Mutate1D y) {
+
+        if ((y instanceof SegmentedDenseStore) && this.isSegmentedAs((SegmentedDenseStore) y)) {
+
+            final DenseArray<Double>[] tmpY = ((SegmentedDenseStore) y).mySegments;
+
+            this.segments((x, s) -> {
+                final DenseArray<Double> tmpSegment = tmpY[s];
+                if ((x instanceof Primitive64Array) && (tmpSegment instanceof Primitive64Array)) {
+                    final double[] tmpX = ((Primitive64Array) x).data;
+                    AXPY.invoke(((Primitive64Array) tmpSegment).data, 0, 1, a, tmpX, 0, 1, 0, tmpX.length);
+                } else {
+                    final long tmpCount = x.count();
+                    for (long i = 0L; i < tmpCount; i++) {
+                        tmpSegment.add(i, a * x.doubleValue(i));
+                    }
+                }
+            });
+
+        } else {
+
+            final int tmpRowDim = myRowDim;
+
+            this.columns(0, myColDim, false, (data, first, limit, offset) -> {
+                final long tmpFirst = (long) (first + offset) * tmpRowDim;
+                final int tmpCount = (limit - first) * tmpRowDim;
+                for (int ij = 0; ij < tmpCount; ij++) {
+                    y.add(tmpFirst + ij, a * data[(first * tmpRowDim) + ij]);
+                }
+            });
+        }
+    }
+
+    /**
+     * Cholesky decomposition [this] = [L][L]<sup>T</sup>, in place. The lower triangular part (incl. the
+     * diagonal) is overwritten with [L]. The strictly upper triangular part is not touched (the input is
+     * assumed to be symmetric, only the lower part is read).
+     *
+     * @return false if the matrix is not (numerically) positive definite, in which case the contents are
+     *         partly overwritten.
+     */
+    public boolean computeInPlaceCholesky() {
+
+        final int tmpRowDim = myRowDim;
+        final int tmpMinDim = Math.min(myRowDim, myColDim);
+
+        final double[] tmpMultipliers = new double[tmpRowDim];
+
+        for (int ij = 0; ij < tmpMinDim; ij++) {
+
+            final double tmpDiagonal = this.doubleValue(ij, ij);
+            if (!(tmpDiagonal > ZERO)) {
+                return false;
+            }
+            final double tmpSqrt = SQRT.invoke(tmpDiagonal);
+            final int tmpIJ = ij;
+
+            this.columns(ij, ij + 1, true, (data, first, limit, offset) -> {
+                final int tmpBase = first * tmpRowDim;
+                data[tmpBase + tmpIJ] = tmpSqrt;
+                for (int i = tmpIJ + 1; i < tmpRowDim; i++) {
+                    tmpMultipliers[i] = data[tmpBase + i] /= tmpSqrt;
+                }
+            });
+
+            this.columns(ij + 1, tmpMinDim, ApplyCholesky.THRESHOLD, true, (data, first, limit, offset) -> {
+                for (int j = first; j < limit; j++) {
+                    final int tmpCol = j + offset;
+                    AXPY.invoke(data, j * tmpRowDim, 1, -tmpMultipliers[tmpCol], tmpMultipliers, 0, 1, tmpCol, tmpRowDim);
+                }
+            });
+        }
+
+        return true;
+    }
+
+    public MatrixStore<Double> conjugate() {
+        return this.transpose();
+    }
+
+    public SegmentedDenseStore copy() {
+
+        final SegmentedDenseStore retVal = new SegmentedDenseStore(myFactory, myRowDim, myColDim, myColumnsPerSegment);
+
+        this.segments((segment, s) -> retVal.mySegments[s].fillMatching(segment));
+
+        return retVal;
+    }
+
+    public long count() {
+        return (long) myRowDim * myColDim;
+    }
+
+    public long countColumns() {
+        return myColDim;
+    }
+
+    public long countRows() {
+        return myRowDim;
+    }
+
+    public double dot(final Access1D<?> vector) {
+
+        double retVal = ZERO;
+
+        if ((vector instanceof SegmentedDenseStore) && this.isSegmentedAs((SegmentedDenseStore) vector)) {
+            final DenseArray<Double>[] tmpOther = ((SegmentedDenseStore) vector).mySegments;
+            for (int s = 0; s < mySegments.length; s++) {
+                final DenseArray<Double> tmpSegment = mySegments[s];
+                if ((tmpSegment instanceof Primitive64Array) && (tmpOther[s] instanceof Primitive64Array)) {
+                    final double[] tmpData = ((Primitive64Array) tmpSegment).data;
+                    retVal += DOT.invoke(tmpData, 0, ((Primitive64Array) tmpOther[s]).data, 0, 0, tmpData.length);
+                } else {
+                    retVal += tmpSegment.dot(tmpOther[s]);
+                }
+            }
+        } else {
+            final long tmpLimit = Math.min(this.count(), vector.count());
+            for (long i = 0L; i < tmpLimit; i++) {
+                retVal += this.doubleValue(i) * vector.doubleValue(i);
+            }
+        }
+
+        return retVal;
+    }
+
+    public double doubleValue(final long index) {
+        final int tmpSegment = (int) (index / this.getSegmentSize());
+        return mySegments[tmpSegment].doubleValue(index - (tmpSegment * this.getSegmentSize()));
+    }
+
+    public double doubleValue(final long row, final long col) {
+        return mySegments[(int) (col / myColumnsPerSegment)].doubleValue(this.local(row, col));
+    }
+
+    public boolean equals(final MatrixStore<Double> other, final NumberContext context) {
+        return Access2D.equals(this, other, context);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof Access2D<?>) {
+            return Access2D.equals(this, (Access2D<?>) other, NumberContext.getGeneral(6));
+        } else {
+            return super.equals(other);
+        }
+    }
+
+    public void exchangeColumns(final long colA, final long colB) {
+        double tmpVal;
+        for (long i = 0L; i < myRowDim; i++) {
+            tmpVal = this.doubleValue(i, colA);
+            this.set(i, colA, this.doubleValue(i, colB));
+            this.set(i, colB, tmpVal);
+        }
+    }
+
+    public void exchangeRows(final long rowA, final long rowB) {
+        double tmpVal;
+        for (long j = 0L; j < myColDim; j++) {
+            tmpVal = this.doubleValue(rowA, j);
+            this.set(rowA, j, this.doubleValue(rowB, j));
+            this.set(rowB, j, tmpVal);
+        }
+    }
+
+    public void fillAll(final Double value) {
+        this.segments((segment, s) -> segment.fillAll(value));
+    }
+
+    public void fillAll(final NullaryFunction<Double> supplier) {
+        for (int s = 0; s < mySegments.length; s++) {
+            mySegments[s].fillAll(supplier);
+        }
+    }
+
+    /**
+     * Column by column (in parallel): each product column is accumulated from the columns of [left] scaled
+     * by the elements of the corresponding [right] column.
+     */
+    public void fillByMultiplying(final Access1D<Double> left, final Access1D<Double> right) {
+
+        final int tmpRowDim = myRowDim;
+        final long tmpComplexity = left.count() / tmpRowDim;
+
+        this.columns(0, myColDim, MultiplyBoth.THRESHOLD, true, (data, first, limit, offset) -> {
+
+            Arrays.fill(data, first * tmpRowDim, limit * tmpRowDim, ZERO);
+
+            final double[] tmpWork = new double[tmpRowDim];
+
+            for (long c = 0L; c < tmpComplexity; c++) {
+
+                double[] tmpLeftData = null;
+                int tmpLeftBase = 0;
+                if ((left instanceof PrimitiveDenseStore) && (((PrimitiveDenseStore) left).countRows() == tmpRowDim)) {
+                    tmpLeftData = ((PrimitiveDenseStore) left).data;
+                    tmpLeftBase = (int) c * tmpRowDim;
+                } else if ((left instanceof SegmentedDenseStore) && (((SegmentedDenseStore) left).myRowDim == tmpRowDim)) {
+                    final SegmentedDenseStore tmpLeft = (SegmentedDenseStore) left;
+                    final DenseArray<Double> tmpSegment = tmpLeft.mySegments[(int) (c / tmpLeft.myColumnsPerSegment)];
+                    if (tmpSegment instanceof Primitive64Array) {
+                        tmpLeftData = ((Primitive64Array) tmpSegment).data;
+                        tmpLeftBase = (int) tmpLeft.local(0L, c);
+                    }
+                }
+                if (tmpLeftData == null) {
+                    for (int i = 0; i < tmpRowDim; i++) {
+                        tmpWork[i] = left.doubleValue(i + (c * tmpRowDim));
+                    }
+                    tmpLeftData = tmpWork;
+                    tmpLeftBase = 0;
+                }
+
+                for (int j = first; j < limit; j++) {
+                    final double tmpFactor = right.doubleValue(c + ((j + offset) * tmpComplexity));
+                    if (tmpFactor != ZERO) {
+                        AXPY.invoke(data, j * tmpRowDim, 1, tmpFactor, tmpLeftData, tmpLeftBase, 1, 0, tmpRowDim);
+                    }
+                }
+            }
+        });
+    }
+
+    public void fillColumn(final long row, final long col, final Double value) {
+        final long tmpFirst = this.local(row, col);
+        mySegments[(int) (col / myColumnsPerSegment)].fillRange(tmpFirst, (tmpFirst + myRowDim) - row, value);
+    }
+
+    public void fillColumn(final long row, final long col, final NullaryFunction<Double> supplier) {
+        final long tmpFirst = this.local(row, col);
+        mySegments[(int) (col / myColumnsPerSegment)].fillRange(tmpFirst, (tmpFirst + myRowDim) - row, supplier);
+    }
+
+    public void fillDiagonal(final long row, final long col, final Double value) {
+        final long tmpCount = Math.min(myRowDim - row, myColDim - col);
+        for (long ij = 0L; ij < tmpCount; ij++) {
+            this.set(row + ij, col + ij, value);
+        }
+    }
+
+    public void fillDiagonal(final long row, final long col, final NullaryFunction<Double> supplier) {
+        final long tmpCount = Math.min(myRowDim - row, myColDim - col);
+        for (long ij = 0L; ij < tmpCount; ij++) {
+            this.set(row + ij, col + ij, supplier.doubleValue());
+        }
+    }
+
+    public void fillMatching(final Access1D<?> source) {
+
+        if ((source instanceof SegmentedDenseStore) && this.isSegmentedAs((SegmentedDenseStore) source)) {
+
+            final DenseArray<Double>[] tmpSource = ((SegmentedDenseStore) source).mySegments;
+
+            this.segments((segment, s) -> segment.fillMatching(tmpSource[s]));
+
+        } else {
+
+            final int tmpRowDim = myRowDim;
+
+            this.columns(0, myColDim, THRESHOLD, true, (data, first, limit, offset) -> {
+                final long tmpFirst = (long) (first + offset) * tmpRowDim;
+                final int tmpCount = (limit - first) * tmpRowDim;
+                for (int ij = 0; ij < tmpCount; ij++) {
+                    data[(first * tmpRowDim) + ij] = source.doubleValue(tmpFirst + ij);
+                }
+            });
+        }
+    }
+
+    public void fillMatching(final Access1D<Double> left, final BinaryFunction<Double> function, final Access1D<Double> right) {
+
+        final int tmpRowDim = myRowDim;
+
+        this.columns(0, myColDim, FillMatchingBoth.THRESHOLD, true, (data, first, limit, offset) -> {
+            final long tmpFirst = (long) (first + offset) * tmpRowDim;
+            final int tmpCount = (limit - first) * tmpRowDim;
+            for (int ij = 0; ij < tmpCount; ij++) {
+                data[(first * tmpRowDim) + ij] = function.invoke(left.doubleValue(tmpFirst + ij), right.doubleValue(tmpFirst + ij));
+            }
+        });
+    }
+
+    public void fillOne(final long row, final long col, final Access1D<?> values, final long valueIndex) {
+        this.set(row, col, values.doubleValue(valueIndex));
+    }
+
+    public void fillOne(final long row, final long col, final Double value) {
+        this.set(row, col, value.doubleValue());
+    }
+
+    public void fillOne(final long row, final long col, final NullaryFunction<Double> supplier) {
+        this.set(row, col, supplier.doubleValue());
+    }
+
+    public void fillRange(final long first, final long limit, final Double value) {
+        final long tmpSegmentSize = this.getSegmentSize();
+        for (long index = first; index < limit;) {
+            final int tmpSegment = (int) (index / tmpSegmentSize);
+            final long tmpOffset = tmpSegment * tmpSegmentSize;
+            final long tmpLimit = Math.min(limit, tmpOffset + tmpSegmentSize);
+            mySegments[tmpSegment].fillRange(index - tmpOffset, tmpLimit - tmpOffset, value);
+            index = tmpLimit;
+        }
+    }
+
+    public void fillRange(final long first, final long limit, final NullaryFunction<Double> supplier) {
+        final long tmpSegmentSize = this.getSegmentSize();
+        for (long index = first; index < limit;) {
+            final int tmpSegment = (int) (index / tmpSegmentSize);
+            final long tmpOffset = tmpSegment * tmpSegmentSize;
+            final long tmpLimit = Math.min(limit, tmpOffset + tmpSegmentSize);
+            mySegments[tmpSegment].fillRange(index - tmpOffset, tmpLimit - tmpOffset, supplier);
+            index = tmpLimit;
+        }
+    }
+
+    public void fillRow(final long row, final long col, final Double value) {
+        for (long j = col; j < myColDim; j++) {
+            this.set(row, j, value);
+        }
+    }
+
+    public void fillRow(final long row, final long col, final NullaryFunction<Double> supplier) {
+        for (long j = col; j < myColDim; j++) {
+            this.set(row, j, supplier.doubleValue());
+        }
+    }
+
+    public MatrixStore<Double> get() {
+        return this;
+    }
+
+    public Double get(final long index) {
+        return this.doubleValue(index);
+    }
+
+    public Double get(final long row, final long col) {
+        return this.doubleValue(row, col);
+    }
+
+    @Override
+    public int hashCode() {
+        return MatrixUtils.hashCode(this);
+    }
+
+    public long indexOfLargest() {
+        return this.indexOfLargestInRange(0L, this.count());
+    }
+
+    public long indexOfLargestInColumn(final long row, final long col) {
+        final long tmpFirst = this.local(row, col);
+        final long tmpLocal = mySegments[(int) (col / myColumnsPerSegment)].indexOfLargestInRange(tmpFirst, (tmpFirst + myRowDim) - row);
+        return row + (tmpLocal - tmpFirst);
+    }
+
+    public long indexOfLargestInRange(final long first, final long limit) {
+
+        long retVal = first;
+        double tmpLargest = NEG;
+
+        final long tmpSegmentSize = this.getSegmentSize();
+        for (long index = first; index < limit;) {
+            final int tmpSegment = (int) (index / tmpSegmentSize);
+            final long tmpOffset = tmpSegment * tmpSegmentSize;
+            final long tmpLimit = Math.min(limit, tmpOffset + tmpSegmentSize);
+            final long tmpIndex = mySegments[tmpSegment].indexOfLargestInRange(index - tmpOffset, tmpLimit - tmpOffset);
+            final double tmpValue = ABS.invoke(mySegments[tmpSegment].doubleValue(tmpIndex));
+            if (tmpValue > tmpLargest) {
+                tmpLargest = tmpValue;
+                retVal = tmpOffset + tmpIndex;
+            }
+            index = tmpLimit;
+        }
+
+        return retVal;
+    }
+
+    public long indexOfLargestInRow(final long row, final long col) {
+
+        long retVal = col;
+        double tmpLargest = ZERO;
+        double tmpValue;
+
+        for (long j = col; j < myColDim; j++) {
+            tmpValue = ABS.invoke(this.doubleValue(row, j));
+            if (tmpValue > tmpLargest) {
+                tmpLargest = tmpValue;
+                retVal = j;
+            }
+        }
+
+        return retVal;
+    }
+
+    public long indexOfLargestOnDiagonal(final long first) {
+
+        long retVal = first;
+        double tmpLargest = ZERO;
+        double tmpValue;
+
+        final long tmpLimit = Math.min(myRowDim, myColDim);
+        for (long ij = first; ij < tmpLimit; ij++) {
+            tmpValue = ABS.invoke(this.doubleValue(ij, ij));
+            if (tmpValue > tmpLargest) {
+                tmpLargest = tmpValue;
+                retVal = ij;
+            }
+        }
+
+        return retVal;
+    }
+
+    public boolean isAbsolute(final long index) {
+        return PrimitiveScalar.isAbsolute(this.doubleValue(index));
+    }
+
+    public boolean isAbsolute(final long row, final long col) {
+        return PrimitiveScalar.isAbsolute(this.doubleValue(row, col));
+    }
+
+    public boolean isSmall(final long index, final double comparedTo) {
+        return PrimitiveScalar.isSmall(comparedTo, this.doubleValue(index));
+    }
+
+    public boolean isSmall(final long row, final long col, final double comparedTo) {
+        return PrimitiveScalar.isSmall(comparedTo, this.doubleValue(row, col));
+    }
+
+    public void modifyAll(final UnaryFunction<Double> modifier) {
+        if (myColDim > ModifyAll.THRESHOLD) {
+            this.segments((segment, s) -> segment.modifyAll(modifier));
+        } else {
+            for (int s = 0; s < mySegments.length; s++) {
+                mySegments[s].modifyAll(modifier);
+            }
+        }
+    }
+
+    public void modifyColumn(final long row, final long col, final UnaryFunction<Double> modifier) {
+        final long tmpFirst = this.local(row, col);
+        mySegments[(int) (col / myColumnsPerSegment)].modifyRange(tmpFirst, (tmpFirst + myRowDim) - row, modifier);
+    }
+
+    public void modifyDiagonal(final long row, final long col, final UnaryFunction<Double> modifier) {
+        final long tmpCount = Math.min(myRowDim - row, myColDim - col);
+        for (long ij = 0L; ij < tmpCount; ij++) {
+            this.modifyOne(row + ij, col + ij, modifier);
+        }
+    }
+
+    public void modifyMatching(final Access1D<Double> left, final BinaryFunction<Double> function) {
+
+        final int tmpRowDim = myRowDim;
+
+        this.columns(0, myColDim, THRESHOLD, true, (data, first, limit, offset) -> {
+            final long tmpFirst = (long) (first + offset) * tmpRowDim;
+            final int tmpBase = first * tmpRowDim;
+            final int tmpCount = (limit - first) * tmpRowDim;
+            for (int ij = 0; ij < tmpCount; ij++) {
+                data[tmpBase + ij] = function.invoke(left.doubleValue(tmpFirst + ij), data[tmpBase + ij]);
+            }
+        });
+    }
+
+    public void modifyMatching(final BinaryFunction<Double> function, final Access1D<Double> right) {
+
+        final int tmpRowDim = myRowDim;
+
+        this.columns(0, myColDim, THRESHOLD, true, (data, first, limit, offset) -> {
+            final long tmpFirst = (long) (first + offset) * tmpRowDim;
+            final int tmpBase = first * tmpRowDim;
+            final int tmpCount = (limit - first) * tmpRowDim;
+            for (int ij = 0; ij < tmpCount; ij++) {
+                data[tmpBase + ij] = function.invoke(data[tmpBase + ij], right.doubleValue(tmpFirst + ij));
+            }
+        });
+    }
+
+    public void modifyOne(final long row, final long col, final UnaryFunction<Double> modifier) {
+        final DenseArray<Double> tmpSegment = mySegments[(int) (col / myColumnsPerSegment)];
+        final long tmpIndex = this.local(row, col);
+        tmpSegment.set(tmpIndex, modifier.invoke(tmpSegment.doubleValue(tmpIndex)));
+    }
+
+    public void modifyRange(final long first, final long limit, final UnaryFunction<Double> modifier) {
+        final long tmpSegmentSize = this.getSegmentSize();
+        for (long index = first; index < limit;) {
+            final int tmpSegment = (int) (index / tmpSegmentSize);
+            final long tmpOffset = tmpSegment * tmpSegmentSize;
+            final long tmpLimit = Math.min(limit, tmpOffset + tmpSegmentSize);
+            mySegments[tmpSegment].modifyRange(index - tmpOffset, tmpLimit - tmpOffset, modifier);
+            index = tmpLimit;
+        }
+    }
+
+    public void modifyRow(final long row, final long col, final UnaryFunction<Double> modifier) {
+        for (long j = col; j < myColDim; j++) {
+            this.modifyOne(row, j, modifier);
+        }
+    }
+
+    public MatrixStore<Double> multiply(final MatrixStore<Double> right) {
+
+        final SegmentedDenseStore retVal = myFactory.makeZero(myRowDim, right.count() / myColDim);
+
+        retVal.fillByMultiplying(this, right);
+
+        return retVal;
+    }
+
+    public Double multiplyBoth(final Access1D<Double> leftAndRight) {
+
+        final PhysicalStore<Double> tmpStep1 = PrimitiveDenseStore.FACTORY.makeZero(1L, leftAndRight.count());
+        final PhysicalStore<Double> tmpStep2 = PrimitiveDenseStore.FACTORY.makeZero(1L, 1L);
+
+        tmpStep1.fillByMultiplying(leftAndRight, this);
+        tmpStep2.fillByMultiplying(tmpStep1, leftAndRight);
+
+        return tmpStep2.get(0L);
+    }
+
+    public PhysicalStore.Factory<Double, SegmentedDenseStore> physical() {
+        return myFactory;
+    }
+
+    public ElementsConsumer<Double> regionByColumns(final int... columns) {
+        return new ColumnsRegion<>(this, MultiplyBoth.getPrimitive(myRowDim, myColDim), columns);
+    }
+
+    public ElementsConsumer<Double> regionByLimits(final int rowLimit, final int columnLimit) {
+        return new LimitRegion<>(this, MultiplyBoth.getPrimitive(myRowDim, myColDim), rowLimit, columnLimit);
+    }
+
+    public ElementsConsumer<Double> regionByOffsets(final int rowOffset, final int columnOffset) {
+        return new OffsetRegion<>(this, MultiplyBoth.getPrimitive(myRowDim, myColDim), rowOffset, columnOffset);
+    }
+
+    public ElementsConsumer<Double> regionByRows(final int... rows) {
+        return new RowsRegion<>(this, MultiplyBoth.getPrimitive(myRowDim, myColDim), rows);
+    }
+
+    public ElementsConsumer<Double> regionByTransposing() {
+        return new TransposedRegion<>(this, MultiplyBoth.getPrimitive(myRowDim, myColDim));
+    }
+
+    public void set(final long index, final double value) {
+        final int tmpSegment = (int) (index / this.getSegmentSize());
+        mySegments[tmpSegment].set(index - (tmpSegment * this.getSegmentSize()), value);
+    }
+
+    public void set(final long row, final long col, final double value) {
+        mySegments[(int) (col / myColumnsPerSegment)].set(this.local(row, col), value);
+    }
+
+    public void set(final long row, final long col, final Number value) {
+        this.set(row, col, value.doubleValue());
+    }
+
+    public void set(final long index, final Number value) {
+        this.set(index, value.doubleValue());
+    }
+
+    /**
+     * The right hand side columns are solved in parallel. The hermitian hint is ignored – the full solution
+     * is always calculated.
+     */
+    public void substituteBackwards(final Access2D<Double> body, final boolean unitDiagonal, final boolean conjugated, final boolean hermitian) {
+
+        final int tmpRowDim = myRowDim;
+
+        this.columns(0, myColDim, SubstituteBackwards.THRESHOLD, true, (data, first, limit, offset) -> {
+            SubstituteBackwards.invoke(data, tmpRowDim, first, limit, body, unitDiagonal, conjugated, false);
+        });
+    }
+
+    /**
+     * The right hand side columns are solved in parallel. With the identity hint [this] is first set to the
+     * identity matrix.
+     */
+    public void substituteForwards(final Access2D<Double> body, final boolean unitDiagonal, final boolean conjugated, final boolean identity) {
+
+        if (identity) {
+            this.fillAll(ZERO);
+            this.fillDiagonal(0L, 0L, ONE);
+        }
+
+        final int tmpRowDim = myRowDim;
+
+        this.columns(0, myColDim, SubstituteForwards.THRESHOLD, true, (data, first, limit, offset) -> {
+            SubstituteForwards.invoke(data, tmpRowDim, first, limit, body, unitDiagonal, conjugated, false);
+        });
+    }
+
+    public void supplyTo(final ElementsConsumer<Double> receiver) {
+        receiver.fillMatching(this);
+    }
+
+    public PrimitiveScalar toScalar(final long row, final long column) {
+        return PrimitiveScalar.of(this.doubleValue(row, column));
+    }
+
+    @Override
+    public String toString() {
+        return MatrixUtils.toString(this);
+    }
+
+    public void transformLeft(final Householder<Double> transformation, final int firstColumn) {
+
+        final Householder.Primitive tmpTransf = PrimitiveDenseStore.cast(transformation);
+        final int tmpRowDim = myRowDim;
+
+        this.columns(firstColumn, myColDim, HouseholderLeft.THRESHOLD, true, (data, first, limit, offset) -> {
+            HouseholderLeft.invoke(data, tmpRowDim, first, limit, tmpTransf);
+        });
+    }
+
+    public void transformLeft(final Rotation<Double> transformation) {
+
+        final Rotation.Primitive tmpTransf = PrimitiveDenseStore.cast(transformation);
+
+        final int tmpLow = tmpTransf.low;
+        final int tmpHigh = tmpTransf.high;
+
+        if (tmpLow != tmpHigh) {
+            if (!Double.isNaN(tmpTransf.cos) && !Double.isNaN(tmpTransf.sin)) {
+
+                double tmpOldLow;
+                double tmpOldHigh;
+
+                for (long j = 0L; j < myColDim; j++) {
+
+                    tmpOldLow = this.doubleValue(tmpLow, j);
+                    tmpOldHigh = this.doubleValue(tmpHigh, j);
+
+                    this.set(tmpLow, j, (tmpTransf.cos * tmpOldLow) + (tmpTransf.sin * tmpOldHigh));
+                    this.set(tmpHigh, j, (tmpTransf.cos * tmpOldHigh) - (tmpTransf.sin * tmpOldLow));
+                }
+            } else {
+                this.exchangeRows(tmpLow, tmpHigh);
+            }
+        } else {
+            if (!Double.isNaN(tmpTransf.cos)) {
+                this.modifyRow(tmpLow, 0L, MULTIPLY.second(tmpTransf.cos));
+            } else if (!Double.isNaN(tmpTransf.sin)) {
+                this.modifyRow(tmpLow, 0L, DIVIDE.second(tmpTransf.sin));
+            } else {
+                this.modifyRow(tmpLow, 0L, NEGATE);
+            }
+        }
+    }
+
+    /**
+     * Column oriented: first [w] = beta [this][v] (one pass over the columns), then [this] -= [w][v]
+     * <sup>T</sup> (in parallel).
+     */
+    public void transformRight(final Householder<Double> transformation, final int firstRow) {
+
+        final Householder.Primitive tmpTransf = PrimitiveDenseStore.cast(transformation);
+
+        final int tmpRowDim = myRowDim;
+        final double[] tmpVector = tmpTransf.vector;
+        final double tmpBeta = tmpTransf.beta;
+
+        final double[] tmpWork = new double[tmpRowDim];
+
+        this.columns(tmpTransf.first, myColDim, false, (data, first, limit, offset) -> {
+            for (int j = first; j < limit; j++) {
+                AXPY.invoke(tmpWork, 0, 1, tmpBeta * tmpVector[j + offset], data, j * tmpRowDim, 1, firstRow, tmpRowDim);
+            }
+        });
+
+        this.columns(tmpTransf.first, myColDim, HouseholderRight.THRESHOLD, true, (data, first, limit, offset) -> {
+            for (int j = first; j < limit; j++) {
+                AXPY.invoke(data, j * tmpRowDim, 1, -tmpVector[j + offset], tmpWork, 0, 1, firstRow, tmpRowDim);
+            }
+        });
+    }
+
+    public void transformRight(final Rotation<Double> transformation) {
+
+        final Rotation.Primitive tmpTransf = PrimitiveDenseStore.cast(transformation);
+
+        final int tmpLow = tmpTransf.low;
+        final int tmpHigh = tmpTransf.high;
+
+        if (tmpLow != tmpHigh) {
+            if (!Double.isNaN(tmpTransf.cos) && !Double.isNaN(tmpTransf.sin)) {
+
+                double tmpOldLow;
+                double tmpOldHigh;
+
+                for (long i = 0L; i < myRowDim; i++) {
+
+                    tmpOldLow = this.doubleValue(i, tmpLow);
+                    tmpOldHigh = this.doubleValue(i, tmpHigh);
+
+                    this.set(i, tmpLow, (tmpTransf.cos * tmpOldLow) - (tmpTransf.sin * tmpOldHigh));
+                    this.set(i, tmpHigh, (tmpTransf.cos * tmpOldHigh) + (tmpTransf.sin * tmpOldLow));
+                }
+            } else {
+                this.exchangeColumns(tmpLow, tmpHigh);
+            }
+        } else {
+            if (!Double.isNaN(tmpTransf.cos)) {
+                this.modifyColumn(0L, tmpHigh, MULTIPLY.second(tmpTransf.cos));
+            } else if (!Double.isNaN(tmpTransf.sin)) {
+                this.modifyColumn(0L, tmpHigh, DIVIDE.second(tmpTransf.sin));
+            } else {
+                this.modifyColumn(0L, tmpHigh, NEGATE);
+            }
+        }
+    }
+
+    public MatrixStore<Double> transpose() {
+        return new TransposedStore<>(this);
+    }
+
+    public void visitAll(final VoidFunction<Double> visitor) {
+        for (int s = 0; s < mySegments.length; s++) {
+            mySegments[s].visitAll(visitor);
+        }
+    }
+
+    public void visitColumn(final long row, final long col, final VoidFunction<Double> visitor) {
+        final long tmpFirst = this.local(row, col);
+        mySegments[(int) (col / myColumnsPerSegment)].visitRange(tmpFirst, (tmpFirst + myRowDim) - row, visitor);
+    }
+
+    public void visitDiagonal(final long row, final long col, final VoidFunction<Double> visitor) {
+        final long tmpCount = Math.min(myRowDim - row, myColDim - col);
+        for (long ij = 0L; ij < tmpCount; ij++) {
+            visitor.invoke(this.doubleValue(row + ij, col + ij));
+        }
+    }
+
+    public void visitOne(final long index, final VoidFunction<Double> visitor) {
+        visitor.invoke(this.doubleValue(index));
+    }
+
+    public void visitRange(final long first, final long limit, final VoidFunction<Double> visitor) {
+        final long tmpSegmentSize = this.getSegmentSize();
+        for (long index = first; index < limit;) {
+            final int tmpSegment = (int) (index / tmpSegmentSize);
+            final long tmpOffset = tmpSegment * tmpSegmentSize;
+            final long tmpLimit = Math.min(limit, tmpOffset + tmpSegmentSize);
+            mySegments[tmpSegment].visitRange(index - tmpOffset, tmpLimit - tmpOffset, visitor);
+            index = tmpLimit;
+        }
+    }
+
+    public void visitRow(final long row, final long col, final VoidFunction<Double> visitor) {
+        for (long j = col; j < myColDim; j++) {
+            visitor.invoke(this.doubleValue(row, j));
+        }
+    }
+
+    private long getSegmentSize() {
+        return (long) myRowDim * myColumnsPerSegment;
+    }
+
+    private boolean isSegmentedAs(final SegmentedDenseStore other) {
+        return (other.myRowDim == myRowDim) && (other.myColDim == myColDim) && (other.myColumnsPerSegment == myColumnsPerSegment);
+    }
+
+    private long local(final long row, final long col) {
+        return row + ((col % myColumnsPerSegment) * myRowDim);
+    }
+
+    private void segments(final SegmentKernel kernel) {
+
+        final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+                for (int s = first; s < limit; s++) {
+                    kernel.invoke(mySegments[s], s);
+                }
+            }
+        };
+
+        tmpConquerer.invoke(0, mySegments.length, 1);
+    }
+
+    /**
+     * Sequential; the columns [first,limit) segment by segment.
+     *
+     * @param modify true if the kernel modifies the data (and the work array needs to be copied back)
+     */
+    void columns(final int first, final int limit, final boolean modify, final ColumnsKernel kernel) {
+
+        final int tmpRowDim = myRowDim;
+        final int tmpColumnsPerSegment = myColumnsPerSegment;
+
+        double[] tmpWork = null;
+
+        for (int s = first / tmpColumnsPerSegment; (first < limit) && ((s * (long) tmpColumnsPerSegment) < limit); s++) {
+
+            final int tmpOffset = s * tmpColumnsPerSegment;
+            final int tmpFirst = Math.max(first, tmpOffset) - tmpOffset;
+            final int tmpLimit = (int) Math.min(limit, (long) tmpOffset + tmpColumnsPerSegment) - tmpOffset;
+
+            final DenseArray<Double> tmpSegment = mySegments[s];
+
+            if (tmpSegment instanceof Primitive64Array) {
+
+                kernel.invoke(((Primitive64Array) tmpSegment).data, tmpFirst, tmpLimit, tmpOffset);
+
+            } else {
+
+                final int tmpChunk = Math.max(1, BUFFER / Math.max(1, tmpRowDim));
+                if (tmpWork == null) {
+                    tmpWork = new double[Math.min(tmpChunk, limit - first) * tmpRowDim];
+                }
+
+                for (int c = tmpFirst; c < tmpLimit; c += tmpChunk) {
+
+                    final int tmpCount = Math.min(tmpChunk, tmpLimit - c) * tmpRowDim;
+                    final long tmpBase = (long) c * tmpRowDim;
+
+                    for (int ij = 0; ij < tmpCount; ij++) {
+                        tmpWork[ij] = tmpSegment.doubleValue(tmpBase + ij);
+                    }
+
+                    kernel.invoke(tmpWork, 0, Math.min(tmpChunk, tmpLimit - c), tmpOffset + c);
+
+                    if (modify) {
+                        for (int ij = 0; ij < tmpCount; ij++) {
+                            tmpSegment.set(tmpBase + ij, tmpWork[ij]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Parallel; the column range is split in parts that are processed by different workers.
+     */
+    void columns(final int first, final int limit, final int threshold, final boolean modify, final ColumnsKernel kernel) {
+
+        if ((limit - first) > threshold) {
+
+            final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    SegmentedDenseStore.this.columns(first, limit, modify, kernel);
+                }
+            };
+
+            tmpConquerer.invoke(first, limit, threshold);
+
+        } else {
+
+            this.columns(first, limit, modify, kernel);
+        }
+    }
+
+}
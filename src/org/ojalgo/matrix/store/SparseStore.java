@@ -31,6 +31,7 @@ import org.ojalgo.access.Access2D;
 import org.ojalgo.access.ElementView2D;
 import org.ojalgo.access.Structure2D;
 import org.ojalgo.array.SparseArray;
+import org.ojalgo.concurrent.DivideAndConquer;
 import org.ojalgo.function.BinaryFunction;
 import org.ojalgo.function.NullaryFunction;
 import org.ojalgo.function.UnaryFunction;
@@ -48,6 +49,136 @@ import org.ojalgo.type.context.NumberContext;
 
 public final class SparseStore<N extends Number> extends FactoryStore<N> implements ElementsConsumer<N> {
 
+    /**
+     * Collects (row, column, value) triplets, in any order, in primitive arrays and then builds a primitive
+     * {@link SparseStore} in one go – sorting the triplets by column and row, and summing any duplicates,
+     * rather than inserting them one at the time. Not thread safe, but assemblers filled by different threads
+     * can be merged.
+     */
+    public static final class Assembler {
+
+        private int[] myColumns;
+        private final int myColumnsCount;
+        private int[] myRows;
+        private final int myRowsCount;
+        private int mySize = 0;
+        private double[] myValues;
+
+        public Assembler(final int rowsCount, final int columnsCount) {
+
+            super();
+
+            myRowsCount = rowsCount;
+            myColumnsCount = columnsCount;
+
+            final int tmpCapacity = Math.max(16, Math.max(rowsCount, columnsCount));
+            myRows = new int[tmpCapacity];
+            myColumns = new int[tmpCapacity];
+            myValues = new double[tmpCapacity];
+        }
+
+        /**
+         * @throws IllegalArgumentException If the row or column is out of bounds
+         */
+        public void add(final int row, final int col, final double value) {
+
+            if ((row < 0) || (row >= myRowsCount) || (col < 0) || (col >= myColumnsCount)) {
+                throw new IllegalArgumentException("(" + row + "," + col + ") is not within " + myRowsCount + "x" + myColumnsCount + "!");
+            }
+
+            if (mySize == myValues.length) {
+                this.grow(mySize + 1);
+            }
+
+            myRows[mySize] = row;
+            myColumns[mySize] = col;
+            myValues[mySize] = value;
+            mySize++;
+        }
+
+        public void addAll(final Assembler other) {
+
+            if ((other.getRowsCount() != myRowsCount) || (other.getColumnsCount() != myColumnsCount)) {
+                throw new IllegalArgumentException("Different dimensions!");
+            }
+
+            if ((mySize + other.size()) > myValues.length) {
+                this.grow(mySize + other.size());
+            }
+
+            System.arraycopy(other.myRows, 0, myRows, mySize, other.size());
+            System.arraycopy(other.myColumns, 0, myColumns, mySize, other.size());
+            System.arraycopy(other.myValues, 0, myValues, mySize, other.size());
+            mySize += other.size();
+        }
+
+        public SparseStore<Double> build() {
+
+            // Bucket by column...
+            final int[] tmpStarts = new int[myColumnsCount + 1];
+            for (int t = 0; t < mySize; t++) {
+                tmpStarts[myColumns[t] + 1]++;
+            }
+            for (int j = 0; j < myColumnsCount; j++) {
+                tmpStarts[j + 1] += tmpStarts[j];
+            }
+
+            final int[] tmpNext = Arrays.copyOf(tmpStarts, myColumnsCount);
+            final long[] tmpSorted = new long[mySize];
+            final double[] tmpValues = new double[mySize];
+            for (int t = 0; t < mySize; t++) {
+                final int tmpPosition = tmpNext[myColumns[t]]++;
+                // ...with the row in the high bits, and where the value is in the low
+                tmpSorted[tmpPosition] = ((long) myRows[t] << 32) | tmpPosition;
+                tmpValues[tmpPosition] = myValues[t];
+            }
+
+            final SparseStore<Double> retVal = SparseStore.makePrimitive(myRowsCount, myColumnsCount);
+
+            // ...then sort each column by row, and append in order
+            for (int j = 0; j < myColumnsCount; j++) {
+
+                final int tmpFirst = tmpStarts[j];
+                final int tmpLimit = tmpStarts[j + 1];
+                Arrays.sort(tmpSorted, tmpFirst, tmpLimit);
+
+                for (int t = tmpFirst; t < tmpLimit;) {
+                    final int tmpRow = (int) (tmpSorted[t] >>> 32);
+                    double tmpValue = tmpValues[(int) tmpSorted[t++]];
+                    while ((t < tmpLimit) && ((int) (tmpSorted[t] >>> 32) == tmpRow)) {
+                        tmpValue += tmpValues[(int) tmpSorted[t++]];
+                    }
+                    retVal.set(tmpRow, j, tmpValue);
+                }
+            }
+
+            return retVal;
+        }
+
+        public int getColumnsCount() {
+            return myColumnsCount;
+        }
+
+        public int getRowsCount() {
+            return myRowsCount;
+        }
+
+        /**
+         * @return The number of triplets added, including any duplicates
+         */
+        public int size() {
+            return mySize;
+        }
+
+        private void grow(final int minimum) {
+            final int tmpCapacity = Math.max(minimum, myValues.length + (myValues.length >> 1));
+            myRows = Arrays.copyOf(myRows, tmpCapacity);
+            myColumns = Arrays.copyOf(myColumns, tmpCapacity);
+            myValues = Arrays.copyOf(myValues, tmpCapacity);
+        }
+
+    }
+
     public static interface Factory<N extends Number> {
 
         SparseStore<N> make(long rowsCount, long columnsCount);
@@ -228,29 +359,30 @@ public final class SparseStore<N extends Number> extends FactoryStore<N> impleme
 
         if (this.isPrimitive()) {
 
-            final long structure = this.countColumns();
-            final long numberOfColumns = target.countColumns();
+            final int numberOfColumns = (int) target.countColumns();
 
             target.reset();
 
-            this.nonzeros().stream(true).forEach(element -> {
+            if (numberOfColumns > MultiplyBoth.THRESHOLD) {
 
-                final long row = element.row();
-                final long col = element.column();
-                final double val = element.doubleValue();
+                // Each worker has its own range of target columns. Only the dense store is known to handle
+                // concurrent writes to different columns – anything else is synchronized.
+                final boolean tmpSynchronize = !(target instanceof PrimitiveDenseStore);
 
-                final long first = MatrixUtils.firstInRow(right, col, 0L);
-                final long limit = MatrixUtils.limitOfRow(right, col, numberOfColumns);
-                for (long j = first; j < limit; j++) {
-                    final long index = Structure2D.index(structure, col, j);
-                    final double addition = val * right.doubleValue(index);
-                    if (NumberContext.compare(addition, ZERO) != 0) {
-                        synchronized (target) {
-                            target.add(row, j, addition);
-                        }
+                final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                    @Override
+                    protected void conquer(final int first, final int limit) {
+                        SparseStore.this.multiply(right, first, limit, target, tmpSynchronize);
                     }
-                }
-            });
+                };
+
+                tmpConquerer.invoke(0, numberOfColumns, MultiplyBoth.THRESHOLD);
+
+            } else {
+
+                this.multiply(right, 0L, numberOfColumns, target, false);
+            }
 
         } else {
 
@@ -365,6 +497,37 @@ public final class SparseStore<N extends Number> extends FactoryStore<N> impleme
         this.updateNonZeros(row, col);
     }
 
+    /**
+     * Primitive elements only. Adds to the target columns in the range [firstColumn, limitColumn).
+     */
+    private void multiply(final Access1D<N> right, final long firstColumn, final long limitColumn, final ElementsConsumer<N> target,
+            final boolean synchronize) {
+
+        final long tmpRowDim = this.countRows();
+        final long tmpComplexity = this.countColumns();
+
+        myElements.visitPrimitiveNonzerosInRange(0L, this.count(), (index, value) -> {
+
+            final long tmpRow = Structure2D.row(index, tmpRowDim);
+            final long tmpCol = Structure2D.column(index, tmpRowDim);
+
+            final long tmpFirst = MatrixUtils.firstInRow(right, tmpCol, firstColumn);
+            final long tmpLimit = MatrixUtils.limitOfRow(right, tmpCol, limitColumn);
+            for (long j = tmpFirst; j < tmpLimit; j++) {
+                final double tmpAddition = value * right.doubleValue(Structure2D.index(tmpComplexity, tmpCol, j));
+                if (NumberContext.compare(tmpAddition, ZERO) != 0) {
+                    if (synchronize) {
+                        synchronized (target) {
+                            target.add(tmpRow, j, tmpAddition);
+                        }
+                    } else {
+                        target.add(tmpRow, j, tmpAddition);
+                    }
+                }
+            }
+        });
+    }
+
     private void updateNonZeros(final long row, final long col) {
         this.updateNonZeros((int) row, (int) col);
     }
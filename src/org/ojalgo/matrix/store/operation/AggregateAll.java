@@ -21,12 +21,39 @@
  */
 package org.ojalgo.matrix.store.operation;
 
+import org.ojalgo.access.Access1D;
+import org.ojalgo.concurrent.ReproducibleReduction;
+import org.ojalgo.function.aggregator.Aggregator;
+import org.ojalgo.function.aggregator.AggregatorFunction;
+import org.ojalgo.function.aggregator.AggregatorSet;
+
 public final class AggregateAll extends MatrixOperation {
 
     public static final AggregateAll SETUP = new AggregateAll();
 
+    /**
+     * The number of {@link ReproducibleReduction#BLOCK} sized blocks (not columns) aggregated sequentially
+     */
     public static int THRESHOLD = 64;
 
+    /**
+     * Aggregated by {@link ReproducibleReduction} – the result is bit-identical regardless of the number of
+     * threads, or the hardware it runs on.
+     */
+    public static <N extends Number> N invoke(final Access1D.Visitable<N> data, final Aggregator aggregator, final AggregatorSet<N> set) {
+        return ReproducibleReduction.invoke(data.count(), THRESHOLD, (first, limit) -> {
+            // The aggregator functions are thread local, and reset when fetched
+            final AggregatorFunction<N> tmpPartAggr = aggregator.getFunction(set);
+            data.visitRange(first, limit, tmpPartAggr);
+            return tmpPartAggr.getNumber();
+        }, (result1, result2) -> {
+            final AggregatorFunction<N> tmpMainAggr = aggregator.getFunction(set);
+            tmpMainAggr.merge(result1);
+            tmpMainAggr.merge(result2);
+            return tmpMainAggr.getNumber();
+        });
+    }
+
     private AggregateAll() {
         super();
     }
@@ -21,8 +21,8 @@
  */
 package org.ojalgo.matrix.store.operation;
 
-import org.ojalgo.OjAlgoUtils;
 import org.ojalgo.array.blas.AXPY;
+import org.ojalgo.concurrent.ParallelScope;
 
 /**
  * @author apete
@@ -112,7 +112,7 @@ public abstract class MatrixOperation {
     public abstract int threshold();
 
     public int workers() {
-        return OjAlgoUtils.ENVIRONMENT.threads;
+        return ParallelScope.parallelism();
     }
 
 }
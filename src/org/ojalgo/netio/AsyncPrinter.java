@@ -0,0 +1,448 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.ojalgo.access.Access2D;
+import org.ojalgo.netio.BasicLogger.Printer;
+import org.ojalgo.type.TypeUtils;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * A {@link Printer} that does not print (or format) anything on the calling thread. Calls are recorded in a
+ * fixed size ring of reusable slots – like {@link CharacterRing}, but of messages rather than characters – and
+ * a background (daemon) thread formats and prints them to the target printer.
+ * <ul>
+ * <li>Publishing is lock-free, and primitives are stored as such (no boxing, no allocation).</li>
+ * <li>Message patterns and their arguments, and any other objects, are formatted later, by the background
+ * thread. Don't pass objects that will be modified – pass their {@link Object#toString()} instead. Matrices
+ * are the exception, they're always formatted immediately.</li>
+ * <li>When the ring is full new calls are dropped (and counted), rather than blocking the caller. The number
+ * of dropped calls is printed once there's room again.</li>
+ * <li>Can be disabled (and re-enabled). Check {@link #isEnabled()} before preparing any arguments.</li>
+ * </ul>
+ *
+ * @author apete
+ */
+public final class AsyncPrinter implements Printer, AutoCloseable {
+
+    static final class Slot {
+
+        Object[] arguments;
+        long bits;
+        Kind kind;
+        Locale locale;
+        boolean newLine;
+        Object object;
+        long sequence;
+        String text;
+
+        Slot() {
+            super();
+        }
+
+        void clear() {
+            arguments = null;
+            locale = null;
+            object = null;
+            text = null;
+        }
+
+    }
+
+    static enum Kind {
+        BOOLEAN, CHAR, DOUBLE, FLOAT, FORMAT, INT, LONG, MESSAGE, OBJECT, STRING;
+    }
+
+    private static final long IDLE = TimeUnit.MILLISECONDS.toNanos(10L);
+
+    private volatile boolean myClosed = false;
+    private final Thread myConsumer;
+    private final LongAdder myDropped = new LongAdder();
+    private volatile boolean myEnabled = true;
+    private final AtomicLong myHead = new AtomicLong();
+    private final int myMask;
+    private final AtomicLongArray myPublished;
+    private long myReported = 0L;
+    private final Slot[] mySlots;
+    private volatile long myTail = 0L;
+    private final Printer myTarget;
+    private volatile boolean myWaiting = false;
+
+    /**
+     * @param target The printer to (eventually) print to
+     */
+    public AsyncPrinter(final Printer target) {
+        this(target, 1 << 12);
+    }
+
+    /**
+     * @param target The printer to (eventually) print to
+     * @param capacity The (max) number of calls waiting to be printed – rounded up to a power of 2
+     */
+    public AsyncPrinter(final Printer target, final int capacity) {
+
+        super();
+
+        if ((capacity <= 0) || (capacity > (1 << 30))) {
+            throw new IllegalArgumentException();
+        }
+
+        myTarget = target;
+
+        final int tmpCapacity = Integer.bitCount(capacity) == 1 ? capacity : Integer.highestOneBit(capacity) << 1;
+        myMask = tmpCapacity - 1;
+
+        mySlots = new Slot[tmpCapacity];
+        myPublished = new AtomicLongArray(tmpCapacity);
+        for (int s = 0; s < tmpCapacity; s++) {
+            mySlots[s] = new Slot();
+            myPublished.set(s, -1L);
+        }
+
+        myConsumer = new Thread(this::consume, "ojAlgo-printer");
+        myConsumer.setDaemon(true);
+        myConsumer.start();
+    }
+
+    /**
+     * Prints whatever is pending, and then stops the background thread. Anything printed after this is
+     * dropped.
+     */
+    public void close() {
+        this.flush();
+        myClosed = true;
+        LockSupport.unpark(myConsumer);
+        try {
+            myConsumer.join();
+        } catch (final InterruptedException cause) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return The total number of calls dropped because the ring was full (or the printer closed)
+     */
+    public long countDropped() {
+        return myDropped.sum();
+    }
+
+    /**
+     * Blocks until everything recorded before this call has been printed.
+     */
+    public void flush() {
+        final long tmpTarget = myHead.get();
+        while ((myTail < tmpTarget) && myConsumer.isAlive()) {
+            LockSupport.unpark(myConsumer);
+            LockSupport.parkNanos(this, 100_000L);
+        }
+    }
+
+    /**
+     * @return false when disabled – nothing is recorded, and there's no point in preparing anything to print
+     */
+    public boolean isEnabled() {
+        return myEnabled;
+    }
+
+    public void print(final boolean b) {
+        this.primitive(Kind.BOOLEAN, b ? 1L : 0L, false);
+    }
+
+    public void print(final char c) {
+        this.primitive(Kind.CHAR, c, false);
+    }
+
+    public void print(final char[] ca) {
+        this.print(String.valueOf(ca));
+    }
+
+    public void print(final double d) {
+        this.primitive(Kind.DOUBLE, Double.doubleToRawLongBits(d), false);
+    }
+
+    public void print(final float f) {
+        this.primitive(Kind.FLOAT, Float.floatToRawIntBits(f), false);
+    }
+
+    public void print(final int i) {
+        this.primitive(Kind.INT, i, false);
+    }
+
+    public void print(final long l) {
+        this.primitive(Kind.LONG, l, false);
+    }
+
+    public void print(final Object obj) {
+        this.object(obj, false);
+    }
+
+    public void print(final String str) {
+        this.string(str, false);
+    }
+
+    public void print(final String message, final Object... args) {
+        this.message(message, args, false);
+    }
+
+    public Printer printf(final Locale locale, final String format, final Object... args) {
+        final Slot tmpSlot = this.claim();
+        if (tmpSlot != null) {
+            tmpSlot.kind = Kind.FORMAT;
+            tmpSlot.locale = locale;
+            tmpSlot.text = format;
+            tmpSlot.arguments = args;
+            this.publish(tmpSlot, false);
+        }
+        return this;
+    }
+
+    public Printer printf(final String format, final Object... args) {
+        return this.printf(Locale.getDefault(), format, args);
+    }
+
+    public void println() {
+        this.string(null, true);
+    }
+
+    public void println(final boolean b) {
+        this.primitive(Kind.BOOLEAN, b ? 1L : 0L, true);
+    }
+
+    public void println(final char c) {
+        this.primitive(Kind.CHAR, c, true);
+    }
+
+    public void println(final char[] ca) {
+        this.string(String.valueOf(ca), true);
+    }
+
+    public void println(final double d) {
+        this.primitive(Kind.DOUBLE, Double.doubleToRawLongBits(d), true);
+    }
+
+    public void println(final float f) {
+        this.primitive(Kind.FLOAT, Float.floatToRawIntBits(f), true);
+    }
+
+    public void println(final int i) {
+        this.primitive(Kind.INT, i, true);
+    }
+
+    public void println(final long l) {
+        this.primitive(Kind.LONG, l, true);
+    }
+
+    public void println(final Object obj) {
+        this.object(obj, true);
+    }
+
+    public void println(final String str) {
+        this.string(str, true);
+    }
+
+    public void println(final String message, final Object... args) {
+        this.message(message, args, true);
+    }
+
+    public void printmtrx(final String message, final Access2D<?> matrix) {
+        this.printmtrx(message, matrix, BasicLogger.MATRIX_ELEMENT_CONTEXT);
+    }
+
+    /**
+     * Formatted immediately, on the calling thread – the matrix may be modified as soon as this returns.
+     */
+    public void printmtrx(final String message, final Access2D<?> matrix, final NumberContext context) {
+        if (myEnabled) {
+            final StringBuilder tmpBuilder = new StringBuilder();
+            new BasicLogger.AppendablePrinter(tmpBuilder).printmtrx(message, matrix, context);
+            this.string(tmpBuilder.toString(), false);
+        }
+    }
+
+    /**
+     * Disabled printers ignore (quickly) anything printed.
+     */
+    public void setEnabled(final boolean enabled) {
+        myEnabled = enabled;
+    }
+
+    /**
+     * @return The next slot to fill in, or null if disabled or the call should be dropped
+     */
+    private Slot claim() {
+
+        if (!myEnabled) {
+            return null;
+        }
+
+        long tmpSequence;
+        do {
+            tmpSequence = myHead.get();
+            if (myClosed || ((tmpSequence - myTail) > myMask)) {
+                myDropped.increment();
+                return null;
+            }
+        } while (!myHead.compareAndSet(tmpSequence, tmpSequence + 1L));
+
+        final Slot retVal = mySlots[(int) (tmpSequence & myMask)];
+        retVal.sequence = tmpSequence;
+        return retVal;
+    }
+
+    private void consume() {
+        for (long tmpSequence = 0L; !myClosed || (tmpSequence < myHead.get());) {
+
+            final int tmpIndex = (int) (tmpSequence & myMask);
+
+            if (myPublished.get(tmpIndex) == tmpSequence) {
+
+                this.print(mySlots[tmpIndex]);
+                mySlots[tmpIndex].clear();
+
+                myTail = ++tmpSequence;
+
+            } else {
+
+                this.reportDropped();
+
+                myWaiting = true;
+                if ((myPublished.get(tmpIndex) != tmpSequence) && !myClosed) {
+                    LockSupport.parkNanos(this, IDLE);
+                }
+                myWaiting = false;
+            }
+        }
+        this.reportDropped();
+    }
+
+    private void message(final String message, final Object[] args, final boolean newLine) {
+        final Slot tmpSlot = this.claim();
+        if (tmpSlot != null) {
+            tmpSlot.kind = Kind.MESSAGE;
+            tmpSlot.text = message;
+            tmpSlot.arguments = args;
+            this.publish(tmpSlot, newLine);
+        }
+    }
+
+    private void object(final Object obj, final boolean newLine) {
+        final Slot tmpSlot = this.claim();
+        if (tmpSlot != null) {
+            tmpSlot.kind = Kind.OBJECT;
+            tmpSlot.object = obj;
+            this.publish(tmpSlot, newLine);
+        }
+    }
+
+    /**
+     * The value, and the new line if requested, are published in one slot
+     */
+    private void primitive(final Kind kind, final long bits, final boolean newLine) {
+        final Slot tmpSlot = this.claim();
+        if (tmpSlot != null) {
+            tmpSlot.kind = kind;
+            tmpSlot.bits = bits;
+            this.publish(tmpSlot, newLine);
+        }
+    }
+
+    /**
+     * On the background thread
+     */
+    private void print(final Slot slot) {
+
+        switch (slot.kind) {
+        case BOOLEAN:
+            myTarget.print(slot.bits != 0L);
+            break;
+        case CHAR:
+            myTarget.print((char) slot.bits);
+            break;
+        case DOUBLE:
+            myTarget.print(Double.longBitsToDouble(slot.bits));
+            break;
+        case FLOAT:
+            myTarget.print(Float.intBitsToFloat((int) slot.bits));
+            break;
+        case FORMAT:
+            myTarget.printf(slot.locale, slot.text, slot.arguments);
+            break;
+        case INT:
+            myTarget.print((int) slot.bits);
+            break;
+        case LONG:
+            myTarget.print(slot.bits);
+            break;
+        case MESSAGE:
+            myTarget.print(TypeUtils.format(slot.text, slot.arguments));
+            break;
+        case OBJECT:
+            myTarget.print(slot.object);
+            break;
+        default:
+            if (slot.text != null) {
+                myTarget.print(slot.text);
+            }
+            break;
+        }
+
+        if (slot.newLine) {
+            myTarget.println();
+        }
+    }
+
+    private void publish(final Slot slot, final boolean newLine) {
+
+        slot.newLine = newLine;
+
+        myPublished.set((int) (slot.sequence & myMask), slot.sequence);
+
+        if (myWaiting) {
+            LockSupport.unpark(myConsumer);
+        }
+    }
+
+    private void reportDropped() {
+        final long tmpDropped = myDropped.sum();
+        if (tmpDropped != myReported) {
+            myTarget.println("[" + (tmpDropped - myReported) + " messages dropped]");
+            myReported = tmpDropped;
+        }
+    }
+
+    private void string(final String str, final boolean newLine) {
+        final Slot tmpSlot = this.claim();
+        if (tmpSlot != null) {
+            tmpSlot.kind = Kind.STRING;
+            tmpSlot.text = str;
+            this.publish(tmpSlot, newLine);
+        }
+    }
+
+}
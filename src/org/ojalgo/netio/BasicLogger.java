@@ -241,6 +241,14 @@ public abstract class BasicLogger {
 
     public static interface Printer {
 
+        /**
+         * @return false if nothing will be printed – check that before preparing (formatting or boxing) any
+         *         arguments
+         */
+        default boolean isEnabled() {
+            return true;
+        }
+
         /**
          * @see java.io.PrintWriter#print(boolean)
          * @see java.io.PrintStream#print(boolean)
@@ -846,25 +854,25 @@ public abstract class BasicLogger {
     }
 
     static void println(final Printer appender) {
-        if (appender != null) {
+        if ((appender != null) && appender.isEnabled()) {
             appender.println();
         }
     }
 
     static void println(final Printer appender, final Object message) {
-        if (appender != null) {
+        if ((appender != null) && appender.isEnabled()) {
             appender.println(message);
         }
     }
 
     static void println(final Printer appender, final String messagePattern, final Object... arguments) {
-        if (appender != null) {
+        if ((appender != null) && appender.isEnabled()) {
             appender.println(messagePattern, arguments);
         }
     }
 
     static void printmtrx(final Printer appender, final Access2D<?> matrix, final NumberContext context) {
-        if ((appender != null) && (matrix.count() > 0L)) {
+        if ((appender != null) && appender.isEnabled() && (matrix.count() > 0L)) {
             if (matrix instanceof ComplexMatrix) {
                 BasicLogger.printmtrx(appender, (ComplexMatrix) matrix, context, false);
             } else if (matrix instanceof BasicMatrix) {
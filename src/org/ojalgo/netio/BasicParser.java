@@ -25,6 +25,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.function.Consumer;
@@ -43,6 +44,18 @@ public interface BasicParser<T> {
      */
     public abstract T parse(String line) throws RecoverableCondition;
 
+    /**
+     * Parse one line, available as bytes, into some custom object. This is what the parallel (chunked)
+     * parsing calls. The default implementation decodes the line and calls {@link #parse(String)} –
+     * override it to parse directly from the bytes, without intermediate {@link String}s.
+     *
+     * @param line The text line to parse, only valid during this call
+     * @return An object containing (referencing) the parsed data
+     */
+    default T parse(final ByteLine line) throws RecoverableCondition {
+        return this.parse(line.toString());
+    }
+
     /**
      * Will parse this file, line by line, passing the reulting objects (1 per line) to the supplied consumer.
      *
@@ -71,6 +84,49 @@ public interface BasicParser<T> {
         }
     }
 
+    /**
+     * Same as {@link #parseInParallel(File, Consumer, boolean)} with ordered results.
+     */
+    default void parseInParallel(final File file, final Consumer<T> consumer) {
+        this.parseInParallel(file, consumer, true);
+    }
+
+    /**
+     * Will parse this file, in line aligned chunks concurrently, using {@link #parse(ByteLine)} – that must
+     * therefore be thread safe. From uncompressed files each thread reads its chunks, using positional reads
+     * into a buffer it reuses, ".gz" files are decompressed by the calling thread while other threads parse. The number of threads is that of the current
+     * {@link org.ojalgo.concurrent.ParallelScope}. Other (".zip") files are parsed sequentially.
+     *
+     * @param file The CSV file to parse
+     * @param consumer The results consumer
+     * @param ordered If true the consumer is called serially, with the results in line order; if false the
+     *        consumer is called concurrently, from the parsing threads, in no particular order (and must
+     *        therefore be thread safe)
+     */
+    default void parseInParallel(final File file, final Consumer<T> consumer, final boolean ordered) {
+
+        if (file.exists() && file.isFile() && file.canRead()) {
+
+            final String tmpPath = file.getPath();
+
+            try {
+
+                if (tmpPath.endsWith(".gz")) {
+                    try (InputStream tmpInput = new GZIPInputStream(new FileInputStream(file), ChunkedParsing.CHUNK >> 4)) {
+                        ChunkedParsing.parse(this, tmpInput, consumer, ordered);
+                    }
+                } else if (tmpPath.endsWith(".zip")) {
+                    this.parse(file, consumer);
+                } else {
+                    ChunkedParsing.parse(this, file, consumer, ordered);
+                }
+
+            } catch (final IOException exception) {
+                exception.printStackTrace();
+            }
+        }
+    }
+
     /**
      * @param reader The CSV data reader
      * @param consumer The results consumer
@@ -0,0 +1,353 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * One line of text, available as (a range of) the bytes it was read from – nothing is decoded or copied
+ * unless asked for. Split it into delimited fields, and then parse numbers directly from the bytes of those
+ * fields. Instances are reused, line after line, and are only valid until the next line is read.
+ *
+ * @author apete
+ * @see BasicParser#parse(ByteLine)
+ */
+public final class ByteLine {
+
+    private static final double[] POWERS_OF_TEN = new double[] { 1E0, 1E1, 1E2, 1E3, 1E4, 1E5, 1E6, 1E7, 1E8, 1E9, 1E10, 1E11, 1E12, 1E13, 1E14, 1E15,
+            1E16, 1E17, 1E18, 1E19, 1E20, 1E21, 1E22 };
+
+    /**
+     * Parses a decimal number. Numbers with at most 15 significant digits, and a decimal exponent within
+     * ±22, are converted using a single (correctly rounded) multiplication or division. Anything else is
+     * delegated to {@link Double#parseDouble(String)}.
+     */
+    public static double parseDouble(final byte[] array, final int start, final int end) {
+
+        int tmpIndex = start;
+        boolean tmpNegative = false;
+
+        if ((tmpIndex < end) && ((array[tmpIndex] == '-') || (array[tmpIndex] == '+'))) {
+            tmpNegative = array[tmpIndex] == '-';
+            tmpIndex++;
+        }
+
+        long tmpMantissa = 0L;
+        int tmpDigits = 0;
+        int tmpExponent = 0;
+        boolean tmpAnyDigit = false;
+        boolean tmpDecimals = false;
+
+        for (; tmpIndex < end; tmpIndex++) {
+            final byte tmpByte = array[tmpIndex];
+            if ((tmpByte >= '0') && (tmpByte <= '9')) {
+                tmpAnyDigit = true;
+                if ((tmpMantissa != 0L) || (tmpByte != '0')) {
+                    tmpMantissa = (10L * tmpMantissa) + (tmpByte - '0');
+                    tmpDigits++;
+                }
+                if (tmpDecimals) {
+                    tmpExponent--;
+                }
+                if (tmpDigits > 15) {
+                    return ByteLine.parseSlowly(array, start, end);
+                }
+            } else if ((tmpByte == '.') && !tmpDecimals) {
+                tmpDecimals = true;
+            } else {
+                break;
+            }
+        }
+
+        if (!tmpAnyDigit) {
+            return ByteLine.parseSlowly(array, start, end);
+        }
+
+        if ((tmpIndex < end) && ((array[tmpIndex] == 'e') || (array[tmpIndex] == 'E') || (array[tmpIndex] == 'd') || (array[tmpIndex] == 'D'))) {
+
+            tmpIndex++;
+
+            boolean tmpNegativeExponent = false;
+            if ((tmpIndex < end) && ((array[tmpIndex] == '-') || (array[tmpIndex] == '+'))) {
+                tmpNegativeExponent = array[tmpIndex] == '-';
+                tmpIndex++;
+            }
+
+            int tmpExplicit = 0;
+            boolean tmpAnyExponentDigit = false;
+            for (; (tmpIndex < end) && (array[tmpIndex] >= '0') && (array[tmpIndex] <= '9'); tmpIndex++) {
+                tmpAnyExponentDigit = true;
+                if (tmpExplicit < 1000) {
+                    tmpExplicit = (10 * tmpExplicit) + (array[tmpIndex] - '0');
+                }
+            }
+
+            if (!tmpAnyExponentDigit) {
+                return ByteLine.parseSlowly(array, start, end);
+            }
+
+            tmpExponent += tmpNegativeExponent ? -tmpExplicit : tmpExplicit;
+        }
+
+        if (tmpIndex != end) {
+            return ByteLine.parseSlowly(array, start, end);
+        }
+
+        double retVal = tmpMantissa;
+
+        if (tmpMantissa == 0L) {
+            // Nothing to scale
+        } else if ((tmpExponent >= 0) && (tmpExponent < POWERS_OF_TEN.length)) {
+            retVal *= POWERS_OF_TEN[tmpExponent];
+        } else if ((tmpExponent < 0) && (-tmpExponent < POWERS_OF_TEN.length)) {
+            retVal /= POWERS_OF_TEN[-tmpExponent];
+        } else {
+            return ByteLine.parseSlowly(array, start, end);
+        }
+
+        return tmpNegative ? -retVal : retVal;
+    }
+
+    /**
+     * Parses a decimal integer, optionally signed. Anything else (including overflow) is delegated to
+     * {@link Long#parseLong(String)}, that then throws a {@link NumberFormatException}.
+     */
+    public static long parseLong(final byte[] array, final int start, final int end) {
+
+        int tmpIndex = start;
+        boolean tmpNegative = false;
+
+        if ((tmpIndex < end) && ((array[tmpIndex] == '-') || (array[tmpIndex] == '+'))) {
+            tmpNegative = array[tmpIndex] == '-';
+            tmpIndex++;
+        }
+
+        if (((end - tmpIndex) < 1) || ((end - tmpIndex) > 18)) {
+            return Long.parseLong(new String(array, start, end - start, StandardCharsets.US_ASCII));
+        }
+
+        long retVal = 0L;
+        for (; tmpIndex < end; tmpIndex++) {
+            final int tmpDigit = array[tmpIndex] - '0';
+            if ((tmpDigit < 0) || (tmpDigit > 9)) {
+                return Long.parseLong(new String(array, start, end - start, StandardCharsets.US_ASCII));
+            }
+            retVal = (10L * retVal) + tmpDigit;
+        }
+
+        return tmpNegative ? -retVal : retVal;
+    }
+
+    private static double parseSlowly(final byte[] array, final int start, final int end) {
+        final String tmpString = new String(array, start, end - start, StandardCharsets.US_ASCII).replace('d', 'e').replace('D', 'E');
+        return Double.parseDouble(tmpString);
+    }
+
+    private byte[] myArray;
+    private int myEnd;
+    private int[] myFieldEnds = new int[16];
+    private int myFields = 0;
+    private int[] myFieldStarts = new int[16];
+    private int myStart;
+
+    ByteLine() {
+        super();
+    }
+
+    /**
+     * The underlying array – the line is the range [{@link #start()}, {@link #end()}).
+     */
+    public byte[] array() {
+        return myArray;
+    }
+
+    public byte byteAt(final int index) {
+        return myArray[myStart + index];
+    }
+
+    /**
+     * @return The number of fields found by the latest call to {@link #split(char)}, {@link #split(int)} or
+     *         {@link #tokenize()}
+     */
+    public int countFields() {
+        return myFields;
+    }
+
+    public double doubleValue(final int field) {
+        return ByteLine.parseDouble(myArray, myFieldStarts[field], myFieldEnds[field]);
+    }
+
+    /**
+     * The (exclusive) end of the line in {@link #array()}, any line terminator excluded
+     */
+    public int end() {
+        return myEnd;
+    }
+
+    public int end(final int field) {
+        return myFieldEnds[field];
+    }
+
+    public int intValue(final int field) {
+        return Math.toIntExact(this.longValue(field));
+    }
+
+    public boolean isEmpty(final int field) {
+        return myFieldEnds[field] <= myFieldStarts[field];
+    }
+
+    public int length() {
+        return myEnd - myStart;
+    }
+
+    public long longValue(final int field) {
+        return ByteLine.parseLong(myArray, myFieldStarts[field], myFieldEnds[field]);
+    }
+
+    /**
+     * Splits the line in fields at each occurrence of the delimiter. Fields are not trimmed, and the
+     * delimiter should be an ASCII character.
+     *
+     * @return This line, now with {@link #countFields()} fields
+     */
+    public ByteLine split(final char delimiter) {
+
+        final byte tmpDelimiter = (byte) delimiter;
+
+        myFields = 0;
+        int tmpStart = myStart;
+        for (int i = myStart; i <= myEnd; i++) {
+            if ((i == myEnd) || (myArray[i] == tmpDelimiter)) {
+                this.field(tmpStart, i);
+                tmpStart = i + 1;
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Splits the line in fixed width fields – Fortran style. The last field may be shorter, and any spaces
+     * around the contents of a field are excluded (so that blank fields are empty).
+     *
+     * @return This line, now with {@link #countFields()} fields
+     */
+    public ByteLine split(final int width) {
+
+        if (width <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        myFields = 0;
+        for (int i = myStart; i < myEnd; i += width) {
+            int tmpStart = i;
+            int tmpEnd = Math.min(myEnd, i + width);
+            while ((tmpStart < tmpEnd) && (myArray[tmpStart] == ' ')) {
+                tmpStart++;
+            }
+            while ((tmpEnd > tmpStart) && (myArray[tmpEnd - 1] == ' ')) {
+                tmpEnd--;
+            }
+            this.field(tmpStart, tmpEnd);
+        }
+
+        return this;
+    }
+
+    /**
+     * The (inclusive) start of the line in {@link #array()}
+     */
+    public int start() {
+        return myStart;
+    }
+
+    public int start(final int field) {
+        return myFieldStarts[field];
+    }
+
+    /**
+     * Splits the line in fields separated by (runs of) spaces and/or tabs. Leading and trailing whitespace is
+     * ignored, and a blank line has no fields.
+     *
+     * @return This line, now with {@link #countFields()} fields
+     */
+    public ByteLine tokenize() {
+
+        myFields = 0;
+        int i = myStart;
+        for (;;) {
+            while ((i < myEnd) && ((myArray[i] == ' ') || (myArray[i] == '\t'))) {
+                i++;
+            }
+            if (i == myEnd) {
+                return this;
+            }
+            final int tmpStart = i;
+            while ((i < myEnd) && (myArray[i] != ' ') && (myArray[i] != '\t')) {
+                i++;
+            }
+            this.field(tmpStart, i);
+        }
+    }
+
+    /**
+     * Decodes the line as UTF-8
+     */
+    @Override
+    public String toString() {
+        return new String(myArray, myStart, myEnd - myStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the field as UTF-8
+     */
+    public String toString(final int field) {
+        return new String(myArray, myFieldStarts[field], myFieldEnds[field] - myFieldStarts[field], StandardCharsets.UTF_8);
+    }
+
+    private void field(final int start, final int end) {
+        if (myFields == myFieldStarts.length) {
+            myFieldStarts = Arrays.copyOf(myFieldStarts, 2 * myFields);
+            myFieldEnds = Arrays.copyOf(myFieldEnds, 2 * myFields);
+        }
+        myFieldStarts[myFields] = start;
+        myFieldEnds[myFields] = end;
+        myFields++;
+    }
+
+    /**
+     * @param array The bytes
+     * @param start The first byte of the line
+     * @param end The end of the line – a trailing '\r' is dropped
+     */
+    ByteLine reset(final byte[] array, final int start, final int end) {
+
+        myArray = array;
+        myStart = start;
+        myEnd = ((end > start) && (array[end - 1] == '\r')) ? end - 1 : end;
+        myFields = 0;
+
+        return this;
+    }
+
+}
@@ -0,0 +1,448 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.concurrent.ParallelScope;
+
+/**
+ * Parses line-aligned chunks of bytes concurrently. From uncompressed files each worker reads its own chunks,
+ * with positional reads into a buffer it reuses, and parses them. Streams (gzip) are pipelined – the invoking thread decompresses into
+ * blocks, cut at line breaks, that the workers parse. Results are either passed to the consumer in line
+ * order (collected per chunk, and delivered serially as soon as all preceding chunks are done), or directly
+ * from the workers, concurrently, in no particular order.
+ *
+ * @author apete
+ */
+final class ChunkedParsing<T> {
+
+    static final class Block {
+
+        final byte[] bytes;
+        final int index;
+        final int limit;
+
+        Block(final int index, final byte[] bytes, final int limit) {
+            super();
+            this.index = index;
+            this.bytes = bytes;
+            this.limit = limit;
+        }
+
+    }
+
+    /**
+     * Nominal chunk/block size
+     */
+    static int CHUNK = 1 << 22;
+
+    private static final Block END = new Block(-1, null, 0);
+    private static final int TAIL = 1 << 16;
+
+    static <T> void parse(final BasicParser<T> parser, final File file, final Consumer<T> consumer, final boolean ordered) throws IOException {
+        ChunkedParsing.parse(parser, file, 0L, consumer, ordered);
+    }
+
+    /**
+     * @param offset Parse the lines from there – must be the start of a line
+     */
+    static <T> void parse(final BasicParser<T> parser, final File file, final long offset, final Consumer<T> consumer, final boolean ordered)
+            throws IOException {
+
+        try (FileChannel tmpChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+            final long tmpSize = tmpChannel.size();
+            final long tmpChunks = (Math.max(0L, tmpSize - offset) + CHUNK - 1L) / CHUNK;
+
+            if (tmpChunks > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException();
+            }
+
+            final int tmpWorkers = (int) Math.max(1L, Math.min(tmpChunks, ParallelScope.parallelism()));
+            final ChunkedParsing<T> tmpParsing = new ChunkedParsing<>(parser, consumer, ordered, tmpWorkers);
+            final AtomicInteger tmpNext = new AtomicInteger();
+
+            final Runnable tmpWorker = () -> {
+                final ByteLine tmpLine = new ByteLine();
+                byte[] tmpBuffer = new byte[CHUNK + TAIL + 1];
+                for (int c = tmpNext.getAndIncrement(); (c < tmpChunks) && tmpParsing.await(c); c = tmpNext.getAndIncrement()) {
+                    try {
+                        tmpBuffer = tmpParsing.chunk(tmpChannel, offset, tmpSize, c, tmpBuffer, tmpLine);
+                    } catch (final IOException cause) {
+                        throw new UncheckedIOException(cause);
+                    }
+                }
+            };
+
+            tmpParsing.execute(tmpWorker, tmpWorkers);
+        }
+    }
+
+    static <T> void parse(final BasicParser<T> parser, final InputStream input, final Consumer<T> consumer, final boolean ordered) throws IOException {
+
+        // The invoking thread decompresses, the others parse
+        final int tmpWorkers = Math.max(1, ParallelScope.parallelism() - 1);
+        final ChunkedParsing<T> tmpParsing = new ChunkedParsing<>(parser, consumer, ordered, tmpWorkers);
+        final BlockingQueue<Block> tmpQueue = new ArrayBlockingQueue<>(2 * tmpWorkers);
+
+        final Runnable tmpWorker = () -> {
+            final ByteLine tmpLine = new ByteLine();
+            try {
+                for (Block tmpBlock = tmpQueue.take(); (tmpBlock != END) && tmpParsing.await(tmpBlock.index); tmpBlock = tmpQueue.take()) {
+                    tmpParsing.lines(tmpBlock.index, tmpBlock.bytes, 0, tmpBlock.limit, tmpLine);
+                }
+                tmpQueue.offer(END);
+            } catch (final InterruptedException cause) {
+                throw new ProgrammingError(cause);
+            }
+        };
+
+        final List<Future<?>> tmpFutures = new ArrayList<>(tmpWorkers);
+        for (int w = 0; w < tmpWorkers; w++) {
+            tmpFutures.add(ParallelScope.fork(tmpParsing.guard(tmpWorker)));
+        }
+
+        final ByteLine tmpLine = new ByteLine();
+
+        try {
+
+            byte[] tmpBytes = new byte[CHUNK];
+            int tmpCount = 0;
+            int tmpIndex = 0;
+
+            for (int tmpRead = 0; tmpRead >= 0;) {
+
+                tmpRead = input.read(tmpBytes, tmpCount, tmpBytes.length - tmpCount);
+                if (tmpRead > 0) {
+                    tmpCount += tmpRead;
+                }
+
+                if ((tmpCount == tmpBytes.length) || ((tmpRead < 0) && (tmpCount > 0))) {
+
+                    int tmpLimit = tmpCount;
+                    if (tmpRead >= 0) {
+                        while ((tmpLimit > 0) && (tmpBytes[tmpLimit - 1] != '\n')) {
+                            tmpLimit--;
+                        }
+                    }
+
+                    final byte[] tmpNextBytes;
+                    if (tmpLimit == 0) {
+                        // A single line longer than the block – grow it
+                        tmpNextBytes = new byte[2 * tmpBytes.length];
+                        System.arraycopy(tmpBytes, 0, tmpNextBytes, 0, tmpCount);
+                    } else {
+                        tmpParsing.offer(tmpQueue, new Block(tmpIndex++, tmpBytes, tmpLimit), tmpLine);
+                        tmpNextBytes = new byte[Math.max(CHUNK, 2 * (tmpCount - tmpLimit))];
+                        System.arraycopy(tmpBytes, tmpLimit, tmpNextBytes, 0, tmpCount - tmpLimit);
+                        tmpCount -= tmpLimit;
+                    }
+                    tmpBytes = tmpNextBytes;
+                }
+            }
+
+            tmpParsing.offer(tmpQueue, END, tmpLine);
+
+        } catch (final IOException | RuntimeException | Error cause) {
+
+            tmpParsing.fail();
+            // Wake up any waiting worker, and they'll wake up the others
+            tmpQueue.offer(END);
+
+            throw cause;
+
+        } finally {
+
+            tmpParsing.join(tmpFutures);
+        }
+    }
+
+    private final Consumer<T> myConsumer;
+    private int myDelivered = 0;
+    private boolean myDelivering = false;
+    private volatile boolean myFailed = false;
+    private final boolean myOrdered;
+    private final BasicParser<T> myParser;
+    private final Map<Integer, List<T>> myPending = new HashMap<>();
+    private final int myWindow;
+
+    ChunkedParsing(final BasicParser<T> parser, final Consumer<T> consumer, final boolean ordered, final int workers) {
+
+        super();
+
+        myParser = parser;
+        myConsumer = consumer;
+        myOrdered = ordered;
+        myWindow = 4 * workers;
+    }
+
+    /**
+     * Ordered results are buffered per chunk – don't let any worker get too far ahead of the delivery.
+     *
+     * @return false if the parsing failed, and should be abandoned
+     */
+    synchronized boolean await(final int chunk) {
+        try {
+            while (myOrdered && !myFailed && (chunk >= (myDelivered + myWindow))) {
+                this.wait();
+            }
+        } catch (final InterruptedException cause) {
+            throw new ProgrammingError(cause);
+        }
+        return !myFailed;
+    }
+
+    /**
+     * Parse the lines that start within [offset + chunk * CHUNK, offset + (chunk + 1) * CHUNK)
+     *
+     * @return The buffer, possibly grown
+     */
+    byte[] chunk(final FileChannel channel, final long offset, final long size, final int chunk, final byte[] buffer, final ByteLine line)
+            throws IOException {
+
+        final long tmpStart = offset + (chunk * (long) CHUNK);
+        final long tmpEnd = Math.min(size, tmpStart + CHUNK);
+
+        // Include the byte before, to know if the first line starts at tmpStart
+        final long tmpFrom = Math.max(0L, tmpStart - 1L);
+        long tmpTo = Math.min(size, tmpEnd + TAIL);
+
+        byte[] retVal = buffer;
+        int tmpRead = 0;
+
+        for (;;) {
+
+            final int tmpLength = (int) (tmpTo - tmpFrom);
+            if (retVal.length < tmpLength) {
+                retVal = Arrays.copyOf(retVal, tmpLength);
+            }
+
+            // Positional reads don't affect the channel's position – the workers share the channel
+            final ByteBuffer tmpTarget = ByteBuffer.wrap(retVal, tmpRead, tmpLength - tmpRead);
+            while (tmpTarget.hasRemaining()) {
+                if (channel.read(tmpTarget, tmpFrom + tmpTarget.position()) < 0) {
+                    throw new EOFException();
+                }
+            }
+            tmpRead = tmpLength;
+
+            int tmpFirst = 0;
+            if (tmpStart > 0L) {
+                while ((tmpFirst < tmpLength) && (retVal[tmpFirst] != '\n')) {
+                    tmpFirst++;
+                }
+                tmpFirst++;
+            }
+
+            final int tmpOwned = (int) (tmpEnd - tmpFrom);
+            if (tmpFirst >= tmpOwned) {
+                if ((tmpFirst <= tmpLength) || (tmpTo == size)) {
+                    // No line starts within this chunk
+                    this.deliver(chunk, new ArrayList<>(0));
+                    return retVal;
+                }
+            } else {
+                // The last line starting within the chunk ends at the first line break from tmpEnd - 1
+                int tmpLimit = Math.max(tmpFirst, tmpOwned - 1);
+                while ((tmpLimit < tmpLength) && (retVal[tmpLimit] != '\n')) {
+                    tmpLimit++;
+                }
+                if ((tmpLimit < tmpLength) || (tmpTo == size)) {
+                    this.lines(chunk, retVal, tmpFirst, Math.min(tmpLimit + 1, tmpLength), line);
+                    return retVal;
+                }
+            }
+
+            // A very long line – read more
+            tmpTo = Math.min(size, tmpTo + Math.max(TAIL, tmpTo - tmpFrom));
+        }
+    }
+
+    void execute(final Runnable worker, final int workers) {
+
+        final Runnable tmpGuarded = this.guard(worker);
+
+        final List<Future<?>> tmpFutures = new ArrayList<>(workers);
+        for (int w = 1; w < workers; w++) {
+            tmpFutures.add(ParallelScope.fork(tmpGuarded));
+        }
+
+        try {
+            tmpGuarded.run();
+        } finally {
+            this.join(tmpFutures);
+        }
+    }
+
+    synchronized void fail() {
+        myFailed = true;
+        this.notifyAll();
+    }
+
+    /**
+     * @return The worker, also signalling the other workers to stop if it fails
+     */
+    Runnable guard(final Runnable worker) {
+        return () -> {
+            try {
+                worker.run();
+            } catch (final RuntimeException | Error cause) {
+                this.fail();
+                throw cause;
+            }
+        };
+    }
+
+    void join(final List<Future<?>> futures) {
+        try {
+            for (final Future<?> tmpFuture : futures) {
+                tmpFuture.get();
+            }
+        } catch (final InterruptedException cause) {
+            throw new ProgrammingError(cause);
+        } catch (final ExecutionException cause) {
+            if (cause.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) cause.getCause();
+            } else {
+                throw new ProgrammingError(cause);
+            }
+        }
+    }
+
+    /**
+     * Parse all lines in [first, limit) of the bytes
+     */
+    void lines(final int chunk, final byte[] bytes, final int first, final int limit, final ByteLine line) {
+
+        final List<T> tmpResults = myOrdered ? new ArrayList<>() : null;
+        final Consumer<T> tmpSink = myOrdered ? tmpResults::add : myConsumer;
+
+        int tmpStart = first;
+        while (tmpStart < limit) {
+
+            int tmpEnd = tmpStart;
+            while ((tmpEnd < limit) && (bytes[tmpEnd] != '\n')) {
+                tmpEnd++;
+            }
+
+            line.reset(bytes, tmpStart, tmpEnd);
+
+            T tmpItem;
+            try {
+                if ((line.length() > 0) && (line.byteAt(0) != '#') && ((tmpItem = myParser.parse(line)) != null)) {
+                    tmpSink.accept(tmpItem);
+                }
+            } catch (final RecoverableCondition xcptn) {
+                // Skip this line and try the next
+            }
+
+            tmpStart = tmpEnd + 1;
+        }
+
+        if (myOrdered) {
+            this.deliver(chunk, tmpResults);
+        }
+    }
+
+    /**
+     * If the queue stays full the invoking thread parses the next queued block itself – the workers are
+     * forked to the {@link ParallelScope} pool and may not (yet) have been started.
+     */
+    void offer(final BlockingQueue<Block> queue, final Block block, final ByteLine line) {
+        try {
+            while (!queue.offer(block, 100L, TimeUnit.MILLISECONDS)) {
+                if (myFailed) {
+                    throw new IllegalStateException();
+                }
+                // Only the invoking thread offers, and END is offered last – what's queued is never END
+                final Block tmpQueued = queue.poll();
+                if ((tmpQueued != null) && this.await(tmpQueued.index)) {
+                    this.lines(tmpQueued.index, tmpQueued.bytes, 0, tmpQueued.limit, line);
+                }
+            }
+        } catch (final InterruptedException cause) {
+            throw new ProgrammingError(cause);
+        }
+    }
+
+    /**
+     * Whichever thread finds the next chunk in line ready delivers it, and any that follow, outside the lock.
+     */
+    private void deliver(final int chunk, final List<T> results) {
+
+        if (!myOrdered) {
+            return;
+        }
+
+        synchronized (this) {
+            myPending.put(chunk, results);
+            if (myDelivering) {
+                return;
+            }
+            myDelivering = true;
+        }
+
+        for (;;) {
+
+            final List<T> tmpNext;
+            synchronized (this) {
+                tmpNext = myPending.remove(myDelivered);
+                if (tmpNext == null) {
+                    myDelivering = false;
+                    return;
+                }
+            }
+
+            try {
+                tmpNext.forEach(myConsumer);
+            } finally {
+                synchronized (this) {
+                    myDelivered++;
+                    this.notifyAll();
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,503 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import org.ojalgo.access.Access1D;
+import org.ojalgo.access.Access2D;
+import org.ojalgo.access.ElementView2D;
+import org.ojalgo.array.BufferArray;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.series.BasicSeries;
+import org.ojalgo.series.ColumnarSeries;
+
+/**
+ * A binary file format for (large) primitive matrices and series. A fixed size header (kind, shape, layout,
+ * number of stored elements, chunk size and whether there are checksums) is followed by blocks of raw
+ * little-endian longs and doubles:
+ * <dl>
+ * <dt>{@link Kind#DENSE}</dt>
+ * <dd>All elements, in column-major order</dd>
+ * <dt>{@link Kind#SPARSE}</dt>
+ * <dd>The (column-major) indices of the nonzero elements, and then their values</dd>
+ * <dt>{@link Kind#SERIES}</dt>
+ * <dd>The (mapped) keys, and then the values</dd>
+ * </dl>
+ * Each block is divided in chunks, and with checksums enabled there is a CRC32 per chunk in a table at the
+ * end of the file. Files are written through a {@link FileChannel}. Dense matrices are loaded by memory
+ * mapping the data block into {@link BufferArray} segments (one per chunk) – nothing is read or copied
+ * until the elements are accessed. Sparse matrices and series are copied into new instances.
+ *
+ * @author apete
+ */
+public final class ColumnarFile {
+
+    public static final class Header {
+
+        public final boolean checksum;
+        public final int chunk;
+        public final long columns;
+        public final Kind kind;
+        public final long rows;
+        /**
+         * The number of elements stored (per block)
+         */
+        public final long size;
+
+        Header(final Kind kind, final long rows, final long columns, final long size, final int chunk, final boolean checksum) {
+
+            super();
+
+            this.kind = kind;
+            this.rows = rows;
+            this.columns = columns;
+            this.size = size;
+            this.chunk = chunk;
+            this.checksum = checksum;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + rows + "x" + columns + " size=" + size + " chunk=" + chunk + " checksum=" + checksum;
+        }
+
+        int blocks() {
+            return kind == Kind.DENSE ? 1 : 2;
+        }
+
+        int chunks() {
+            return (int) ((size + chunk - 1L) / chunk);
+        }
+
+        long position(final int block) {
+            return HEADER + (block * size * ELEMENT);
+        }
+
+    }
+
+    public static enum Kind {
+        DENSE, SERIES, SPARSE;
+    }
+
+    static final class BlockWriter {
+
+        private final ByteBuffer myBuffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private final FileChannel myChannel;
+        private final int myChunk;
+        private final CRC32 myChecksum;
+        private long myCount = 0L;
+        private LongBuffer myTable;
+
+        BlockWriter(final FileChannel channel, final int chunk, final boolean checksum) throws IOException {
+
+            super();
+
+            myChannel = channel;
+            myChunk = chunk;
+            myChecksum = checksum ? new CRC32() : null;
+            myTable = checksum ? LongBuffer.allocate(16) : null;
+
+            myChannel.position(HEADER);
+        }
+
+        void end() throws IOException {
+            this.flush();
+            if (myCount > 0L) {
+                this.endChunk();
+            }
+        }
+
+        void finish(final Header header) throws IOException {
+
+            if (myTable != null) {
+                myTable.flip();
+                while (myTable.hasRemaining()) {
+                    if (!myBuffer.hasRemaining()) {
+                        this.flush();
+                    }
+                    myBuffer.putLong(myTable.get());
+                }
+                this.flush();
+            }
+
+            final ByteBuffer tmpHeader = ByteBuffer.allocate((int) HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            tmpHeader.putInt(MAGIC);
+            tmpHeader.putInt(VERSION);
+            tmpHeader.put((byte) header.kind.ordinal());
+            tmpHeader.put(DOUBLE);
+            tmpHeader.put(COLUMN_MAJOR);
+            tmpHeader.put((byte) (header.checksum ? 1 : 0));
+            tmpHeader.putInt(header.chunk);
+            tmpHeader.putLong(header.rows);
+            tmpHeader.putLong(header.columns);
+            tmpHeader.putLong(header.size);
+            tmpHeader.clear();
+
+            long tmpPosition = 0L;
+            while (tmpHeader.hasRemaining()) {
+                tmpPosition += myChannel.write(tmpHeader, tmpPosition);
+            }
+        }
+
+        void put(final double value) throws IOException {
+            if (!myBuffer.hasRemaining()) {
+                this.flush();
+            }
+            myBuffer.putDouble(value);
+            this.increment();
+        }
+
+        void put(final long value) throws IOException {
+            if (!myBuffer.hasRemaining()) {
+                this.flush();
+            }
+            myBuffer.putLong(value);
+            this.increment();
+        }
+
+        private void endChunk() {
+            if (myChecksum != null) {
+                if (!myTable.hasRemaining()) {
+                    final LongBuffer tmpTable = LongBuffer.allocate(2 * myTable.capacity());
+                    myTable.flip();
+                    myTable = tmpTable.put(myTable);
+                }
+                myTable.put(myChecksum.getValue());
+                myChecksum.reset();
+            }
+            myCount = 0L;
+        }
+
+        private void flush() throws IOException {
+            myBuffer.flip();
+            if (myChecksum != null) {
+                myChecksum.update(myBuffer.duplicate());
+            }
+            while (myBuffer.hasRemaining()) {
+                myChannel.write(myBuffer);
+            }
+            myBuffer.clear();
+        }
+
+        private void increment() throws IOException {
+            if (++myCount == myChunk) {
+                this.flush();
+                this.endChunk();
+            }
+        }
+
+    }
+
+    /**
+     * Elements per chunk, and the max number of elements per mapped buffer (segment). Must be a power of 2, and
+     * small enough that a chunk of bytes can be mapped (less than 2^31). Package private and not final so that
+     * tests can make it small.
+     */
+    static int CHUNK = 1 << 27;
+
+    static final byte COLUMN_MAJOR = 'C';
+    static final byte DOUBLE = 'D';
+    static final long ELEMENT = 8L;
+    static final long HEADER = 64L;
+    static final int MAGIC = 0x46434A4F; // "OJCF" little-endian
+    static final int VERSION = 1;
+
+    /**
+     * @return The header of a columnar file
+     * @throws IOException If the file can't be read, or isn't a columnar file
+     */
+    public static Header header(final File file) throws IOException {
+        try (FileChannel tmpChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return ColumnarFile.header(tmpChannel);
+        }
+    }
+
+    /**
+     * Dense matrices are memory mapped (read-only) – that's fast, and does not consume heap memory. If you
+     * need to modify the elements, copy the returned store. Sparse matrices are read into a new
+     * {@link SparseStore}.
+     *
+     * @param file The file to read
+     * @param verify Verify the checksums (if there are any); that reads the entire file
+     * @return A matrix store
+     * @throws IOException If the file can't be read, isn't a columnar matrix file, or the checksums don't match
+     */
+    public static MatrixStore<Double> readMatrix(final File file, final boolean verify) throws IOException {
+        try (FileChannel tmpChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+            final Header tmpHeader = ColumnarFile.header(tmpChannel, verify);
+
+            switch (tmpHeader.kind) {
+            case DENSE:
+                return MatrixStore.PRIMITIVE
+                        .makeWrapper(BufferArray.map(tmpChannel, tmpHeader.position(0), tmpHeader.chunk, tmpHeader.rows, tmpHeader.columns)).get();
+            case SPARSE:
+                return ColumnarFile.readSparse(tmpChannel, tmpHeader);
+            default:
+                throw new IllegalArgumentException("Not a matrix: " + tmpHeader);
+            }
+        }
+    }
+
+    /**
+     * The keys are the mapped (long) keys of the series that was written, and must be mapped back the same way
+     * – use the same kind of builder with the same settings.
+     *
+     * @param file The file to read
+     * @param builder Used to create the (empty) series, that's then filled with the keys and values of the file
+     * @param verify Verify the checksums (if there are any)
+     * @return A new series
+     * @throws IOException If the file can't be read, isn't a columnar series file, or the checksums don't match
+     */
+    public static <K extends Comparable<? super K>> ColumnarSeries<K> readSeries(final File file, final BasicSeries.TimeSeriesBuilder<K> builder,
+            final boolean verify) throws IOException {
+        try (FileChannel tmpChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+            final Header tmpHeader = ColumnarFile.header(tmpChannel, verify);
+
+            if (tmpHeader.kind != Kind.SERIES) {
+                throw new IllegalArgumentException("Not a series: " + tmpHeader);
+            }
+
+            final ColumnarSeries<K> retVal = builder.buildColumnar();
+
+            final Access1D<Double> tmpValues = BufferArray.map(tmpChannel, tmpHeader.position(1), tmpHeader.chunk, tmpHeader.size);
+
+            long tmpIndex = 0L;
+            for (int c = 0, tmpChunks = tmpHeader.chunks(); c < tmpChunks; c++) {
+                final LongBuffer tmpKeys = ColumnarFile.chunk(tmpChannel, tmpHeader, 0, c).asLongBuffer();
+                while (tmpKeys.hasRemaining()) {
+                    retVal.put(tmpKeys.get(), tmpValues.doubleValue(tmpIndex++));
+                }
+            }
+
+            return retVal;
+        }
+    }
+
+    /**
+     * @see #readMatrix(File, boolean)
+     */
+    public static SparseStore<Double> readSparse(final File file, final boolean verify) throws IOException {
+        try (FileChannel tmpChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+            final Header tmpHeader = ColumnarFile.header(tmpChannel, verify);
+
+            if (tmpHeader.kind != Kind.SPARSE) {
+                throw new IllegalArgumentException("Not a sparse matrix: " + tmpHeader);
+            }
+
+            return ColumnarFile.readSparse(tmpChannel, tmpHeader);
+        }
+    }
+
+    /**
+     * A {@link SparseStore} is written as such – only the nonzero elements. Everything else is written dense.
+     *
+     * @param file The file to (over)write
+     * @param matrix The matrix to write
+     * @param checksum Calculate and store checksums
+     */
+    public static void write(final File file, final Access2D<?> matrix, final boolean checksum) throws IOException {
+        try (FileChannel tmpChannel = ColumnarFile.create(file)) {
+
+            final BlockWriter tmpWriter = new BlockWriter(tmpChannel, CHUNK, checksum);
+
+            final long tmpRows = matrix.countRows();
+            final long tmpColumns = matrix.countColumns();
+
+            if (matrix instanceof SparseStore<?>) {
+
+                final SparseStore<?> tmpSparse = (SparseStore<?>) matrix;
+
+                long tmpSize = 0L;
+                for (final ElementView2D<?, ?> tmpNonzero : tmpSparse.nonzeros()) {
+                    tmpWriter.put(tmpNonzero.index());
+                    tmpSize++;
+                }
+                tmpWriter.end();
+
+                for (final ElementView2D<?, ?> tmpNonzero : tmpSparse.nonzeros()) {
+                    tmpWriter.put(tmpNonzero.doubleValue());
+                }
+                tmpWriter.end();
+
+                tmpWriter.finish(new Header(Kind.SPARSE, tmpRows, tmpColumns, tmpSize, CHUNK, checksum));
+
+            } else {
+
+                for (long j = 0L; j < tmpColumns; j++) {
+                    for (long i = 0L; i < tmpRows; i++) {
+                        tmpWriter.put(matrix.doubleValue(i, j));
+                    }
+                }
+                tmpWriter.end();
+
+                tmpWriter.finish(new Header(Kind.DENSE, tmpRows, tmpColumns, tmpRows * tmpColumns, CHUNK, checksum));
+            }
+        }
+    }
+
+    /**
+     * Writes the mapped (long) keys and the values. The name, colour and accumulator of the series are not
+     * stored.
+     *
+     * @param file The file to (over)write
+     * @param series The series to write
+     * @param checksum Calculate and store checksums
+     */
+    public static void write(final File file, final ColumnarSeries<?> series, final boolean checksum) throws IOException {
+        try (FileChannel tmpChannel = ColumnarFile.create(file)) {
+
+            final BlockWriter tmpWriter = new BlockWriter(tmpChannel, CHUNK, checksum);
+
+            final long[] tmpKeys = series.getPrimitiveKeys();
+            for (int i = 0; i < tmpKeys.length; i++) {
+                tmpWriter.put(tmpKeys[i]);
+            }
+            tmpWriter.end();
+
+            for (int i = 0; i < tmpKeys.length; i++) {
+                tmpWriter.put(series.doubleValue(i));
+            }
+            tmpWriter.end();
+
+            tmpWriter.finish(new Header(Kind.SERIES, tmpKeys.length, 1L, tmpKeys.length, CHUNK, checksum));
+        }
+    }
+
+    private static MappedByteBuffer chunk(final FileChannel channel, final Header header, final int block, final int chunk) throws IOException {
+
+        final long tmpFirst = (long) chunk * header.chunk;
+        final long tmpCount = Math.min(header.chunk, header.size - tmpFirst);
+
+        final MappedByteBuffer retVal = channel.map(MapMode.READ_ONLY, header.position(block) + (tmpFirst * ELEMENT), tmpCount * ELEMENT);
+        retVal.order(ByteOrder.LITTLE_ENDIAN);
+        return retVal;
+    }
+
+    private static FileChannel create(final File file) throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    private static Header header(final FileChannel channel) throws IOException {
+
+        final ByteBuffer tmpBuffer = ByteBuffer.allocate((int) HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        while (tmpBuffer.hasRemaining()) {
+            if (channel.read(tmpBuffer, tmpBuffer.position()) < 0) {
+                throw new IOException("Not a columnar file!");
+            }
+        }
+        tmpBuffer.flip();
+
+        if ((tmpBuffer.getInt() != MAGIC) || (tmpBuffer.getInt() != VERSION)) {
+            throw new IOException("Not a columnar file (or unsupported version)!");
+        }
+
+        final int tmpKind = tmpBuffer.get();
+        final byte tmpType = tmpBuffer.get();
+        final byte tmpLayout = tmpBuffer.get();
+        final boolean tmpChecksum = tmpBuffer.get() != 0;
+        final int tmpChunk = tmpBuffer.getInt();
+        final long tmpRows = tmpBuffer.getLong();
+        final long tmpColumns = tmpBuffer.getLong();
+        final long tmpSize = tmpBuffer.getLong();
+
+        if ((tmpKind < 0) || (tmpKind >= Kind.values().length) || (tmpType != DOUBLE) || (tmpLayout != COLUMN_MAJOR) || (tmpChunk <= 0)
+                || (Integer.bitCount(tmpChunk) != 1)) {
+            throw new IOException("Corrupt or unsupported header!");
+        }
+
+        final Header retVal = new Header(Kind.values()[tmpKind], tmpRows, tmpColumns, tmpSize, tmpChunk, tmpChecksum);
+
+        final long tmpExpected = retVal.position(retVal.blocks()) + (tmpChecksum ? retVal.blocks() * retVal.chunks() * ELEMENT : 0L);
+        if (channel.size() != tmpExpected) {
+            throw new IOException("Truncated or corrupt file: " + channel.size() + " != " + tmpExpected + " bytes!");
+        }
+
+        return retVal;
+    }
+
+    private static Header header(final FileChannel channel, final boolean verify) throws IOException {
+
+        final Header retVal = ColumnarFile.header(channel);
+
+        if (verify && retVal.checksum) {
+
+            final int tmpChunks = retVal.chunks();
+            final ByteBuffer tmpTable = ByteBuffer.allocate(retVal.blocks() * tmpChunks * (int) ELEMENT).order(ByteOrder.LITTLE_ENDIAN);
+            final long tmpPosition = retVal.position(retVal.blocks());
+            while (tmpTable.hasRemaining()) {
+                channel.read(tmpTable, tmpPosition + tmpTable.position());
+            }
+            tmpTable.flip();
+
+            final CRC32 tmpChecksum = new CRC32();
+            for (int b = 0; b < retVal.blocks(); b++) {
+                for (int c = 0; c < tmpChunks; c++) {
+                    tmpChecksum.reset();
+                    tmpChecksum.update(ColumnarFile.chunk(channel, retVal, b, c));
+                    if (tmpChecksum.getValue() != tmpTable.getLong()) {
+                        throw new IOException("Checksum mismatch in block " + b + ", chunk " + c + "!");
+                    }
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    private static SparseStore<Double> readSparse(final FileChannel channel, final Header header) throws IOException {
+
+        final SparseStore<Double> retVal = SparseStore.makePrimitive((int) header.rows, (int) header.columns);
+
+        final Access1D<Double> tmpValues = BufferArray.map(channel, header.position(1), header.chunk, header.size);
+
+        long tmpIndex = 0L;
+        for (int c = 0, tmpChunks = header.chunks(); c < tmpChunks; c++) {
+            final LongBuffer tmpIndices = ColumnarFile.chunk(channel, header, 0, c).asLongBuffer();
+            while (tmpIndices.hasRemaining()) {
+                final long tmpLinear = tmpIndices.get();
+                retVal.set(tmpLinear % header.rows, tmpLinear / header.rows, tmpValues.doubleValue(tmpIndex++));
+            }
+        }
+
+        return retVal;
+    }
+
+    private ColumnarFile() {
+        super();
+    }
+
+}
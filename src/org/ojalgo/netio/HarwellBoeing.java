@@ -0,0 +1,285 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.ojalgo.access.Access2D;
+import org.ojalgo.access.ElementView2D;
+import org.ojalgo.matrix.store.SparseStore;
+
+/**
+ * The Harwell-Boeing and Rutherford-Boeing sparse (compressed column) formats – assembled real, integer or
+ * pattern matrices that are unsymmetric, symmetric, skew-symmetric or rectangular. Complex, Hermitian and
+ * elemental matrices are not supported, and any right hand sides are ignored. Data lines are fixed width
+ * (Fortran formats) and read sequentially.
+ *
+ * @author apete
+ */
+final class HarwellBoeing {
+
+    /**
+     * Matches the repeat count, type and width of a Fortran format such as "(8I10)", "(1P,5E16.8)" or
+     * "(4D20.12E3)"
+     */
+    private static final Pattern FORMAT = Pattern.compile("(\\d*)\\s*([IEDFG])\\s*(\\d+)", Pattern.CASE_INSENSITIVE);
+    private static final int VALUES_PER_LINE = 3;
+    private static final int VALUE_WIDTH = 25;
+
+    static SparseStore<Double> read(final InputStream input) throws IOException {
+
+        final LineInput tmpLines = new LineInput(input);
+        final ByteLine tmpLine = new ByteLine();
+
+        HarwellBoeing.next(tmpLines, tmpLine); // Title and key
+
+        final int tmpCards = HarwellBoeing.next(tmpLines, tmpLine).tokenize().countFields();
+        if (tmpCards < 4) {
+            throw new IOException("Not a Harwell-Boeing file!");
+        }
+        final long tmpValueCards = tmpLine.longValue(3);
+        final long tmpRightHandSideCards = tmpCards > 4 ? tmpLine.longValue(4) : 0L;
+
+        HarwellBoeing.next(tmpLines, tmpLine);
+        if (tmpLine.length() < 3) {
+            throw new IOException("Not a Harwell-Boeing file!");
+        }
+        final String tmpType = new String(tmpLine.array(), tmpLine.start(), 3, StandardCharsets.US_ASCII).toUpperCase(Locale.ENGLISH);
+        tmpLine.reset(tmpLine.array(), tmpLine.start() + 3, tmpLine.end()).tokenize();
+        if (tmpLine.countFields() < 3) {
+            throw new IOException("Not a Harwell-Boeing file!");
+        }
+        final int tmpRows = tmpLine.intValue(0);
+        final int tmpColumns = tmpLine.intValue(1);
+        final int tmpEntries = tmpLine.intValue(2);
+
+        final boolean tmpPattern;
+        switch (tmpType.charAt(0)) {
+        case 'R':
+        case 'I':
+            tmpPattern = tmpValueCards == 0L;
+            break;
+        case 'P':
+        case 'Q':
+            tmpPattern = true;
+            break;
+        default:
+            throw new IOException("Unsupported Harwell-Boeing type: " + tmpType);
+        }
+
+        final int tmpSymmetry;
+        switch (tmpType.charAt(1)) {
+        case 'U':
+        case 'R':
+            tmpSymmetry = 0;
+            break;
+        case 'S':
+            tmpSymmetry = 1;
+            break;
+        case 'Z':
+            tmpSymmetry = -1;
+            break;
+        default:
+            throw new IOException("Unsupported Harwell-Boeing type: " + tmpType);
+        }
+
+        if (tmpType.charAt(2) != 'A') {
+            throw new IOException("Unsupported Harwell-Boeing type: " + tmpType);
+        }
+
+        HarwellBoeing.next(tmpLines, tmpLine).tokenize();
+        if (tmpLine.countFields() < (tmpPattern ? 2 : 3)) {
+            throw new IOException("Missing Fortran formats!");
+        }
+        final int tmpPointerWidth = HarwellBoeing.width(tmpLine.toString(0));
+        final int tmpIndexWidth = HarwellBoeing.width(tmpLine.toString(1));
+        final int tmpValueWidth = tmpPattern ? 0 : HarwellBoeing.width(tmpLine.toString(2));
+
+        if (tmpRightHandSideCards > 0L) {
+            HarwellBoeing.next(tmpLines, tmpLine);
+        }
+
+        final int[] tmpPointers = new int[tmpColumns + 1];
+        final int[] tmpIndices = new int[tmpEntries];
+
+        for (int p = 0; p < tmpPointers.length;) {
+            HarwellBoeing.next(tmpLines, tmpLine).split(tmpPointerWidth);
+            for (int f = 0; (f < tmpLine.countFields()) && (p < tmpPointers.length); f++) {
+                if (!tmpLine.isEmpty(f)) {
+                    tmpPointers[p++] = tmpLine.intValue(f) - 1;
+                }
+            }
+        }
+
+        for (int i = 0; i < tmpIndices.length;) {
+            HarwellBoeing.next(tmpLines, tmpLine).split(tmpIndexWidth);
+            for (int f = 0; (f < tmpLine.countFields()) && (i < tmpIndices.length); f++) {
+                if (!tmpLine.isEmpty(f)) {
+                    tmpIndices[i++] = tmpLine.intValue(f) - 1;
+                }
+            }
+        }
+
+        final SparseStore.Assembler tmpAssembler = new SparseStore.Assembler(tmpRows, tmpColumns);
+
+        int tmpEntry = 0;
+        int tmpColumn = 0;
+
+        while (tmpEntry < tmpEntries) {
+
+            int tmpCount = 1;
+            if (!tmpPattern) {
+                HarwellBoeing.next(tmpLines, tmpLine).split(tmpValueWidth);
+                tmpCount = tmpLine.countFields();
+            }
+
+            for (int f = 0; (f < tmpCount) && (tmpEntry < tmpEntries); f++) {
+
+                if (!tmpPattern && tmpLine.isEmpty(f)) {
+                    continue;
+                }
+
+                while (tmpEntry >= tmpPointers[tmpColumn + 1]) {
+                    tmpColumn++;
+                }
+
+                final int tmpRow = tmpIndices[tmpEntry++];
+                final double tmpValue = tmpPattern ? 1.0 : tmpLine.doubleValue(f);
+
+                tmpAssembler.add(tmpRow, tmpColumn, tmpValue);
+                if ((tmpSymmetry != 0) && (tmpRow != tmpColumn)) {
+                    tmpAssembler.add(tmpColumn, tmpRow, tmpSymmetry * tmpValue);
+                }
+            }
+        }
+
+        return tmpAssembler.build();
+    }
+
+    /**
+     * Always real, unsymmetric (or rectangular) and assembled – "RUA". Only the nonzero elements are written.
+     */
+    static void write(final Access2D<?> matrix, final Appendable out) throws IOException {
+
+        final int tmpRows = Math.toIntExact(matrix.countRows());
+        final int tmpColumns = Math.toIntExact(matrix.countColumns());
+
+        final SparseStore<?> tmpSparse = MatrixFileFormat.sparse(matrix);
+
+        final int[] tmpPointers = new int[tmpColumns + 1];
+        for (final ElementView2D<?, ?> tmpNonzero : tmpSparse.nonzeros()) {
+            tmpPointers[(int) tmpNonzero.column() + 1]++;
+        }
+        for (int j = 0; j < tmpColumns; j++) {
+            tmpPointers[j + 1] += tmpPointers[j];
+        }
+        final int tmpEntries = tmpPointers[tmpColumns];
+
+        final int tmpIntegerWidth = Integer.toString(Math.max(tmpEntries + 1, tmpRows)).length() + 1;
+        final int tmpIntegersPerLine = 80 / tmpIntegerWidth;
+        final String tmpIntegerFormat = "(" + tmpIntegersPerLine + "I" + tmpIntegerWidth + ")";
+
+        final int tmpPointerCards = HarwellBoeing.cards(tmpColumns + 1, tmpIntegersPerLine);
+        final int tmpIndexCards = HarwellBoeing.cards(tmpEntries, tmpIntegersPerLine);
+        final int tmpValueCards = HarwellBoeing.cards(tmpEntries, VALUES_PER_LINE);
+
+        out.append(HarwellBoeing.left("Written by ojAlgo", 72)).append(HarwellBoeing.left("ojAlgo", 8)).append('\n');
+        out.append(HarwellBoeing.right(tmpPointerCards + tmpIndexCards + tmpValueCards, 14)).append(HarwellBoeing.right(tmpPointerCards, 14));
+        out.append(HarwellBoeing.right(tmpIndexCards, 14)).append(HarwellBoeing.right(tmpValueCards, 14)).append(HarwellBoeing.right(0, 14)).append('\n');
+        out.append(HarwellBoeing.left(tmpRows == tmpColumns ? "RUA" : "RRA", 14)).append(HarwellBoeing.right(tmpRows, 14));
+        out.append(HarwellBoeing.right(tmpColumns, 14)).append(HarwellBoeing.right(tmpEntries, 14)).append(HarwellBoeing.right(0, 14)).append('\n');
+        out.append(HarwellBoeing.left(tmpIntegerFormat, 16)).append(HarwellBoeing.left(tmpIntegerFormat, 16));
+        out.append(HarwellBoeing.left("(" + VALUES_PER_LINE + "E" + VALUE_WIDTH + ".16)", 20)).append('\n');
+
+        for (int p = 0; p <= tmpColumns; p++) {
+            out.append(HarwellBoeing.right(tmpPointers[p] + 1, tmpIntegerWidth));
+            if ((((p + 1) % tmpIntegersPerLine) == 0) || (p == tmpColumns)) {
+                out.append('\n');
+            }
+        }
+
+        int tmpCount = 0;
+        for (final ElementView2D<?, ?> tmpNonzero : tmpSparse.nonzeros()) {
+            out.append(HarwellBoeing.right(tmpNonzero.row() + 1L, tmpIntegerWidth));
+            if (((++tmpCount % tmpIntegersPerLine) == 0) || (tmpCount == tmpEntries)) {
+                out.append('\n');
+            }
+        }
+
+        tmpCount = 0;
+        for (final ElementView2D<?, ?> tmpNonzero : tmpSparse.nonzeros()) {
+            out.append(HarwellBoeing.right(Double.toString(tmpNonzero.doubleValue()), VALUE_WIDTH));
+            if (((++tmpCount % VALUES_PER_LINE) == 0) || (tmpCount == tmpEntries)) {
+                out.append('\n');
+            }
+        }
+    }
+
+    private static int cards(final int count, final int perLine) {
+        return (count + perLine - 1) / perLine;
+    }
+
+    private static String left(final String value, final int width) {
+        final StringBuilder retVal = new StringBuilder(width).append(value);
+        while (retVal.length() < width) {
+            retVal.append(' ');
+        }
+        return retVal.toString();
+    }
+
+    private static ByteLine next(final LineInput lines, final ByteLine line) throws IOException {
+        if (!lines.next(line)) {
+            throw new IOException("Unexpected end of Harwell-Boeing file!");
+        }
+        return line;
+    }
+
+    private static String right(final long value, final int width) {
+        return HarwellBoeing.right(Long.toString(value), width);
+    }
+
+    private static String right(final String value, final int width) {
+        final StringBuilder retVal = new StringBuilder(width);
+        for (int i = value.length(); i < width; i++) {
+            retVal.append(' ');
+        }
+        return retVal.append(value).toString();
+    }
+
+    private static int width(final String format) throws IOException {
+        final Matcher tmpMatcher = FORMAT.matcher(format);
+        if (!tmpMatcher.find()) {
+            throw new IOException("Unsupported Fortran format: " + format);
+        }
+        return Integer.parseInt(tmpMatcher.group(3));
+    }
+
+    private HarwellBoeing() {
+        super();
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+
+/**
+ * Sequential line reading, directly from the bytes, for files with headers (that need to be read before the
+ * rest can be parsed, possibly in parallel).
+ *
+ * @author apete
+ */
+final class LineInput {
+
+    private byte[] myBuffer = new byte[1 << 16];
+    private int myFirst = 0;
+    private final InputStream myInput;
+    private int myLimit = 0;
+    private long myPosition = 0L;
+
+    LineInput(final InputStream input) {
+
+        super();
+
+        myInput = input;
+    }
+
+    /**
+     * @param line Reset to the next line – valid until the next call
+     * @return false if there are no more lines
+     */
+    boolean next(final ByteLine line) throws IOException {
+
+        int tmpEnd = myFirst;
+
+        for (;;) {
+
+            while ((tmpEnd < myLimit) && (myBuffer[tmpEnd] != '\n')) {
+                tmpEnd++;
+            }
+
+            if (tmpEnd < myLimit) {
+                line.reset(myBuffer, myFirst, tmpEnd);
+                myPosition += (tmpEnd + 1) - myFirst;
+                myFirst = tmpEnd + 1;
+                return true;
+            }
+
+            if (myFirst > 0) {
+                System.arraycopy(myBuffer, myFirst, myBuffer, 0, myLimit - myFirst);
+                tmpEnd -= myFirst;
+                myLimit -= myFirst;
+                myFirst = 0;
+            }
+            if (myLimit == myBuffer.length) {
+                myBuffer = Arrays.copyOf(myBuffer, 2 * myBuffer.length);
+            }
+
+            final int tmpRead = myInput.read(myBuffer, myLimit, myBuffer.length - myLimit);
+
+            if (tmpRead > 0) {
+                myLimit += tmpRead;
+            } else if (tmpRead < 0) {
+                if (myLimit > myFirst) {
+                    // Last line, not terminated
+                    line.reset(myBuffer, myFirst, myLimit);
+                    myPosition += myLimit - myFirst;
+                    myFirst = myLimit;
+                    return true;
+                } else {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of bytes consumed – the offset of the next line
+     */
+    long position() {
+        return myPosition;
+    }
+
+    /**
+     * @return What's not yet been read – the input is not to be read by this instance any more
+     */
+    InputStream remaining() {
+        return new SequenceInputStream(new ByteArrayInputStream(myBuffer, myFirst, myLimit - myFirst), myInput);
+    }
+
+}
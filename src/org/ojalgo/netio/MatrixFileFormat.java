@@ -0,0 +1,150 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import org.ojalgo.access.Access2D;
+import org.ojalgo.matrix.store.SparseStore;
+
+/**
+ * Readers and writers of the standard sparse matrix exchange formats – those of the Matrix Market and of the
+ * SuiteSparse (University of Florida) collection. The readers work directly with the bytes of the input, and
+ * collect the elements in (primitive) triplet {@link SparseStore.Assembler}s, building the
+ * {@link SparseStore} in one go at the end. ".gz" files are decompressed on the fly.
+ *
+ * @author apete
+ */
+public enum MatrixFileFormat {
+
+    /**
+     * Harwell-Boeing, and Rutherford-Boeing, compressed column format. Reading is sequential.
+     */
+    HARWELL_BOEING(),
+
+    /**
+     * Matrix Market coordinate and array formats. Coordinate entries are parsed in parallel, as many threads
+     * as the current {@link org.ojalgo.concurrent.ParallelScope} allows, the file is memory mapped if not
+     * compressed.
+     */
+    MATRIX_MARKET();
+
+    static boolean isCompressed(final File file) {
+        return file.getName().endsWith(".gz");
+    }
+
+    static InputStream open(final File file) throws IOException {
+        if (MatrixFileFormat.isCompressed(file)) {
+            return new GZIPInputStream(new FileInputStream(file), 1 << 16);
+        } else {
+            return new FileInputStream(file);
+        }
+    }
+
+    static SparseStore<?> sparse(final Access2D<?> matrix) {
+
+        if (matrix instanceof SparseStore<?>) {
+            return (SparseStore<?>) matrix;
+        }
+
+        final int tmpRows = Math.toIntExact(matrix.countRows());
+        final int tmpColumns = Math.toIntExact(matrix.countColumns());
+
+        final SparseStore<Double> retVal = SparseStore.makePrimitive(tmpRows, tmpColumns);
+        for (int j = 0; j < tmpColumns; j++) {
+            for (int i = 0; i < tmpRows; i++) {
+                final double tmpValue = matrix.doubleValue(i, j);
+                if (tmpValue != 0.0) {
+                    retVal.set(i, j, tmpValue);
+                }
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * @param file The file to read
+     * @return A new (primitive) sparse store
+     * @throws IOException If the file can't be read, or its contents can't be parsed
+     */
+    public SparseStore<Double> read(final File file) throws IOException {
+        switch (this) {
+        case HARWELL_BOEING:
+            try (InputStream tmpInput = MatrixFileFormat.open(file)) {
+                return HarwellBoeing.read(tmpInput);
+            }
+        default:
+            return MatrixMarket.read(file);
+        }
+    }
+
+    /**
+     * @param input The stream to read from; not closed by this method
+     * @return A new (primitive) sparse store
+     * @throws IOException If the stream can't be read, or its contents can't be parsed
+     */
+    public SparseStore<Double> read(final InputStream input) throws IOException {
+        switch (this) {
+        case HARWELL_BOEING:
+            return HarwellBoeing.read(input);
+        default:
+            return MatrixMarket.read(input);
+        }
+    }
+
+    /**
+     * @param matrix The matrix to write
+     * @param file The file to (over)write
+     */
+    public void write(final Access2D<?> matrix, final File file) throws IOException {
+        try (Writer tmpWriter = Files.newBufferedWriter(file.toPath(), StandardCharsets.US_ASCII)) {
+            this.write(matrix, tmpWriter);
+        }
+    }
+
+    /**
+     * Harwell-Boeing files are always "RUA" (or "RRA" if not square), with only the nonzero elements. Matrix
+     * Market files are "real general", in coordinate format if the matrix is a {@link SparseStore}, and array
+     * format otherwise. Preferably pass a buffered {@link Appendable}, output is appended field by field.
+     *
+     * @param matrix The matrix to write
+     * @param out Where to write
+     */
+    public void write(final Access2D<?> matrix, final Appendable out) throws IOException {
+        switch (this) {
+        case HARWELL_BOEING:
+            HarwellBoeing.write(matrix, out);
+            break;
+        default:
+            MatrixMarket.write(matrix, out);
+            break;
+        }
+    }
+
+}
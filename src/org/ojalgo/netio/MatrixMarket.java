@@ -0,0 +1,319 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.access.Access2D;
+import org.ojalgo.access.ElementView2D;
+import org.ojalgo.matrix.store.SparseStore;
+
+/**
+ * The Matrix Market exchange formats: "coordinate" and "array", with "real", "double", "integer" or
+ * "pattern" elements, and "general", "symmetric" or "skew-symmetric" symmetry. Complex (and Hermitian)
+ * matrices are not supported. Coordinate entries, the bulk of any large file, are parsed in parallel.
+ *
+ * @author apete
+ */
+final class MatrixMarket implements BasicParser<Object> {
+
+    private static final String BANNER = "%%MatrixMarket";
+
+    static SparseStore<Double> read(final File file) throws IOException {
+        try (InputStream tmpInput = MatrixFileFormat.open(file)) {
+
+            final LineInput tmpLines = new LineInput(tmpInput);
+            final MatrixMarket tmpParser = MatrixMarket.header(tmpLines);
+
+            if (!tmpParser.isCoordinate()) {
+                return tmpParser.array(tmpLines);
+            } else if (MatrixFileFormat.isCompressed(file)) {
+                ChunkedParsing.parse(tmpParser, tmpLines.remaining(), tmpParser::consume, false);
+            } else {
+                ChunkedParsing.parse(tmpParser, file, tmpLines.position(), tmpParser::consume, false);
+            }
+
+            return tmpParser.build();
+        }
+    }
+
+    static SparseStore<Double> read(final InputStream input) throws IOException {
+
+        final LineInput tmpLines = new LineInput(input);
+        final MatrixMarket tmpParser = MatrixMarket.header(tmpLines);
+
+        if (!tmpParser.isCoordinate()) {
+            return tmpParser.array(tmpLines);
+        } else {
+            ChunkedParsing.parse(tmpParser, tmpLines.remaining(), tmpParser::consume, false);
+            return tmpParser.build();
+        }
+    }
+
+    /**
+     * A {@link SparseStore} is written in coordinate format (its nonzero elements), anything else in array
+     * format. Always "real general".
+     */
+    static void write(final Access2D<?> matrix, final Appendable out) throws IOException {
+
+        final long tmpRows = matrix.countRows();
+        final long tmpColumns = matrix.countColumns();
+
+        if (matrix instanceof SparseStore<?>) {
+
+            final SparseStore<?> tmpSparse = (SparseStore<?>) matrix;
+
+            long tmpEntries = 0L;
+            for (final ElementView2D<?, ?> tmpNonzero : tmpSparse.nonzeros()) {
+                tmpEntries++;
+            }
+
+            out.append(BANNER).append(" matrix coordinate real general\n");
+            out.append(Long.toString(tmpRows)).append(' ').append(Long.toString(tmpColumns)).append(' ').append(Long.toString(tmpEntries)).append('\n');
+
+            for (final ElementView2D<?, ?> tmpNonzero : tmpSparse.nonzeros()) {
+                out.append(Long.toString(tmpNonzero.row() + 1L)).append(' ').append(Long.toString(tmpNonzero.column() + 1L)).append(' ');
+                out.append(Double.toString(tmpNonzero.doubleValue())).append('\n');
+            }
+
+        } else {
+
+            out.append(BANNER).append(" matrix array real general\n");
+            out.append(Long.toString(tmpRows)).append(' ').append(Long.toString(tmpColumns)).append('\n');
+
+            for (long j = 0L; j < tmpColumns; j++) {
+                for (long i = 0L; i < tmpRows; i++) {
+                    out.append(Double.toString(matrix.doubleValue(i, j))).append('\n');
+                }
+            }
+        }
+    }
+
+    private static MatrixMarket header(final LineInput lines) throws IOException {
+
+        final ByteLine tmpLine = new ByteLine();
+
+        if (!lines.next(tmpLine) || !tmpLine.toString().startsWith(BANNER)) {
+            throw new IOException("Not a Matrix Market file!");
+        }
+
+        final String[] tmpBanner = tmpLine.toString().trim().toLowerCase().split("\\s+");
+        if ((tmpBanner.length != 5) || !"matrix".equals(tmpBanner[1])) {
+            throw new IOException("Unsupported Matrix Market header: " + tmpLine);
+        }
+
+        final boolean tmpCoordinate;
+        switch (tmpBanner[2]) {
+        case "coordinate":
+            tmpCoordinate = true;
+            break;
+        case "array":
+            tmpCoordinate = false;
+            break;
+        default:
+            throw new IOException("Unsupported Matrix Market format: " + tmpBanner[2]);
+        }
+
+        final boolean tmpPattern;
+        switch (tmpBanner[3]) {
+        case "real":
+        case "double":
+        case "integer":
+            tmpPattern = false;
+            break;
+        case "pattern":
+            tmpPattern = true;
+            break;
+        default:
+            throw new IOException("Unsupported Matrix Market field: " + tmpBanner[3]);
+        }
+
+        final int tmpSymmetry;
+        switch (tmpBanner[4]) {
+        case "general":
+            tmpSymmetry = 0;
+            break;
+        case "symmetric":
+            tmpSymmetry = 1;
+            break;
+        case "skew-symmetric":
+            tmpSymmetry = -1;
+            break;
+        default:
+            throw new IOException("Unsupported Matrix Market symmetry: " + tmpBanner[4]);
+        }
+
+        if (tmpPattern && !tmpCoordinate) {
+            throw new IOException("Pattern matrices must be in coordinate format!");
+        }
+
+        while (lines.next(tmpLine)) {
+            if ((tmpLine.length() > 0) && (tmpLine.byteAt(0) == '%')) {
+                continue;
+            }
+            tmpLine.tokenize();
+            if (tmpLine.countFields() == 0) {
+                continue;
+            }
+            if (tmpLine.countFields() != (tmpCoordinate ? 3 : 2)) {
+                throw new IOException("Not a size line: " + tmpLine);
+            }
+            final long tmpEntries = tmpCoordinate ? tmpLine.longValue(2) : -1L;
+            return new MatrixMarket(tmpLine.intValue(0), tmpLine.intValue(1), tmpEntries, tmpCoordinate, tmpPattern, tmpSymmetry);
+        }
+
+        throw new IOException("No size line!");
+    }
+
+    private final List<SparseStore.Assembler> myAssemblers = new ArrayList<>();
+    private final int myColumns;
+    private final boolean myCoordinate;
+    private final long myEntries;
+    private final LongAdder myFound = new LongAdder();
+    private final ThreadLocal<SparseStore.Assembler> myLocal;
+    private final boolean myPattern;
+    private final int myRows;
+    /**
+     * 1 for symmetric, -1 for skew-symmetric, and 0 for general
+     */
+    private final int mySymmetry;
+
+    private MatrixMarket(final int rows, final int columns, final long entries, final boolean coordinate, final boolean pattern, final int symmetry) {
+
+        super();
+
+        myRows = rows;
+        myColumns = columns;
+        myEntries = entries;
+        myCoordinate = coordinate;
+        myPattern = pattern;
+        mySymmetry = symmetry;
+
+        myLocal = ThreadLocal.withInitial(() -> {
+            final SparseStore.Assembler retVal = new SparseStore.Assembler(myRows, myColumns);
+            synchronized (myAssemblers) {
+                myAssemblers.add(retVal);
+            }
+            return retVal;
+        });
+    }
+
+    /**
+     * Coordinate entries are collected by thread local assemblers, nothing is returned
+     */
+    public Object parse(final ByteLine line) {
+
+        if ((line.length() == 0) || (line.byteAt(0) == '%') || (line.tokenize().countFields() == 0)) {
+            return null;
+        }
+
+        if (line.countFields() < (myPattern ? 2 : 3)) {
+            throw new IllegalArgumentException("Not a Matrix Market entry: " + line);
+        }
+
+        this.add(myLocal.get(), line.intValue(0) - 1, line.intValue(1) - 1, myPattern ? 1.0 : line.doubleValue(2));
+        myFound.increment();
+
+        return null;
+    }
+
+    public Object parse(final String line) throws RecoverableCondition {
+        final byte[] tmpBytes = line.getBytes(StandardCharsets.US_ASCII);
+        return this.parse(new ByteLine().reset(tmpBytes, 0, tmpBytes.length));
+    }
+
+    private void add(final SparseStore.Assembler assembler, final int row, final int col, final double value) {
+        assembler.add(row, col, value);
+        if ((mySymmetry != 0) && (row != col)) {
+            assembler.add(col, row, mySymmetry * value);
+        }
+    }
+
+    /**
+     * Array format entries are listed column by column, and only the lower triangle (including the diagonal
+     * if symmetric) for symmetric matrices. They're read sequentially.
+     */
+    private SparseStore<Double> array(final LineInput lines) throws IOException {
+
+        final SparseStore.Assembler tmpAssembler = new SparseStore.Assembler(myRows, myColumns);
+        final ByteLine tmpLine = new ByteLine();
+
+        int tmpRow = mySymmetry < 0 ? 1 : 0;
+        int tmpColumn = 0;
+
+        while ((tmpColumn < myColumns) && lines.next(tmpLine)) {
+
+            if ((tmpLine.length() > 0) && (tmpLine.byteAt(0) == '%')) {
+                continue;
+            }
+
+            for (int f = 0, tmpFields = tmpLine.tokenize().countFields(); f < tmpFields; f++) {
+
+                if (tmpColumn >= myColumns) {
+                    throw new IOException("Too many entries!");
+                }
+
+                this.add(tmpAssembler, tmpRow, tmpColumn, tmpLine.doubleValue(f));
+
+                if (++tmpRow >= myRows) {
+                    tmpColumn++;
+                    tmpRow = mySymmetry == 0 ? 0 : (mySymmetry > 0 ? tmpColumn : tmpColumn + 1);
+                }
+            }
+        }
+
+        if ((tmpColumn < myColumns) && !((mySymmetry < 0) && (tmpColumn == (myColumns - 1)))) {
+            throw new IOException("Too few entries!");
+        }
+
+        return tmpAssembler.build();
+    }
+
+    private SparseStore<Double> build() throws IOException {
+
+        if (myFound.sum() != myEntries) {
+            throw new IOException("Expected " + myEntries + " entries, found " + myFound.sum() + "!");
+        }
+
+        final SparseStore.Assembler retVal = new SparseStore.Assembler(myRows, myColumns);
+        for (final SparseStore.Assembler tmpAssembler : myAssemblers) {
+            retVal.addAll(tmpAssembler);
+        }
+        return retVal.build();
+    }
+
+    private void consume(final Object item) {
+        // Nothing to do, the parser collects everything
+    }
+
+    private boolean isCoordinate() {
+        return myCoordinate;
+    }
+
+}
@@ -0,0 +1,703 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.ojalgo.access.IntIndex;
+import org.ojalgo.optimisation.MathProgSysModel.RowType;
+
+/**
+ * The CPLEX LP file format – linear (and mixed integer) models only.
+ *
+ * <pre>
+ * \ comment
+ * Maximize
+ *  obj: 3 x + 2 y
+ * Subject To
+ *  c1: x + y &lt;= 4
+ *  c2: 1 &lt;= x - y &lt;= 3
+ * Bounds
+ *  x &lt;= 3
+ *  y free
+ * General
+ *  x
+ * End
+ * </pre>
+ *
+ * Values with a magnitude of 1e30 or more are treated as infinite. Constant terms in the objective are
+ * ignored.
+ *
+ * @author apete
+ */
+final class CplexLpFormat {
+
+    private static enum Section {
+        BINARY, BOUNDS, CONSTRAINTS, GENERAL, OBJECTIVE;
+    }
+
+    static final double INFINITY = 1E30;
+
+    private static final int COLON = 1;
+    private static final int EQ = 2;
+    private static final int GE = 3;
+    private static final int LE = 4;
+    private static final int MINUS = 5;
+    private static final int NAME = 6;
+    private static final int NONE = 0;
+    private static final int NUMBER = 7;
+    private static final int PLUS = 8;
+    private static final int TERMS_PER_LINE = 8;
+
+    static void parse(final ModelFileTokenizer tokenizer, final SparseModelData data) throws IOException {
+        new CplexLpFormat(tokenizer, data).parse();
+    }
+
+    static void write(final ExpressionsBasedModel model, final String name, final Appendable out) throws IOException {
+
+        final List<Variable> tmpVariables = model.getVariables();
+
+        final Expression tmpObjective = model.objective();
+        if (tmpObjective.isAnyQuadraticFactorNonZero()) {
+            throw new IllegalArgumentException("The LP file format writer only supports linear models!");
+        }
+
+        final List<Expression> tmpConstraints = model.constraints().sorted().collect(Collectors.toList());
+        for (final Expression tmpConstraint : tmpConstraints) {
+            if (tmpConstraint.isAnyQuadraticFactorNonZero()) {
+                throw new IllegalArgumentException("The LP file format writer only supports linear models!");
+            }
+        }
+
+        if (name != null) {
+            out.append("\\ ").append(name).append('\n');
+        }
+
+        String tmpObjectiveName = "obj";
+        while (model.getExpression(tmpObjectiveName) != null) {
+            tmpObjectiveName = tmpObjectiveName + "_";
+        }
+
+        out.append(model.isMaximisation() ? "Maximize" : "Minimize").append('\n');
+        out.append(' ').append(tmpObjectiveName).append(':');
+        // All variables, to make sure they're declared, and in the original order
+        CplexLpFormat.appendTerms(tmpObjective, tmpVariables, true, out);
+        out.append('\n');
+
+        out.append("Subject To").append('\n');
+        for (final Expression tmpConstraint : tmpConstraints) {
+
+            out.append(' ').append(tmpConstraint.getName()).append(':');
+
+            final BigDecimal tmpLower = tmpConstraint.getLowerLimit();
+            final BigDecimal tmpUpper = tmpConstraint.getUpperLimit();
+
+            if ((tmpLower != null) && (tmpUpper != null) && (tmpLower.compareTo(tmpUpper) != 0)) {
+                out.append(' ').append(SparseModelData.toString(tmpLower)).append(" <=");
+            }
+
+            if (!tmpConstraint.isAnyLinearFactorNonZero() && (tmpVariables.size() > 0)) {
+                out.append(" 0 ").append(tmpVariables.get(0).getName());
+            } else {
+                CplexLpFormat.appendTerms(tmpConstraint, tmpVariables, false, out);
+            }
+
+            if ((tmpLower != null) && (tmpUpper != null)) {
+                if (tmpLower.compareTo(tmpUpper) == 0) {
+                    out.append(" = ").append(SparseModelData.toString(tmpUpper));
+                } else {
+                    out.append(" <= ").append(SparseModelData.toString(tmpUpper));
+                }
+            } else if (tmpUpper != null) {
+                out.append(" <= ").append(SparseModelData.toString(tmpUpper));
+            } else {
+                out.append(" >= ").append(SparseModelData.toString(tmpLower));
+            }
+
+            out.append('\n');
+        }
+
+        out.append("Bounds").append('\n');
+        for (final Variable tmpVariable : tmpVariables) {
+
+            final BigDecimal tmpLower = tmpVariable.getLowerLimit();
+            final BigDecimal tmpUpper = tmpVariable.getUpperLimit();
+            final String tmpName = tmpVariable.getName();
+
+            if (tmpVariable.isBinary()) {
+                // Declared in the Binaries section
+            } else if ((tmpLower != null) && (tmpUpper != null) && (tmpLower.compareTo(tmpUpper) == 0)) {
+                out.append(' ').append(tmpName).append(" = ").append(SparseModelData.toString(tmpUpper)).append('\n');
+            } else if ((tmpLower == null) && (tmpUpper == null)) {
+                out.append(' ').append(tmpName).append(" free").append('\n');
+            } else if (tmpLower == null) {
+                out.append(" -inf <= ").append(tmpName).append(" <= ").append(SparseModelData.toString(tmpUpper)).append('\n');
+            } else if (tmpUpper != null) {
+                out.append(' ').append(SparseModelData.toString(tmpLower)).append(" <= ").append(tmpName).append(" <= ").append(SparseModelData.toString(tmpUpper))
+                        .append('\n');
+            } else if (tmpLower.signum() != 0) {
+                out.append(' ').append(tmpName).append(" >= ").append(SparseModelData.toString(tmpLower)).append('\n');
+            }
+        }
+
+        CplexLpFormat.appendNames("General", tmpVariables.stream().filter(v -> v.isInteger() && !v.isBinary()).collect(Collectors.toList()), out);
+        CplexLpFormat.appendNames("Binary", tmpVariables.stream().filter(Variable::isBinary).collect(Collectors.toList()), out);
+
+        out.append("End").append('\n');
+    }
+
+    private static void appendNames(final String section, final List<Variable> variables, final Appendable out) throws IOException {
+        if (variables.size() > 0) {
+            out.append(section).append('\n');
+            for (int i = 0; i < variables.size(); i++) {
+                out.append(((i % TERMS_PER_LINE) == 0) ? (i == 0 ? " " : "\n ") : " ").append(variables.get(i).getName());
+            }
+            out.append('\n');
+        }
+    }
+
+    /**
+     * @param all true if all variables should be included (in order) – also those with a zero factor
+     */
+    private static void appendTerms(final Expression expression, final List<Variable> variables, final boolean all, final Appendable out)
+            throws IOException {
+
+        final int[] tmpIndices = all ? IntStream.range(0, variables.size()).toArray()
+                : expression.getLinearKeySet().stream().mapToInt(k -> k.index).sorted().toArray();
+
+        for (int t = 0; t < tmpIndices.length; t++) {
+
+            if ((t > 0) && ((t % TERMS_PER_LINE) == 0)) {
+                out.append('\n').append(' ');
+            }
+
+            final BigDecimal tmpValue = expression.get(new IntIndex(tmpIndices[t]));
+            if (tmpValue.signum() < 0) {
+                out.append(" - ");
+            } else {
+                out.append(t == 0 ? " " : " + ");
+            }
+            out.append(SparseModelData.toString(tmpValue.abs())).append(' ').append(variables.get(tmpIndices[t]).getName());
+        }
+    }
+
+    private int myComparator = NONE;
+    private final SparseModelData myData;
+    private int myEnd;
+    private int myKind = NONE;
+    private double myLeft = NaN;
+    private int myLeftComparator = NONE;
+    private double myNumber = NaN;
+    private double myPending = NaN;
+    private int myPosition;
+    private int myRow = -1;
+    private int myRowCount = 0;
+    private Section mySection = null;
+    private double mySign = ONE;
+    private int myStart;
+    private boolean myTerms = false;
+    private final ModelFileTokenizer myTokenizer;
+
+    private CplexLpFormat(final ModelFileTokenizer tokenizer, final SparseModelData data) {
+
+        super();
+
+        myTokenizer = tokenizer;
+        myData = data;
+    }
+
+    private void bound(final int column, final int comparator, final double value, final boolean variableOnLeft) {
+
+        int tmpComparator = comparator;
+        if (!variableOnLeft) {
+            tmpComparator = comparator == LE ? GE : (comparator == GE ? LE : comparator);
+        }
+
+        switch (tmpComparator) {
+        case LE:
+            myData.setColumnUpper(column, value);
+            break;
+        case GE:
+            myData.setColumnLower(column, value);
+            break;
+        case EQ:
+            myData.setColumnLower(column, value);
+            myData.setColumnUpper(column, value);
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * The objective function is complete whenever a new section starts, but a constraint must have been
+     * ended by its right hand side.
+     */
+    private void checkComplete() {
+        if ((mySection == Section.CONSTRAINTS) && (myTerms || (myComparator != NONE))) {
+            throw this.error("Incomplete constraint");
+        }
+    }
+
+    private IllegalArgumentException error(final String message) {
+        return new IllegalArgumentException(message + " at line " + myTokenizer.lineNumber());
+    }
+
+    /**
+     * Ends the current (constraint) row, with this value on the right hand side.
+     */
+    private void finishRow(final double value) {
+
+        double tmpLower = NEGATIVE_INFINITY;
+        double tmpUpper = POSITIVE_INFINITY;
+
+        switch (myComparator) {
+        case LE:
+            tmpUpper = value;
+            break;
+        case GE:
+            tmpLower = value;
+            break;
+        default:
+            tmpLower = value;
+            tmpUpper = value;
+            break;
+        }
+
+        switch (myLeftComparator) {
+        case LE:
+            tmpLower = myLeft;
+            break;
+        case GE:
+            tmpUpper = myLeft;
+            break;
+        case EQ:
+            tmpLower = myLeft;
+            tmpUpper = myLeft;
+            break;
+        default:
+            break;
+        }
+
+        if (myRow < 0) {
+            this.startRow(null);
+        }
+        myData.setRowLimits(myRow, tmpLower, tmpUpper);
+
+        this.resetRow();
+    }
+
+    private int getColumn() {
+        return myData.getColumn(myTokenizer.array(), myStart, myEnd);
+    }
+
+    private boolean isInfinity() {
+        return (myKind == NAME) && (ModelFileTokenizer.equalsIgnoreCase(myTokenizer.array(), myStart, myEnd, "inf")
+                || ModelFileTokenizer.equalsIgnoreCase(myTokenizer.array(), myStart, myEnd, "infinity"));
+    }
+
+    private boolean isName(final String text) {
+        return (myKind == NAME) && ModelFileTokenizer.equalsIgnoreCase(myTokenizer.array(), myStart, myEnd, text);
+    }
+
+    /**
+     * Lexes the next token of the current line.
+     *
+     * @return false at the end of the line (or at the start of a comment)
+     */
+    private boolean next() {
+
+        final byte[] tmpArray = myTokenizer.array();
+        final int tmpLineEnd = myTokenizer.lineEnd();
+
+        while ((myPosition < tmpLineEnd) && ModelFileTokenizer.isWhitespace(tmpArray[myPosition])) {
+            myPosition++;
+        }
+
+        myStart = myPosition;
+
+        if ((myPosition >= tmpLineEnd) || (tmpArray[myPosition] == '\\')) {
+            myPosition = tmpLineEnd;
+            myKind = NONE;
+            return false;
+        }
+
+        final byte tmpFirst = tmpArray[myPosition++];
+        final byte tmpSecond = myPosition < tmpLineEnd ? tmpArray[myPosition] : 0;
+
+        switch (tmpFirst) {
+        case '<':
+            myKind = LE;
+            if (tmpSecond == '=') {
+                myPosition++;
+            }
+            break;
+        case '>':
+            myKind = GE;
+            if (tmpSecond == '=') {
+                myPosition++;
+            }
+            break;
+        case '=':
+            myKind = tmpSecond == '<' ? LE : (tmpSecond == '>' ? GE : EQ);
+            if ((tmpSecond == '<') || (tmpSecond == '>') || (tmpSecond == '=')) {
+                myPosition++;
+            }
+            break;
+        case ':':
+            myKind = COLON;
+            break;
+        case '+':
+            myKind = PLUS;
+            break;
+        case '-':
+            myKind = MINUS;
+            break;
+        case '[':
+        case ']':
+            throw this.error("Quadratic terms are not supported");
+        default:
+            if (((tmpFirst >= '0') && (tmpFirst <= '9')) || (tmpFirst == '.')) {
+                myKind = NUMBER;
+                while (myPosition < tmpLineEnd) {
+                    final byte tmpByte = tmpArray[myPosition];
+                    if (((tmpByte >= '0') && (tmpByte <= '9')) || (tmpByte == '.')) {
+                        myPosition++;
+                    } else if (((tmpByte == 'e') || (tmpByte == 'E')) && ((myPosition + 1) < tmpLineEnd)) {
+                        final byte tmpNext = tmpArray[myPosition + 1];
+                        if ((tmpNext == '+') || (tmpNext == '-') || ((tmpNext >= '0') && (tmpNext <= '9'))) {
+                            myPosition += 2;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        break;
+                    }
+                }
+                myNumber = ModelFileTokenizer.parseDouble(tmpArray, myStart, myPosition);
+            } else {
+                myKind = NAME;
+                while (myPosition < tmpLineEnd) {
+                    final byte tmpByte = tmpArray[myPosition];
+                    if (ModelFileTokenizer.isWhitespace(tmpByte) || (tmpByte == '<') || (tmpByte == '>') || (tmpByte == '=') || (tmpByte == ':')
+                            || (tmpByte == '+') || (tmpByte == '-') || (tmpByte == '[') || (tmpByte == ']') || (tmpByte == '\\')) {
+                        break;
+                    }
+                    myPosition++;
+                }
+            }
+            break;
+        }
+
+        myEnd = myPosition;
+
+        return true;
+    }
+
+    private void parse() throws IOException {
+
+        while (myTokenizer.nextLine()) {
+
+            myPosition = myTokenizer.lineStart();
+
+            if (!this.next()) {
+                continue;
+            }
+
+            if ((myKind == NAME) && this.section()) {
+                if (mySection == null) {
+                    // End
+                    break;
+                } else if (!this.next()) {
+                    continue;
+                }
+            }
+
+            if (mySection == null) {
+                throw this.error("Data before any section header");
+            }
+
+            switch (mySection) {
+            case OBJECTIVE:
+            case CONSTRAINTS:
+                do {
+                    this.parseExpression();
+                } while (this.next());
+                break;
+            case BOUNDS:
+                this.parseBound();
+                break;
+            case GENERAL:
+            case BINARY:
+                do {
+                    if (myKind == NAME) {
+                        final int tmpColumn = this.getColumn();
+                        myData.setColumnInteger(tmpColumn, true);
+                        if (mySection == Section.BINARY) {
+                            myData.setColumnLower(tmpColumn, ZERO);
+                            myData.setColumnUpper(tmpColumn, ONE);
+                        }
+                    }
+                } while (this.next());
+                break;
+            default:
+                break;
+            }
+        }
+
+        this.checkComplete();
+    }
+
+    /**
+     * One bound per line; "x free", "x &lt;= 4", "-inf &lt;= x &lt;= 4", "2 &lt;= x", "x = 3" …
+     */
+    private void parseBound() {
+
+        int tmpColumn = -1;
+        boolean tmpColumnSeen = false;
+        double tmpValue = NaN;
+        int tmpComparator = NONE;
+        double tmpSign = ONE;
+
+        do {
+            switch (myKind) {
+            case MINUS:
+                tmpSign = -tmpSign;
+                break;
+            case PLUS:
+                break;
+            case NUMBER:
+                tmpValue = CplexLpFormat.toInfinite(tmpSign * myNumber);
+                tmpSign = ONE;
+                if (tmpComparator != NONE) {
+                    this.bound(tmpColumn, tmpComparator, tmpValue, tmpColumnSeen);
+                    tmpComparator = NONE;
+                }
+                break;
+            case LE:
+            case GE:
+            case EQ:
+                tmpComparator = myKind;
+                break;
+            case NAME:
+                if (this.isInfinity()) {
+                    tmpValue = tmpSign * POSITIVE_INFINITY;
+                    tmpSign = ONE;
+                    if (tmpComparator != NONE) {
+                        this.bound(tmpColumn, tmpComparator, tmpValue, tmpColumnSeen);
+                        tmpComparator = NONE;
+                    }
+                } else if (tmpColumnSeen && this.isName("free")) {
+                    myData.setColumnLower(tmpColumn, NEGATIVE_INFINITY);
+                    myData.setColumnUpper(tmpColumn, POSITIVE_INFINITY);
+                } else {
+                    tmpColumn = this.getColumn();
+                    tmpColumnSeen = true;
+                    if (tmpComparator != NONE) {
+                        // The value came first, "2 <= x"
+                        this.bound(tmpColumn, tmpComparator, tmpValue, false);
+                        tmpComparator = NONE;
+                    }
+                }
+                break;
+            default:
+                throw this.error("Unexpected token in bound");
+            }
+        } while (this.next());
+
+        if (!tmpColumnSeen || (tmpComparator != NONE)) {
+            throw this.error("Incomplete bound");
+        }
+    }
+
+    /**
+     * Handles one token of the objective function or a constraint – they may span several lines.
+     */
+    private void parseExpression() {
+
+        switch (myKind) {
+
+        case NAME:
+
+            if ((myRow < 0) && !myTerms && Double.isNaN(myPending) && this.peekColon()) {
+                this.startRow(this.toName());
+                this.next();
+            } else if ((myComparator != NONE) && this.isInfinity()) {
+                this.finishRow(mySign * POSITIVE_INFINITY);
+            } else {
+                if (myRow < 0) {
+                    this.startRow(null);
+                }
+                final double tmpCoefficient = Double.isNaN(myPending) ? mySign : mySign * myPending;
+                myData.addEntry(myRow, this.getColumn(), tmpCoefficient);
+                myTerms = true;
+                myPending = NaN;
+                mySign = ONE;
+            }
+
+            break;
+
+        case NUMBER:
+
+            if (myComparator != NONE) {
+                this.finishRow(CplexLpFormat.toInfinite(mySign * myNumber));
+            } else {
+                myPending = myNumber;
+            }
+
+            break;
+
+        case PLUS:
+
+            break;
+
+        case MINUS:
+
+            mySign = -mySign;
+
+            break;
+
+        case LE:
+        case GE:
+        case EQ:
+
+            if (mySection == Section.OBJECTIVE) {
+                throw this.error("Comparison in the objective function");
+            }
+
+            if (!myTerms && !Double.isNaN(myPending) && (myLeftComparator == NONE)) {
+                myLeft = CplexLpFormat.toInfinite(mySign * myPending);
+                myLeftComparator = myKind;
+            } else if (myTerms) {
+                myComparator = myKind;
+            } else {
+                throw this.error("Unexpected comparison operator");
+            }
+            myPending = NaN;
+            mySign = ONE;
+
+            break;
+
+        default:
+
+            throw this.error("Unexpected token");
+        }
+    }
+
+    private boolean peekColon() {
+        final byte[] tmpArray = myTokenizer.array();
+        final int tmpLineEnd = myTokenizer.lineEnd();
+        int tmpPosition = myPosition;
+        while ((tmpPosition < tmpLineEnd) && ModelFileTokenizer.isWhitespace(tmpArray[tmpPosition])) {
+            tmpPosition++;
+        }
+        return (tmpPosition < tmpLineEnd) && (tmpArray[tmpPosition] == ':');
+    }
+
+    private void resetRow() {
+        myRow = -1;
+        myTerms = false;
+        myPending = NaN;
+        mySign = ONE;
+        myComparator = NONE;
+        myLeft = NaN;
+        myLeftComparator = NONE;
+    }
+
+    /**
+     * Checks if the current (first on the line) token is a section keyword, and if so switches section.
+     * Reaching "End" sets the section to null.
+     */
+    private boolean section() {
+
+        Section tmpSection = mySection;
+
+        if (this.isName("minimize") || this.isName("minimise") || this.isName("minimum") || this.isName("min")) {
+            myData.setMinimisation(true);
+            tmpSection = Section.OBJECTIVE;
+        } else if (this.isName("maximize") || this.isName("maximise") || this.isName("maximum") || this.isName("max")) {
+            myData.setMinimisation(false);
+            tmpSection = Section.OBJECTIVE;
+        } else if (this.isName("subject") || this.isName("such")) {
+            final int tmpPosition = myPosition;
+            if (this.next() && (this.isName("to") || this.isName("that"))) {
+                tmpSection = Section.CONSTRAINTS;
+            } else {
+                myPosition = tmpPosition;
+                return false;
+            }
+        } else if (this.isName("st") || this.isName("s.t.") || this.isName("st.")) {
+            tmpSection = Section.CONSTRAINTS;
+        } else if (this.isName("bounds") || this.isName("bound")) {
+            tmpSection = Section.BOUNDS;
+        } else if (this.isName("general") || this.isName("generals") || this.isName("gen") || this.isName("integer") || this.isName("integers")) {
+            tmpSection = Section.GENERAL;
+        } else if (this.isName("binary") || this.isName("binaries") || this.isName("bin")) {
+            tmpSection = Section.BINARY;
+        } else if (this.isName("end")) {
+            tmpSection = null;
+        } else if (this.isName("semi-continuous") || this.isName("semis") || this.isName("semi") || this.isName("sos")) {
+            throw this.error("Unsupported section");
+        } else {
+            return false;
+        }
+
+        this.checkComplete();
+        this.resetRow();
+
+        mySection = tmpSection;
+
+        return true;
+    }
+
+    private void startRow(final String name) {
+        if (mySection == Section.OBJECTIVE) {
+            myRow = myData.getRow(name != null ? name : "obj", RowType.N);
+            myData.setObjective(myRow);
+        } else {
+            myRowCount++;
+            myRow = myData.getRow(name != null ? name : "R" + myRowCount, RowType.E);
+        }
+    }
+
+    private String toName() {
+        return new String(myTokenizer.array(), myStart, myEnd - myStart, StandardCharsets.UTF_8);
+    }
+
+    private static double toInfinite(final double value) {
+        if (value >= INFINITY) {
+            return POSITIVE_INFINITY;
+        } else if (value <= -INFINITY) {
+            return NEGATIVE_INFINITY;
+        } else {
+            return value;
+        }
+    }
+
+}
@@ -21,6 +21,8 @@
  */
 package org.ojalgo.optimisation;
 
+import static org.ojalgo.constant.PrimitiveMath.*;
+
 import java.io.Serializable;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -69,6 +71,7 @@ public abstract class GenericSolver implements Optimisation.Solver, Serializable
 
     public final Optimisation.Options options;
 
+    private volatile boolean myCancelled = false;
     private final AtomicInteger myIterationsCount = new AtomicInteger(0);
     private long myResetTime;
     private State myState = State.UNEXPLORED;
@@ -92,6 +95,15 @@ public abstract class GenericSolver implements Optimisation.Solver, Serializable
 
     }
 
+    /**
+     * Cooperatively cancels the solve – the solver stops at its next iteration (limit) check and returns
+     * whatever it has at that point. Used to stop the losers when racing several solvers, see
+     * {@link SolverRace}.
+     */
+    public final void cancel() {
+        myCancelled = true;
+    }
+
     protected Optimisation.Result buildResult() {
 
         final MatrixStore<Double> tmpSolution = this.extractSolution();
@@ -110,17 +122,35 @@ public abstract class GenericSolver implements Optimisation.Solver, Serializable
     }
 
     protected final void debug(final String descripttion, final Access2D<?> matrix) {
-        if (options.debug_appender != null) {
+        if ((options.debug_appender != null) && options.debug_appender.isEnabled()) {
             options.debug_appender.printmtrx(descripttion, matrix, options.print);
         }
     }
 
     protected final void debug(final String messagePattern, final Object... arguments) {
-        if (options.debug_appender != null) {
+        if ((options.debug_appender != null) && options.debug_appender.isEnabled()) {
             options.debug_appender.println(messagePattern, arguments);
         }
     }
 
+    /**
+     * Records a telemetry event, if {@link Optimisation.Options#statistics} is set.
+     */
+    protected final void event(final SolverStatistics.Event event) {
+        if (options.statistics != null) {
+            options.statistics.event(event, NaN);
+        }
+    }
+
+    /**
+     * Records a telemetry event, if {@link Optimisation.Options#statistics} is set.
+     */
+    protected final void event(final SolverStatistics.Event event, final double value) {
+        if (options.statistics != null) {
+            options.statistics.event(event, value);
+        }
+    }
+
     protected final void error(final String messagePattern, final Object... arguments) {
         BasicLogger.error(messagePattern, arguments);
     }
@@ -141,17 +171,22 @@ public abstract class GenericSolver implements Optimisation.Solver, Serializable
      * iteration is completed.
      */
     protected final int incrementIterationsCount() {
+        this.event(SolverStatistics.Event.ITERATION);
         return myIterationsCount.incrementAndGet();
     }
 
+    protected final boolean isCancelled() {
+        return myCancelled;
+    }
+
     protected final boolean isDebug() {
-        return (options.debug_appender != null) && (options.debug_solver.isAssignableFrom(this.getClass()));
+        return (options.debug_appender != null) && options.debug_appender.isEnabled() && options.debug_solver.isAssignableFrom(this.getClass());
     }
 
     /**
      * Should be called at the start of an iteration (before it actually starts) to check if you should abort
      * instead. Will return false if either the iterations count or the execution time has reached their
-     * respective limits.
+     * respective limits, or if the solver has been cancelled.
      */
     protected final boolean isIterationAllowed() {
 
@@ -166,7 +201,7 @@ public abstract class GenericSolver implements Optimisation.Solver, Serializable
         //            this.logDebug("Time OK? {} {} < {}", tmpTimeOk, tmpTime, options.time_abort);
         //        }
 
-        return tmpTimeOk && tmpIterationOk;
+        return tmpTimeOk && tmpIterationOk && !myCancelled;
     }
 
     protected final void resetIterationsCount() {
@@ -178,4 +213,24 @@ public abstract class GenericSolver implements Optimisation.Solver, Serializable
         myState = aState;
     }
 
+    /**
+     * To be used together with {@link #time(SolverStatistics.Phase, long)}.
+     *
+     * @return A start time (nanoseconds) or 0 if no {@link Optimisation.Options#statistics} are collected
+     */
+    protected final long time() {
+        return options.statistics != null ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the time spent in a phase, if {@link Optimisation.Options#statistics} is set.
+     *
+     * @param start As returned by {@link #time()}
+     */
+    protected final void time(final SolverStatistics.Phase phase, final long start) {
+        if (options.statistics != null) {
+            options.statistics.time(phase, System.nanoTime() - start);
+        }
+    }
+
 }
@@ -21,17 +21,20 @@
  */
 package org.ojalgo.optimisation;
 
-import static org.ojalgo.constant.BigMath.*;
+import static org.ojalgo.constant.PrimitiveMath.*;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+
 
 import org.ojalgo.access.Access1D;
+import org.ojalgo.access.IntIndex;
 import org.ojalgo.type.context.NumberContext;
 
 /**
@@ -73,244 +76,362 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
 
     }
 
-    final class Column extends Object {
+    /**
+     * @author apete
+     */
+    static enum ColumnMarker {
 
-        private boolean mySemicontinuous = false;
-        private final Variable myVariable;
+        INTEND(), INTORG();
 
-        Column(final String name) {
+    }
 
-            super();
+    static enum FileSection {
 
-            myVariable = new Variable(name);
-            myDelegate.addVariable(myVariable);
+        BOUNDS(), COLUMNS(), ENDATA(), NAME(), OBJNAME(), OBJSENSE(), RANGES(), RHS(), ROWS(), SOS();
 
-            this.bound(BoundType.PL, null);
-        }
+    }
+
+    /**
+     * RowType used with the ROWS and RANGES sections.
+     *
+     * <pre>
+     * type      meaning
+     * ---------------------------
+     *  E    equality
+     *  L    less than or equal
+     *  G    greater than or equal
+     *  N    objective
+     *  N    no restriction
+     *
+     * row type       sign of r       h          u
+     * ----------------------------------------------
+     *    G            + or -         b        b + |r|
+     *    L            + or -       b - |r|      b
+     *    E              +            b        b + |r|
+     *    E              -          b - |r|      b
+     * </pre>
+     *
+     * @author apete
+     */
+    static enum RowType {
 
-        public Column bound(final BoundType type, final BigDecimal value) {
+        E(), G(), L(), N();
 
-            switch (type) {
+    }
 
-            case LO:
+    private static final BoundType[] BOUND_TYPES = BoundType.values();
+    private static final int[] FIELD_LIMITS = new int[] { 3, 12, 22, 36, 47, 61 };
+    private static final int[] FIELD_STARTS = new int[] { 1, 4, 14, 24, 39, 49 };
 
-                myVariable.lower(value);
+    /**
+     * Free format MPS – fields are separated by whitespace, and names may not contain spaces. That works
+     * for most fixed format files as well.
+     *
+     * @see #make(File, boolean)
+     */
+    public static MathProgSysModel make(final File file) {
+        return MathProgSysModel.make(file, false);
+    }
 
-                break;
+    /**
+     * @param file The MPS file
+     * @param fixed true if the file is in fixed format, and fields should be identified by their column
+     *        positions (allowing spaces in names); false for free format.
+     */
+    public static MathProgSysModel make(final File file, final boolean fixed) {
 
-            case UP:
+        final MathProgSysModel retVal = new MathProgSysModel();
 
-                myVariable.upper(value);
+        final SparseModelData tmpData = new SparseModelData();
 
-                if (!myVariable.isLowerLimitSet()) {
-                    myVariable.lower(ZERO);
-                }
+        try (ModelFileTokenizer tmpTokenizer = ModelFileTokenizer.open(file)) {
+            MathProgSysModel.parse(tmpTokenizer, tmpData, fixed);
+        } catch (final IOException anException) {
+            anException.printStackTrace();
+        }
 
-                break;
+        tmpData.build(retVal.myDelegate);
 
-            case FX:
+        retVal.myName = tmpData.getName();
+        retVal.setMinimisation(tmpData.isMinimisation());
 
-                myVariable.level(value);
+        return retVal;
+    }
 
-                break;
+    static void bound(final SparseModelData data, final int column, final BoundType type, final double value) {
 
-            case FR:
+        final boolean tmpValueSet = !Double.isNaN(value);
 
-                myVariable.level(null);
+        switch (type) {
 
-                break;
+        case LO:
 
-            case MI:
+            data.setColumnLower(column, tmpValueSet ? value : NEGATIVE_INFINITY);
 
-                myVariable.lower(null);
+            break;
 
-                if (!myVariable.isUpperLimitSet()) {
-                    myVariable.upper(ZERO);
-                }
+        case UP:
 
-                break;
+            data.setColumnUpper(column, tmpValueSet ? value : POSITIVE_INFINITY);
 
-            case PL:
+            if (Double.isInfinite(data.getColumnLower(column))) {
+                data.setColumnLower(column, ZERO);
+            }
 
-                myVariable.upper(null);
+            break;
 
-                if (!myVariable.isLowerLimitSet()) {
-                    myVariable.lower(ZERO);
-                }
+        case FX:
 
-                break;
+            data.setColumnLower(column, tmpValueSet ? value : NEGATIVE_INFINITY);
+            data.setColumnUpper(column, tmpValueSet ? value : POSITIVE_INFINITY);
 
-            case BV:
+            break;
 
-                myVariable.lower(ZERO).upper(ONE).integer(true);
+        case FR:
 
-                break;
+            data.setColumnLower(column, NEGATIVE_INFINITY);
+            data.setColumnUpper(column, POSITIVE_INFINITY);
+
+            break;
 
-            case LI:
+        case MI:
 
-                myVariable.lower(value).upper(null).integer(true);
+            data.setColumnLower(column, NEGATIVE_INFINITY);
 
-                break;
+            if (Double.isInfinite(data.getColumnUpper(column))) {
+                data.setColumnUpper(column, ZERO);
+            }
 
-            case UI:
+            break;
 
-                myVariable.upper(value).integer(true);
+        case PL:
 
-                if (!myVariable.isLowerLimitSet()) {
-                    myVariable.lower(ZERO);
-                }
+            data.setColumnUpper(column, POSITIVE_INFINITY);
 
-                break;
+            if (Double.isInfinite(data.getColumnLower(column))) {
+                data.setColumnLower(column, ZERO);
+            }
 
-            case SC:
+            break;
 
-                mySemicontinuous = true;
+        case BV:
 
-                myVariable.upper(value);
+            data.setColumnLower(column, ZERO);
+            data.setColumnUpper(column, ONE);
+            data.setColumnInteger(column, true);
 
-                if (!myVariable.isLowerLimitSet()) {
-                    myVariable.lower(ONE);
-                }
+            break;
 
-                break;
+        case LI:
 
-            default:
+            data.setColumnLower(column, tmpValueSet ? value : NEGATIVE_INFINITY);
+            data.setColumnUpper(column, POSITIVE_INFINITY);
+            data.setColumnInteger(column, true);
 
-                break;
+            break;
+
+        case UI:
+
+            data.setColumnUpper(column, tmpValueSet ? value : POSITIVE_INFINITY);
+            data.setColumnInteger(column, true);
+
+            if (Double.isInfinite(data.getColumnLower(column))) {
+                data.setColumnLower(column, ZERO);
             }
 
-            return this;
-        }
+            break;
 
-        public Column integer(final boolean flag) {
-            myVariable.setInteger(flag);
-            return this;
-        }
+        case SC:
 
-        public void setRowValue(final String rowName, final BigDecimal value) {
-            myRows.get(rowName).getExpression().set(myVariable, value);
-        }
+            data.setColumnUpper(column, tmpValueSet ? value : POSITIVE_INFINITY);
 
-        /**
-         * @return the variable
-         */
-        Variable getVariable() {
-            return myVariable;
-        }
+            if (Double.isInfinite(data.getColumnLower(column))) {
+                data.setColumnLower(column, ONE);
+            }
 
-        boolean isSemicontinuous() {
-            return mySemicontinuous;
-        }
+            break;
 
+        default:
+
+            break;
+        }
     }
 
     /**
-     * @author apete
+     * Streams through the file, one line at the time, without creating any intermediate String instances
+     * (other than for the section headers and the names of the rows and columns).
      */
-    static enum ColumnMarker {
+    static void parse(final ModelFileTokenizer tokenizer, final SparseModelData data, final boolean fixed) throws IOException {
 
-        INTEND(), INTORG();
+        final int[] tmpStarts = new int[FIELD_LIMITS.length];
+        final int[] tmpEnds = new int[FIELD_LIMITS.length];
 
-    }
+        final int[] tmpTokenStarts = new int[FIELD_LIMITS.length];
+        final int[] tmpTokenEnds = new int[FIELD_LIMITS.length];
 
-    static enum FileSection {
+        FileSection tmpSection = null;
+        boolean tmpIntegerMarker = false;
+        String tmpObjectiveName = null;
 
-        BOUNDS(), COLUMNS(), ENDATA(), NAME(), OBJNAME(), OBJSENSE(), RANGES(), RHS(), ROWS(), SOS();
+        while (tokenizer.nextLine()) {
 
-    }
+            final int tmpLineStart = tokenizer.lineStart();
 
-    final class Row extends Object {
+            if ((tmpLineStart == tokenizer.lineEnd()) || (tokenizer.array()[tmpLineStart] == '*')) {
+                // Skip this line
+                continue;
+            }
 
-        private final Expression myExpression;
+            if (!ModelFileTokenizer.isWhitespace(tokenizer.array()[tmpLineStart])) {
 
-        private final RowType myType;
+                tokenizer.nextToken();
+                tmpSection = FileSection.valueOf(tokenizer.tokenString());
 
-        Row(final String name, final RowType rowType) {
+                switch (tmpSection) {
 
-            super();
+                case NAME:
 
-            myExpression = myDelegate.addExpression(name);
+                    data.setName(tokenizer.remainder());
 
-            myType = rowType;
+                    break;
 
-            if (myType == RowType.N) {
-                myExpression.weight(ONE);
-            } else {
-                myExpression.weight(null);
+                case OBJSENSE:
+
+                    if (tokenizer.nextToken()) {
+                        data.setMinimisation(!tokenizer.tokenContains("MAX"));
+                    }
+
+                    break;
+
+                case OBJNAME:
+
+                    if (tokenizer.nextToken()) {
+                        tmpObjectiveName = tokenizer.tokenString();
+                    }
+
+                    break;
+
+                default:
+
+                    break;
+                }
+
+                if (tmpSection == FileSection.ENDATA) {
+                    break;
+                } else {
+                    continue;
+                }
             }
 
-            // 0.0 is the default RHS value
-            this.rhs(ZERO);
-        }
+            if (tmpSection == null) {
+                throw new IllegalArgumentException("Data before any section header at line " + tokenizer.lineNumber());
+            }
 
-        public Row range(final BigDecimal value) {
+            final byte[] tmpArray = tokenizer.array();
 
-            switch (myType) {
+            int tmpCount = 0;
+            while ((tmpCount < tmpTokenStarts.length) && tokenizer.nextToken()) {
+                tmpTokenStarts[tmpCount] = tokenizer.tokenStart();
+                tmpTokenEnds[tmpCount] = tokenizer.tokenEnd();
+                tmpCount++;
+            }
 
-            case E:
+            if (tmpCount == 0) {
+                continue;
+            }
 
-                final int tmpSignum = value.signum();
-                if (tmpSignum == 1) {
-                    myExpression.upper(myExpression.getLowerLimit().add(value));
-                } else if (tmpSignum == -1) {
-                    myExpression.lower(myExpression.getUpperLimit().add(value));
+            if (fixed) {
+                int tmpFirst = 0;
+                for (int f = 0; f < FIELD_LIMITS.length; f++) {
+                    tokenizer.field(tmpFirst, FIELD_LIMITS[f]);
+                    tmpStarts[f] = tokenizer.tokenStart();
+                    tmpEnds[f] = tokenizer.tokenEnd();
+                    tmpFirst = FIELD_LIMITS[f];
                 }
+            } else {
+                MathProgSysModel.mapFreeFields(data, tmpSection, tmpArray, tmpCount, tmpTokenStarts, tmpTokenEnds, tmpStarts, tmpEnds);
+            }
 
-                break;
+            switch (tmpSection) {
 
-            case L:
+            case OBJSENSE:
 
-                myExpression.lower(myExpression.getUpperLimit().subtract(value.abs()));
+                data.setMinimisation(!ModelFileTokenizer.contains(tmpArray, tmpTokenStarts[0], tmpTokenEnds[0], "MAX"));
 
                 break;
 
-            case G:
+            case OBJNAME:
 
-                myExpression.upper(myExpression.getLowerLimit().add(value.abs()));
+                tmpObjectiveName = new String(tmpArray, tmpTokenStarts[0], tmpTokenEnds[0] - tmpTokenStarts[0], StandardCharsets.UTF_8);
 
                 break;
 
-            case N:
+            case ROWS:
 
-                myExpression.level(null);
-                myExpression.weight(ONE);
+                data.getRow(tmpArray, tmpStarts[1], tmpEnds[1], MathProgSysModel.toRowType(tmpArray, tmpStarts[0], tmpEnds[0], tokenizer));
 
                 break;
 
-            default:
+            case COLUMNS:
 
-                break;
-            }
+                if (ModelFileTokenizer.contains(tmpArray, tmpStarts[2], tmpEnds[2], "MARKER")) {
 
-            return this;
-        }
+                    if (ModelFileTokenizer.contains(tmpArray, tmpStarts[3], Math.max(tmpEnds[3], tmpEnds[4]), "INTORG")) {
+                        tmpIntegerMarker = true;
+                    } else if (ModelFileTokenizer.contains(tmpArray, tmpStarts[3], Math.max(tmpEnds[3], tmpEnds[4]), "INTEND")) {
+                        tmpIntegerMarker = false;
+                    }
 
-        public Row rhs(final BigDecimal value) {
+                } else {
 
-            switch (myType) {
+                    final int tmpColumn = data.getColumn(tmpArray, tmpStarts[1], tmpEnds[1]);
 
-            case E:
+                    data.addEntry(MathProgSysModel.findRow(data, tmpArray, tmpStarts[2], tmpEnds[2], tokenizer), tmpColumn,
+                            ModelFileTokenizer.parseDouble(tmpArray, tmpStarts[3], tmpEnds[3]));
+                    if (tmpEnds[4] > tmpStarts[4]) {
+                        data.addEntry(MathProgSysModel.findRow(data, tmpArray, tmpStarts[4], tmpEnds[4], tokenizer), tmpColumn,
+                                ModelFileTokenizer.parseDouble(tmpArray, tmpStarts[5], tmpEnds[5]));
+                    }
 
-                myExpression.level(value);
+                    if (tmpIntegerMarker) {
+                        data.setColumnInteger(tmpColumn, true);
+                    }
+                }
 
                 break;
 
-            case L:
+            case RHS:
 
-                myExpression.upper(value);
+                data.setRowRHS(MathProgSysModel.findRow(data, tmpArray, tmpStarts[2], tmpEnds[2], tokenizer),
+                        ModelFileTokenizer.parseDouble(tmpArray, tmpStarts[3], tmpEnds[3]));
+                if (tmpEnds[4] > tmpStarts[4]) {
+                    data.setRowRHS(MathProgSysModel.findRow(data, tmpArray, tmpStarts[4], tmpEnds[4], tokenizer),
+                            ModelFileTokenizer.parseDouble(tmpArray, tmpStarts[5], tmpEnds[5]));
+                }
 
                 break;
 
-            case G:
+            case RANGES:
 
-                myExpression.lower(value);
+                data.setRowRange(MathProgSysModel.findRow(data, tmpArray, tmpStarts[2], tmpEnds[2], tokenizer),
+                        ModelFileTokenizer.parseDouble(tmpArray, tmpStarts[3], tmpEnds[3]));
+                if (tmpEnds[4] > tmpStarts[4]) {
+                    data.setRowRange(MathProgSysModel.findRow(data, tmpArray, tmpStarts[4], tmpEnds[4], tokenizer),
+                            ModelFileTokenizer.parseDouble(tmpArray, tmpStarts[5], tmpEnds[5]));
+                }
 
                 break;
 
-            case N:
+            case BOUNDS:
 
-                myExpression.level(null);
-                myExpression.weight(ONE);
+                final int tmpColumn = data.findColumn(tmpArray, tmpStarts[2], tmpEnds[2]);
+                if (tmpColumn < 0) {
+                    throw new IllegalArgumentException("Unknown column in BOUNDS at line " + tokenizer.lineNumber());
+                }
+
+                final double tmpValue = tmpEnds[3] > tmpStarts[3] ? ModelFileTokenizer.parseDouble(tmpArray, tmpStarts[3], tmpEnds[3]) : NaN;
+
+                MathProgSysModel.bound(data, tmpColumn, MathProgSysModel.toBoundType(tmpArray, tmpStarts[0], tmpEnds[0], tokenizer), tmpValue);
 
                 break;
 
@@ -318,110 +439,315 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
 
                 break;
             }
+        }
+
+        if (tmpObjectiveName != null) {
+            final int tmpObjective = data.getRow(tmpObjectiveName, RowType.N);
+            data.setObjective(tmpObjective);
+        }
+    }
+
+    /**
+     * Writes the model in (free format compatible) fixed format MPS. Fields are positioned in the fixed
+     * format columns whenever the names and numbers fit.
+     *
+     * @throws IllegalArgumentException If the model is not linear
+     */
+    static void write(final ExpressionsBasedModel model, final String name, final Appendable out) throws IOException {
+
+        final List<Variable> tmpVariables = model.getVariables();
+        final int tmpNumberOfVariables = tmpVariables.size();
 
-            return this;
+        final Expression tmpObjective = model.objective();
+        if (tmpObjective.isAnyQuadraticFactorNonZero()) {
+            throw new IllegalArgumentException("The MPS writer only supports linear models!");
         }
 
-        public void setColumnValue(final String columnName, final BigDecimal value) {
-            myExpression.set(myColumns.get(columnName).getVariable(), value);
+        final List<Expression> tmpConstraints = model.constraints().sorted().collect(Collectors.toList());
+        final int tmpNumberOfConstraints = tmpConstraints.size();
+
+        String tmpObjectiveName = "OBJ";
+        while (model.getExpression(tmpObjectiveName) != null) {
+            tmpObjectiveName = tmpObjectiveName + "_";
+        }
+
+        // Transpose the constraints; column-wise compressed, with the objective as row -1
+        final int[] tmpColumnStarts = new int[tmpNumberOfVariables + 1];
+        for (final Expression tmpConstraint : tmpConstraints) {
+            if (tmpConstraint.isAnyQuadraticFactorNonZero()) {
+                throw new IllegalArgumentException("The MPS writer only supports linear models!");
+            }
+            for (final IntIndex tmpKey : tmpConstraint.getLinearKeySet()) {
+                tmpColumnStarts[tmpKey.index + 1]++;
+            }
+        }
+        for (final IntIndex tmpKey : tmpObjective.getLinearKeySet()) {
+            tmpColumnStarts[tmpKey.index + 1]++;
         }
+        for (int j = 0; j < tmpNumberOfVariables; j++) {
+            tmpColumnStarts[j + 1] += tmpColumnStarts[j];
+        }
+        final int[] tmpRows = new int[tmpColumnStarts[tmpNumberOfVariables]];
+        final BigDecimal[] tmpValues = new BigDecimal[tmpRows.length];
+        final int[] tmpPositions = Arrays.copyOf(tmpColumnStarts, tmpNumberOfVariables);
+        for (final Entry<IntIndex, BigDecimal> tmpEntry : tmpObjective.getLinearEntrySet()) {
+            final int tmpPosition = tmpPositions[tmpEntry.getKey().index]++;
+            tmpRows[tmpPosition] = -1;
+            tmpValues[tmpPosition] = tmpEntry.getValue();
+        }
+        for (int i = 0; i < tmpNumberOfConstraints; i++) {
+            for (final Entry<IntIndex, BigDecimal> tmpEntry : tmpConstraints.get(i).getLinearEntrySet()) {
+                final int tmpPosition = tmpPositions[tmpEntry.getKey().index]++;
+                tmpRows[tmpPosition] = i;
+                tmpValues[tmpPosition] = tmpEntry.getValue();
+            }
+        }
+
+        final StringBuilder tmpLine = new StringBuilder(80);
 
-        /**
-         * @return the expression
-         */
-        Expression getExpression() {
-            return myExpression;
+        out.append(FileSection.NAME.name());
+        if (name != null) {
+            out.append("          ").append(name);
         }
+        out.append('\n');
 
-        /**
-         * @return the type
-         */
-        RowType getType() {
-            return myType;
+        if (model.isMaximisation()) {
+            out.append(FileSection.OBJSENSE.name()).append('\n');
+            out.append("    MAX").append('\n');
         }
 
+        out.append(FileSection.ROWS.name()).append('\n');
+        MathProgSysModel.line(tmpLine, out, RowType.N.name(), tmpObjectiveName, null, null, null, null);
+        for (final Expression tmpConstraint : tmpConstraints) {
+            final RowType tmpType;
+            if (tmpConstraint.isEqualityConstraint()) {
+                tmpType = RowType.E;
+            } else if (tmpConstraint.isUpperConstraint()) {
+                tmpType = RowType.L;
+            } else {
+                tmpType = RowType.G;
+            }
+            MathProgSysModel.line(tmpLine, out, tmpType.name(), tmpConstraint.getName(), null, null, null, null);
+        }
+
+        out.append(FileSection.COLUMNS.name()).append('\n');
+        boolean tmpInteger = false;
+        for (int j = 0; j < tmpNumberOfVariables; j++) {
+
+            final Variable tmpVariable = tmpVariables.get(j);
+
+            if (tmpVariable.isInteger() != tmpInteger) {
+                tmpInteger = tmpVariable.isInteger();
+                MathProgSysModel.line(tmpLine, out, null, "MARKER", "'MARKER'", null, tmpInteger ? "'INTORG'" : "'INTEND'", null);
+            }
+
+            final int tmpFirst = tmpColumnStarts[j];
+            final int tmpLimit = tmpColumnStarts[j + 1];
+
+            if (tmpFirst == tmpLimit) {
+                // Make sure the column is declared
+                MathProgSysModel.line(tmpLine, out, null, tmpVariable.getName(), tmpObjectiveName, "0", null, null);
+            }
+
+            for (int p = tmpFirst; p < tmpLimit; p += 2) {
+                final String tmpRow1 = tmpRows[p] < 0 ? tmpObjectiveName : tmpConstraints.get(tmpRows[p]).getName();
+                final String tmpValue1 = SparseModelData.toString(tmpValues[p]);
+                if ((p + 1) < tmpLimit) {
+                    final String tmpRow2 = tmpRows[p + 1] < 0 ? tmpObjectiveName : tmpConstraints.get(tmpRows[p + 1]).getName();
+                    final String tmpValue2 = SparseModelData.toString(tmpValues[p + 1]);
+                    MathProgSysModel.line(tmpLine, out, null, tmpVariable.getName(), tmpRow1, tmpValue1, tmpRow2, tmpValue2);
+                } else {
+                    MathProgSysModel.line(tmpLine, out, null, tmpVariable.getName(), tmpRow1, tmpValue1, null, null);
+                }
+            }
+        }
+        if (tmpInteger) {
+            MathProgSysModel.line(tmpLine, out, null, "MARKER", "'MARKER'", null, "'INTEND'", null);
+        }
+
+        out.append(FileSection.RHS.name()).append('\n');
+        for (final Expression tmpConstraint : tmpConstraints) {
+            final BigDecimal tmpRHS = tmpConstraint.isUpperConstraint() ? tmpConstraint.getUpperLimit() : tmpConstraint.getLowerLimit();
+            if (tmpRHS.signum() != 0) {
+                MathProgSysModel.line(tmpLine, out, null, "RHS", tmpConstraint.getName(), SparseModelData.toString(tmpRHS), null, null);
+            }
+        }
+
+        boolean tmpRanges = false;
+        for (final Expression tmpConstraint : tmpConstraints) {
+            if (tmpConstraint.isLowerConstraint() && tmpConstraint.isUpperConstraint() && !tmpConstraint.isEqualityConstraint()) {
+                if (!tmpRanges) {
+                    out.append(FileSection.RANGES.name()).append('\n');
+                    tmpRanges = true;
+                }
+                final BigDecimal tmpRange = tmpConstraint.getUpperLimit().subtract(tmpConstraint.getLowerLimit());
+                MathProgSysModel.line(tmpLine, out, null, "RNG", tmpConstraint.getName(), SparseModelData.toString(tmpRange), null, null);
+            }
+        }
+
+        out.append(FileSection.BOUNDS.name()).append('\n');
+        for (final Variable tmpVariable : tmpVariables) {
+
+            final BigDecimal tmpLower = tmpVariable.getLowerLimit();
+            final BigDecimal tmpUpper = tmpVariable.getUpperLimit();
+            final String tmpName = tmpVariable.getName();
+
+            if ((tmpLower != null) && (tmpUpper != null) && (tmpLower.compareTo(tmpUpper) == 0)) {
+                MathProgSysModel.line(tmpLine, out, BoundType.FX.name(), "BND", tmpName, SparseModelData.toString(tmpUpper), null, null);
+            } else if ((tmpLower == null) && (tmpUpper == null)) {
+                MathProgSysModel.line(tmpLine, out, BoundType.FR.name(), "BND", tmpName, null, null, null);
+            } else if (tmpLower == null) {
+                // UP before MI, as UP resets a missing lower bound to 0.0
+                MathProgSysModel.line(tmpLine, out, BoundType.UP.name(), "BND", tmpName, SparseModelData.toString(tmpUpper), null, null);
+                MathProgSysModel.line(tmpLine, out, BoundType.MI.name(), "BND", tmpName, null, null, null);
+            } else {
+                if (tmpLower.signum() != 0) {
+                    MathProgSysModel.line(tmpLine, out, BoundType.LO.name(), "BND", tmpName, SparseModelData.toString(tmpLower), null, null);
+                }
+                if (tmpUpper != null) {
+                    MathProgSysModel.line(tmpLine, out, BoundType.UP.name(), "BND", tmpName, SparseModelData.toString(tmpUpper), null, null);
+                }
+            }
+        }
+
+        out.append(FileSection.ENDATA.name()).append('\n');
+    }
+
+    private static int findRow(final SparseModelData data, final byte[] array, final int start, final int end, final ModelFileTokenizer tokenizer) {
+        final int retVal = data.findRow(array, start, end);
+        if (retVal < 0) {
+            throw new IllegalArgumentException("Unknown row at line " + tokenizer.lineNumber());
+        }
+        return retVal;
     }
 
     /**
-     * RowType used with the ROWS and RANGES sections.
-     *
-     * <pre>
-     * type      meaning
-     * ---------------------------
-     *  E    equality
-     *  L    less than or equal
-     *  G    greater than or equal
-     *  N    objective
-     *  N    no restriction
-     *
-     * row type       sign of r       h          u
-     * ----------------------------------------------
-     *    G            + or -         b        b + |r|
-     *    L            + or -       b - |r|      b
-     *    E              +            b        b + |r|
-     *    E              -          b - |r|      b
-     * </pre>
-     *
-     * @author apete
+     * Maps the whitespace separated tokens of a free format line to the corresponding fixed format fields.
+     * Free format allows the RHS, RANGES and BOUNDS set names to be omitted.
      */
-    static enum RowType {
+    private static void mapFreeFields(final SparseModelData data, final FileSection section, final byte[] array, final int count, final int[] tokenStarts,
+            final int[] tokenEnds, final int[] fieldStarts, final int[] fieldEnds) {
 
-        E(), G(), L(), N();
+        Arrays.fill(fieldStarts, 0);
+        Arrays.fill(fieldEnds, 0);
 
-    }
+        int tmpFirstToken = 0;
+        int tmpFirstField = 0;
 
-    private static final String COMMENT = "*";
-    private static final String EMPTY = "";
-    private static final int[] FIELD_LIMITS = new int[] { 3, 12, 22, 36, 47, 61 };
-    private static final String SPACE = " ";
+        switch (section) {
 
-    public static MathProgSysModel make(final File file) {
+        case ROWS:
 
-        final MathProgSysModel retVal = new MathProgSysModel();
+            break;
 
-        String tmpLine;
-        FileSection tmpSection = null;
+        case COLUMNS:
 
-        try {
+            tmpFirstField = 1;
 
-            final BufferedReader tmpBufferedFileReader = new BufferedReader(new FileReader(file));
+            break;
+
+        case RHS:
+        case RANGES:
+
+            tmpFirstField = (count % 2) == 0 ? 2 : 1;
+
+            break;
+
+        case BOUNDS:
+
+            fieldStarts[0] = tokenStarts[0];
+            fieldEnds[0] = tokenEnds[0];
+
+            tmpFirstToken = 1;
+            tmpFirstField = 2;
+
+            if (count >= 4) {
+                tmpFirstField = 1;
+            } else if (count == 3) {
+                final boolean tmpFirstIsColumn = data.findColumn(array, tokenStarts[1], tokenEnds[1]) >= 0;
+                final boolean tmpSecondIsColumn = data.findColumn(array, tokenStarts[2], tokenEnds[2]) >= 0;
+                if (tmpSecondIsColumn && !tmpFirstIsColumn) {
+                    tmpFirstField = 1;
+                } else if (!tmpFirstIsColumn || tmpSecondIsColumn) {
+                    final BoundType tmpType = MathProgSysModel.toBoundType(array, tokenStarts[0], tokenEnds[0], null);
+                    if ((tmpType == BoundType.FR) || (tmpType == BoundType.MI) || (tmpType == BoundType.PL) || (tmpType == BoundType.BV)) {
+                        tmpFirstField = 1;
+                    }
+                }
+            }
+
+            break;
 
-            //readLine is a bit quirky :
-            //it returns the content of a line MINUS the newline.
-            //it returns null only for the END of the stream.
-            //it returns an empty String if two newlines appear in a row.
-            while ((tmpLine = tmpBufferedFileReader.readLine()) != null) {
+        default:
 
-                //        BasicLogger.logDebug("Line: {}.", tmpLine);
+            break;
+        }
 
-                if ((tmpLine.length() == 0) || tmpLine.startsWith(COMMENT)) {
-                    // Skip this line
-                } else if (tmpLine.startsWith(SPACE)) {
-                    retVal.parseSectionLine(tmpSection, tmpLine);
+        for (int t = tmpFirstToken, f = tmpFirstField; (t < count) && (f < fieldStarts.length); t++, f++) {
+            fieldStarts[f] = tokenStarts[t];
+            fieldEnds[f] = tokenEnds[t];
+        }
+    }
+
+    /**
+     * Positions the (non-null) fields in their fixed format columns, or just separated by a space if the
+     * previous field was too long.
+     */
+    private static void line(final StringBuilder builder, final Appendable out, final String... fields) throws IOException {
+
+        builder.setLength(0);
+
+        for (int f = 0; f < fields.length; f++) {
+            if (fields[f] != null) {
+                final int tmpColumn = FIELD_STARTS[f];
+                if (builder.length() < tmpColumn) {
+                    while (builder.length() < tmpColumn) {
+                        builder.append(' ');
+                    }
                 } else {
-                    tmpSection = retVal.identifySection(tmpLine);
+                    builder.append(' ');
                 }
+                builder.append(fields[f]);
             }
+        }
 
-            tmpBufferedFileReader.close();
+        out.append(builder).append('\n');
+    }
 
-        } catch (final FileNotFoundException anException) {
-            anException.printStackTrace();
-        } catch (final IOException anException) {
-            anException.printStackTrace();
+    private static BoundType toBoundType(final byte[] array, final int start, final int end, final ModelFileTokenizer tokenizer) {
+        for (int i = 0; i < BOUND_TYPES.length; i++) {
+            if (ModelFileTokenizer.equalsIgnoreCase(array, start, end, BOUND_TYPES[i].name())) {
+                return BOUND_TYPES[i];
+            }
         }
+        throw new IllegalArgumentException("Unknown bound type" + (tokenizer != null ? " at line " + tokenizer.lineNumber() : ""));
+    }
 
-        return retVal;
+    private static RowType toRowType(final byte[] array, final int start, final int end, final ModelFileTokenizer tokenizer) {
+        if ((end - start) == 1) {
+            switch (array[start]) {
+            case 'E':
+            case 'e':
+                return RowType.E;
+            case 'G':
+            case 'g':
+                return RowType.G;
+            case 'L':
+            case 'l':
+                return RowType.L;
+            case 'N':
+            case 'n':
+                return RowType.N;
+            default:
+                break;
+            }
+        }
+        throw new IllegalArgumentException("Unknown row type at line " + tokenizer.lineNumber());
     }
 
-    private final HashMap<String, Column> myColumns = new HashMap<>();
     private final ExpressionsBasedModel myDelegate;
-    private final String[] myFields = new String[6];
-    private boolean myIntegerMarker = false;
     private String myName;
 
-    private final HashMap<String, Row> myRows = new HashMap<>();
-
     MathProgSysModel() {
 
         super();
@@ -434,8 +760,6 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
     @Override
     public void dispose() {
         myDelegate.dispose();
-        myRows.clear();
-        myColumns.clear();
     }
 
     @Override
@@ -530,151 +854,4 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
         return myDelegate.validate(solution, context);
     }
 
-    private void extractFields(final String line) {
-
-        final int tmpLength = line.length();
-
-        int tmpFirst = 0;
-        int tmpLimit = tmpFirst;
-        for (int i = 0; i < myFields.length; i++) {
-            tmpLimit = Math.min(FIELD_LIMITS[i], tmpLength);
-            myFields[i] = line.substring(tmpFirst, tmpLimit).trim();
-            tmpFirst = tmpLimit;
-        }
-    }
-
-    FileSection identifySection(final String line) {
-
-        final int tmpSplit = line.indexOf(SPACE);
-        String tmpSection;
-        String tmpArgument;
-        if (tmpSplit != -1) {
-            tmpSection = line.substring(0, tmpSplit).trim();
-            tmpArgument = line.substring(tmpSplit).trim();
-        } else {
-            tmpSection = line.trim();
-            tmpArgument = EMPTY;
-        }
-
-        //      BasicLogger.logDebug("Section: {},\tArgument: {}.", tmpSection, tmpArgument);
-
-        final FileSection retVal = FileSection.valueOf(tmpSection);
-
-        switch (retVal) {
-
-        case NAME:
-
-            myName = tmpArgument;
-
-            break;
-
-        default:
-
-            break;
-        }
-
-        return retVal;
-    }
-
-    void parseSectionLine(final FileSection section, final String line) {
-
-        this.extractFields(line);
-
-        //      BasicLogger.logDebug("{}: {}.", aSection, Arrays.toString(myFields));
-
-        switch (section) {
-
-        case NAME:
-
-            break;
-
-        case OBJSENSE:
-
-            if (myFields[0].equals("MAX")) {
-                this.setMaximisation();
-            } else {
-                this.setMinimisation();
-            }
-
-            break;
-
-        case OBJNAME:
-
-            break;
-
-        case ROWS:
-
-            final Row tmpRow = new Row(myFields[1], RowType.valueOf(myFields[0]));
-
-            myRows.put(myFields[1], tmpRow);
-
-            break;
-
-        case COLUMNS:
-
-            if (myFields[2].indexOf("MARKER") != -1) {
-
-                if (myFields[4].indexOf("INTORG") != -1) {
-                    myIntegerMarker = true;
-                } else if (myFields[4].indexOf("INTEND") != -1) {
-                    myIntegerMarker = false;
-                }
-
-            } else {
-
-                if (!myColumns.containsKey(myFields[1])) {
-                    myColumns.put(myFields[1], new Column(myFields[1]));
-                }
-
-                final Column tmpColumn = myColumns.get(myFields[1]);
-
-                tmpColumn.setRowValue(myFields[2], new BigDecimal(myFields[3]));
-                if (myFields[4].length() != 0) {
-                    tmpColumn.setRowValue(myFields[4], new BigDecimal(myFields[5]));
-                }
-
-                if (myIntegerMarker) {
-                    tmpColumn.integer(myIntegerMarker);
-                }
-
-            }
-
-            break;
-
-        case RHS:
-
-            myRows.get(myFields[2]).rhs(new BigDecimal(myFields[3]));
-
-            if (myFields[4].length() != 0) {
-                myRows.get(myFields[4]).rhs(new BigDecimal(myFields[5]));
-            }
-
-            break;
-
-        case RANGES:
-
-            myRows.get(myFields[2]).range(new BigDecimal(myFields[3]));
-
-            if (myFields[4].length() != 0) {
-                myRows.get(myFields[4]).range(new BigDecimal(myFields[5]));
-            }
-
-            break;
-
-        case BOUNDS:
-
-            myColumns.get(myFields[2]).bound(BoundType.valueOf(myFields[0]), myFields[3].length() == 0 ? null : new BigDecimal(myFields[3]));
-
-            break;
-
-        case ENDATA:
-
-            break;
-
-        default:
-
-            break;
-        }
-    }
-
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Streaming readers and writers of model files. The readers tokenize directly from the bytes of a
+ * (buffered) channel, intern row/column names to int ids, and collect everything in a primitive sparse
+ * (coordinate) structure before the {@link ExpressionsBasedModel} is built – there are no per line or per
+ * entry String/BigDecimal instances, and no name keyed maps of intermediate objects.
+ *
+ * @author apete
+ */
+public enum ModelFileFormat {
+
+    /**
+     * The CPLEX LP format (linear and mixed integer models)
+     */
+    CPLEX_LP(),
+
+    /**
+     * Fixed format MPS – fields identified by their column positions, so names may contain spaces.
+     */
+    FIXED_MPS(),
+
+    /**
+     * Free format MPS – whitespace separated fields. Works for most fixed format files as well.
+     */
+    FREE_MPS();
+
+    /**
+     * @param file The file to read
+     * @return A new model
+     * @throws IllegalArgumentException If the file contents can't be parsed
+     */
+    public ExpressionsBasedModel read(final File file) throws IOException {
+        try (ModelFileTokenizer tmpTokenizer = ModelFileTokenizer.open(file)) {
+            return this.read(tmpTokenizer);
+        }
+    }
+
+    /**
+     * @param channel The channel to read from; not closed by this method
+     * @return A new model
+     * @throws IllegalArgumentException If the contents can't be parsed
+     */
+    public ExpressionsBasedModel read(final ReadableByteChannel channel) throws IOException {
+        return this.read(new ModelFileTokenizer(channel));
+    }
+
+    /**
+     * @param model The model to write; must be linear (possibly with integer variables)
+     * @param file The file to (over)write
+     */
+    public void write(final ExpressionsBasedModel model, final File file) throws IOException {
+        try (Writer tmpWriter = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            this.write(model, tmpWriter);
+        }
+    }
+
+    /**
+     * Preferably pass a buffered {@link Appendable}, output is appended field by field.
+     *
+     * @param model The model to write; must be linear (possibly with integer variables)
+     * @param out Where to write
+     */
+    public void write(final ExpressionsBasedModel model, final Appendable out) throws IOException {
+        switch (this) {
+        case CPLEX_LP:
+            CplexLpFormat.write(model, null, out);
+            break;
+        default:
+            MathProgSysModel.write(model, null, out);
+            break;
+        }
+    }
+
+    private ExpressionsBasedModel read(final ModelFileTokenizer tokenizer) throws IOException {
+
+        final SparseModelData tmpData = new SparseModelData();
+
+        switch (this) {
+        case CPLEX_LP:
+            CplexLpFormat.parse(tokenizer, tmpData);
+            break;
+        case FIXED_MPS:
+            MathProgSysModel.parse(tokenizer, tmpData, true);
+            break;
+        default:
+            MathProgSysModel.parse(tokenizer, tmpData, false);
+            break;
+        }
+
+        final ExpressionsBasedModel retVal = new ExpressionsBasedModel();
+        tmpData.build(retVal);
+        return retVal;
+    }
+
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import org.ojalgo.netio.ByteLine;
+
+/**
+ * Reads lines, and tokens within those lines, directly from the bytes of a channel. The (reused) buffer is
+ * only ever compacted or grown – nothing is allocated per line or per token. Tokens are referenced by
+ * their [start, end) positions in {@link #array()}, and are only valid until the next call to
+ * {@link #nextLine()}.
+ *
+ * @author apete
+ */
+final class ModelFileTokenizer implements AutoCloseable {
+
+    static final int BUFFER_SIZE = 1 << 16;
+
+    static ModelFileTokenizer open(final File file) throws IOException {
+        return new ModelFileTokenizer(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+    }
+
+    /**
+     * @see ByteLine#parseDouble(byte[], int, int)
+     */
+    static double parseDouble(final byte[] array, final int start, final int end) {
+        return ByteLine.parseDouble(array, start, end);
+    }
+
+    private byte[] myArray = new byte[BUFFER_SIZE];
+    private final ReadableByteChannel myChannel;
+    private boolean myEndOfInput = false;
+    private int myLimit = 0;
+    private int myLineEnd = 0;
+    private int myLineNumber = 0;
+    private int myLineStart = 0;
+    private int myNext = 0;
+    private int myPosition = 0;
+    private int myTokenEnd = 0;
+    private int myTokenStart = 0;
+
+    ModelFileTokenizer(final ReadableByteChannel channel) {
+
+        super();
+
+        myChannel = channel;
+    }
+
+    public void close() throws IOException {
+        myChannel.close();
+    }
+
+    /**
+     * The internal buffer, only valid until the next call to {@link #nextLine()}.
+     */
+    byte[] array() {
+        return myArray;
+    }
+
+    /**
+     * Sets the current token to the (trimmed) fixed width field [first, limit) of the current line, relative
+     * to the line start.
+     *
+     * @return true if the field is not empty
+     */
+    boolean field(final int first, final int limit) {
+
+        int tmpStart = Math.min(myLineStart + first, myLineEnd);
+        int tmpEnd = Math.min(myLineStart + limit, myLineEnd);
+
+        while ((tmpStart < tmpEnd) && ModelFileTokenizer.isWhitespace(myArray[tmpStart])) {
+            tmpStart++;
+        }
+        while ((tmpEnd > tmpStart) && ModelFileTokenizer.isWhitespace(myArray[tmpEnd - 1])) {
+            tmpEnd--;
+        }
+
+        myTokenStart = tmpStart;
+        myTokenEnd = tmpEnd;
+        myPosition = tmpEnd;
+
+        return tmpEnd > tmpStart;
+    }
+
+    int lineEnd() {
+        return myLineEnd;
+    }
+
+    int lineNumber() {
+        return myLineNumber;
+    }
+
+    int lineStart() {
+        return myLineStart;
+    }
+
+    /**
+     * @return false when there are no more lines
+     */
+    boolean nextLine() throws IOException {
+
+        int tmpScan = myNext;
+
+        for (;;) {
+
+            for (; tmpScan < myLimit; tmpScan++) {
+                if (myArray[tmpScan] == '\n') {
+                    this.setLine(myNext, tmpScan);
+                    myNext = tmpScan + 1;
+                    return true;
+                }
+            }
+
+            if (myEndOfInput) {
+                if (myNext < myLimit) {
+                    this.setLine(myNext, myLimit);
+                    myNext = myLimit;
+                    return true;
+                } else {
+                    return false;
+                }
+            }
+
+            final int tmpRemaining = myLimit - myNext;
+
+            if (tmpRemaining == myArray.length) {
+                final byte[] tmpArray = new byte[2 * myArray.length];
+                System.arraycopy(myArray, myNext, tmpArray, 0, tmpRemaining);
+                myArray = tmpArray;
+            } else if (myNext > 0) {
+                System.arraycopy(myArray, myNext, myArray, 0, tmpRemaining);
+            }
+
+            tmpScan = tmpRemaining;
+            myLimit = tmpRemaining;
+            myNext = 0;
+
+            final int tmpRead = myChannel.read(ByteBuffer.wrap(myArray, myLimit, myArray.length - myLimit));
+            if (tmpRead < 0) {
+                myEndOfInput = true;
+            } else {
+                myLimit += tmpRead;
+            }
+        }
+    }
+
+    /**
+     * Advances to the next whitespace delimited token of the current line.
+     *
+     * @return false if there are no more tokens on this line
+     */
+    boolean nextToken() {
+
+        int tmpStart = myPosition;
+        while ((tmpStart < myLineEnd) && ModelFileTokenizer.isWhitespace(myArray[tmpStart])) {
+            tmpStart++;
+        }
+
+        int tmpEnd = tmpStart;
+        while ((tmpEnd < myLineEnd) && !ModelFileTokenizer.isWhitespace(myArray[tmpEnd])) {
+            tmpEnd++;
+        }
+
+        myTokenStart = tmpStart;
+        myTokenEnd = tmpEnd;
+        myPosition = tmpEnd;
+
+        return tmpEnd > tmpStart;
+    }
+
+    /**
+     * @return The remainder of the current line, trimmed
+     */
+    String remainder() {
+
+        int tmpStart = myPosition;
+        int tmpEnd = myLineEnd;
+
+        while ((tmpStart < tmpEnd) && ModelFileTokenizer.isWhitespace(myArray[tmpStart])) {
+            tmpStart++;
+        }
+        while ((tmpEnd > tmpStart) && ModelFileTokenizer.isWhitespace(myArray[tmpEnd - 1])) {
+            tmpEnd--;
+        }
+
+        myPosition = myLineEnd;
+
+        return new String(myArray, tmpStart, tmpEnd - tmpStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Moves the token position, relative to the line start.
+     */
+    void seek(final int position) {
+        myPosition = Math.min(myLineStart + position, myLineEnd);
+    }
+
+    /**
+     * @return true if the current token contains this (ASCII) text
+     */
+    boolean tokenContains(final String text) {
+        return ModelFileTokenizer.contains(myArray, myTokenStart, myTokenEnd, text);
+    }
+
+    double tokenDouble() {
+        return ModelFileTokenizer.parseDouble(myArray, myTokenStart, myTokenEnd);
+    }
+
+    int tokenEnd() {
+        return myTokenEnd;
+    }
+
+    /**
+     * @return true if the current token is exactly this (ASCII) text, ignoring case
+     */
+    boolean tokenEqualsIgnoreCase(final String text) {
+        return ModelFileTokenizer.equalsIgnoreCase(myArray, myTokenStart, myTokenEnd, text);
+    }
+
+    int tokenStart() {
+        return myTokenStart;
+    }
+
+    String tokenString() {
+        return new String(myArray, myTokenStart, myTokenEnd - myTokenStart, StandardCharsets.UTF_8);
+    }
+
+    private void setLine(final int start, final int end) {
+        myLineStart = start;
+        myLineEnd = ((end > start) && (myArray[end - 1] == '\r')) ? end - 1 : end;
+        myPosition = myLineStart;
+        myTokenStart = myLineStart;
+        myTokenEnd = myLineStart;
+        myLineNumber++;
+    }
+
+    static boolean contains(final byte[] array, final int start, final int end, final String text) {
+        for (int i = start, limit = end - text.length(); i <= limit; i++) {
+            if (ModelFileTokenizer.matches(array, i, text, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean equalsIgnoreCase(final byte[] array, final int start, final int end, final String text) {
+        return ((end - start) == text.length()) && ModelFileTokenizer.matches(array, start, text, true);
+    }
+
+    /**
+     * Control characters and space. Bytes of multi-byte UTF-8 sequences are negative, and never whitespace.
+     */
+    static boolean isWhitespace(final byte value) {
+        return (value >= 0) && (value <= ' ');
+    }
+
+    static boolean matches(final byte[] array, final int start, final String text, final boolean ignoreCase) {
+        for (int i = 0; i < text.length(); i++) {
+            int tmpByte = array[start + i];
+            int tmpChar = text.charAt(i);
+            if (ignoreCase) {
+                tmpByte = Character.toLowerCase(tmpByte);
+                tmpChar = Character.toLowerCase(tmpChar);
+            }
+            if (tmpByte != tmpChar) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -231,6 +231,13 @@ public interface Optimisation {
          */
         public NumberContext solution = new NumberContext(12, 14, RoundingMode.HALF_DOWN);
 
+        /**
+         * If this is null (the default) no telemetry is recorded. Set an instance to have the solvers count
+         * pivots, active set changes, branch&amp;bound nodes, factorisations... and time their phases. The
+         * instance is shared by copies of these options.
+         */
+        public SolverStatistics statistics = null;
+
         /**
          * The maximmum number of millis allowed for the solve() command. Executions will be aborted
          * regardless of if a solution has been found or not.
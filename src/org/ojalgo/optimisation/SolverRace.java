@@ -0,0 +1,276 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.ojalgo.concurrent.DaemonPoolExecutor;
+import org.ojalgo.optimisation.convex.ConvexSolver;
+import org.ojalgo.optimisation.integer.IntegerSolver;
+import org.ojalgo.optimisation.linear.LinearSolver;
+
+/**
+ * Solves the same model with several solvers (configurations) concurrently, on the daemon pool, and keeps
+ * the result of the first one to reach a conclusive state (optimal, infeasible or unbounded). The others
+ * are then cancelled cooperatively. Integer solvers racing each other share their incumbents. To use it
+ * register the integration:
+ *
+ * <pre>
+ * ExpressionsBasedModel.addIntegration(new SolverRace.ModelIntegration());
+ * </pre>
+ *
+ * The default contenders are:
+ * <ul>
+ * <li>Integer models: depth first and best bound/estimate branch&amp;bound</li>
+ * <li>Quadratic models: iterative and direct active set solvers</li>
+ * <li>Linear models: dense and sparse simplex tableau</li>
+ * </ul>
+ *
+ * @author apete
+ */
+public final class SolverRace implements Optimisation.Solver {
+
+    public static final class ModelIntegration extends ExpressionsBasedModel.Integration<SolverRace> {
+
+        private final List<ExpressionsBasedModel.Integration<?>> myContenders;
+
+        /**
+         * Race the default contenders (depending on the kind of model).
+         */
+        public ModelIntegration() {
+            this(Collections.emptyList());
+        }
+
+        /**
+         * Race these contenders (those of them that are capable of solving the model).
+         */
+        public ModelIntegration(final List<ExpressionsBasedModel.Integration<?>> contenders) {
+            super();
+            myContenders = new ArrayList<>(contenders);
+        }
+
+        public SolverRace build(final ExpressionsBasedModel model) {
+            return new SolverRace(model, this.getContenders(model));
+        }
+
+        /**
+         * Work copies, such as the branch&amp;bound node models, are never raced.
+         */
+        public boolean isCapable(final ExpressionsBasedModel model) {
+            return !model.isWorkCopy() && (this.getContenders(model).size() >= 2);
+        }
+
+        @Override
+        public Result toModelState(final Result solverState, final ExpressionsBasedModel model) {
+            return solverState;
+        }
+
+        @Override
+        public Result toSolverState(final Result modelState, final ExpressionsBasedModel model) {
+            return modelState;
+        }
+
+        List<ExpressionsBasedModel.Integration<?>> getContenders(final ExpressionsBasedModel model) {
+
+            final List<ExpressionsBasedModel.Integration<?>> retVal = new ArrayList<>();
+
+            if (myContenders.isEmpty()) {
+                if (model.isAnyVariableInteger()) {
+                    retVal.add(new IntegerSolver.ModelIntegration(false));
+                    retVal.add(new IntegerSolver.ModelIntegration(true));
+                } else if (model.isAnyExpressionQuadratic()) {
+                    retVal.add(new ConvexSolver.ModelIntegration(false));
+                    retVal.add(new ConvexSolver.ModelIntegration(true));
+                } else {
+                    retVal.add(new LinearSolver.ModelIntegration(Boolean.FALSE));
+                    retVal.add(new LinearSolver.ModelIntegration(Boolean.TRUE));
+                }
+            } else {
+                for (final ExpressionsBasedModel.Integration<?> tmpContender : myContenders) {
+                    if (tmpContender.isCapable(model)) {
+                        retVal.add(tmpContender);
+                    }
+                }
+            }
+
+            return retVal;
+        }
+
+    }
+
+    private static boolean isConclusive(final Optimisation.Result result) {
+        final State tmpState = result.getState();
+        return tmpState.isOptimal() || (tmpState == State.INFEASIBLE) || (tmpState == State.UNBOUNDED);
+    }
+
+    private final List<ExpressionsBasedModel.Integration<?>> myContenders;
+    private final ExpressionsBasedModel myModel;
+    private volatile int myWinner = -1;
+
+    SolverRace(final ExpressionsBasedModel model, final List<ExpressionsBasedModel.Integration<?>> contenders) {
+
+        super();
+
+        myModel = model;
+        myContenders = contenders;
+    }
+
+    /**
+     * The returned result is in "model state" – this solver's integration does no conversion.
+     */
+    public Optimisation.Result solve(final Optimisation.Result kickStarter) {
+
+        final int tmpCount = myContenders.size();
+
+        // The solvers are built here, on the calling thread, as that reads (and initialises caches in) the model
+        final Optimisation.Solver[] tmpSolvers = new Optimisation.Solver[tmpCount];
+        final Optimisation.Result[] tmpStarts = new Optimisation.Result[tmpCount];
+        for (int c = 0; c < tmpCount; c++) {
+            final ExpressionsBasedModel.Integration<?> tmpContender = myContenders.get(c);
+            tmpSolvers[c] = tmpContender.build(myModel);
+            tmpStarts[c] = kickStarter != null ? tmpContender.toSolverState(kickStarter, myModel) : null;
+        }
+
+        for (int c = 0; c < tmpCount; c++) {
+            if (tmpSolvers[c] instanceof IntegerSolver) {
+                for (int p = 0; p < tmpCount; p++) {
+                    if ((p != c) && (tmpSolvers[p] instanceof IntegerSolver)) {
+                        ((IntegerSolver) tmpSolvers[c]).addPeer((IntegerSolver) tmpSolvers[p]);
+                    }
+                }
+            }
+        }
+
+        final Optimisation.Result[] tmpResults = new Optimisation.Result[tmpCount];
+        final RuntimeException[] tmpExceptions = new RuntimeException[tmpCount];
+        final BlockingQueue<Integer> tmpFinished = new LinkedBlockingQueue<>();
+        final List<Future<?>> tmpFutures = new ArrayList<>(tmpCount);
+
+        for (int c = 0; c < tmpCount; c++) {
+            final int tmpIndex = c;
+            tmpFutures.add(DaemonPoolExecutor.invoke(() -> {
+                try {
+                    tmpResults[tmpIndex] = tmpSolvers[tmpIndex].solve(tmpStarts[tmpIndex]);
+                } catch (final RuntimeException exception) {
+                    tmpExceptions[tmpIndex] = exception;
+                } finally {
+                    tmpFinished.add(tmpIndex);
+                }
+            }));
+        }
+
+        int tmpWinner = -1;
+        try {
+            for (int f = 0; (tmpWinner < 0) && (f < tmpCount); f++) {
+                final int tmpIndex = tmpFinished.take();
+                if ((tmpResults[tmpIndex] != null) && SolverRace.isConclusive(tmpResults[tmpIndex])) {
+                    tmpWinner = tmpIndex;
+                }
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (final Optimisation.Solver tmpSolver : tmpSolvers) {
+                if (tmpSolver instanceof GenericSolver) {
+                    ((GenericSolver) tmpSolver).cancel();
+                }
+            }
+        }
+
+        // Wait for the losers to stop – they may still be reading the model
+        for (final Future<?> tmpFuture : tmpFutures) {
+            try {
+                tmpFuture.get();
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } catch (final ExecutionException exception) {
+                throw new IllegalStateException(exception.getCause());
+            }
+        }
+
+        if (tmpWinner < 0) {
+            tmpWinner = this.selectBestInconclusive(tmpResults);
+        }
+        if (tmpWinner < 0) {
+            // Every solver threw an exception
+            throw tmpExceptions[0];
+        }
+        myWinner = tmpWinner;
+
+        final Optimisation.Result retVal = myContenders.get(tmpWinner).toModelState(tmpResults[tmpWinner], myModel);
+
+        for (final Optimisation.Solver tmpSolver : tmpSolvers) {
+            tmpSolver.dispose();
+        }
+
+        return retVal;
+    }
+
+    @Override
+    public String toString() {
+        return "SolverRace " + Arrays.toString(myContenders.toArray()) + " winner=" + myWinner;
+    }
+
+    /**
+     * @return The index (among the contenders) of the solver whose result was used, or -1 if not yet solved
+     */
+    int getWinner() {
+        return myWinner;
+    }
+
+    /**
+     * None of the solvers reached a conclusive state (iterations/time limits, failures...). Pick the best
+     * feasible result, or the first available result if none is feasible.
+     */
+    private int selectBestInconclusive(final Optimisation.Result[] results) {
+
+        final boolean tmpMinimisation = myModel.isMinimisation();
+
+        int retVal = -1;
+        for (int c = 0; c < results.length; c++) {
+            final Optimisation.Result tmpCandidate = results[c];
+            if (tmpCandidate == null) {
+                continue;
+            }
+            final Optimisation.Result tmpBest = retVal >= 0 ? results[retVal] : null;
+            if (tmpBest == null) {
+                retVal = c;
+            } else if (tmpCandidate.getState().isFeasible()) {
+                if (!tmpBest.getState().isFeasible()) {
+                    retVal = c;
+                } else if (tmpMinimisation ? tmpCandidate.getValue() < tmpBest.getValue() : tmpCandidate.getValue() > tmpBest.getValue()) {
+                    retVal = c;
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+}
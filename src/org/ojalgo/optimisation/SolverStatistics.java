@@ -0,0 +1,391 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Structured solver telemetry. Set an instance as {@link Optimisation.Options#statistics} and all solvers
+ * using those options (incl. the node and heuristic sub-problems of the integer solver that share them)
+ * will count their events and time their phases here. Counting is done with {@link LongAdder}:s and is
+ * cheap enough to leave enabled. Registered listeners are only notified of every n:th occurrence of each
+ * event type, where n is the sampling interval.
+ *
+ * @author apete
+ */
+public final class SolverStatistics {
+
+    public static enum Event {
+
+        /**
+         * Integer solver: the relaxed (root node) bound. The value is the bound.
+         */
+        BOUND,
+        /**
+         * Active set solver: a constraint was excluded from the active set.
+         */
+        EXCLUDE,
+        /**
+         * Matrix factorisation/decomposition performed.
+         */
+        FACTORISATION,
+        /**
+         * Active set solver: a constraint was included in the active set.
+         */
+        INCLUDE,
+        /**
+         * A new (better) integer solution. The value is its objective function value.
+         */
+        INCUMBENT,
+        /**
+         * A completed solver iteration, as counted by {@link GenericSolver} (an active set iteration, a
+         * branch&amp;bound node...)
+         */
+        ITERATION,
+        /**
+         * Integer solver: a node was solved. The value is the node's objective function value (NaN if not
+         * solved to optimality).
+         */
+        NODE,
+        /**
+         * Integer solver: a node was branched on (2 new nodes created).
+         */
+        NODE_BRANCHED,
+        /**
+         * Integer solver: the node's subproblem was infeasible (or failed).
+         */
+        NODE_INFEASIBLE,
+        /**
+         * Integer solver: the node produced an integer solution.
+         */
+        NODE_INTEGER,
+        /**
+         * Integer solver: the node was pruned by bound.
+         */
+        NODE_PRUNED,
+        /**
+         * Simplex pivot.
+         */
+        PIVOT;
+
+    }
+
+    /**
+     * A histogram with power-of-2 buckets – bucket i counts recorded values in the range [2<sup>i</sup>,
+     * 2<sup>i+1</sup>), bucket 0 also includes 0 (negative values are recorded as 0). Recording is a couple
+     * of {@link LongAdder} increments.
+     */
+    public static final class Histogram {
+
+        private static final int BUCKETS = 64;
+
+        private final LongAdder[] myBuckets = new LongAdder[BUCKETS];
+        private final LongAdder mySum = new LongAdder();
+
+        Histogram() {
+
+            super();
+
+            for (int b = 0; b < BUCKETS; b++) {
+                myBuckets[b] = new LongAdder();
+            }
+        }
+
+        public long count() {
+            long retVal = 0L;
+            for (int b = 0; b < BUCKETS; b++) {
+                retVal += myBuckets[b].sum();
+            }
+            return retVal;
+        }
+
+        /**
+         * @return The number of recorded values in bucket b
+         */
+        public long count(final int b) {
+            return myBuckets[b].sum();
+        }
+
+        public double mean() {
+            final long tmpCount = this.count();
+            return tmpCount > 0L ? (double) this.sum() / tmpCount : ZERO;
+        }
+
+        /**
+         * @param probability [0,1]
+         * @return An upper bound estimate (the bucket's upper limit) of the quantile
+         */
+        public long quantile(final double probability) {
+
+            final long tmpCount = this.count();
+            final long tmpRank = (long) Math.ceil(probability * tmpCount);
+
+            long tmpAggregated = 0L;
+            for (int b = 0; b < BUCKETS; b++) {
+                tmpAggregated += myBuckets[b].sum();
+                if ((tmpAggregated >= tmpRank) && (tmpAggregated > 0L)) {
+                    return b < 62 ? (2L << b) - 1L : Long.MAX_VALUE;
+                }
+            }
+
+            return 0L;
+        }
+
+        public void record(final long value) {
+            final long tmpValue = Math.max(value, 0L);
+            myBuckets[tmpValue == 0L ? 0 : 63 - Long.numberOfLeadingZeros(tmpValue)].increment();
+            mySum.add(tmpValue);
+        }
+
+        public long sum() {
+            return mySum.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + this.count() + " sum=" + this.sum() + " p50=" + this.quantile(HALF) + " p99=" + this.quantile(0.99);
+        }
+
+        void reset() {
+            for (int b = 0; b < BUCKETS; b++) {
+                myBuckets[b].reset();
+            }
+            mySum.reset();
+        }
+
+    }
+
+    @FunctionalInterface
+    public static interface Listener {
+
+        /**
+         * Called (on the solver's thread) for every sampled event. Must be fast and thread safe – solvers may
+         * run in parallel.
+         *
+         * @param event The event type
+         * @param count The number of events of this type since the first listener was registered (or since
+         *        the last reset)
+         * @param value An event specific value, NaN if not applicable
+         */
+        void onEvent(Event event, long count, double value);
+
+    }
+
+    public static enum Phase {
+
+        /**
+         * Branch&amp;bound, the entire integer solver execution
+         */
+        BRANCH_AND_BOUND,
+        /**
+         * Convex (active set) solver, the iterations
+         */
+        CONVEX,
+        /**
+         * Each primal heuristic execution
+         */
+        HEURISTIC,
+        /**
+         * Integer solver: each node subproblem solve
+         */
+        NODE,
+        /**
+         * Simplex phase 1 – finding a feasible basis
+         */
+        SIMPLEX_PHASE1,
+        /**
+         * Simplex phase 2 – optimising
+         */
+        SIMPLEX_PHASE2;
+
+    }
+
+    private static final Event[] EVENTS = Event.values();
+    private static final Phase[] PHASES = Phase.values();
+
+    private final LongAdder[] myCounters = new LongAdder[EVENTS.length];
+    private final List<Listener> myListeners = new CopyOnWriteArrayList<>();
+    private final Histogram[] myPhases = new Histogram[PHASES.length];
+    private final long mySampling;
+    private final AtomicLong[] mySequences = new AtomicLong[EVENTS.length];
+    private volatile double myBound = NaN;
+    private volatile double myIncumbent = NaN;
+
+    /**
+     * Listeners are notified of every event.
+     */
+    public SolverStatistics() {
+        this(1);
+    }
+
+    /**
+     * @param sampling Listeners are notified of every n:th event (of each type)
+     */
+    public SolverStatistics(final int sampling) {
+
+        super();
+
+        if (sampling < 1) {
+            throw new IllegalArgumentException("The sampling interval must be >= 1!");
+        }
+        mySampling = sampling;
+
+        for (int e = 0; e < EVENTS.length; e++) {
+            myCounters[e] = new LongAdder();
+            mySequences[e] = new AtomicLong();
+        }
+        for (int p = 0; p < PHASES.length; p++) {
+            myPhases[p] = new Histogram();
+        }
+    }
+
+    public SolverStatistics addListener(final Listener listener) {
+        myListeners.add(listener);
+        return this;
+    }
+
+    public long count(final Event event) {
+        return myCounters[event.ordinal()].sum();
+    }
+
+    /**
+     * Plain name/value pairs of all counters, the latest bound/incumbent values and the phase timing
+     * histograms (in nanoseconds) – suitable to pass on to some metrics system.
+     */
+    public Map<String, Number> export() {
+
+        final Map<String, Number> retVal = new LinkedHashMap<>();
+
+        for (final Event tmpEvent : EVENTS) {
+            retVal.put(tmpEvent.name().toLowerCase(Locale.ENGLISH), this.count(tmpEvent));
+        }
+
+        retVal.put("bound.value", this.getBound());
+        retVal.put("incumbent.value", this.getIncumbent());
+        retVal.put("gap", this.getGap());
+
+        for (final Phase tmpPhase : PHASES) {
+            final Histogram tmpHistogram = this.getPhase(tmpPhase);
+            final String tmpPrefix = "time." + tmpPhase.name().toLowerCase(Locale.ENGLISH);
+            retVal.put(tmpPrefix + ".count", tmpHistogram.count());
+            retVal.put(tmpPrefix + ".nanos", tmpHistogram.sum());
+            retVal.put(tmpPrefix + ".p50", tmpHistogram.quantile(HALF));
+            retVal.put(tmpPrefix + ".p99", tmpHistogram.quantile(0.99));
+        }
+
+        return retVal;
+    }
+
+    /**
+     * @return The latest reported {@link Event#BOUND} value, NaN if none
+     */
+    public double getBound() {
+        return myBound;
+    }
+
+    /**
+     * @return The relative gap between the bound and the incumbent, NaN if either is missing
+     */
+    public double getGap() {
+        final double tmpBound = this.getBound();
+        final double tmpIncumbent = this.getIncumbent();
+        return Math.abs(tmpIncumbent - tmpBound) / Math.max(Math.abs(tmpIncumbent), ONE);
+    }
+
+    /**
+     * @return The latest reported {@link Event#INCUMBENT} value, NaN if none
+     */
+    public double getIncumbent() {
+        return myIncumbent;
+    }
+
+    /**
+     * @return Execution times in nanoseconds
+     */
+    public Histogram getPhase(final Phase phase) {
+        return myPhases[phase.ordinal()];
+    }
+
+    public boolean removeListener(final Listener listener) {
+        return myListeners.remove(listener);
+    }
+
+    /**
+     * Resets all counters, values and histograms, but keeps the listeners.
+     */
+    public void reset() {
+        for (int e = 0; e < EVENTS.length; e++) {
+            myCounters[e].reset();
+            mySequences[e].set(0L);
+        }
+        myBound = NaN;
+        myIncumbent = NaN;
+        for (int p = 0; p < PHASES.length; p++) {
+            myPhases[p].reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        final List<String> tmpEntries = new ArrayList<>();
+        for (final Map.Entry<String, Number> tmpEntry : this.export().entrySet()) {
+            tmpEntries.add(tmpEntry.getKey() + "=" + tmpEntry.getValue());
+        }
+        return tmpEntries.toString();
+    }
+
+    void event(final Event event, final double value) {
+
+        final int tmpOrdinal = event.ordinal();
+
+        myCounters[tmpOrdinal].increment();
+
+        if (event == Event.BOUND) {
+            myBound = value;
+        } else if (event == Event.INCUMBENT) {
+            myIncumbent = value;
+        }
+
+        if (!myListeners.isEmpty()) {
+            final long tmpCount = mySequences[tmpOrdinal].incrementAndGet();
+            if ((tmpCount % mySampling) == 0L) {
+                for (final Listener tmpListener : myListeners) {
+                    tmpListener.onEvent(event, tmpCount, value);
+                }
+            }
+        }
+    }
+
+    void time(final Phase phase, final long nanos) {
+        myPhases[phase.ordinal()].record(nanos);
+    }
+
+}
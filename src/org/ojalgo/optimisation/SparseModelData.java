@@ -0,0 +1,444 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.optimisation.MathProgSysModel.RowType;
+
+/**
+ * A primitive, sparse (coordinate format), representation of a linear model – what the file parsers
+ * produce. Row and column names are interned to int ids as they're read, and all numbers are kept as
+ * primitive doubles. Bounds are represented by ±infinity when not set.
+ *
+ * @author apete
+ */
+final class SparseModelData {
+
+    /**
+     * Interns names (byte sequences) to consecutive int ids using an open addressing hash table. The bytes
+     * are stored in a single pool, and String instances are only created on request.
+     */
+    static final class Names {
+
+        private int[] myHashes = new int[16];
+        private int[] myOffsets = new int[17];
+        private byte[] myPool = new byte[256];
+        private int mySize = 0;
+        private int[] myTable = new int[32];
+
+        Names() {
+            super();
+        }
+
+        /**
+         * @return The id, or -1 if the name is not (yet) known
+         */
+        int find(final byte[] array, final int start, final int end) {
+
+            final int tmpHash = Names.hash(array, start, end);
+            final int tmpMask = myTable.length - 1;
+
+            for (int s = tmpHash & tmpMask;; s = (s + 1) & tmpMask) {
+                final int tmpId = myTable[s] - 1;
+                if (tmpId < 0) {
+                    return -1;
+                } else if ((myHashes[tmpId] == tmpHash) && this.matches(tmpId, array, start, end)) {
+                    return tmpId;
+                }
+            }
+        }
+
+        int find(final String name) {
+            final byte[] tmpBytes = name.getBytes(StandardCharsets.UTF_8);
+            return this.find(tmpBytes, 0, tmpBytes.length);
+        }
+
+        int intern(final byte[] array, final int start, final int end) {
+
+            final int tmpHash = Names.hash(array, start, end);
+            int tmpMask = myTable.length - 1;
+
+            int tmpSlot = tmpHash & tmpMask;
+            for (; myTable[tmpSlot] != 0; tmpSlot = (tmpSlot + 1) & tmpMask) {
+                final int tmpId = myTable[tmpSlot] - 1;
+                if ((myHashes[tmpId] == tmpHash) && this.matches(tmpId, array, start, end)) {
+                    return tmpId;
+                }
+            }
+
+            final int retVal = mySize;
+            final int tmpLength = end - start;
+
+            if (retVal == myHashes.length) {
+                myHashes = Arrays.copyOf(myHashes, 2 * retVal);
+                myOffsets = Arrays.copyOf(myOffsets, (2 * retVal) + 1);
+            }
+            final int tmpOffset = myOffsets[retVal];
+            if ((tmpOffset + tmpLength) > myPool.length) {
+                myPool = Arrays.copyOf(myPool, Math.max(2 * myPool.length, tmpOffset + tmpLength));
+            }
+            System.arraycopy(array, start, myPool, tmpOffset, tmpLength);
+            myOffsets[retVal + 1] = tmpOffset + tmpLength;
+            myHashes[retVal] = tmpHash;
+            mySize++;
+
+            if ((2 * mySize) > myTable.length) {
+                myTable = new int[2 * myTable.length];
+                tmpMask = myTable.length - 1;
+                for (int i = 0; i < mySize; i++) {
+                    int s = myHashes[i] & tmpMask;
+                    while (myTable[s] != 0) {
+                        s = (s + 1) & tmpMask;
+                    }
+                    myTable[s] = i + 1;
+                }
+            } else {
+                myTable[tmpSlot] = retVal + 1;
+            }
+
+            return retVal;
+        }
+
+        int intern(final String name) {
+            final byte[] tmpBytes = name.getBytes(StandardCharsets.UTF_8);
+            return this.intern(tmpBytes, 0, tmpBytes.length);
+        }
+
+        String name(final int id) {
+            return new String(myPool, myOffsets[id], myOffsets[id + 1] - myOffsets[id], StandardCharsets.UTF_8);
+        }
+
+        int size() {
+            return mySize;
+        }
+
+        private boolean matches(final int id, final byte[] array, final int start, final int end) {
+            final int tmpOffset = myOffsets[id];
+            if ((myOffsets[id + 1] - tmpOffset) != (end - start)) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (myPool[(tmpOffset + i) - start] != array[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hash(final byte[] array, final int start, final int end) {
+            int retVal = 0x811C9DC5;
+            for (int i = start; i < end; i++) {
+                retVal = (retVal ^ array[i]) * 0x01000193;
+            }
+            return retVal ^ (retVal >>> 16);
+        }
+
+    }
+
+    /**
+     * Plain (not scientific) notation, without trailing zeros
+     */
+    static String toString(final BigDecimal value) {
+        BigDecimal tmpValue = value.stripTrailingZeros();
+        if (tmpValue.scale() < 0) {
+            tmpValue = tmpValue.setScale(0);
+        }
+        return tmpValue.toPlainString();
+    }
+
+    static BigDecimal toBigDecimal(final double value) {
+        return Double.isInfinite(value) || Double.isNaN(value) ? null : BigDecimal.valueOf(value);
+    }
+
+    private int[] myColumnIndices = new int[1024];
+    private boolean[] myColumnIntegers = new boolean[64];
+    private double[] myColumnLowers = new double[64];
+    private final Names myColumnNames = new Names();
+    private double[] myColumnUppers = new double[64];
+    private int myEntries = 0;
+    private double[] myEntryValues = new double[1024];
+    private boolean myMinimisation = true;
+    private String myName = null;
+    private int myObjective = -1;
+    private int[] myRowIndices = new int[1024];
+    private final Names myRowNames = new Names();
+    private double[] myRowRanges = new double[64];
+    private double[] myRowRHS = new double[64];
+    private RowType[] myRowTypes = new RowType[64];
+
+    SparseModelData() {
+        super();
+    }
+
+    /**
+     * The last value set for a (row, column) pair is the one that counts.
+     */
+    void addEntry(final int row, final int column, final double value) {
+        if (myEntries == myEntryValues.length) {
+            final int tmpCapacity = myEntries + (myEntries >> 1);
+            myRowIndices = Arrays.copyOf(myRowIndices, tmpCapacity);
+            myColumnIndices = Arrays.copyOf(myColumnIndices, tmpCapacity);
+            myEntryValues = Arrays.copyOf(myEntryValues, tmpCapacity);
+        }
+        myRowIndices[myEntries] = row;
+        myColumnIndices[myEntries] = column;
+        myEntryValues[myEntries] = value;
+        myEntries++;
+    }
+
+    /**
+     * Creates the objective/constraint expressions and the variables, in the order they were defined.
+     */
+    void build(final ExpressionsBasedModel model) {
+
+        model.setMinimisation(myMinimisation);
+
+        final int tmpNumberOfColumns = myColumnNames.size();
+        for (int j = 0; j < tmpNumberOfColumns; j++) {
+            final Variable tmpVariable = new Variable(myColumnNames.name(j));
+            tmpVariable.lower(SparseModelData.toBigDecimal(myColumnLowers[j]));
+            tmpVariable.upper(SparseModelData.toBigDecimal(myColumnUppers[j]));
+            tmpVariable.setInteger(myColumnIntegers[j]);
+            model.addVariable(tmpVariable);
+        }
+
+        final int tmpObjective = this.getObjective();
+
+        final int tmpNumberOfRows = myRowNames.size();
+        final Expression[] tmpExpressions = new Expression[tmpNumberOfRows];
+        for (int i = 0; i < tmpNumberOfRows; i++) {
+
+            final Expression tmpExpression = model.addExpression(myRowNames.name(i));
+
+            if (i == tmpObjective) {
+                tmpExpression.weight(ONE);
+            } else {
+                final double tmpRHS = myRowRHS[i];
+                final double tmpRange = myRowRanges[i];
+                switch (myRowTypes[i]) {
+                case E:
+                    if (tmpRange > ZERO) {
+                        tmpExpression.lower(SparseModelData.toBigDecimal(tmpRHS)).upper(SparseModelData.toBigDecimal(tmpRHS + tmpRange));
+                    } else if (tmpRange < ZERO) {
+                        tmpExpression.lower(SparseModelData.toBigDecimal(tmpRHS + tmpRange)).upper(SparseModelData.toBigDecimal(tmpRHS));
+                    } else {
+                        tmpExpression.level(SparseModelData.toBigDecimal(tmpRHS));
+                    }
+                    break;
+                case L:
+                    tmpExpression.upper(SparseModelData.toBigDecimal(tmpRHS));
+                    if (!Double.isNaN(tmpRange)) {
+                        tmpExpression.lower(SparseModelData.toBigDecimal(tmpRHS - PrimitiveFunction.ABS.invoke(tmpRange)));
+                    }
+                    break;
+                case G:
+                    tmpExpression.lower(SparseModelData.toBigDecimal(tmpRHS));
+                    if (!Double.isNaN(tmpRange)) {
+                        tmpExpression.upper(SparseModelData.toBigDecimal(tmpRHS + PrimitiveFunction.ABS.invoke(tmpRange)));
+                    }
+                    break;
+                default:
+                    break;
+                }
+            }
+
+            tmpExpressions[i] = tmpExpression;
+        }
+
+        for (int e = 0; e < myEntries; e++) {
+            tmpExpressions[myRowIndices[e]].set(myColumnIndices[e], BigDecimal.valueOf(myEntryValues[e]));
+        }
+    }
+
+    int countColumns() {
+        return myColumnNames.size();
+    }
+
+    int countEntries() {
+        return myEntries;
+    }
+
+    int countRows() {
+        return myRowNames.size();
+    }
+
+    int findColumn(final byte[] array, final int start, final int end) {
+        return myColumnNames.find(array, start, end);
+    }
+
+    int findRow(final byte[] array, final int start, final int end) {
+        return myRowNames.find(array, start, end);
+    }
+
+    int getColumn(final byte[] array, final int start, final int end) {
+
+        final int tmpBefore = myColumnNames.size();
+        final int retVal = myColumnNames.intern(array, start, end);
+
+        if (retVal == tmpBefore) {
+            if (retVal == myColumnLowers.length) {
+                final int tmpCapacity = 2 * retVal;
+                myColumnLowers = Arrays.copyOf(myColumnLowers, tmpCapacity);
+                myColumnUppers = Arrays.copyOf(myColumnUppers, tmpCapacity);
+                myColumnIntegers = Arrays.copyOf(myColumnIntegers, tmpCapacity);
+            }
+            myColumnLowers[retVal] = ZERO;
+            myColumnUppers[retVal] = POSITIVE_INFINITY;
+        }
+
+        return retVal;
+    }
+
+    int getColumn(final String name) {
+        final byte[] tmpBytes = name.getBytes(StandardCharsets.UTF_8);
+        return this.getColumn(tmpBytes, 0, tmpBytes.length);
+    }
+
+    double getColumnLower(final int column) {
+        return myColumnLowers[column];
+    }
+
+    double getColumnUpper(final int column) {
+        return myColumnUppers[column];
+    }
+
+    String getName() {
+        return myName;
+    }
+
+    /**
+     * @return The objective row; explicitly set or else the first N-row. -1 if there is none.
+     */
+    int getObjective() {
+        if (myObjective < 0) {
+            for (int i = 0, limit = myRowNames.size(); i < limit; i++) {
+                if (myRowTypes[i] == RowType.N) {
+                    return i;
+                }
+            }
+        }
+        return myObjective;
+    }
+
+    /**
+     * Rows are created when first referenced. The default right hand side is 0.0.
+     */
+    int getRow(final byte[] array, final int start, final int end, final RowType type) {
+
+        final int tmpBefore = myRowNames.size();
+        final int retVal = myRowNames.intern(array, start, end);
+
+        if (retVal == tmpBefore) {
+            if (retVal == myRowTypes.length) {
+                final int tmpCapacity = 2 * retVal;
+                myRowTypes = Arrays.copyOf(myRowTypes, tmpCapacity);
+                myRowRHS = Arrays.copyOf(myRowRHS, tmpCapacity);
+                myRowRanges = Arrays.copyOf(myRowRanges, tmpCapacity);
+            }
+            myRowTypes[retVal] = type;
+            myRowRHS[retVal] = ZERO;
+            myRowRanges[retVal] = NaN;
+        }
+
+        return retVal;
+    }
+
+    int getRow(final String name, final RowType type) {
+        final byte[] tmpBytes = name.getBytes(StandardCharsets.UTF_8);
+        return this.getRow(tmpBytes, 0, tmpBytes.length, type);
+    }
+
+    RowType getRowType(final int row) {
+        return myRowTypes[row];
+    }
+
+    boolean isColumnInteger(final int column) {
+        return myColumnIntegers[column];
+    }
+
+    boolean isMinimisation() {
+        return myMinimisation;
+    }
+
+    void setColumnInteger(final int column, final boolean integer) {
+        myColumnIntegers[column] = integer;
+    }
+
+    void setColumnLower(final int column, final double lower) {
+        myColumnLowers[column] = lower;
+    }
+
+    void setColumnUpper(final int column, final double upper) {
+        myColumnUppers[column] = upper;
+    }
+
+    void setMinimisation(final boolean minimisation) {
+        myMinimisation = minimisation;
+    }
+
+    void setName(final String name) {
+        myName = name;
+    }
+
+    void setObjective(final int row) {
+        myObjective = row;
+    }
+
+    void setRowLimits(final int row, final double lower, final double upper) {
+        if (lower == upper) {
+            myRowTypes[row] = RowType.E;
+            myRowRHS[row] = lower;
+            myRowRanges[row] = NaN;
+        } else if (Double.isInfinite(lower)) {
+            myRowTypes[row] = RowType.L;
+            myRowRHS[row] = upper;
+            myRowRanges[row] = NaN;
+        } else if (Double.isInfinite(upper)) {
+            myRowTypes[row] = RowType.G;
+            myRowRHS[row] = lower;
+            myRowRanges[row] = NaN;
+        } else {
+            myRowTypes[row] = RowType.L;
+            myRowRHS[row] = upper;
+            myRowRanges[row] = upper - lower;
+        }
+    }
+
+    void setRowRange(final int row, final double range) {
+        myRowRanges[row] = range;
+    }
+
+    void setRowRHS(final int row, final double rhs) {
+        myRowRHS[row] = rhs;
+    }
+
+    void setRowType(final int row, final RowType type) {
+        myRowTypes[row] = type;
+    }
+
+}
@@ -31,6 +31,7 @@ import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.optimisation.SolverStatistics.Event;
 import org.ojalgo.optimisation.linear.LinearSolver;
 import org.ojalgo.type.IndexSelector;
 import org.ojalgo.type.context.NumberContext;
@@ -112,6 +113,7 @@ abstract class ActiveSetSolver extends ConstrainedSolver {
 
     protected void exclude(final int anIndexToExclude) {
         myActivator.exclude(anIndexToExclude);
+        this.event(Event.EXCLUDE);
     }
 
     @Override
@@ -137,6 +139,7 @@ abstract class ActiveSetSolver extends ConstrainedSolver {
 
     protected void include(final int anIndexToInclude) {
         myActivator.include(anIndexToInclude);
+        this.event(Event.INCLUDE);
     }
 
     @Override
@@ -228,7 +231,7 @@ abstract class ActiveSetSolver extends ConstrainedSolver {
                 return false;
             } else {
                 // Only suggested to include
-                myActivator.include(tmpToInclude);
+                this.include(tmpToInclude);
                 this.setState(State.APPROXIMATE);
                 return true;
             }
@@ -239,7 +242,7 @@ abstract class ActiveSetSolver extends ConstrainedSolver {
                 return true;
             } else {
                 this.excludeAndRemove(tmpToExclude);
-                myActivator.include(tmpToInclude);
+                this.include(tmpToInclude);
                 this.setState(State.APPROXIMATE);
                 return true;
             }
@@ -52,6 +52,8 @@ import org.ojalgo.optimisation.Expression;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
 import org.ojalgo.optimisation.GenericSolver;
 import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.SolverStatistics.Event;
+import org.ojalgo.optimisation.SolverStatistics.Phase;
 import org.ojalgo.optimisation.Variable;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.type.context.NumberContext;
@@ -440,12 +442,36 @@ public abstract class ConvexSolver extends GenericSolver {
 
     public static final class ModelIntegration extends ExpressionsBasedModel.Integration<ConvexSolver> {
 
+        private final boolean myDirect;
+
+        public ModelIntegration() {
+            this(false);
+        }
+
+        /**
+         * @param direct If true, and the model has inequality constraints, the active set solver will solve
+         *        each iteration's KKT system directly rather than iteratively.
+         */
+        public ModelIntegration(final boolean direct) {
+            super();
+            myDirect = direct;
+        }
+
         public ConvexSolver build(final ExpressionsBasedModel model) {
 
             final ConvexSolver.Builder tmpBuilder = ConvexSolver.getBuilder();
 
             ConvexSolver.copy(model, tmpBuilder);
 
+            if (myDirect && tmpBuilder.hasInequalityConstraints()) {
+                tmpBuilder.validate();
+                if (tmpBuilder.hasEqualityConstraints()) {
+                    return new DirectMixedASS(tmpBuilder, model.options);
+                } else {
+                    return new DirectPureASS(tmpBuilder, model.options);
+                }
+            }
+
             return tmpBuilder.build(model.options);
         }
 
@@ -661,6 +687,8 @@ public abstract class ConvexSolver extends GenericSolver {
 
             this.resetIterationsCount();
 
+            final long tmpStart = this.time();
+
             do {
 
                 this.performIteration();
@@ -668,6 +696,8 @@ public abstract class ConvexSolver extends GenericSolver {
                 this.incrementIterationsCount();
 
             } while (!this.getState().isFailure() && this.needsAnotherIteration() && this.isIterationAllowed());
+
+            this.time(Phase.CONVEX, tmpStart);
         }
 
         return this.buildResult();
@@ -679,10 +709,12 @@ public abstract class ConvexSolver extends GenericSolver {
     }
 
     protected boolean computeGeneral(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        this.event(Event.FACTORISATION);
         return mySolverGeneral.compute(matrix);
     }
 
     protected boolean computeQ(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        this.event(Event.FACTORISATION);
         return mySolverQ.compute(matrix);
     }
 
@@ -0,0 +1,619 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+import static org.ojalgo.function.PrimitiveFunction.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.ojalgo.access.IntIndex;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Variable;
+import org.ojalgo.type.TypeUtils;
+
+/**
+ * Predefined primal heuristics for the {@link IntegerSolver}.
+ *
+ * @author apete
+ */
+public abstract class Heuristics {
+
+    /**
+     * Primitive copy of a model's (linear) constraints, used to quickly evaluate and repair candidate
+     * solutions.
+     */
+    static final class LinearRows {
+
+        static LinearRows make(final ExpressionsBasedModel model) {
+
+            final List<Expression> tmpConstraints = model.constraints().collect(Collectors.toList());
+
+            for (final Expression tmpConstraint : tmpConstraints) {
+                if (tmpConstraint.isAnyQuadraticFactorNonZero()) {
+                    return null;
+                }
+            }
+
+            return new LinearRows(model, tmpConstraints);
+        }
+
+        final int[][] columns;
+        final double[][] factors;
+        final double[] lower;
+        final double[] upper;
+        final int[][] rowsOfColumn;
+        final double[][] factorsOfColumn;
+
+        private LinearRows(final ExpressionsBasedModel model, final List<Expression> constraints) {
+
+            super();
+
+            final int tmpNumberOfRows = constraints.size();
+            final int tmpNumberOfColumns = model.countVariables();
+
+            columns = new int[tmpNumberOfRows][];
+            factors = new double[tmpNumberOfRows][];
+            lower = new double[tmpNumberOfRows];
+            upper = new double[tmpNumberOfRows];
+
+            final int[] tmpCounts = new int[tmpNumberOfColumns];
+
+            for (int r = 0; r < tmpNumberOfRows; r++) {
+
+                final Expression tmpConstraint = constraints.get(r);
+
+                final int tmpSize = tmpConstraint.getLinearKeySet().size();
+                columns[r] = new int[tmpSize];
+                factors[r] = new double[tmpSize];
+
+                int i = 0;
+                for (final Entry<IntIndex, BigDecimal> tmpEntry : tmpConstraint.getLinearEntrySet()) {
+                    final int tmpColumn = tmpEntry.getKey().index;
+                    columns[r][i] = tmpColumn;
+                    factors[r][i] = tmpEntry.getValue().doubleValue();
+                    tmpCounts[tmpColumn]++;
+                    i++;
+                }
+
+                lower[r] = Heuristics.getLowerLimit(tmpConstraint.getLowerLimit());
+                upper[r] = Heuristics.getUpperLimit(tmpConstraint.getUpperLimit());
+            }
+
+            rowsOfColumn = new int[tmpNumberOfColumns][];
+            factorsOfColumn = new double[tmpNumberOfColumns][];
+            for (int c = 0; c < tmpNumberOfColumns; c++) {
+                rowsOfColumn[c] = new int[tmpCounts[c]];
+                factorsOfColumn[c] = new double[tmpCounts[c]];
+                tmpCounts[c] = 0;
+            }
+
+            for (int r = 0; r < tmpNumberOfRows; r++) {
+                for (int i = 0; i < columns[r].length; i++) {
+                    final int tmpColumn = columns[r][i];
+                    rowsOfColumn[tmpColumn][tmpCounts[tmpColumn]] = r;
+                    factorsOfColumn[tmpColumn][tmpCounts[tmpColumn]] = factors[r][i];
+                    tmpCounts[tmpColumn]++;
+                }
+            }
+        }
+
+        double[] activity(final double[] point) {
+
+            final double[] retVal = new double[columns.length];
+
+            for (int r = 0; r < retVal.length; r++) {
+                double tmpSum = ZERO;
+                for (int i = 0; i < columns[r].length; i++) {
+                    tmpSum += factors[r][i] * point[columns[r][i]];
+                }
+                retVal[r] = tmpSum;
+            }
+
+            return retVal;
+        }
+
+        /**
+         * The change in total violation, of the rows including this column, if the column's value is
+         * changed by delta.
+         */
+        double change(final double[] activity, final int column, final double delta) {
+
+            double retVal = ZERO;
+
+            final int[] tmpRows = rowsOfColumn[column];
+            final double[] tmpFactors = factorsOfColumn[column];
+
+            for (int i = 0; i < tmpRows.length; i++) {
+                final int tmpRow = tmpRows[i];
+                final double tmpActivity = activity[tmpRow];
+                retVal += this.violation(tmpRow, tmpActivity + (tmpFactors[i] * delta)) - this.violation(tmpRow, tmpActivity);
+            }
+
+            return retVal;
+        }
+
+        void update(final double[] activity, final int column, final double delta) {
+
+            final int[] tmpRows = rowsOfColumn[column];
+            final double[] tmpFactors = factorsOfColumn[column];
+
+            for (int i = 0; i < tmpRows.length; i++) {
+                activity[tmpRows[i]] += tmpFactors[i] * delta;
+            }
+        }
+
+        double violation(final double[] activity) {
+
+            double retVal = ZERO;
+
+            for (int r = 0; r < activity.length; r++) {
+                retVal += this.violation(r, activity[r]);
+            }
+
+            return retVal;
+        }
+
+        double violation(final int row, final double activity) {
+
+            final double tmpTolerance = FEASIBILITY_TOLERANCE * (ONE + ABS.invoke(activity));
+
+            if (activity < (lower[row] - tmpTolerance)) {
+                return lower[row] - activity;
+            } else if (activity > (upper[row] + tmpTolerance)) {
+                return activity - upper[row];
+            } else {
+                return ZERO;
+            }
+        }
+
+    }
+
+    /**
+     * Repeatedly fix the integer variable "closest" to an integer value and resolve the LP relaxation. If
+     * guided the variable with a value closest to the incumbent is fixed at the incumbent value. On
+     * infeasibility the last fixing is reversed once before giving up.
+     */
+    static final class Diving extends IntegerSolver.Heuristic {
+
+        private final boolean myGuided;
+
+        Diving(final boolean guided) {
+            super(guided);
+            myGuided = guided;
+        }
+
+        @Override
+        public Optimisation.Result search(final IntegerSolver.HeuristicContext context) {
+
+            final ExpressionsBasedModel tmpModel = context.getModel();
+            final int[] tmpIntegers = Heuristics.getIntegerIndices(tmpModel);
+            final Optimisation.Result tmpIncumbent = context.getIncumbent();
+
+            if (myGuided && (tmpIncumbent == null)) {
+                return null;
+            }
+
+            final double[] tmpFixings = new double[tmpIntegers.length];
+            Arrays.fill(tmpFixings, NaN);
+
+            Optimisation.Result retVal = context.getRelaxed();
+
+            for (int d = 0; (d <= tmpIntegers.length) && !context.isStopped(); d++) {
+
+                int tmpSelected = -1;
+                double tmpTarget = NaN;
+                double tmpMinScore = POSITIVE_INFINITY;
+
+                for (int i = 0; i < tmpIntegers.length; i++) {
+                    if (Double.isNaN(tmpFixings[i])) {
+
+                        final double tmpValue = retVal.doubleValue(tmpIntegers[i]);
+                        final double tmpRounded = RINT.invoke(tmpValue);
+
+                        if (!context.getOptions().integer.isZero(tmpValue - tmpRounded)) {
+
+                            final double tmpCandidate = myGuided ? tmpIncumbent.doubleValue(tmpIntegers[i]) : tmpRounded;
+                            final double tmpScore = ABS.invoke(tmpValue - tmpCandidate);
+
+                            if (tmpScore < tmpMinScore) {
+                                tmpSelected = i;
+                                tmpTarget = tmpCandidate;
+                                tmpMinScore = tmpScore;
+                            }
+                        }
+                    }
+                }
+
+                if (tmpSelected < 0) {
+                    return retVal;
+                }
+
+                final double tmpValue = retVal.doubleValue(tmpIntegers[tmpSelected]);
+
+                tmpFixings[tmpSelected] = tmpTarget;
+                Optimisation.Result tmpNext = Heuristics.solveFixed(tmpModel, tmpIntegers, tmpFixings, context.getIncumbent(), retVal);
+
+                if (!tmpNext.getState().isFeasible()) {
+                    tmpFixings[tmpSelected] = tmpTarget > tmpValue ? FLOOR.invoke(tmpValue) : CEIL.invoke(tmpValue);
+                    tmpNext = Heuristics.solveFixed(tmpModel, tmpIntegers, tmpFixings, context.getIncumbent(), retVal);
+                }
+
+                if (!tmpNext.getState().isFeasible()) {
+                    return null;
+                }
+
+                retVal = tmpNext;
+            }
+
+            return null;
+        }
+
+    }
+
+    /**
+     * Round each integer variable to the nearest integer value (within its bounds).
+     */
+    public static final IntegerSolver.Heuristic SIMPLE_ROUNDING = new IntegerSolver.Heuristic(false) {
+
+        @Override
+        public Optimisation.Result search(final IntegerSolver.HeuristicContext context) {
+
+            final ExpressionsBasedModel tmpModel = context.getModel();
+            final double[] tmpPoint = Heuristics.toArray(context.getRelaxed());
+
+            for (final int tmpIndex : Heuristics.getIntegerIndices(tmpModel)) {
+                tmpPoint[tmpIndex] = Heuristics.round(tmpModel.getVariable(tmpIndex), RINT.invoke(tmpPoint[tmpIndex]));
+            }
+
+            return new Optimisation.Result(Optimisation.State.APPROXIMATE, Primitive64Array.wrap(tmpPoint));
+        }
+
+    };
+
+    /**
+     * Round each fractional integer variable in the direction that causes the least constraint violation,
+     * then try to repair any remaining violation by shifting integer variables one unit at the time.
+     */
+    public static final IntegerSolver.Heuristic SHIFT_ROUNDING = new IntegerSolver.Heuristic(false) {
+
+        @Override
+        public Optimisation.Result search(final IntegerSolver.HeuristicContext context) {
+
+            final ExpressionsBasedModel tmpModel = context.getModel();
+            final LinearRows tmpRows = LinearRows.make(tmpModel);
+
+            if (tmpRows == null) {
+                return null;
+            }
+
+            final int[] tmpIntegers = Heuristics.getIntegerIndices(tmpModel);
+            final double[] tmpPoint = Heuristics.toArray(context.getRelaxed());
+            final double[] tmpActivity = tmpRows.activity(tmpPoint);
+
+            for (final int tmpIndex : tmpIntegers) {
+
+                final Variable tmpVariable = tmpModel.getVariable(tmpIndex);
+                final double tmpValue = tmpPoint[tmpIndex];
+
+                final double tmpDown = Heuristics.round(tmpVariable, FLOOR.invoke(tmpValue)) - tmpValue;
+                final double tmpUp = Heuristics.round(tmpVariable, CEIL.invoke(tmpValue)) - tmpValue;
+
+                if ((tmpDown != ZERO) || (tmpUp != ZERO)) {
+
+                    final double tmpDownChange = tmpRows.change(tmpActivity, tmpIndex, tmpDown);
+                    final double tmpUpChange = tmpRows.change(tmpActivity, tmpIndex, tmpUp);
+
+                    final double tmpDelta;
+                    if (tmpDownChange < tmpUpChange) {
+                        tmpDelta = tmpDown;
+                    } else if (tmpUpChange < tmpDownChange) {
+                        tmpDelta = tmpUp;
+                    } else {
+                        tmpDelta = -tmpDown < tmpUp ? tmpDown : tmpUp;
+                    }
+
+                    tmpPoint[tmpIndex] += tmpDelta;
+                    tmpRows.update(tmpActivity, tmpIndex, tmpDelta);
+                }
+            }
+
+            for (int s = 0; (s < tmpIntegers.length) && (tmpRows.violation(tmpActivity) > ZERO) && !context.isStopped(); s++) {
+
+                int tmpBestIndex = -1;
+                double tmpBestDelta = ZERO;
+                double tmpBestChange = ZERO;
+
+                for (final int tmpIndex : tmpIntegers) {
+
+                    final Variable tmpVariable = tmpModel.getVariable(tmpIndex);
+
+                    for (double tmpDelta = -ONE; tmpDelta <= ONE; tmpDelta += TWO) {
+                        if (Heuristics.round(tmpVariable, tmpPoint[tmpIndex] + tmpDelta) == (tmpPoint[tmpIndex] + tmpDelta)) {
+                            final double tmpChange = tmpRows.change(tmpActivity, tmpIndex, tmpDelta);
+                            if (tmpChange < tmpBestChange) {
+                                tmpBestIndex = tmpIndex;
+                                tmpBestDelta = tmpDelta;
+                                tmpBestChange = tmpChange;
+                            }
+                        }
+                    }
+                }
+
+                if (tmpBestIndex < 0) {
+                    return null;
+                }
+
+                tmpPoint[tmpBestIndex] += tmpBestDelta;
+                tmpRows.update(tmpActivity, tmpBestIndex, tmpBestDelta);
+            }
+
+            return new Optimisation.Result(Optimisation.State.APPROXIMATE, Primitive64Array.wrap(tmpPoint));
+        }
+
+    };
+
+    public static final IntegerSolver.Heuristic FRACTIONAL_DIVING = new Diving(false);
+
+    public static final IntegerSolver.Heuristic GUIDED_DIVING = new Diving(true);
+
+    /**
+     * The feasibility pump alternates between rounding the LP solution and finding the LP feasible point
+     * closest (L1-distance measured on the integer variables at their bounds) to that rounded point. Cycles
+     * are broken by flipping the variables that are furthest from their rounded value.
+     */
+    public static final IntegerSolver.Heuristic FEASIBILITY_PUMP = new IntegerSolver.Heuristic(false) {
+
+        @Override
+        public Optimisation.Result search(final IntegerSolver.HeuristicContext context) {
+
+            final ExpressionsBasedModel tmpModel = context.getModel();
+            final int[] tmpIntegers = Heuristics.getIntegerIndices(tmpModel);
+            final LinearRows tmpRows = LinearRows.make(tmpModel);
+
+            if (tmpIntegers.length == 0) {
+                return null;
+            }
+
+            final Random tmpRandom = new Random(tmpIntegers.length);
+
+            Optimisation.Result tmpPoint = context.getRelaxed();
+            final double[] tmpRounded = new double[tmpIntegers.length];
+            for (int i = 0; i < tmpIntegers.length; i++) {
+                tmpRounded[i] = Heuristics.round(tmpModel.getVariable(tmpIntegers[i]), RINT.invoke(tmpPoint.doubleValue(tmpIntegers[i])));
+            }
+
+            for (int k = 0; (k < PUMP_ITERATIONS) && !context.isStopped(); k++) {
+
+                final double[] tmpCandidate = Heuristics.toArray(tmpPoint);
+                for (int i = 0; i < tmpIntegers.length; i++) {
+                    tmpCandidate[tmpIntegers[i]] = tmpRounded[i];
+                }
+                if ((tmpRows != null) && (tmpRows.violation(tmpRows.activity(tmpCandidate)) == ZERO)) {
+                    return new Optimisation.Result(Optimisation.State.APPROXIMATE, Primitive64Array.wrap(tmpCandidate));
+                }
+
+                final ExpressionsBasedModel tmpDistanceModel = tmpModel.relax(false);
+                for (final Variable tmpVariable : tmpDistanceModel.getVariables()) {
+                    tmpVariable.weight(null);
+                }
+                for (final Expression tmpExpression : tmpDistanceModel.getExpressions()) {
+                    tmpExpression.weight(null);
+                }
+                for (int i = 0; i < tmpIntegers.length; i++) {
+                    final Variable tmpVariable = tmpDistanceModel.getVariable(tmpIntegers[i]);
+                    if (tmpVariable.isLowerLimitSet() && (tmpRounded[i] <= tmpVariable.getLowerLimit().doubleValue())) {
+                        tmpVariable.weight(ONE);
+                    } else if (tmpVariable.isUpperLimitSet() && (tmpRounded[i] >= tmpVariable.getUpperLimit().doubleValue())) {
+                        tmpVariable.weight(NEG);
+                    }
+                }
+                tmpDistanceModel.setMinimisation();
+
+                tmpPoint = tmpDistanceModel.solve(tmpPoint);
+                if (!tmpPoint.getState().isFeasible()) {
+                    return null;
+                }
+
+                boolean tmpCycle = true;
+                final double[] tmpDistances = new double[tmpIntegers.length];
+                for (int i = 0; i < tmpIntegers.length; i++) {
+                    final double tmpValue = tmpPoint.doubleValue(tmpIntegers[i]);
+                    final double tmpNewRounded = Heuristics.round(tmpModel.getVariable(tmpIntegers[i]), RINT.invoke(tmpValue));
+                    tmpCycle &= tmpNewRounded == tmpRounded[i];
+                    tmpRounded[i] = tmpNewRounded;
+                    tmpDistances[i] = ABS.invoke(tmpValue - tmpNewRounded);
+                }
+
+                if (tmpCycle) {
+                    final int tmpFlips = 1 + tmpRandom.nextInt(1 + (tmpIntegers.length / 10));
+                    for (int f = 0; f < tmpFlips; f++) {
+                        int tmpFurthest = -1;
+                        for (int i = 0; i < tmpIntegers.length; i++) {
+                            if ((tmpDistances[i] > ZERO) && ((tmpFurthest < 0) || (tmpDistances[i] > tmpDistances[tmpFurthest]))) {
+                                tmpFurthest = i;
+                            }
+                        }
+                        if (tmpFurthest >= 0) {
+                            final Variable tmpVariable = tmpModel.getVariable(tmpIntegers[tmpFurthest]);
+                            final double tmpValue = tmpPoint.doubleValue(tmpIntegers[tmpFurthest]);
+                            final double tmpFlipped = tmpRounded[tmpFurthest] > tmpValue ? FLOOR.invoke(tmpValue) : CEIL.invoke(tmpValue);
+                            tmpRounded[tmpFurthest] = Heuristics.round(tmpVariable, tmpFlipped);
+                            tmpDistances[tmpFurthest] = ZERO;
+                        }
+                    }
+                }
+            }
+
+            if (context.isStopped()) {
+                return null;
+            }
+
+            final Optimisation.Result retVal = Heuristics.solveFixed(tmpModel, tmpIntegers, tmpRounded, null, tmpPoint);
+
+            return retVal.getState().isFeasible() ? retVal : null;
+        }
+
+    };
+
+    /**
+     * Relaxation Induced Neighbourhood Search: Fix the integer variables that have the same value in the
+     * incumbent and the root node relaxation, and solve the remaining (smaller) sub-MIP with a node limit.
+     */
+    public static final IntegerSolver.Heuristic RINS = new IntegerSolver.Heuristic(true) {
+
+        @Override
+        public Optimisation.Result search(final IntegerSolver.HeuristicContext context) {
+
+            final Optimisation.Result tmpIncumbent = context.getIncumbent();
+
+            if (tmpIncumbent == null) {
+                return null;
+            }
+
+            final ExpressionsBasedModel tmpModel = context.getModel();
+            final Optimisation.Result tmpRelaxed = context.getRelaxed();
+            final int[] tmpIntegers = Heuristics.getIntegerIndices(tmpModel);
+
+            final ExpressionsBasedModel tmpSubModel = tmpModel.copy();
+
+            int tmpFixed = 0;
+            for (final int tmpIndex : tmpIntegers) {
+                final double tmpIncumbentValue = tmpIncumbent.doubleValue(tmpIndex);
+                if (context.getOptions().integer.isZero(tmpIncumbentValue - tmpRelaxed.doubleValue(tmpIndex))) {
+                    tmpSubModel.getVariable(tmpIndex).level(RINT.invoke(tmpIncumbentValue));
+                    tmpFixed++;
+                }
+            }
+
+            if ((tmpFixed < (RINS_MINIMUM_FIXED * tmpIntegers.length)) || (tmpFixed == tmpIntegers.length) || context.isStopped()) {
+                return null;
+            }
+
+            final Optimisation.Options tmpOptions = context.getOptions().copy();
+            tmpOptions.iterations_abort = RINS_NODES;
+            tmpOptions.statistics = null; // The sub-MIP's nodes and bounds are not those of the actual search
+
+            final IntegerSolver tmpSubSolver = IntegerSolver.makeWithoutHeuristics(tmpSubModel, tmpOptions);
+            final Optimisation.Result retVal = tmpSubSolver.solve(tmpIncumbent);
+            tmpSubSolver.dispose();
+
+            return retVal.getState().isFeasible() ? retVal : null;
+        }
+
+    };
+
+    static final double FEASIBILITY_TOLERANCE = 1.0E-9;
+    static final int PUMP_ITERATIONS = 64;
+    /**
+     * RINS is only attempted if at least this share of the integer variables can be fixed.
+     */
+    static final double RINS_MINIMUM_FIXED = HALF;
+    /**
+     * Node limit for the RINS sub-MIP
+     */
+    static final int RINS_NODES = 500;
+
+    static int[] getIntegerIndices(final ExpressionsBasedModel model) {
+
+        final List<Variable> tmpIntegerVariables = model.getIntegerVariables();
+
+        final int[] retVal = new int[tmpIntegerVariables.size()];
+
+        for (int i = 0; i < retVal.length; i++) {
+            retVal[i] = model.indexOf(tmpIntegerVariables.get(i));
+        }
+
+        return retVal;
+    }
+
+    static double getLowerLimit(final BigDecimal limit) {
+        return limit != null ? limit.doubleValue() : NEGATIVE_INFINITY;
+    }
+
+    static double getUpperLimit(final BigDecimal limit) {
+        return limit != null ? limit.doubleValue() : POSITIVE_INFINITY;
+    }
+
+    /**
+     * Make sure an integer value is within the variable's bounds.
+     */
+    static double round(final Variable variable, final double value) {
+        final double tmpLower = CEIL.invoke(Heuristics.getLowerLimit(variable.getLowerLimit()));
+        final double tmpUpper = FLOOR.invoke(Heuristics.getUpperLimit(variable.getUpperLimit()));
+        return MIN.invoke(MAX.invoke(value, tmpLower), tmpUpper);
+    }
+
+    /**
+     * Solve the relaxed model with (some of) the integer variables fixed.
+     *
+     * @param fixings Fixed values for the integer variables, NaN means not fixed
+     * @param incumbent If not null the objective function is limited to be better than this
+     */
+    static Optimisation.Result solveFixed(final ExpressionsBasedModel model, final int[] integers, final double[] fixings,
+            final Optimisation.Result incumbent, final Optimisation.Result initial) {
+
+        final ExpressionsBasedModel tmpRelaxedModel = model.relax(false);
+
+        for (int i = 0; i < integers.length; i++) {
+            if (!Double.isNaN(fixings[i])) {
+                tmpRelaxedModel.getVariable(integers[i]).level(fixings[i]);
+            }
+        }
+
+        if (incumbent != null) {
+            final double tmpBestValue = incumbent.getValue();
+            final double tmpGap = ABS.invoke(tmpBestValue * model.options.mip_gap);
+            if (tmpRelaxedModel.isMinimisation()) {
+                tmpRelaxedModel.limitObjective(null, TypeUtils.toBigDecimal(tmpBestValue - tmpGap, model.options.problem));
+            } else {
+                tmpRelaxedModel.limitObjective(TypeUtils.toBigDecimal(tmpBestValue + tmpGap, model.options.problem), null);
+            }
+        }
+
+        return tmpRelaxedModel.solve(initial);
+    }
+
+    static double[] toArray(final Optimisation.Result result) {
+
+        final double[] retVal = new double[(int) result.count()];
+
+        for (int i = 0; i < retVal.length; i++) {
+            retVal[i] = result.doubleValue(i);
+        }
+
+        return retVal;
+    }
+
+    protected Heuristics() {
+        super();
+    }
+
+}
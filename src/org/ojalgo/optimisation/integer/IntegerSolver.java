@@ -21,22 +21,130 @@
  */
 package org.ojalgo.optimisation.integer;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.ojalgo.OjAlgoUtils;
 import org.ojalgo.access.Access1D;
+import org.ojalgo.concurrent.DaemonPoolExecutor;
 import org.ojalgo.function.PrimitiveFunction;
 import org.ojalgo.function.multiary.MultiaryFunction;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
 import org.ojalgo.optimisation.GenericSolver;
 import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.SolverStatistics.Event;
+import org.ojalgo.optimisation.SolverStatistics.Phase;
+import org.ojalgo.optimisation.Variable;
 
 public abstract class IntegerSolver extends GenericSolver {
 
+    /**
+     * A primal heuristic tries to find (better) integer solutions without exploring the branch&bound tree.
+     * Heuristics are executed concurrently with the tree search, and any solution they find is used as an
+     * incumbent to prune the tree. None are used unless registered with
+     * {@link IntegerSolver#addHeuristic(Heuristic)}.
+     */
+    public static abstract class Heuristic {
+
+        private final boolean myIncumbentRequired;
+
+        /**
+         * @param incumbentRequired If true the heuristic will only be executed when/if an integer solution
+         *        (incumbent) exists, and then re-executed whenever that incumbent is improved upon.
+         */
+        protected Heuristic(final boolean incumbentRequired) {
+            super();
+            myIncumbentRequired = incumbentRequired;
+        }
+
+        public final boolean isIncumbentRequired() {
+            return myIncumbentRequired;
+        }
+
+        /**
+         * @param context Access to the model, the root node relaxation and the incumbent
+         * @return A candidate integer solution, or null if none was found. Any returned solution is verified
+         *         (integrality and feasibility) before it is used.
+         */
+        public abstract Optimisation.Result search(IntegerSolver.HeuristicContext context);
+
+    }
+
+    /**
+     * What a {@link Heuristic} gets to work with.
+     */
+    public final class HeuristicContext {
+
+        private final ExpressionsBasedModel myHeuristicModel;
+        private final Optimisation.Result myRelaxedResult;
+
+        HeuristicContext(final ExpressionsBasedModel model, final Optimisation.Result relaxed) {
+
+            super();
+
+            myHeuristicModel = model;
+            myRelaxedResult = relaxed;
+        }
+
+        /**
+         * @return The best integer solution found so far, or null
+         */
+        public Optimisation.Result getIncumbent() {
+            return myBestResultSoFar;
+        }
+
+        /**
+         * @return A private copy of the integer model. It is shared among the heuristics and must not be
+         *         modified – create (relaxed) copies of it.
+         */
+        public ExpressionsBasedModel getModel() {
+            return myHeuristicModel;
+        }
+
+        public Optimisation.Options getOptions() {
+            return options;
+        }
+
+        /**
+         * @return The solution to the root node LP/QP relaxation
+         */
+        public Optimisation.Result getRelaxed() {
+            return myRelaxedResult;
+        }
+
+        /**
+         * Long running heuristics should check this regularly and give up when it returns true.
+         */
+        public boolean isStopped() {
+            return myHeuristicsStopped || Thread.currentThread().isInterrupted();
+        }
+
+    }
+
     public static final class ModelIntegration extends ExpressionsBasedModel.Integration<IntegerSolver> {
 
+        private final boolean myBestFirst;
+
+        public ModelIntegration() {
+            this(true);
+        }
+
+        /**
+         * @param bestFirst If true the nodes are explored in best bound/estimate order (by
+         *        {@link NewIntegerSolver}), otherwise depth first (by {@link OldIntegerSolver}).
+         */
+        public ModelIntegration(final boolean bestFirst) {
+            super();
+            myBestFirst = bestFirst;
+        }
+
         public IntegerSolver build(final ExpressionsBasedModel model) {
-            return IntegerSolver.make(model);
+            return myBestFirst ? IntegerSolver.make(model) : new OldIntegerSolver(model, model.options);
         }
 
         public boolean isCapable(final ExpressionsBasedModel model) {
@@ -146,19 +254,66 @@ public abstract class IntegerSolver extends GenericSolver {
 
     }
 
+    /**
+     * Heuristics are opt-in – none are registered by default. The registry may be modified concurrently with
+     * solvers being created; each solver works with a snapshot taken when it is instantiated.
+     */
+    private static final List<Heuristic> HEURISTICS = new CopyOnWriteArrayList<>();
+
+    /**
+     * Shared by all solvers. Each solver executes its heuristics sequentially, as one task, so at most this
+     * many heuristics run at the same time regardless of how many solvers there are.
+     */
+    private static final DaemonPoolExecutor HEURISTICS_EXECUTOR = DaemonPoolExecutor.makeFixed(Math.max(1, OjAlgoUtils.ENVIRONMENT.threads / 2));
+
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+
+    public static boolean addHeuristic(final Heuristic heuristic) {
+        return HEURISTICS.add(heuristic);
+    }
+
+    public static void clearHeuristics() {
+        HEURISTICS.clear();
+    }
+
+    /**
+     * @return A best bound/estimate first solver with reliability branching ({@link NewIntegerSolver})
+     */
     public static IntegerSolver make(final ExpressionsBasedModel model) {
-        return new OldIntegerSolver(model, model.options);
-        //return new NewIntegerSolver(model, model.options);
+        return new NewIntegerSolver(model, model.options);
+    }
+
+    public static boolean removeHeuristic(final Heuristic heuristic) {
+        return HEURISTICS.remove(heuristic);
+    }
+
+    /**
+     * A solver that does not execute any heuristics – used by heuristics that solve sub-MIP:s.
+     */
+    static IntegerSolver makeWithoutHeuristics(final ExpressionsBasedModel model, final Options solverOptions) {
+        final IntegerSolver retVal = new OldIntegerSolver(model, solverOptions);
+        retVal.myHeuristics.clear();
+        return retVal;
     }
 
     private volatile Optimisation.Result myBestResultSoFar = null;
 
     private final MultiaryFunction.TwiceDifferentiable<Double> myFunction;
+    private volatile HeuristicContext myHeuristicContext = null;
+    private CountDownLatch myHeuristicsDone = null;
+    private final List<Heuristic> myHeuristics = new ArrayList<>(HEURISTICS);
+    private final AtomicInteger myHeuristicsState = new AtomicInteger(DONE);
+    private volatile boolean myHeuristicsStopped = false;
+    private Future<?> myHeuristicsTask = null;
     private final AtomicInteger myIntegerSolutionsCount = new AtomicInteger();
     private final boolean myMinimisation;
     private final ExpressionsBasedModel myModel;
 
     private final NodeStatistics myNodeStatistics = new NodeStatistics();
+    private final List<IntegerSolver> myPeers = new CopyOnWriteArrayList<>();
+    private final PseudoCosts myPseudoCosts;
 
     protected IntegerSolver(final ExpressionsBasedModel model, final Options solverOptions) {
 
@@ -168,6 +323,22 @@ public abstract class IntegerSolver extends GenericSolver {
         myFunction = model.objective().toFunction();
 
         myMinimisation = model.isMinimisation();
+
+        myPseudoCosts = new PseudoCosts(model.getIntegerVariables().size());
+    }
+
+    /**
+     * Improved integer solutions found by this solver are passed on to the peer (call it on both solvers to
+     * share incumbents both ways). The peer must solve the same model. Used when racing several integer
+     * solvers – a better incumbent from any one of them tightens the bound used to prune nodes in all of
+     * them.
+     */
+    public void addPeer(final IntegerSolver peer) {
+        if ((peer != this) && (peer.myModel == myModel)) {
+            myPeers.add(peer);
+        } else {
+            throw new IllegalArgumentException("Peers must be different solvers of the same model!");
+        }
     }
 
     protected int countIntegerSolutions() {
@@ -260,28 +431,119 @@ public abstract class IntegerSolver extends GenericSolver {
         return myModel != null;
     }
 
-    protected synchronized void markInteger(final NodeKey node, final Optimisation.Result result) {
+    protected void markInteger(final NodeKey node, final Optimisation.Result result) {
+
+        boolean tmpImproved = false;
+
+        synchronized (this) {
+
+            final Optimisation.Result tmpCurrentlyTheBest = myBestResultSoFar;
 
-        final Optimisation.Result tmpCurrentlyTheBest = myBestResultSoFar;
+            if (tmpCurrentlyTheBest == null) {
 
-        if (tmpCurrentlyTheBest == null) {
+                myBestResultSoFar = result;
+                tmpImproved = true;
 
-            myBestResultSoFar = result;
+            } else if (myMinimisation && (result.getValue() < tmpCurrentlyTheBest.getValue())) {
 
-        } else if (myMinimisation && (result.getValue() < tmpCurrentlyTheBest.getValue())) {
+                myBestResultSoFar = result;
+                tmpImproved = true;
 
-            myBestResultSoFar = result;
+            } else if (!myMinimisation && (result.getValue() > tmpCurrentlyTheBest.getValue())) {
 
-        } else if (!myMinimisation && (result.getValue() > tmpCurrentlyTheBest.getValue())) {
+                myBestResultSoFar = result;
+                tmpImproved = true;
+            }
+
+            myIntegerSolutionsCount.incrementAndGet();
 
-            myBestResultSoFar = result;
+            if (tmpImproved) {
+                this.event(Event.INCUMBENT, result.getValue());
+                this.notifyAll(); // Wakes the heuristics that require an incumbent
+            }
         }
 
-        myIntegerSolutionsCount.incrementAndGet();
+        // Outside the lock – the peers share their incumbents with this solver too
+        if (tmpImproved) {
+            for (final IntegerSolver tmpPeer : myPeers) {
+                tmpPeer.markInteger(null, result);
+            }
+        }
     }
 
     protected abstract boolean needsAnotherIteration();
 
+    /**
+     * Starts the (registered) heuristics. They are executed sequentially, as one task on a shared bounded
+     * pool, concurrently with the branch&amp;bound search until {@link #stopHeuristics()} is called. Any
+     * integer solution they find is passed to {@link #markInteger(NodeKey, Optimisation.Result)}.
+     */
+    protected final void startHeuristics() {
+
+        if (myHeuristics.isEmpty()) {
+            return;
+        }
+
+        final ExpressionsBasedModel tmpHeuristicModel = myModel.copy();
+        tmpHeuristicModel.getIntegerVariables(); // Initialise (lazy) caches before sharing between threads
+
+        myHeuristicsStopped = false;
+        myHeuristicsState.set(QUEUED);
+        myHeuristicsDone = new CountDownLatch(1);
+
+        final CountDownLatch tmpDone = myHeuristicsDone;
+
+        myHeuristicsTask = HEURISTICS_EXECUTOR.submit(() -> {
+            if (myHeuristicsState.compareAndSet(QUEUED, RUNNING)) {
+                try {
+                    this.executeHeuristics(tmpHeuristicModel);
+                } finally {
+                    myHeuristicContext = null;
+                    myHeuristicsState.set(DONE);
+                    tmpDone.countDown();
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops the heuristics – interrupts the task executing them and waits for it to finish. When this method
+     * returns no heuristic is executing, and none will be.
+     */
+    protected final void stopHeuristics() {
+
+        myHeuristicsStopped = true;
+
+        if (myHeuristicsTask == null) {
+            return;
+        }
+
+        if (myHeuristicsState.compareAndSet(QUEUED, DONE)) {
+            // Never started, and now never will
+            myHeuristicsDone.countDown();
+        }
+
+        synchronized (this) {
+            this.notifyAll();
+        }
+        myHeuristicsTask.cancel(true);
+
+        boolean tmpInterrupted = false;
+        while (myHeuristicsDone.getCount() > 0L) {
+            try {
+                myHeuristicsDone.await();
+            } catch (final InterruptedException exception) {
+                tmpInterrupted = true;
+            }
+        }
+        if (tmpInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        myHeuristicsTask = null;
+        myHeuristicsDone = null;
+    }
+
     /**
      * Should validate the solver data/input/structue. Even "expensive" validation can be performed as the
      * method should only be called if {@linkplain Optimisation.Options#validate} is set to true. In addition
@@ -294,4 +556,115 @@ public abstract class IntegerSolver extends GenericSolver {
      */
     protected abstract boolean validate();
 
+    final PseudoCosts getPseudoCosts() {
+        return myPseudoCosts;
+    }
+
+    /**
+     * Record the objective function change caused by the branching that created this node.
+     *
+     * @param node The (child) node
+     * @param nodeValue The objective function value of the node's (relaxed) solution
+     */
+    final void updatePseudoCosts(final NodeKey node, final double nodeValue) {
+        if (node.index >= 0) {
+            myPseudoCosts.update(node.index, node.up, node.displacement, nodeValue - node.objective);
+        }
+    }
+
+    private void executeHeuristic(final Heuristic heuristic) {
+
+        final HeuristicContext tmpContext = myHeuristicContext;
+
+        if ((tmpContext == null) || tmpContext.isStopped()) {
+            return;
+        }
+
+        final long tmpStart = this.time();
+        final Optimisation.Result tmpCandidate;
+        try {
+            tmpCandidate = heuristic.search(tmpContext);
+        } catch (final RuntimeException exception) {
+            if (this.isDebug()) {
+                this.debug("Heuristic {} failed: {}", heuristic, exception);
+            }
+            return;
+        } finally {
+            this.time(Phase.HEURISTIC, tmpStart);
+        }
+
+        if ((tmpCandidate != null) && !tmpContext.isStopped() && this.isIntegerSolution(tmpContext.getModel(), tmpCandidate)
+                && tmpContext.getModel().validate(tmpCandidate)) {
+
+            final double tmpValue = this.evaluateFunction(tmpCandidate);
+
+            if (this.isDebug()) {
+                this.debug("Heuristic {} found integer solution: {}", heuristic, tmpValue);
+            }
+
+            this.markInteger(null, new Optimisation.Result(Optimisation.State.FEASIBLE, tmpValue, tmpCandidate));
+        }
+    }
+
+    /**
+     * Solves the root node relaxation, executes the heuristics that don't require an incumbent, and then
+     * (re)executes those that do whenever the incumbent is improved upon – until stopped.
+     */
+    private void executeHeuristics(final ExpressionsBasedModel heuristicModel) {
+
+        final ExpressionsBasedModel tmpRelaxedModel = heuristicModel.relax(false);
+        final Optimisation.Result tmpRelaxedResult = tmpRelaxedModel.solve(heuristicModel.getVariableValues());
+
+        if (myHeuristicsStopped || !tmpRelaxedResult.getState().isFeasible()) {
+            return;
+        }
+
+        final HeuristicContext tmpContext = new HeuristicContext(heuristicModel, tmpRelaxedResult);
+        myHeuristicContext = tmpContext;
+
+        for (final Heuristic tmpHeuristic : myHeuristics) {
+            if (!tmpHeuristic.isIncumbentRequired()) {
+                this.executeHeuristic(tmpHeuristic);
+            }
+        }
+
+        Optimisation.Result tmpIncumbent = null;
+
+        while (!tmpContext.isStopped()) {
+
+            synchronized (this) {
+                while (!tmpContext.isStopped() && ((myBestResultSoFar == null) || (myBestResultSoFar == tmpIncumbent))) {
+                    try {
+                        this.wait();
+                    } catch (final InterruptedException exception) {
+                        return;
+                    }
+                }
+                tmpIncumbent = myBestResultSoFar;
+            }
+
+            for (final Heuristic tmpHeuristic : myHeuristics) {
+                if (tmpHeuristic.isIncumbentRequired()) {
+                    this.executeHeuristic(tmpHeuristic);
+                }
+            }
+        }
+    }
+
+    private boolean isIntegerSolution(final ExpressionsBasedModel model, final Access1D<?> solution) {
+
+        if (solution.count() != model.countVariables()) {
+            return false;
+        }
+
+        for (final Variable tmpVariable : model.getIntegerVariables()) {
+            final double tmpValue = solution.doubleValue(model.indexOf(tmpVariable));
+            if (!options.integer.isZero(tmpValue - PrimitiveFunction.RINT.invoke(tmpValue))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
 }
@@ -24,23 +24,25 @@ package org.ojalgo.optimisation.integer;
 import static org.ojalgo.constant.PrimitiveMath.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.ojalgo.concurrent.DaemonPoolExecutor;
-import org.ojalgo.constant.PrimitiveMath;
 import org.ojalgo.function.PrimitiveFunction;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
-import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.netio.CharacterRing.PrinterBuffer;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
 import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.SolverStatistics.Event;
+import org.ojalgo.optimisation.SolverStatistics.Phase;
 import org.ojalgo.optimisation.Variable;
-import org.ojalgo.scalar.PrimitiveScalar;
 import org.ojalgo.type.TypeUtils;
 
 /**
@@ -56,20 +58,53 @@ public final class NewIntegerSolver extends IntegerSolver {
 
             NodeKey tmpNodeKey = null;
 
-            while (normal && NewIntegerSolver.this.isStillNodesToTry() && ((tmpNodeKey = NewIntegerSolver.this.getNextNode()) != null)) {
-                NewIntegerSolver.this.compute(tmpNodeKey);
+            while ((tmpNodeKey = myNodesToTry.take()) != myTerminator) {
+
+                try {
+                    NewIntegerSolver.this.compute(tmpNodeKey);
+                } finally {
+                    // The children (if any) are added, and counted, before the parent is done
+                    if ((myPendingNodes.decrementAndGet() == 0) || !normal) {
+                        myNodesToTry.add(myTerminator);
+                    }
+                }
             }
 
+            // Put it back for the other workers
+            myNodesToTry.add(myTerminator);
+
             return normal;
         }
     }
 
-    private final PriorityBlockingQueue<NodeKey> myNodesToTry = new PriorityBlockingQueue<>();
+    /**
+     * Strong branching is performed for at most this number of (unreliable) candidate variables per node.
+     */
+    static final int STRONG_BRANCHING_CANDIDATES = 8;
+
+    /**
+     * Node selection is based on a weighted combination of the node's bound (the parent's objective function
+     * value) and the estimated value of the best integer solution in its subtree. 0.0 means pure best-bound,
+     * and 1.0 pure best-estimate.
+     */
+    static final double ESTIMATE_WEIGHT = HALF;
 
     private final int[] myIntegerIndeces;
     private final double[] myIntegerSignificances;
-
-    boolean normal = true;
+    private final PriorityBlockingQueue<NodeKey> myNodesToTry;
+    /**
+     * Nodes added but not yet fully computed (queued or being computed). When it reaches 0 the search is
+     * done.
+     */
+    private final AtomicInteger myPendingNodes = new AtomicInteger();
+    /**
+     * Added to the queue to signal the (blocked) workers to terminate. As a root-like node (NaN objective
+     * function value) it is always first in line.
+     */
+    private final NodeKey myTerminator;
+    private final List<Future<Boolean>> myWorkers = new CopyOnWriteArrayList<>();
+
+    volatile boolean normal = true;
 
     NewIntegerSolver(final ExpressionsBasedModel model, final Options solverOptions) {
 
@@ -83,9 +118,27 @@ public final class NewIntegerSolver extends IntegerSolver {
         for (int i = 0; i < myIntegerIndeces.length; i++) {
             final Variable tmpVariable = tmpIntegerVariables.get(i);
             myIntegerIndeces[i] = model.indexOf(tmpVariable);
+            myIntegerSignificances[i] = ONE;
         }
 
-        //options.debug = System.out;
+        final boolean tmpMinimisation = model.isMinimisation();
+        myNodesToTry = new PriorityBlockingQueue<>(11, (final NodeKey node1, final NodeKey node2) -> {
+            final double tmpValue1 = NewIntegerSolver.getSelectionValue(node1, tmpMinimisation);
+            final double tmpValue2 = NewIntegerSolver.getSelectionValue(node2, tmpMinimisation);
+            final int retVal = tmpMinimisation ? Double.compare(tmpValue1, tmpValue2) : Double.compare(tmpValue2, tmpValue1);
+            return retVal != 0 ? retVal : node1.compareTo(node2);
+        });
+        myTerminator = new NodeKey(model);
+    }
+
+    private static double getSelectionValue(final NodeKey node, final boolean minimisation) {
+        if (Double.isNaN(node.objective)) {
+            return minimisation ? NEGATIVE_INFINITY : POSITIVE_INFINITY;
+        } else if (Double.isNaN(node.estimate)) {
+            return node.objective;
+        } else {
+            return ((ONE - ESTIMATE_WEIGHT) * node.objective) + (ESTIMATE_WEIGHT * node.estimate);
+        }
     }
 
     public Result solve(final Result kickStarter) {
@@ -98,11 +151,16 @@ public final class NewIntegerSolver extends IntegerSolver {
 
         this.resetIterationsCount();
 
-        this.setup();
+        final long tmpStart = this.time();
 
-        //     final boolean tmpNormalExit = DaemonPoolExecutor.INSTANCE.invoke(tmpTask);
+        this.startHeuristics();
 
-        //   this.add(new NodeKey(this.getModel()));
+        try {
+            this.setup();
+        } finally {
+            this.stopHeuristics();
+            this.time(Phase.BRANCH_AND_BOUND, tmpStart);
+        }
 
         Optimisation.Result retVal = this.getBestResultSoFar();
 
@@ -169,6 +227,7 @@ public final class NewIntegerSolver extends IntegerSolver {
     }
 
     boolean add(final NodeKey e) {
+        myPendingNodes.incrementAndGet();
         return myNodesToTry.add(e);
     }
 
@@ -185,6 +244,7 @@ public final class NewIntegerSolver extends IntegerSolver {
                 NewIntegerSolver.this.debug("Reached iterations or time limit - stop!");
             }
             normal &= false;
+            return;
         }
 
         if (!NewIntegerSolver.this.isGoodEnoughToContinueBranching(nodeKey.objective)) {
@@ -192,10 +252,14 @@ public final class NewIntegerSolver extends IntegerSolver {
                 NewIntegerSolver.this.debug("No longer a relevant node!");
             }
             normal &= true;
+            NewIntegerSolver.this.event(Event.NODE_PRUNED);
+            return;
         }
 
         ExpressionsBasedModel tmpModel = NewIntegerSolver.this.makeNodeModel(nodeKey);
+        final long tmpStart = NewIntegerSolver.this.time();
         final Optimisation.Result tmpResult = tmpModel.solve(NewIntegerSolver.this.getBestResultSoFar());
+        NewIntegerSolver.this.time(Phase.NODE, tmpStart);
 
         NewIntegerSolver.this.incrementIterationsCount();
 
@@ -212,17 +276,22 @@ public final class NewIntegerSolver extends IntegerSolver {
             if (NewIntegerSolver.this.options.validate && !tmpModel.validate(tmpResult)) {
                 // This should not be possible. There is a bug somewhere.
                 NewIntegerSolver.this.debug("Node solution marked as OPTIMAL, but is actually INVALID/INFEASIBLE/FAILED. Stop this branch!");
-                //                    IntegerSolver.this.logDebug(myKey.toString());
-                //                    IntegerSolver.this.logDebug(tmpModel.toString());
-                //                    final GenericSolver tmpDefaultSolver = tmpModel.getDefaultSolver();
-                //                    tmpDefaultSolver.solve();
-                //                    IntegerSolver.this.logDebug(tmpDefaultSolver.toString());
                 normal &= false;
+                return;
             }
 
-            final int tmpBranchIndex = NewIntegerSolver.this.identifyNonIntegerVariable(tmpResult, nodeKey);
+            // The objective function value of the original (integer) model – tmpResult.getValue() may not be
             final double tmpSolutionValue = NewIntegerSolver.this.evaluateFunction(tmpResult);
 
+            NewIntegerSolver.this.updatePseudoCosts(nodeKey, tmpSolutionValue);
+
+            final int tmpBranchIndex = NewIntegerSolver.this.identifyNonIntegerVariable(tmpResult, nodeKey);
+
+            NewIntegerSolver.this.event(Event.NODE, tmpSolutionValue);
+            if (nodeKey.index == -1) {
+                NewIntegerSolver.this.event(Event.BOUND, tmpSolutionValue);
+            }
+
             if (tmpBranchIndex == -1) {
                 if (NewIntegerSolver.this.isDebug()) {
                     NewIntegerSolver.this.debug("Integer solution! Store it among the others, and stop this branch!");
@@ -230,16 +299,14 @@ public final class NewIntegerSolver extends IntegerSolver {
 
                 final Optimisation.Result tmpIntegerSolutionResult = new Optimisation.Result(Optimisation.State.FEASIBLE, tmpSolutionValue, tmpResult);
 
+                NewIntegerSolver.this.event(Event.NODE_INTEGER);
                 NewIntegerSolver.this.markInteger(nodeKey, tmpIntegerSolutionResult);
 
                 if (NewIntegerSolver.this.isDebug()) {
                     NewIntegerSolver.this.debug(NewIntegerSolver.this.getBestResultSoFar().toString());
+                    NewIntegerSolver.this.debug(NewIntegerSolver.this.toString());
                 }
 
-                BasicLogger.debug();
-                BasicLogger.debug(NewIntegerSolver.this.toString());
-                // BasicLogger.debug(DaemonPoolExecutor.INSTANCE.toString());
-
             } else {
                 if (NewIntegerSolver.this.isDebug()) {
                     NewIntegerSolver.this.debug("Not an Integer Solution: " + tmpSolutionValue);
@@ -253,22 +320,28 @@ public final class NewIntegerSolver extends IntegerSolver {
                                 tmpModel.getVariable(NewIntegerSolver.this.getGlobalIndex(tmpBranchIndex)));
                     }
 
+                    NewIntegerSolver.this.event(Event.NODE_BRANCHED);
+
                     tmpModel.dispose();
                     tmpModel = null;
 
-                    final NodeKey tmpLowerBranchTask = nodeKey.createLowerBranch(tmpBranchIndex, tmpVariableValue, tmpResult.getValue());
-                    final NodeKey tmpUpperBranchTask = nodeKey.createUpperBranch(tmpBranchIndex, tmpVariableValue, tmpResult.getValue());
+                    final double tmpLowerEstimate = this.estimate(tmpResult, nodeKey, tmpBranchIndex, false);
+                    final double tmpUpperEstimate = this.estimate(tmpResult, nodeKey, tmpBranchIndex, true);
+
+                    final NodeKey tmpLowerBranchTask = nodeKey.createLowerBranch(tmpBranchIndex, tmpVariableValue, tmpSolutionValue, tmpLowerEstimate);
+                    final NodeKey tmpUpperBranchTask = nodeKey.createUpperBranch(tmpBranchIndex, tmpVariableValue, tmpSolutionValue, tmpUpperEstimate);
 
                     this.add(tmpLowerBranchTask);
                     this.add(tmpUpperBranchTask);
 
                     if (DaemonPoolExecutor.isDaemonAvailable()) {
-                        DaemonPoolExecutor.invoke(new NodeWorker());
+                        myWorkers.add(DaemonPoolExecutor.invoke(new NodeWorker()));
                     }
 
                     normal &= true;
 
                 } else {
+                    NewIntegerSolver.this.event(Event.NODE_PRUNED);
                     if (NewIntegerSolver.this.isDebug()) {
                         NewIntegerSolver.this.debug("Can't find better integer solutions - stop this branch!");
                     }
@@ -276,6 +349,8 @@ public final class NewIntegerSolver extends IntegerSolver {
             }
 
         } else {
+            NewIntegerSolver.this.event(Event.NODE, NaN);
+            NewIntegerSolver.this.event(Event.NODE_INFEASIBLE);
             if (NewIntegerSolver.this.isDebug()) {
                 NewIntegerSolver.this.debug("Failed to solve problem - stop this branch!");
             }
@@ -313,32 +388,133 @@ public final class NewIntegerSolver extends IntegerSolver {
         //        }
     }
 
+    /**
+     * The objective function value of the node's solution plus the pseudocost based estimate of the
+     * degradation caused by making all the integer variables integer – the branched on variable in the
+     * specified direction.
+     */
+    double estimate(final Optimisation.Result nodeResult, final NodeKey nodeKey, final int branchIndex, final boolean up) {
+
+        final PseudoCosts tmpPseudoCosts = this.getPseudoCosts();
+
+        double tmpDegradation = ZERO;
+
+        for (int i = 0; i < myIntegerIndeces.length; i++) {
+
+            final double tmpValue = nodeResult.doubleValue(myIntegerIndeces[i]);
+            final double tmpFraction = tmpValue - PrimitiveFunction.FLOOR.invoke(tmpValue);
+
+            if (i == branchIndex) {
+                tmpDegradation += up ? tmpPseudoCosts.getUp(i) * (ONE - tmpFraction) : tmpPseudoCosts.getDown(i) * tmpFraction;
+            } else if (!options.integer.isZero(nodeKey.getFraction(i, tmpValue))) {
+                tmpDegradation += tmpPseudoCosts.estimate(i, tmpFraction);
+            }
+        }
+
+        final double tmpNodeValue = this.evaluateFunction(nodeResult);
+
+        return this.getModel().isMinimisation() ? tmpNodeValue + tmpDegradation : tmpNodeValue - tmpDegradation;
+    }
+
+    /**
+     * Reliability branching: Candidates with reliable pseudocosts are scored using those. A limited number of
+     * unreliable candidates, those with the largest (significance weighted) fractional parts, are scored by
+     * strong branching – solving both child node relaxations (in the node worker's own thread). The results of those are used to
+     * initialise the pseudocosts. Any remaining candidates are scored using the average pseudocosts.
+     *
+     * @return The index of the variable to branch on, or -1 if the node solution is integer.
+     */
     int identifyNonIntegerVariable(final Optimisation.Result nodeResult, final NodeKey nodeKey) {
 
+        final PseudoCosts tmpPseudoCosts = this.getPseudoCosts();
+
         int retVal = -1;
+        double tmpMaxScore = NEGATIVE_INFINITY;
 
-        double tmpFraction, tmpImpact;
-        double tmpMaxImpact = ZERO;
+        final List<Integer> tmpUnreliable = new ArrayList<>();
 
         for (int i = 0; i < myIntegerIndeces.length; i++) {
 
-            tmpFraction = nodeKey.getFraction(i, nodeResult.doubleValue(myIntegerIndeces[i]));
+            final double tmpValue = nodeResult.doubleValue(myIntegerIndeces[i]);
+
+            if (!options.integer.isZero(nodeKey.getFraction(i, tmpValue))) {
+
+                if (tmpPseudoCosts.isReliable(i, PseudoCosts.RELIABILITY)) {
+
+                    final double tmpScore = tmpPseudoCosts.score(i, tmpValue - PrimitiveFunction.FLOOR.invoke(tmpValue));
+                    if (tmpScore > tmpMaxScore) {
+                        retVal = i;
+                        tmpMaxScore = tmpScore;
+                    }
+
+                } else {
+
+                    tmpUnreliable.add(i);
+                }
+            }
+        }
+
+        if (tmpUnreliable.isEmpty()) {
+            return retVal;
+        }
+
+        tmpUnreliable.sort((final Integer index1, final Integer index2) -> {
+            final double tmpPriority1 = nodeKey.getFraction(index1, nodeResult.doubleValue(myIntegerIndeces[index1])) * this.getIntegerSignificance(index1);
+            final double tmpPriority2 = nodeKey.getFraction(index2, nodeResult.doubleValue(myIntegerIndeces[index2])) * this.getIntegerSignificance(index2);
+            return Double.compare(tmpPriority2, tmpPriority1);
+        });
+
+        final int tmpNumberOfStrong = Math.min(tmpUnreliable.size(), STRONG_BRANCHING_CANDIDATES);
+
+        final double[][] tmpStrongGains = new double[tmpNumberOfStrong][];
+
+        for (int u = 0; u < tmpUnreliable.size(); u++) {
 
-            //tmpImpact = (ONE - tmpFraction) * this.getIntegerSignificance(i);
-            tmpImpact = tmpFraction * this.getIntegerSignificance(i);
+            final int tmpIndex = tmpUnreliable.get(u);
+            final double tmpValue = nodeResult.doubleValue(myIntegerIndeces[tmpIndex]);
+
+            double tmpScore = NaN;
+
+            if (u < tmpNumberOfStrong) {
+                tmpStrongGains[u] = this.strongBranch(nodeResult, nodeKey, tmpIndex);
+                tmpScore = tmpPseudoCosts.score(tmpStrongGains[u][0], tmpStrongGains[u][1]);
+            }
+
+            if (Double.isNaN(tmpScore)) {
+                tmpScore = tmpPseudoCosts.score(tmpIndex, tmpValue - PrimitiveFunction.FLOOR.invoke(tmpValue));
+            }
 
-            if ((tmpImpact > tmpMaxImpact) && !options.integer.isZero(tmpFraction)) {
-                retVal = i;
-                tmpMaxImpact = tmpImpact;
+            if ((retVal < 0) || (tmpScore > tmpMaxScore)) {
+                retVal = tmpIndex;
+                tmpMaxScore = tmpScore;
             }
+        }
+
+        // The branching actually made is recorded when the child nodes are evaluated – only the others here
+        for (int s = 0; s < tmpNumberOfStrong; s++) {
+
+            final int tmpIndex = tmpUnreliable.get(s);
+            final double[] tmpGains = tmpStrongGains[s];
 
+            if ((tmpIndex != retVal) && (tmpGains != null)) {
+
+                final double tmpValue = nodeResult.doubleValue(myIntegerIndeces[tmpIndex]);
+                final double tmpFraction = tmpValue - PrimitiveFunction.FLOOR.invoke(tmpValue);
+
+                if (tmpGains[0] != POSITIVE_INFINITY) {
+                    tmpPseudoCosts.update(tmpIndex, false, tmpFraction, tmpGains[0]);
+                }
+                if (tmpGains[1] != POSITIVE_INFINITY) {
+                    tmpPseudoCosts.update(tmpIndex, true, ONE - tmpFraction, tmpGains[1]);
+                }
+            }
         }
 
         return retVal;
     }
 
     boolean isStillNodesToTry() {
-        return !myNodesToTry.isEmpty();
+        return myPendingNodes.get() > 0;
     }
 
     ExpressionsBasedModel makeNodeModel(final NodeKey nodeKey) {
@@ -398,91 +574,57 @@ public final class NewIntegerSolver extends IntegerSolver {
 
         normal = true;
 
-        final NodeKey[] retVal = new NodeKey[2];
-
-        final ExpressionsBasedModel tmpIntegerModel = NewIntegerSolver.this.getModel();
-        final List<Variable> tmpIntegerVariables = tmpIntegerModel.getIntegerVariables();
-        NodeKey myKey;
-        myKey = new NodeKey(tmpIntegerModel);
-
-        final ExpressionsBasedModel tmpRootModel = NewIntegerSolver.this.makeNodeModel(myKey);
-        final Result tmpRootResult = tmpRootModel.solve(tmpIntegerModel.getVariableValues());
-        final double tmpRootValue = tmpRootResult.getValue();
-
-        double tmpMinValue = PrimitiveMath.MACHINE_LARGEST;
-        double tmpMaxValue = -PrimitiveMath.MACHINE_LARGEST;
+        myNodesToTry.clear();
+        myPendingNodes.set(0);
+        myWorkers.clear();
 
-        final double tmpBestValue = tmpRootModel.isMinimisation() ? PrimitiveMath.MACHINE_LARGEST : -PrimitiveMath.MACHINE_LARGEST;
+        NewIntegerSolver.this.add(new NodeKey(NewIntegerSolver.this.getModel()));
 
-        final double[] tmpSignificance = new double[tmpIntegerVariables.size()];
+        myWorkers.add(DaemonPoolExecutor.invoke(new NodeWorker()));
 
-        for (int i = 0; i < tmpIntegerVariables.size(); i++) {
-
-            final int tmpGlobalIndex = NewIntegerSolver.this.getGlobalIndex(i);
-            final double tmpVariableValue = tmpRootResult.doubleValue(tmpGlobalIndex);
-
-            final NodeKey tmpLowerNodeKey = myKey.createLowerBranch(i, tmpVariableValue, tmpRootValue);
-            final ExpressionsBasedModel tmpLowerModel = NewIntegerSolver.this.makeNodeModel(tmpLowerNodeKey);
-            final Result tmpLowerResult = tmpLowerModel.solve(tmpRootResult);
-            final double tmpLowerValue = tmpLowerResult.getValue();
-
-            if (tmpLowerValue < tmpMinValue) {
-                tmpMinValue = tmpLowerValue;
-            }
-            if (tmpLowerValue > tmpMaxValue) {
-                tmpMaxValue = tmpLowerValue;
-            }
-
-            final NodeKey tmpUpperNodeKey = myKey.createUpperBranch(i, tmpVariableValue, tmpRootValue);
-            final ExpressionsBasedModel tmpUpperModel = NewIntegerSolver.this.makeNodeModel(tmpUpperNodeKey);
-            final Result tmpUpperResult = tmpUpperModel.solve(tmpRootResult);
-            final double tmpUpperValue = tmpUpperResult.getValue();
-
-            if (tmpUpperValue < tmpMinValue) {
-                tmpMinValue = tmpUpperValue;
-            }
-            if (tmpUpperValue > tmpMaxValue) {
-                tmpMaxValue = tmpUpperValue;
-            }
-
-            if (tmpLowerResult.getState().isFeasible() && tmpUpperResult.getState().isFeasible()) {
-                if (tmpRootModel.isMinimisation() && ((tmpLowerValue < tmpBestValue) || (tmpUpperValue < tmpBestValue))) {
-                    retVal[0] = tmpLowerNodeKey;
-                    retVal[1] = tmpUpperNodeKey;
-                } else if (tmpRootModel.isMaximisation() && ((tmpLowerValue > tmpBestValue) || (tmpUpperValue > tmpBestValue))) {
-                    retVal[0] = tmpLowerNodeKey;
-                    retVal[1] = tmpUpperNodeKey;
-                }
-            }
-
-            if (!Double.isNaN(tmpUpperValue) && !Double.isNaN(tmpLowerValue)) {
-                tmpSignificance[i] = PrimitiveFunction.ABS.invoke(tmpUpperValue - tmpLowerValue);
+        // Workers may be added while waiting – those started after termination exit immediately
+        for (int w = 0; w < myWorkers.size(); w++) {
+            try {
+                normal = myWorkers.get(w).get() && normal;
+            } catch (InterruptedException | ExecutionException anException) {
+                normal &= false;
+                myNodesToTry.add(myTerminator);
             }
         }
+    }
 
-        double tmpScale = tmpMaxValue - tmpMinValue;
-        final double value = tmpScale;
-        if (PrimitiveScalar.isSmall(PrimitiveMath.ONE, value)) {
-            tmpScale = PrimitiveMath.ONE;
-        }
-        for (int i = 0; i < tmpSignificance.length; i++) {
-            NewIntegerSolver.this.setIntegerSignificance(i, 0.5 + (tmpSignificance[i] / tmpScale));
+    /**
+     * Solve the relaxations of the 2 child nodes that would be created by branching on this variable. The
+     * pseudocosts are not updated here – see {@link #identifyNonIntegerVariable(Optimisation.Result, NodeKey)}.
+     *
+     * @return The objective function value degradations of the lower and upper child nodes. An infeasible
+     *         child has infinite degradation.
+     */
+    double[] strongBranch(final Optimisation.Result nodeResult, final NodeKey nodeKey, final int index) {
+
+        // The objective function value of the original (integer) model – as in the node workers
+        final double tmpNodeValue = this.evaluateFunction(nodeResult);
+        final double tmpVariableValue = nodeResult.doubleValue(myIntegerIndeces[index]);
+
+        final double[] retVal = new double[2];
+
+        final NodeKey tmpLowerKey = nodeKey.createLowerBranch(index, tmpVariableValue, tmpNodeValue);
+        final Optimisation.Result tmpLowerResult = this.makeNodeModel(tmpLowerKey).solve(nodeResult);
+        if (tmpLowerResult.getState().isFeasible()) {
+            retVal[0] = PrimitiveFunction.ABS.invoke(this.evaluateFunction(tmpLowerResult) - tmpNodeValue);
+        } else {
+            retVal[0] = POSITIVE_INFINITY;
         }
 
-        if ((retVal[0] != null) && (retVal[1] != null)) {
-            NewIntegerSolver.this.add(retVal[0]);
-            NewIntegerSolver.this.add(retVal[1]);
+        final NodeKey tmpUpperKey = nodeKey.createUpperBranch(index, tmpVariableValue, tmpNodeValue);
+        final Optimisation.Result tmpUpperResult = this.makeNodeModel(tmpUpperKey).solve(nodeResult);
+        if (tmpUpperResult.getState().isFeasible()) {
+            retVal[1] = PrimitiveFunction.ABS.invoke(this.evaluateFunction(tmpUpperResult) - tmpNodeValue);
         } else {
-            NewIntegerSolver.this.add(new NodeKey(tmpIntegerModel));
+            retVal[1] = POSITIVE_INFINITY;
         }
 
-        final Future<Boolean> tmpFuture = DaemonPoolExecutor.invoke(new NodeWorker());
-
-        try {
-            normal = normal && tmpFuture.get();
-        } catch (InterruptedException | ExecutionException anException) {
-            normal &= false;
-        }
+        return retVal;
     }
 
 }
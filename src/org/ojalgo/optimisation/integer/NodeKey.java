@@ -45,6 +45,11 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
      * node (each node introduces precisely 1 new upper or lower bound).
      */
     final double displacement;
+    /**
+     * Estimated objective function value of the best integer solution in the subtree of this node (based on
+     * the parent's objective function value and pseudocosts).
+     */
+    final double estimate;
     /**
      * The index of the branched on variable.
      */
@@ -61,9 +66,14 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
      * Node sequennce number to keep track of in which order the nodes were created.
      */
     final long sequence = GENERATOR.getAndIncrement();
+    /**
+     * True if this node was created by increasing the lower bound of the branched on variable (branching up),
+     * false if the upper bound was decreased.
+     */
+    final boolean up;
 
-    private NodeKey(final int[] lowerBounds, final int[] upperBounds, final long parentSequenceNumber, final int indexBranchedOn,
-            final double branchVariableDisplacement, final double parentObjectiveFunctionValue) {
+    private NodeKey(final int[] lowerBounds, final int[] upperBounds, final long parentSequenceNumber, final int indexBranchedOn, final boolean branchedUp,
+            final double branchVariableDisplacement, final double parentObjectiveFunctionValue, final double estimatedObjectiveFunctionValue) {
 
         super();
 
@@ -72,8 +82,10 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
 
         parent = parentSequenceNumber;
         index = indexBranchedOn;
+        up = branchedUp;
         displacement = branchVariableDisplacement;
         objective = parentObjectiveFunctionValue;
+        estimate = estimatedObjectiveFunctionValue;
     }
 
     NodeKey(final ExpressionsBasedModel integerModel) {
@@ -105,8 +117,10 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
 
         parent = sequence;
         index = -1;
+        up = false;
         displacement = PrimitiveMath.NaN;
         objective = PrimitiveMath.NaN;
+        estimate = PrimitiveMath.NaN;
     }
 
     public int compareTo(final NodeKey ref) {
@@ -200,6 +214,10 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
     }
 
     NodeKey createLowerBranch(final int index, final double value, final double objective) {
+        return this.createLowerBranch(index, value, objective, objective);
+    }
+
+    NodeKey createLowerBranch(final int index, final double value, final double objective, final double estimate) {
 
         final int[] tmpLBs = this.getLowerBounds();
         final int[] tmpUBs = this.getUpperBounds();
@@ -214,10 +232,14 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
             tmpUBs[index] = tmpFloor;
         }
 
-        return new NodeKey(tmpLBs, tmpUBs, sequence, index, value - tmpFloor, objective);
+        return new NodeKey(tmpLBs, tmpUBs, sequence, index, false, value - tmpFloor, objective, estimate);
     }
 
     NodeKey createUpperBranch(final int index, final double value, final double objective) {
+        return this.createUpperBranch(index, value, objective, objective);
+    }
+
+    NodeKey createUpperBranch(final int index, final double value, final double objective, final double estimate) {
 
         final int[] tmpLBs = this.getLowerBounds();
         final int[] tmpUBs = this.getUpperBounds();
@@ -232,7 +254,7 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
             tmpLBs[index] = tmpCeil;
         }
 
-        return new NodeKey(tmpLBs, tmpUBs, sequence, index, tmpCeil - value, objective);
+        return new NodeKey(tmpLBs, tmpUBs, sequence, index, true, tmpCeil - value, objective, estimate);
     }
 
     double getFraction(final int index, final double value) {
@@ -42,6 +42,8 @@ import org.ojalgo.netio.CharacterRing;
 import org.ojalgo.netio.CharacterRing.PrinterBuffer;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
 import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.SolverStatistics.Event;
+import org.ojalgo.optimisation.SolverStatistics.Phase;
 import org.ojalgo.optimisation.Variable;
 import org.ojalgo.type.TypeUtils;
 
@@ -112,12 +114,15 @@ public final class OldIntegerSolver extends IntegerSolver {
                     myPrinter.println("No longer a relevant node!");
                     this.flush(OldIntegerSolver.this.getModel().options.debug_appender);
                 }
+                OldIntegerSolver.this.event(Event.NODE_PRUNED);
                 return true;
             }
 
             ExpressionsBasedModel tmpNodeModel = this.getModel();
             final Result tmpBestResultSoFar = OldIntegerSolver.this.getBestResultSoFar();
+            final long tmpStart = OldIntegerSolver.this.time();
             final Optimisation.Result tmpNodeResult = tmpNodeModel.solve(tmpBestResultSoFar);
+            OldIntegerSolver.this.time(Phase.NODE, tmpStart);
 
             if (this.isNodeDebug()) {
                 myPrinter.println("Node Result: {}", tmpNodeResult);
@@ -146,6 +151,13 @@ public final class OldIntegerSolver extends IntegerSolver {
                 final int tmpBranchIndex = OldIntegerSolver.this.identifyNonIntegerVariable(tmpNodeResult, myKey);
                 final double tmpSolutionValue = OldIntegerSolver.this.evaluateFunction(tmpNodeResult);
 
+                OldIntegerSolver.this.event(Event.NODE, tmpSolutionValue);
+                if (myKey.index == -1) {
+                    OldIntegerSolver.this.event(Event.BOUND, tmpSolutionValue);
+                }
+
+                OldIntegerSolver.this.updatePseudoCosts(myKey, tmpSolutionValue);
+
                 if (tmpBranchIndex == -1) {
                     if (this.isNodeDebug()) {
                         myPrinter.println("Integer solution! Store it among the others, and stop this branch!");
@@ -153,12 +165,13 @@ public final class OldIntegerSolver extends IntegerSolver {
 
                     final Optimisation.Result tmpIntegerSolutionResult = new Optimisation.Result(Optimisation.State.FEASIBLE, tmpSolutionValue, tmpNodeResult);
 
+                    OldIntegerSolver.this.event(Event.NODE_INTEGER);
                     OldIntegerSolver.this.markInteger(myKey, tmpIntegerSolutionResult);
 
                     if (this.isNodeDebug()) {
                         myPrinter.println(OldIntegerSolver.this.getBestResultSoFar().toString());
-                        BasicLogger.debug();
-                        BasicLogger.debug(OldIntegerSolver.this.toString());
+                        myPrinter.println();
+                        myPrinter.println(OldIntegerSolver.this.toString());
                         // BasicLogger.debug(DaemonPoolExecutor.INSTANCE.toString());
                         this.flush(OldIntegerSolver.this.getModel().options.debug_appender);
                     }
@@ -177,6 +190,8 @@ public final class OldIntegerSolver extends IntegerSolver {
                             this.flush(OldIntegerSolver.this.getModel().options.debug_appender);
                         }
 
+                        OldIntegerSolver.this.event(Event.NODE_BRANCHED);
+
                         tmpNodeModel.dispose();
                         tmpNodeModel = null;
 
@@ -204,6 +219,7 @@ public final class OldIntegerSolver extends IntegerSolver {
                         //                        }
 
                     } else {
+                        OldIntegerSolver.this.event(Event.NODE_PRUNED);
                         if (this.isNodeDebug()) {
                             myPrinter.println("Can't find better integer solutions - stop this branch!");
                             this.flush(OldIntegerSolver.this.getModel().options.debug_appender);
@@ -212,6 +228,8 @@ public final class OldIntegerSolver extends IntegerSolver {
                 }
 
             } else {
+                OldIntegerSolver.this.event(Event.NODE, NaN);
+                OldIntegerSolver.this.event(Event.NODE_INFEASIBLE);
                 if (this.isNodeDebug()) {
                     myPrinter.println("Failed to solve node problem - stop this branch!");
                     this.flush(OldIntegerSolver.this.getModel().options.debug_appender);
@@ -319,9 +337,19 @@ public final class OldIntegerSolver extends IntegerSolver {
 
         this.resetIterationsCount();
 
+        final long tmpStart = this.time();
+
+        this.startHeuristics();
+
         final BranchAndBoundNodeTask tmpNodeTask = new BranchAndBoundNodeTask();
 
-        final boolean tmpNormalExit = ForkJoinPool.commonPool().invoke(tmpNodeTask);
+        final boolean tmpNormalExit;
+        try {
+            tmpNormalExit = ForkJoinPool.commonPool().invoke(tmpNodeTask);
+        } finally {
+            this.stopHeuristics();
+            this.time(Phase.BRANCH_AND_BOUND, tmpStart);
+        }
 
         Optimisation.Result retVal = this.getBestResultSoFar();
 
@@ -401,7 +429,8 @@ public final class OldIntegerSolver extends IntegerSolver {
 
     /**
      * Should return the index of the (best) variable to branch on. Returning a negative index means an
-     * integer solition has been found (no further branching).
+     * integer solition has been found (no further branching). When the pseudocosts of all candidate
+     * variables are reliable the variable with the best pseudocost score is selected.
      */
     int identifyNonIntegerVariable(final Optimisation.Result nodeResult, final NodeKey nodeKey) {
 
@@ -411,9 +440,16 @@ public final class OldIntegerSolver extends IntegerSolver {
         double tmpScale;
         double tmpMaxFraction = ZERO;
 
+        final PseudoCosts tmpPseudoCosts = this.getPseudoCosts();
+        boolean tmpReliable = true;
+        int tmpBestScoreIndex = -1;
+        double tmpBestScore = ZERO;
+
         for (int i = 0; i < myIntegerIndeces.length; i++) {
 
-            tmpFraction = nodeKey.getFraction(i, nodeResult.doubleValue(myIntegerIndeces[i]));
+            final double tmpValue = nodeResult.doubleValue(myIntegerIndeces[i]);
+
+            tmpFraction = nodeKey.getFraction(i, tmpValue);
             if (this.isIntegerSolutionFound()) {
                 final MatrixStore<Double> tmpGradient = this.getGradient(Access1D.asPrimitive1D(nodeResult));
                 if ((tmpScale = tmpGradient.aggregateAll(Aggregator.LARGEST)) > ZERO) {
@@ -425,9 +461,18 @@ public final class OldIntegerSolver extends IntegerSolver {
                 retVal = i;
                 tmpMaxFraction = tmpFraction;
             }
+
+            if (!options.integer.isZero(tmpFraction)) {
+                tmpReliable &= tmpPseudoCosts.isReliable(i, PseudoCosts.RELIABILITY);
+                final double tmpScore = tmpPseudoCosts.score(i, tmpValue - FLOOR.invoke(tmpValue));
+                if (tmpScore > tmpBestScore) {
+                    tmpBestScoreIndex = i;
+                    tmpBestScore = tmpScore;
+                }
+            }
         }
 
-        return retVal;
+        return tmpReliable && (tmpBestScoreIndex >= 0) ? tmpBestScoreIndex : retVal;
     }
 
     boolean isExplored(final BranchAndBoundNodeTask aNodeTask) {
@@ -0,0 +1,170 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per integer variable (and branching direction) average objective function change per unit change of the
+ * variable. Shared by all branch&amp;bound workers – all updates are lock-free.
+ *
+ * @author apete
+ */
+final class PseudoCosts {
+
+    /**
+     * The number of observations, in each direction, before a variable's pseudocosts are considered
+     * reliable.
+     */
+    static final int RELIABILITY = 4;
+
+    /**
+     * Lower limit on the factors of the product score – avoids that a zero gain in one direction hides the
+     * gain in the other.
+     */
+    private static final double EPSILON = 1E-6;
+
+    private static void add(final AtomicLongArray sums, final int index, final double value) {
+        long tmpExpected, tmpUpdated;
+        do {
+            tmpExpected = sums.get(index);
+            tmpUpdated = Double.doubleToRawLongBits(Double.longBitsToDouble(tmpExpected) + value);
+        } while (!sums.compareAndSet(index, tmpExpected, tmpUpdated));
+    }
+
+    private final AtomicIntegerArray myDownCounts;
+    private final AtomicLongArray myDownSums;
+    private final LongAdder myTotalDownCount = new LongAdder();
+    private final DoubleAdder myTotalDownSum = new DoubleAdder();
+    private final LongAdder myTotalUpCount = new LongAdder();
+    private final DoubleAdder myTotalUpSum = new DoubleAdder();
+    private final AtomicIntegerArray myUpCounts;
+    private final AtomicLongArray myUpSums;
+
+    PseudoCosts(final int numberOfIntegerVariables) {
+
+        super();
+
+        myDownCounts = new AtomicIntegerArray(numberOfIntegerVariables);
+        myDownSums = new AtomicLongArray(numberOfIntegerVariables);
+        myUpCounts = new AtomicIntegerArray(numberOfIntegerVariables);
+        myUpSums = new AtomicLongArray(numberOfIntegerVariables);
+    }
+
+    int countDown(final int index) {
+        return myDownCounts.get(index);
+    }
+
+    int countUp(final int index) {
+        return myUpCounts.get(index);
+    }
+
+    /**
+     * The estimated (least) objective function degradation from making the variable integer.
+     */
+    double estimate(final int index, final double fraction) {
+        return Math.min(this.getDown(index) * fraction, this.getUp(index) * (ONE - fraction));
+    }
+
+    /**
+     * Uninitialised pseudocosts are replaced by the average of all initialised ones.
+     */
+    double getDown(final int index) {
+        final int tmpCount = myDownCounts.get(index);
+        if (tmpCount > 0) {
+            return Double.longBitsToDouble(myDownSums.get(index)) / tmpCount;
+        } else {
+            final long tmpTotalCount = myTotalDownCount.sum();
+            return tmpTotalCount > 0L ? myTotalDownSum.sum() / tmpTotalCount : ONE;
+        }
+    }
+
+    /**
+     * Uninitialised pseudocosts are replaced by the average of all initialised ones.
+     */
+    double getUp(final int index) {
+        final int tmpCount = myUpCounts.get(index);
+        if (tmpCount > 0) {
+            return Double.longBitsToDouble(myUpSums.get(index)) / tmpCount;
+        } else {
+            final long tmpTotalCount = myTotalUpCount.sum();
+            return tmpTotalCount > 0L ? myTotalUpSum.sum() / tmpTotalCount : ONE;
+        }
+    }
+
+    /**
+     * @param threshold The number of observations, in each direction, required
+     */
+    boolean isReliable(final int index, final int threshold) {
+        return (myDownCounts.get(index) >= threshold) && (myUpCounts.get(index) >= threshold);
+    }
+
+    /**
+     * The product score of branching on this variable with this fractional part (value - floor(value)).
+     */
+    double score(final int index, final double fraction) {
+        return this.score(this.getDown(index) * fraction, this.getUp(index) * (ONE - fraction));
+    }
+
+    /**
+     * The product score of the objective function degradations of the 2 branches.
+     */
+    double score(final double downGain, final double upGain) {
+        return Math.max(downGain, EPSILON) * Math.max(upGain, EPSILON);
+    }
+
+    int size() {
+        return myDownCounts.length();
+    }
+
+    /**
+     * @param index Integer variable index
+     * @param up True if the variable's lower bound was increased
+     * @param displacement How much the variable's value was forced to change (>0)
+     * @param gain The (absolute) change in the node's objective function value
+     */
+    void update(final int index, final boolean up, final double displacement, final double gain) {
+
+        if ((displacement > ZERO) && !Double.isNaN(gain) && !Double.isInfinite(gain)) {
+
+            final double tmpUnitGain = Math.abs(gain) / displacement;
+
+            if (up) {
+                PseudoCosts.add(myUpSums, index, tmpUnitGain);
+                myUpCounts.incrementAndGet(index);
+                myTotalUpSum.add(tmpUnitGain);
+                myTotalUpCount.increment();
+            } else {
+                PseudoCosts.add(myDownSums, index, tmpUnitGain);
+                myDownCounts.incrementAndGet(index);
+                myTotalDownSum.add(tmpUnitGain);
+                myTotalDownCount.increment();
+            }
+        }
+    }
+
+}
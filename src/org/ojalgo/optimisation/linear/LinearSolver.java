@@ -108,9 +108,24 @@ public abstract class LinearSolver extends GenericSolver {
 
     public static final class ModelIntegration extends ExpressionsBasedModel.Integration<LinearSolver> {
 
+        private final Boolean mySparse;
+
+        public ModelIntegration() {
+            this(null);
+        }
+
+        /**
+         * @param sparse Force a sparse (true) or dense (false) simplex tableau, or null to decide based on its
+         *        size
+         */
+        public ModelIntegration(final Boolean sparse) {
+            super();
+            mySparse = sparse;
+        }
+
         public LinearSolver build(final ExpressionsBasedModel model) {
 
-            final SimplexTableau tableau = SimplexSolver.build(model);
+            final SimplexTableau tableau = SimplexSolver.build(model, mySparse);
 
             return new SimplexSolver(tableau, model.options);
         }
@@ -41,6 +41,8 @@ import org.ojalgo.matrix.store.PrimitiveDenseStore;
 import org.ojalgo.optimisation.Expression;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
 import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.SolverStatistics.Event;
+import org.ojalgo.optimisation.SolverStatistics.Phase;
 import org.ojalgo.optimisation.Variable;
 import org.ojalgo.optimisation.linear.SimplexTableau.IterationPoint;
 
@@ -76,6 +78,13 @@ public final class SimplexSolver extends LinearSolver {
     }
 
     static SimplexTableau build(final ExpressionsBasedModel model) {
+        return SimplexSolver.build(model, null);
+    }
+
+    /**
+     * @param sparse Force a sparse (true) or dense (false) tableau, or null to decide based on its size
+     */
+    static SimplexTableau build(final ExpressionsBasedModel model, final Boolean sparse) {
 
         final List<Variable> tmpPosVariables = model.getPositiveVariables();
         final List<Variable> tmpNegVariables = model.getNegativeVariables();
@@ -107,7 +116,7 @@ public final class SimplexSolver extends LinearSolver {
                 + tmpVarsNegUp.size();
         final int tmpTotalVarCount = tmpProblVarCount + tmpSlackVarCount;
 
-        final SimplexTableau retVal = SimplexTableau.make(tmpConstraiCount, tmpProblVarCount, tmpSlackVarCount);
+        final SimplexTableau retVal = SimplexTableau.make(tmpConstraiCount, tmpProblVarCount, tmpSlackVarCount, sparse);
 
         final int tmpPosVarsBaseIndex = 0;
         final int tmpNegVarsBaseIndex = tmpPosVarsBaseIndex + tmpPosVariables.size();
@@ -412,7 +421,16 @@ public final class SimplexSolver extends LinearSolver {
             this.logDebugTableau("Initial Tableau");
         }
 
-        while (this.needsAnotherIteration()) {
+        long tmpStart = this.time();
+        boolean tmpPhase1 = myPoint.isPhase1();
+
+        while (!this.isCancelled() && this.needsAnotherIteration()) {
+
+            if (tmpPhase1 && myPoint.isPhase2()) {
+                this.time(Phase.SIMPLEX_PHASE1, tmpStart);
+                tmpStart = this.time();
+                tmpPhase1 = false;
+            }
 
             this.performIteration(myPoint);
 
@@ -421,6 +439,8 @@ public final class SimplexSolver extends LinearSolver {
             }
         }
 
+        this.time(tmpPhase1 ? Phase.SIMPLEX_PHASE1 : Phase.SIMPLEX_PHASE2, tmpStart);
+
         return this.buildResult();
     }
 
@@ -678,6 +698,8 @@ public final class SimplexSolver extends LinearSolver {
 
         myTableau.pivot(pivot);
 
+        this.event(Event.PIVOT);
+
         if (this.isDebug()) {
             this.debug("Iteration Point <{},{}>\tPivot: {} => {}\tRHS: {} => {}.", pivot.row, pivot.col, tmpPivotElement,
                     myTableau.doubleValue(pivot.row, pivot.col), tmpPivotRHS, myTableau.doubleValue(pivot.row, tmpColRHS));
@@ -692,11 +714,9 @@ public final class SimplexSolver extends LinearSolver {
             tmpRHS.visitAll(tmpMinAggr);
             final double tmpMinVal = tmpMinAggr.doubleValue();
 
-            if ((tmpMinVal < ZERO) && !options.problem.isZero(tmpMinVal)) {
+            if ((tmpMinVal < ZERO) && !options.problem.isZero(tmpMinVal) && this.isDebug()) {
                 this.debug("\nNegative RHS! {}", tmpMinVal);
-                if (this.isDebug()) {
-                    this.debug("Entire RHS columns: {}\n", tmpRHS);
-                }
+                this.debug("Entire RHS columns: {}\n", tmpRHS);
             }
 
         }
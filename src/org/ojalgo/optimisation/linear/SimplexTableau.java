@@ -48,12 +48,22 @@ import org.ojalgo.type.IndexSelector;
 abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
 
     protected static SimplexTableau make(final int numberOfConstraints, final int numberOfProblemVariables, final int numberOfSlackVariables) {
+        return SimplexTableau.make(numberOfConstraints, numberOfProblemVariables, numberOfSlackVariables, null);
+    }
+
+    /**
+     * @param sparse Force a sparse (true) or dense (false) tableau, or null to decide based on its size
+     */
+    protected static SimplexTableau make(final int numberOfConstraints, final int numberOfProblemVariables, final int numberOfSlackVariables,
+            final Boolean sparse) {
 
         final int numbRows = numberOfConstraints + 2;
         final int numbCols = numberOfProblemVariables + numberOfSlackVariables + numberOfConstraints + 1;
         final int totCount = numbRows * numbCols;
 
-        if (totCount <= OjAlgoUtils.ENVIRONMENT.getCacheElements(8L)) {
+        final boolean tmpDense = sparse != null ? !sparse.booleanValue() : totCount <= OjAlgoUtils.ENVIRONMENT.getCacheElements(8L);
+
+        if (tmpDense) {
             return new DenseTableau(numberOfConstraints, numberOfProblemVariables, numberOfSlackVariables);
         } else {
             return new SparseTableau(numberOfConstraints, numberOfProblemVariables, numberOfSlackVariables);
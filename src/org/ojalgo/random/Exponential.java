@@ -23,6 +23,8 @@ package org.ojalgo.random;
 
 import static org.ojalgo.constant.PrimitiveMath.*;
 
+import java.util.Random;
+
 import org.ojalgo.function.PrimitiveFunction;
 
 /**
@@ -49,6 +51,14 @@ public class Exponential extends AbstractContinuous {
         myRate = aRate;
     }
 
+    @Override
+    public void fill(final double[] destination) {
+        final Random tmpRandom = this.random();
+        for (int i = 0; i < destination.length; i++) {
+            destination[i] = Ziggurat.exponential(tmpRandom) / myRate;
+        }
+    }
+
     public double getDistribution(final double value) {
         if (value < ZERO) {
             return ZERO;
@@ -83,7 +93,7 @@ public class Exponential extends AbstractContinuous {
 
     @Override
     protected double generate() {
-        return -PrimitiveFunction.LOG.invoke(this.random().nextDouble()) / myRate;
+        return Ziggurat.exponential(this.random()) / myRate;
     }
 
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.random;
+
+/**
+ * The Halton sequence – the radical inverses of the point index in the first {@link #dimension} prime
+ * bases. Unscrambled Halton points are strongly correlated in the higher dimensions (with larger bases);
+ * the scrambled version applies a random permutation (that keeps 0 fixed) to the digits of each base.
+ * There is no upper limit on the dimension.
+ *
+ * @author apete
+ */
+public final class Halton extends QuasiRandom {
+
+    static int[] primes(final int count) {
+
+        final int[] retVal = new int[count];
+
+        int tmpCount = 0;
+        for (int tmpCandidate = 2; tmpCount < count; tmpCandidate++) {
+            boolean tmpPrime = true;
+            for (int i = 0; (i < tmpCount) && ((retVal[i] * retVal[i]) <= tmpCandidate); i++) {
+                if ((tmpCandidate % retVal[i]) == 0) {
+                    tmpPrime = false;
+                    break;
+                }
+            }
+            if (tmpPrime) {
+                retVal[tmpCount++] = tmpCandidate;
+            }
+        }
+
+        return retVal;
+    }
+
+    private final int[] myBases;
+    private long myIndex = 1L; // The first point (index 0) is the origin – it's skipped
+    private final int[][] myPermutations;
+
+    /**
+     * Unscrambled
+     */
+    public Halton(final int dimension) {
+
+        super(dimension);
+
+        myBases = Halton.primes(dimension);
+        myPermutations = null;
+    }
+
+    /**
+     * Scrambled with random digit permutations
+     */
+    public Halton(final int dimension, final long seed) {
+
+        super(dimension);
+
+        myBases = Halton.primes(dimension);
+        myPermutations = new int[dimension][];
+
+        final Xoshiro256 tmpRandom = new Xoshiro256(seed);
+
+        for (int d = 0; d < dimension; d++) {
+            final int tmpBase = myBases[d];
+            final int[] tmpPermutation = new int[tmpBase];
+            for (int i = 0; i < tmpBase; i++) {
+                tmpPermutation[i] = i;
+            }
+            // Fisher–Yates, but 0 stays 0 (otherwise the infinitely many leading zeros would be permuted)
+            for (int i = tmpBase - 1; i > 1; i--) {
+                final int j = 1 + tmpRandom.nextInt(i);
+                final int tmpSwap = tmpPermutation[i];
+                tmpPermutation[i] = tmpPermutation[j];
+                tmpPermutation[j] = tmpSwap;
+            }
+            myPermutations[d] = tmpPermutation;
+        }
+    }
+
+    @Override
+    public void next(final double[] destination) {
+
+        final long tmpIndex = myIndex++;
+
+        for (int d = 0; d < dimension; d++) {
+
+            final int tmpBase = myBases[d];
+            final int[] tmpPermutation = myPermutations != null ? myPermutations[d] : null;
+
+            double tmpValue = 0.0;
+            double tmpFactor = 1.0 / tmpBase;
+
+            for (long n = tmpIndex; n > 0L; n /= tmpBase) {
+                final int tmpDigit = (int) (n % tmpBase);
+                tmpValue += (tmpPermutation != null ? tmpPermutation[tmpDigit] : tmpDigit) * tmpFactor;
+                tmpFactor /= tmpBase;
+            }
+
+            destination[d] = tmpValue;
+        }
+    }
+
+    /**
+     * Note that index 0 (the origin, outside the open unit hypercube) is never returned – skipping to 0 is
+     * the same as skipping to 1.
+     */
+    @Override
+    public void skipTo(final long index) {
+        myIndex = Math.max(1L, index);
+    }
+
+}
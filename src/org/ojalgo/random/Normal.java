@@ -23,6 +23,8 @@ package org.ojalgo.random;
 
 import static org.ojalgo.constant.PrimitiveMath.*;
 
+import java.util.Random;
+
 import org.ojalgo.function.PrimitiveFunction;
 
 /**
@@ -50,6 +52,14 @@ public class Normal extends AbstractContinuous {
         myScale = aScale;
     }
 
+    @Override
+    public void fill(final double[] destination) {
+        final Random tmpRandom = this.random();
+        for (int i = 0; i < destination.length; i++) {
+            destination[i] = (tmpRandom.nextGaussian() * myScale) + myLocation;
+        }
+    }
+
     public double getDistribution(final double value) {
         return (ONE + RandomUtils.erf((value - myLocation) / (myScale * SQRT_TWO))) / TWO;
     }
@@ -28,6 +28,7 @@ import org.ojalgo.access.Access2D;
 import org.ojalgo.array.Array1D;
 import org.ojalgo.array.Array2D;
 import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
 
 public final class Normal1D extends RandomNumber1D {
 
@@ -92,6 +93,30 @@ public final class Normal1D extends RandomNumber1D {
         return retVal;
     }
 
+    /**
+     * Generates a batch of draws – each row of the destination is one draw. The covariance root is only
+     * computed once (when this instance is created), and all draws are correlated with one matrix
+     * multiplication.
+     *
+     * @param destination Any number of rows, and as many columns as there are variables
+     */
+    public void fill(final PrimitiveDenseStore destination) {
+
+        this.random().nextGaussian(destination);
+
+        final int tmpRows = (int) destination.countRows();
+        final int tmpColumns = (int) destination.countColumns();
+        final double[] tmpData = destination.data;
+
+        for (int j = 0; j < tmpColumns; j++) {
+            final double tmpLocation = myLocations.doubleValue(j);
+            final double tmpScale = myScales.doubleValue(j);
+            for (int i = j * tmpRows, limit = i + tmpRows; i < limit; i++) {
+                tmpData[i] = tmpLocation + (tmpScale * tmpData[i]);
+            }
+        }
+    }
+
     @Override
     public Array1D<Double> getExpected() {
         return myLocations;
@@ -0,0 +1,69 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.random;
+
+/**
+ * A low-discrepancy (quasi-random) sequence of points in the unit hypercube. Points fill the space more
+ * evenly than (pseudo) random points, and Monte Carlo estimates converge at close to O(1/N) rather than
+ * O(1/√N) – provided the integrand is reasonably smooth and the effective dimension is low. Instances are
+ * not thread safe, but {@link #skipTo(long)} makes it possible to let different threads generate different
+ * (reproducible) parts of the same sequence.
+ *
+ * @author apete
+ */
+public abstract class QuasiRandom {
+
+    public final int dimension;
+
+    protected QuasiRandom(final int dimension) {
+
+        super();
+
+        if (dimension < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.dimension = dimension;
+    }
+
+    /**
+     * @param destination Filled with the next point – all coordinates are in the open interval (0,1)
+     */
+    public abstract void next(double[] destination);
+
+    /**
+     * @param destination Filled with the next point transformed to standard normal coordinates
+     */
+    public void nextGaussian(final double[] destination) {
+        this.next(destination);
+        for (int i = 0; i < dimension; i++) {
+            destination[i] = RandomUtils.normalQuantile(destination[i]);
+        }
+    }
+
+    /**
+     * @param index The (0-based) index of the point that the next call to {@link #next(double[])} will
+     *        return
+     */
+    public abstract void skipTo(long index);
+
+}
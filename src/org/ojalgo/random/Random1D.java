@@ -28,14 +28,17 @@ import org.ojalgo.array.Array1D;
 import org.ojalgo.matrix.decomposition.Cholesky;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
-import org.ojalgo.type.Alternator;
 
 public class Random1D {
 
     public final int length;
 
-    private final Alternator<Random> myAlternator = RandomNumber.makeRandomAlternator();
+    private Random myGenerator = null;
     private final MatrixStore<Double> myCholeskiedCorrelations;
+    /**
+     * Dense copy of the transposed Cholesky factor – the right hand side when correlating batches.
+     */
+    private final PrimitiveDenseStore myTransposedCholesky;
 
     public Random1D(final Access2D<?> correlations) {
 
@@ -44,6 +47,7 @@ public class Random1D {
         final Cholesky<Double> tmpCholesky = Cholesky.PRIMITIVE.make();
         tmpCholesky.decompose(MatrixStore.PRIMITIVE.makeWrapper(correlations));
         myCholeskiedCorrelations = tmpCholesky.getL();
+        myTransposedCholesky = PrimitiveDenseStore.FACTORY.transpose(myCholeskiedCorrelations);
 
         tmpCholesky.reset();
 
@@ -58,6 +62,7 @@ public class Random1D {
         super();
 
         myCholeskiedCorrelations = null;
+        myTransposedCholesky = null;
 
         length = size;
     }
@@ -103,12 +108,65 @@ public class Random1D {
         }
     }
 
+    /**
+     * @see RandomNumber#setGenerator(Random)
+     */
+    public final void setGenerator(final Random generator) {
+        myGenerator = generator;
+    }
+
+    /**
+     * Generates a batch of correlated draws – each row of the destination is one draw. All rows are
+     * correlated at once with a single matrix multiplication (Z·L<sup>T</sup>), rather than one matrix-vector
+     * multiplication per draw.
+     *
+     * @param destination Any number of rows, and {@link #length} columns
+     */
+    public void nextGaussian(final PrimitiveDenseStore destination) {
+
+        final int tmpRows = (int) destination.countRows();
+
+        if (destination.countColumns() != length) {
+            throw new IllegalArgumentException();
+        }
+
+        final Random tmpRandom = this.random();
+
+        if (myTransposedCholesky == null) {
+
+            final double[] tmpData = destination.data;
+            for (int i = 0; i < tmpData.length; i++) {
+                tmpData[i] = tmpRandom.nextGaussian();
+            }
+
+        } else {
+
+            final PrimitiveDenseStore tmpUncorrelated = PrimitiveDenseStore.FACTORY.makeZero(tmpRows, length);
+
+            final double[] tmpData = tmpUncorrelated.data;
+            for (int i = 0; i < tmpData.length; i++) {
+                tmpData[i] = tmpRandom.nextGaussian();
+            }
+
+            destination.fillByMultiplying(tmpUncorrelated, myTransposedCholesky);
+        }
+    }
+
     public int size() {
         return length;
     }
 
+    /**
+     * @return The (cached) lower triangular Cholesky factor of the correlations matrix, or null if the
+     *         variables are uncorrelated
+     */
+    public MatrixStore<Double> getCholesky() {
+        return myCholeskiedCorrelations;
+    }
+
     protected Random random() {
-        return myAlternator.get();
+        final Random tmpGenerator = myGenerator;
+        return tmpGenerator != null ? tmpGenerator : Xoshiro256.current();
     }
 
 }
@@ -25,9 +25,9 @@ import static org.ojalgo.constant.PrimitiveMath.*;
 
 import java.util.Random;
 
+import org.ojalgo.access.Mutate1D;
 import org.ojalgo.function.NullaryFunction;
 import org.ojalgo.function.PrimitiveFunction;
-import org.ojalgo.type.Alternator;
 
 /**
  * RandomNumber
@@ -36,14 +36,10 @@ import org.ojalgo.type.Alternator;
  */
 public abstract class RandomNumber extends Number implements Distribution, NullaryFunction<Double> {
 
-    private static final Random SEED = new Random();
+    static final Random SEED = new Random();
     private static final long serialVersionUID = -5871398825698010936L;
 
-    static Alternator<Random> makeRandomAlternator() {
-        return new Alternator<>(new Random(SEED.nextLong()), new Random(SEED.nextLong()));
-    }
-
-    private final Alternator<Random> myAlternator = RandomNumber.makeRandomAlternator();
+    private Random myGenerator = null;
 
     protected RandomNumber() {
         super();
@@ -54,6 +50,25 @@ public abstract class RandomNumber extends Number implements Distribution, Nulla
         return this.generate();
     }
 
+    /**
+     * Fill the array with (independent) samples from this distribution
+     */
+    public void fill(final double[] destination) {
+        for (int i = 0; i < destination.length; i++) {
+            destination[i] = this.generate();
+        }
+    }
+
+    /**
+     * Fill the structure (array, matrix...) with (independent) samples from this distribution
+     */
+    public void fill(final Mutate1D destination) {
+        final long tmpCount = destination.count();
+        for (long i = 0L; i < tmpCount; i++) {
+            destination.set(i, this.generate());
+        }
+    }
+
     @Override
     public final float floatValue() {
         return (float) this.generate();
@@ -94,6 +109,17 @@ public abstract class RandomNumber extends Number implements Distribution, Nulla
         return (long) this.generate();
     }
 
+    /**
+     * By default each thread draws from its own (randomly seeded) generator, {@link Xoshiro256#current()},
+     * and the same {@link RandomNumber} instance can be used concurrently. Set a generator to get
+     * reproducible results. That generator is then used by all threads – a {@link Xoshiro256} is not thread
+     * safe, so only do that if this instance is confined to one thread (or pass null to revert to the
+     * default).
+     */
+    public final void setGenerator(final Random generator) {
+        myGenerator = generator;
+    }
+
     @Override
     public String toString() {
         return this.getExpected() + "±" + this.getStandardDeviation();
@@ -108,6 +134,7 @@ public abstract class RandomNumber extends Number implements Distribution, Nulla
     protected abstract double generate();
 
     protected final Random random() {
-        return myAlternator.get();
+        final Random tmpGenerator = myGenerator;
+        return tmpGenerator != null ? tmpGenerator : Xoshiro256.current();
     }
 }
@@ -27,6 +27,19 @@ import org.ojalgo.function.PrimitiveFunction;
 
 public abstract class RandomUtils {
 
+    private static final double[] AS241_A = { 3.387132872796366608, 133.14166789178437745, 1971.5909503065514427, 13731.693765509461125,
+            45921.953931549871457, 67265.770927008700853, 33430.575583588128105, 2509.0809287301226727 };
+    private static final double[] AS241_B = { 1.0, 42.313330701600911252, 687.1870074920579083, 5394.1960214247511077, 21213.794301586595867,
+            39307.89580009271061, 28729.085735721942674, 5226.495278852545925 };
+    private static final double[] AS241_C = { 1.42343711074968357734, 4.6303378461565452959, 5.7694972214606914055, 3.64784832476320460504,
+            1.27045825245236838258, 0.24178072517745061177, 0.0227238449892691845833, 7.7454501427834140764E-4 };
+    private static final double[] AS241_D = { 1.0, 2.05319162663775882187, 1.6763848301838038494, 0.68976733498510000455, 0.14810397642748007459,
+            0.0151986665636164571966, 5.475938084995344946E-4, 1.05075007164441684324E-9 };
+    private static final double[] AS241_E = { 6.6579046435011037772, 5.4637849111641143699, 1.7848265399172913358, 0.29656057182850489123,
+            0.026532189526576123093, 0.0012426609473880784386, 2.71155556874348757815E-5, 2.01033439929228813265E-7 };
+    private static final double[] AS241_F = { 1.0, 0.59983220655588793769, 0.13692988092273580531, 0.0148753612908506148525,
+            7.868691311456132591E-4, 1.8463183175100546818E-5, 1.4215117583164458887E-7, 2.04426310338993978564E-15 };
+
     private static final double[] C;
 
     static {
@@ -150,6 +163,38 @@ public abstract class RandomUtils {
         }
     }
 
+    /**
+     * The inverse of the standard normal cumulative distribution function – algorithm AS241 (Wichura, 1988),
+     * accurate to about 1e-16. Much faster than going via {@link #erfi(double)}.
+     *
+     * @param probability [0,1]
+     * @return The standard normal quantile
+     */
+    public static double normalQuantile(final double probability) {
+
+        final double tmpQ = probability - HALF;
+
+        if (PrimitiveFunction.ABS.invoke(tmpQ) <= 0.425) {
+            final double r = 0.180625 - (tmpQ * tmpQ);
+            return (tmpQ * RandomUtils.horner(AS241_A, r)) / RandomUtils.horner(AS241_B, r);
+        }
+
+        if ((probability <= ZERO) || (probability >= ONE)) {
+            return probability <= ZERO ? NEGATIVE_INFINITY : POSITIVE_INFINITY;
+        }
+
+        final double r = PrimitiveFunction.SQRT.invoke(-PrimitiveFunction.LOG.invoke(tmpQ < ZERO ? probability : ONE - probability));
+
+        final double retVal;
+        if (r <= FIVE) {
+            retVal = RandomUtils.horner(AS241_C, r - 1.6) / RandomUtils.horner(AS241_D, r - 1.6);
+        } else {
+            retVal = RandomUtils.horner(AS241_E, r - FIVE) / RandomUtils.horner(AS241_F, r - FIVE);
+        }
+
+        return tmpQ < ZERO ? -retVal : retVal;
+    }
+
     /**
      * @param n The number of elements in the set
      * @param k A vector of subset sizes the sum of which must equal the size of the full set
@@ -189,6 +234,17 @@ public abstract class RandomUtils {
         return (int) (RandomUtils.factorial(n) / RandomUtils.factorial(n - k));
     }
 
+    /**
+     * Polynomial evaluation, coefficients in increasing order of power
+     */
+    private static double horner(final double[] coefficients, final double x) {
+        double retVal = coefficients[coefficients.length - 1];
+        for (int i = coefficients.length - 2; i >= 0; i--) {
+            retVal = (retVal * x) + coefficients[i];
+        }
+        return retVal;
+    }
+
     private RandomUtils() {
         super();
     }
@@ -0,0 +1,218 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.random;
+
+/**
+ * The Sobol sequence, generated in Gray code order (Antonov &amp; Saleev). The direction numbers for the
+ * first 21 dimensions are those of Joe &amp; Kuo (new-joe-kuo-6.21201). Higher dimensions use the
+ * following primitive polynomials, in order, with (reproducible) random initial direction numbers – still
+ * a valid Sobol sequence but with less well tuned 2-dimensional projections. Combine with a Brownian bridge
+ * construction, or some other technique that concentrates the variance in the first few dimensions.
+ * <p>
+ * The scrambled version applies a random digital shift – the points are still a (t,s)-sequence.
+ * </p>
+ *
+ * @author apete
+ */
+public final class Sobol extends QuasiRandom {
+
+    static final int BITS = 32;
+
+    /**
+     * {degree, coefficients, initial direction numbers...} for dimensions 2 to 21
+     */
+    private static final int[][] JOE_KUO = { { 1, 0, 1 }, { 2, 1, 1, 3 }, { 3, 1, 1, 3, 1 }, { 3, 2, 1, 1, 1 }, { 4, 1, 1, 1, 3, 3 },
+            { 4, 4, 1, 3, 5, 13 }, { 5, 2, 1, 1, 5, 5, 17 }, { 5, 4, 1, 1, 5, 5, 5 }, { 5, 7, 1, 1, 7, 11, 19 }, { 5, 11, 1, 1, 5, 1, 1 },
+            { 5, 13, 1, 1, 1, 3, 11 }, { 5, 14, 1, 3, 5, 5, 31 }, { 6, 1, 1, 3, 3, 9, 7, 49 }, { 6, 13, 1, 1, 1, 15, 21, 21 },
+            { 6, 16, 1, 3, 1, 13, 27, 49 }, { 6, 19, 1, 1, 1, 15, 7, 5 }, { 6, 22, 1, 3, 1, 15, 13, 25 }, { 6, 25, 1, 1, 5, 5, 19, 61 },
+            { 7, 1, 1, 3, 7, 11, 23, 15, 103 }, { 7, 4, 1, 3, 7, 13, 13, 15, 69 } };
+
+    private static final double SCALE = 1.0 / (1L << BITS);
+
+    /**
+     * @param degree The polynomial degree
+     * @param coefficients The (degree-1) interior coefficients, the leading and constant terms are implied
+     * @return true if the polynomial is primitive over GF(2) – x has order 2<sup>degree</sup>-1 modulo the
+     *         polynomial
+     */
+    static boolean isPrimitive(final int degree, final int coefficients) {
+
+        final int tmpPolynomial = (1 << degree) | (coefficients << 1) | 1;
+        final int tmpPeriod = (1 << degree) - 1;
+
+        int tmpPower = 1;
+        for (int k = 1; k <= tmpPeriod; k++) {
+            tmpPower <<= 1;
+            if ((tmpPower & (1 << degree)) != 0) {
+                tmpPower ^= tmpPolynomial;
+            }
+            if (tmpPower == 1) {
+                return k == tmpPeriod;
+            }
+        }
+
+        return false;
+    }
+
+    static int[][] polynomials(final int dimension) {
+
+        final int[][] retVal = new int[Math.max(0, dimension - 1)][];
+
+        int tmpDegree = 0;
+        int tmpCoefficients = 0;
+
+        for (int d = 0; d < retVal.length; d++) {
+
+            if (d < JOE_KUO.length) {
+
+                retVal[d] = JOE_KUO[d];
+                tmpDegree = JOE_KUO[d][0];
+                tmpCoefficients = JOE_KUO[d][1];
+
+            } else {
+
+                do {
+                    tmpCoefficients++;
+                    if (tmpCoefficients >= (1 << (tmpDegree - 1))) {
+                        tmpDegree++;
+                        tmpCoefficients = 0;
+                    }
+                } while (!Sobol.isPrimitive(tmpDegree, tmpCoefficients));
+
+                final Xoshiro256 tmpRandom = new Xoshiro256(d);
+                final int[] tmpEntry = new int[2 + tmpDegree];
+                tmpEntry[0] = tmpDegree;
+                tmpEntry[1] = tmpCoefficients;
+                for (int i = 1; i <= tmpDegree; i++) {
+                    // Odd and less than 2^i
+                    tmpEntry[1 + i] = (tmpRandom.nextInt(1 << (i - 1)) << 1) | 1;
+                }
+                retVal[d] = tmpEntry;
+            }
+        }
+
+        return retVal;
+    }
+
+    private final long[][] myDirections;
+    private long myIndex = 0L;
+    private final long[] myPoint;
+    private final long[] myShift;
+
+    /**
+     * Unscrambled
+     */
+    public Sobol(final int dimension) {
+        this(dimension, null);
+    }
+
+    /**
+     * Scrambled with a random digital shift
+     */
+    public Sobol(final int dimension, final long seed) {
+        this(dimension, Long.valueOf(seed));
+    }
+
+    private Sobol(final int dimension, final Long seed) {
+
+        super(dimension);
+
+        myDirections = new long[dimension][BITS];
+        myPoint = new long[dimension];
+        myShift = new long[dimension];
+
+        for (int b = 0; b < BITS; b++) {
+            myDirections[0][b] = 1L << (BITS - 1 - b);
+        }
+
+        final int[][] tmpPolynomials = Sobol.polynomials(dimension);
+
+        for (int d = 1; d < dimension; d++) {
+
+            final int[] tmpEntry = tmpPolynomials[d - 1];
+            final int tmpDegree = tmpEntry[0];
+            final int tmpCoefficients = tmpEntry[1];
+            final long[] tmpDirections = myDirections[d];
+
+            for (int b = 0; (b < tmpDegree) && (b < BITS); b++) {
+                tmpDirections[b] = ((long) tmpEntry[2 + b]) << (BITS - 1 - b);
+            }
+            for (int b = tmpDegree; b < BITS; b++) {
+                long tmpValue = tmpDirections[b - tmpDegree] ^ (tmpDirections[b - tmpDegree] >>> tmpDegree);
+                for (int k = 1; k < tmpDegree; k++) {
+                    if (((tmpCoefficients >>> (tmpDegree - 1 - k)) & 1) != 0) {
+                        tmpValue ^= tmpDirections[b - k];
+                    }
+                }
+                tmpDirections[b] = tmpValue;
+            }
+        }
+
+        if (seed != null) {
+            final Xoshiro256 tmpRandom = new Xoshiro256(seed.longValue());
+            for (int d = 0; d < dimension; d++) {
+                myShift[d] = tmpRandom.nextLong() >>> (64 - BITS);
+            }
+        }
+
+        this.skipTo(1L); // The first point (index 0) is the origin – it's skipped
+    }
+
+    @Override
+    public void next(final double[] destination) {
+
+        for (int d = 0; d < dimension; d++) {
+            destination[d] = ((myPoint[d] ^ myShift[d]) + 0.5) * SCALE;
+        }
+
+        final int tmpBit = Long.numberOfTrailingZeros(++myIndex);
+        if (tmpBit >= BITS) {
+            throw new IllegalStateException("Sequence exhausted!");
+        }
+        for (int d = 0; d < dimension; d++) {
+            myPoint[d] ^= myDirections[d][tmpBit];
+        }
+    }
+
+    @Override
+    public void skipTo(final long index) {
+
+        if ((index < 0L) || (index >= (1L << BITS))) {
+            throw new IllegalArgumentException();
+        }
+
+        myIndex = index;
+
+        final long tmpGray = index ^ (index >>> 1);
+
+        for (int d = 0; d < dimension; d++) {
+            long tmpPoint = 0L;
+            for (int b = 0; b < BITS; b++) {
+                if (((tmpGray >>> b) & 1L) != 0L) {
+                    tmpPoint ^= myDirections[d][b];
+                }
+            }
+            myPoint[d] = tmpPoint;
+        }
+    }
+
+}
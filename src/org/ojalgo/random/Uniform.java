@@ -23,6 +23,8 @@ package org.ojalgo.random;
 
 import static org.ojalgo.constant.PrimitiveMath.*;
 
+import java.util.Random;
+
 import org.ojalgo.function.PrimitiveFunction;
 
 /**
@@ -74,6 +76,14 @@ public class Uniform extends AbstractContinuous {
         myRange = range;
     }
 
+    @Override
+    public void fill(final double[] destination) {
+        final Random tmpRandom = this.random();
+        for (int i = 0; i < destination.length; i++) {
+            destination[i] = myLower + (myRange * tmpRandom.nextDouble());
+        }
+    }
+
     public double getDistribution(final double value) {
 
         double retVal = ZERO;
@@ -0,0 +1,187 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.random;
+
+import java.util.Random;
+
+/**
+ * The xoshiro256** generator by David Blackman and Sebastiano Vigna – fast, small state (256 bits), period
+ * 2<sup>256</sup>-1 and passes all known statistical tests. Extends {@link Random} so that it can be used
+ * wherever a {@link Random} is expected, but is NOT thread safe (no CAS on a shared seed). Normal and
+ * exponential variates are generated using the ziggurat algorithm.
+ * <p>
+ * Use {@link #split()} (or {@link #jump()}) to create non-overlapping streams for parallel use, or
+ * {@link #current()} to get an instance confined to the calling thread.
+ * </p>
+ *
+ * @author apete
+ */
+public final class Xoshiro256 extends Random {
+
+    private static final long[] JUMP = { 0x180ec6d33cfd0abaL, 0xd5a61266f0c9392cL, 0xa9582618e03fc9aaL, 0x39abdc4529b1661cL };
+    private static final ThreadLocal<Xoshiro256> CURRENT = ThreadLocal.withInitial(Xoshiro256::new);
+    private static final long serialVersionUID = 8624727587417522935L;
+
+    /**
+     * @return The calling thread's own instance (randomly seeded). Safe to use without synchronisation, as
+     *         long as it is not handed over to other threads.
+     */
+    public static Xoshiro256 current() {
+        return CURRENT.get();
+    }
+
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+
+    public Xoshiro256() {
+        this(RandomNumber.SEED.nextLong());
+    }
+
+    public Xoshiro256(final long seed) {
+        super(seed); // Calls setSeed(long)
+    }
+
+    private Xoshiro256(final long s0, final long s1, final long s2, final long s3) {
+
+        super(0L);
+
+        this.s0 = s0;
+        this.s1 = s1;
+        this.s2 = s2;
+        this.s3 = s3;
+    }
+
+    /**
+     * Advances the state 2<sup>128</sup> steps – as if {@link #nextLong()} had been called that many
+     * times.
+     */
+    public void jump() {
+
+        long tmpS0 = 0L;
+        long tmpS1 = 0L;
+        long tmpS2 = 0L;
+        long tmpS3 = 0L;
+
+        for (int i = 0; i < JUMP.length; i++) {
+            for (int b = 0; b < 64; b++) {
+                if ((JUMP[i] & (1L << b)) != 0L) {
+                    tmpS0 ^= s0;
+                    tmpS1 ^= s1;
+                    tmpS2 ^= s2;
+                    tmpS3 ^= s3;
+                }
+                this.nextLong();
+            }
+        }
+
+        s0 = tmpS0;
+        s1 = tmpS1;
+        s2 = tmpS2;
+        s3 = tmpS3;
+    }
+
+    /**
+     * Uniformly distributed in [0,1)
+     */
+    @Override
+    public double nextDouble() {
+        return (this.nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Exponentially distributed with rate (and mean) 1.0
+     */
+    public double nextExponential() {
+        return Ziggurat.exponential(this);
+    }
+
+    @Override
+    public float nextFloat() {
+        return (this.nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    /**
+     * Standard normal
+     */
+    @Override
+    public double nextGaussian() {
+        return Ziggurat.normal(this);
+    }
+
+    @Override
+    public long nextLong() {
+
+        final long retVal = Long.rotateLeft(s1 * 5L, 7) * 9L;
+
+        final long tmpT = s1 << 17;
+
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+
+        s2 ^= tmpT;
+
+        s3 = Long.rotateLeft(s3, 45);
+
+        return retVal;
+    }
+
+    /**
+     * The state is initialised from the seed using the SplitMix64 generator.
+     */
+    @Override
+    public void setSeed(final long seed) {
+
+        long tmpX = seed;
+
+        s0 = Xoshiro256.splitMix64(tmpX += 0x9e3779b97f4a7c15L);
+        s1 = Xoshiro256.splitMix64(tmpX += 0x9e3779b97f4a7c15L);
+        s2 = Xoshiro256.splitMix64(tmpX += 0x9e3779b97f4a7c15L);
+        s3 = Xoshiro256.splitMix64(tmpX += 0x9e3779b97f4a7c15L);
+    }
+
+    /**
+     * @return A new generator starting at this generator's current state, and then this generator jumps
+     *         2<sup>128</sup> steps ahead – the two streams will not overlap.
+     */
+    public Xoshiro256 split() {
+        final Xoshiro256 retVal = new Xoshiro256(s0, s1, s2, s3);
+        this.jump();
+        return retVal;
+    }
+
+    @Override
+    protected int next(final int bits) {
+        return (int) (this.nextLong() >>> (64 - bits));
+    }
+
+    private static long splitMix64(final long x) {
+        long retVal = x;
+        retVal = (retVal ^ (retVal >>> 30)) * 0xbf58476d1ce4e5b9L;
+        retVal = (retVal ^ (retVal >>> 27)) * 0x94d049bb133111ebL;
+        return retVal ^ (retVal >>> 31);
+    }
+
+}
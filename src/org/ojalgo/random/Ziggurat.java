@@ -0,0 +1,152 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.random;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Random;
+
+import org.ojalgo.function.PrimitiveFunction;
+
+/**
+ * The ziggurat algorithm (Marsaglia &amp; Tsang) for normal and exponential variates, as formulated by
+ * Doornik ("An Improved Ziggurat Method to Generate Normal Random Samples", 2005) – one 64-bit draw
+ * provides both the layer index and the uniform, and no integer/double correlation issues.
+ *
+ * @author apete
+ */
+abstract class Ziggurat {
+
+    private static final int EXP_LAYERS = 256;
+    private static final double EXP_R = 7.69711747013104972;
+    private static final double[] EXP_RATIO = new double[EXP_LAYERS];
+    private static final double EXP_V = 3.949659822581572E-3;
+    private static final double[] EXP_X = new double[EXP_LAYERS + 1];
+
+    private static final int NORMAL_LAYERS = 128;
+    private static final double NORMAL_R = 3.442619855899;
+    private static final double[] NORMAL_RATIO = new double[NORMAL_LAYERS];
+    private static final double NORMAL_V = 9.91256303526217E-3;
+    private static final double[] NORMAL_X = new double[NORMAL_LAYERS + 1];
+
+    static {
+
+        double tmpF = PrimitiveFunction.EXP.invoke(-HALF * NORMAL_R * NORMAL_R);
+        NORMAL_X[0] = NORMAL_V / tmpF;
+        NORMAL_X[1] = NORMAL_R;
+        NORMAL_X[NORMAL_LAYERS] = ZERO;
+        for (int i = 2; i < NORMAL_LAYERS; i++) {
+            NORMAL_X[i] = PrimitiveFunction.SQRT.invoke(-TWO * PrimitiveFunction.LOG.invoke((NORMAL_V / NORMAL_X[i - 1]) + tmpF));
+            tmpF = PrimitiveFunction.EXP.invoke(-HALF * NORMAL_X[i] * NORMAL_X[i]);
+        }
+        for (int i = 0; i < NORMAL_LAYERS; i++) {
+            NORMAL_RATIO[i] = NORMAL_X[i + 1] / NORMAL_X[i];
+        }
+
+        tmpF = PrimitiveFunction.EXP.invoke(-EXP_R);
+        EXP_X[0] = EXP_V / tmpF;
+        EXP_X[1] = EXP_R;
+        EXP_X[EXP_LAYERS] = ZERO;
+        for (int i = 2; i < EXP_LAYERS; i++) {
+            EXP_X[i] = -PrimitiveFunction.LOG.invoke((EXP_V / EXP_X[i - 1]) + tmpF);
+            tmpF = PrimitiveFunction.EXP.invoke(-EXP_X[i]);
+        }
+        for (int i = 0; i < EXP_LAYERS; i++) {
+            EXP_RATIO[i] = EXP_X[i + 1] / EXP_X[i];
+        }
+    }
+
+    /**
+     * Exponential with rate 1.0
+     */
+    static double exponential(final Random random) {
+
+        for (;;) {
+
+            final long tmpBits = random.nextLong();
+            final int i = (int) (tmpBits & 0xFF);
+            final double tmpU = (tmpBits >>> 11) * 0x1.0p-53;
+
+            if (tmpU < EXP_RATIO[i]) {
+                return tmpU * EXP_X[i];
+            }
+
+            if (i == 0) {
+                // The tail is memoryless
+                return EXP_R - PrimitiveFunction.LOG.invoke(ONE - random.nextDouble());
+            }
+
+            final double tmpX = tmpU * EXP_X[i];
+            final double tmpF0 = PrimitiveFunction.EXP.invoke(tmpX - EXP_X[i]);
+            final double tmpF1 = PrimitiveFunction.EXP.invoke(tmpX - EXP_X[i + 1]);
+
+            if ((tmpF1 + (random.nextDouble() * (tmpF0 - tmpF1))) < ONE) {
+                return tmpX;
+            }
+        }
+    }
+
+    /**
+     * Standard normal
+     */
+    static double normal(final Random random) {
+
+        for (;;) {
+
+            final long tmpBits = random.nextLong();
+            final int i = (int) (tmpBits & 0x7F);
+            final double tmpU = (TWO * ((tmpBits >>> 11) * 0x1.0p-53)) - ONE;
+
+            if (PrimitiveFunction.ABS.invoke(tmpU) < NORMAL_RATIO[i]) {
+                return tmpU * NORMAL_X[i];
+            }
+
+            if (i == 0) {
+                return Ziggurat.normalTail(random, tmpU < ZERO);
+            }
+
+            final double tmpX = tmpU * NORMAL_X[i];
+            final double tmpF0 = PrimitiveFunction.EXP.invoke(-HALF * ((NORMAL_X[i] * NORMAL_X[i]) - (tmpX * tmpX)));
+            final double tmpF1 = PrimitiveFunction.EXP.invoke(-HALF * ((NORMAL_X[i + 1] * NORMAL_X[i + 1]) - (tmpX * tmpX)));
+
+            if ((tmpF1 + (random.nextDouble() * (tmpF0 - tmpF1))) < ONE) {
+                return tmpX;
+            }
+        }
+    }
+
+    private static double normalTail(final Random random, final boolean negative) {
+
+        double tmpX, tmpY;
+        do {
+            tmpX = PrimitiveFunction.LOG.invoke(ONE - random.nextDouble()) / NORMAL_R;
+            tmpY = PrimitiveFunction.LOG.invoke(ONE - random.nextDouble());
+        } while ((-TWO * tmpY) < (tmpX * tmpX));
+
+        return negative ? tmpX - NORMAL_R : NORMAL_R - tmpX;
+    }
+
+    private Ziggurat() {
+        super();
+    }
+
+}
@@ -100,11 +100,19 @@ abstract class AbstractProcess<D extends Distribution> implements RandomProcess<
     }
 
     /**
+     * Markov processes are simulated in parallel, using a {@link SimulationEngine} with a random seed. Use
+     * {@link SimulationEngine#simulate(RandomProcess, int, int, double)} directly to get reproducible
+     * results.
+     *
      * @return An array of sample sets. The array has aNumberOfSteps elements, and each sample set has
      *         aNumberOfRealisations samples.
      */
     public final RandomProcess.SimulationResults simulate(final int numberOfRealisations, final int numberOfSteps, final double stepSize) {
 
+        if (this.isMarkov()) {
+            return new SimulationEngine().simulate(this, numberOfRealisations, numberOfSteps, stepSize);
+        }
+
         final List<ComparableToDouble<Double>> tmpInitialState = new ArrayList<>(myObservations);
         final double tmpInitialValue = this.getValue();
 
@@ -129,12 +137,23 @@ abstract class AbstractProcess<D extends Distribution> implements RandomProcess<
         myObservations.addAll(c);
     }
 
-    protected abstract double step(double currentValue, final double stepSize, final double normalisedRandomIncrement);
+    protected double step(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
+        final double retVal = this.next(currentValue, stepSize, normalisedRandomIncrement);
+        this.setValue(retVal);
+        return retVal;
+    }
 
     abstract double getExpected(double stepSize);
 
     abstract double getLowerConfidenceQuantile(double stepSize, final double confidence);
 
+    /**
+     * Must be thread safe – may be called concurrently by a {@link SimulationEngine}.
+     */
+    double getNormalisedRandomIncrement(final SimulationStream stream) {
+        return stream.nextGaussian();
+    }
+
     final TreeSet<ComparableToDouble<Double>> getObservations() {
         return myObservations;
     }
@@ -145,6 +164,29 @@ abstract class AbstractProcess<D extends Distribution> implements RandomProcess<
 
     abstract double getVariance(double stepSize);
 
+    /**
+     * @return true if the process is driven by (standard normal) Brownian increments – then the increments
+     *         may be generated using antithetic or quasi-random sampling and/or a Brownian bridge.
+     */
+    boolean isDiffusion() {
+        return false;
+    }
+
+    /**
+     * @return true if the next value only depends on the current value (not on any other process state), and
+     *         {@link #next(double, double, double)} is implemented. Only then can the process be simulated by
+     *         a {@link SimulationEngine}.
+     */
+    boolean isMarkov() {
+        return true;
+    }
+
+    /**
+     * The same as {@link #step(double, double, double)} but without modifying the process state. Must be
+     * thread safe – may be called concurrently by a {@link SimulationEngine}.
+     */
+    abstract double next(double currentValue, final double stepSize, final double normalisedRandomIncrement);
+
     final double step(final double stepSize) {
         return this.step(this.getValue(), stepSize, this.getNormalisedRandomIncrement());
     }
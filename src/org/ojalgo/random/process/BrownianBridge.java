@@ -0,0 +1,115 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.random.process;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.function.PrimitiveFunction;
+
+/**
+ * Brownian bridge path construction for equidistant steps: the first normal variate determines the
+ * terminal value, the second the value half way, and so on by bisection. Combined with a low-discrepancy
+ * sequence this puts most of the variance in the first (best distributed) dimensions.
+ *
+ * @author apete
+ */
+final class BrownianBridge {
+
+    private final int[] myBridgeIndex;
+    private final int[] myLeftIndex;
+    private final double[] myLeftWeight;
+    private final int[] myRightIndex;
+    private final double[] myRightWeight;
+    private final double[] myStdDev;
+
+    BrownianBridge(final int numberOfSteps) {
+
+        super();
+
+        myBridgeIndex = new int[numberOfSteps];
+        myLeftIndex = new int[numberOfSteps];
+        myRightIndex = new int[numberOfSteps];
+        myLeftWeight = new double[numberOfSteps];
+        myRightWeight = new double[numberOfSteps];
+        myStdDev = new double[numberOfSteps];
+
+        // Time of point i is i+1 (unit steps)
+        final boolean[] tmpPopulated = new boolean[numberOfSteps];
+        tmpPopulated[numberOfSteps - 1] = true;
+        myBridgeIndex[0] = numberOfSteps - 1;
+        myStdDev[0] = PrimitiveFunction.SQRT.invoke(numberOfSteps);
+
+        for (int i = 1, j = 0; i < numberOfSteps; i++) {
+
+            while (tmpPopulated[j]) {
+                j++;
+            }
+            int k = j;
+            while (!tmpPopulated[k]) {
+                k++;
+            }
+            final int l = j + ((k - 1 - j) >> 1);
+
+            tmpPopulated[l] = true;
+            myBridgeIndex[i] = l;
+            myLeftIndex[i] = j;
+            myRightIndex[i] = k;
+
+            final double tmpLeftTime = j; // Time of point j-1 (0 when j == 0)
+            final double tmpBridgeTime = l + 1;
+            final double tmpRightTime = k + 1;
+            final double tmpSpan = tmpRightTime - tmpLeftTime;
+
+            myLeftWeight[i] = (tmpRightTime - tmpBridgeTime) / tmpSpan;
+            myRightWeight[i] = (tmpBridgeTime - tmpLeftTime) / tmpSpan;
+            myStdDev[i] = PrimitiveFunction.SQRT.invoke(((tmpBridgeTime - tmpLeftTime) * (tmpRightTime - tmpBridgeTime)) / tmpSpan);
+
+            j = k + 1;
+            if (j >= numberOfSteps) {
+                j = 0;
+            }
+        }
+    }
+
+    /**
+     * @param normals Independent standard normal variates, in order of importance
+     * @param increments Output – standard normal increments that (cumulatively) form a Brownian path
+     */
+    void construct(final double[] normals, final double[] increments) {
+
+        final int tmpSize = myBridgeIndex.length;
+
+        increments[tmpSize - 1] = myStdDev[0] * normals[0];
+
+        for (int i = 1; i < tmpSize; i++) {
+            final int j = myLeftIndex[i];
+            final int k = myRightIndex[i];
+            final double tmpLeft = j != 0 ? myLeftWeight[i] * increments[j - 1] : ZERO;
+            increments[myBridgeIndex[i]] = tmpLeft + (myRightWeight[i] * increments[k]) + (myStdDev[i] * normals[i]);
+        }
+
+        for (int i = tmpSize - 1; i > 0; i--) {
+            increments[i] -= increments[i - 1];
+        }
+    }
+
+}
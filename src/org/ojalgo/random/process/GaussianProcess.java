@@ -21,6 +21,7 @@
  */
 package org.ojalgo.random.process;
 
+import org.ojalgo.ProgrammingError;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.random.Normal;
 import org.ojalgo.random.Normal1D;
@@ -124,4 +125,18 @@ public final class GaussianProcess extends AbstractProcess<Normal> {
         return this.getDistribution(stepSize).getVariance();
     }
 
+    /**
+     * Each step adds an observation, and the distribution of the next value depends on all of them.
+     */
+    @Override
+    boolean isMarkov() {
+        return false;
+    }
+
+    @Override
+    double next(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
+        ProgrammingError.throwForUnsupportedOptionalOperation();
+        return 0;
+    }
+
 }
@@ -151,17 +151,6 @@ public final class GeometricBrownianMotion extends AbstractProcess<LogNormal> {
         return GENERATOR.getNormalisedRandomIncrement();
     }
 
-    @Override
-    protected double step(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
-
-        final double tmpDetPart = (myLocalDrift - ((myDiffusionFunction * myDiffusionFunction) / TWO)) * stepSize;
-        final double tmpRandPart = myDiffusionFunction * PrimitiveFunction.SQRT.invoke(stepSize) * normalisedRandomIncrement;
-
-        final double retVal = currentValue * PrimitiveFunction.EXP.invoke(tmpDetPart + tmpRandPart);
-        this.setValue(retVal);
-        return retVal;
-    }
-
     /**
      * Expected future value
      */
@@ -205,4 +194,18 @@ public final class GeometricBrownianMotion extends AbstractProcess<LogNormal> {
                 * PrimitiveFunction.EXPM1.invoke(this.getDistributionVariance(stepSize));
     }
 
+    @Override
+    boolean isDiffusion() {
+        return true;
+    }
+
+    @Override
+    double next(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
+
+        final double tmpDetPart = (myLocalDrift - ((myDiffusionFunction * myDiffusionFunction) / TWO)) * stepSize;
+        final double tmpRandPart = myDiffusionFunction * PrimitiveFunction.SQRT.invoke(stepSize) * normalisedRandomIncrement;
+
+        return currentValue * PrimitiveFunction.EXP.invoke(tmpDetPart + tmpRandPart);
+    }
+
 }
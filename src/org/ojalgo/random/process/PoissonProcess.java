@@ -65,13 +65,6 @@ public final class PoissonProcess extends AbstractProcess<Poisson> {
         return GENERATOR.doubleValue();
     }
 
-    @Override
-    protected double step(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
-        final double retVal = currentValue + ((myRate * stepSize) * normalisedRandomIncrement);
-        this.setValue(retVal);
-        return retVal;
-    }
-
     @Override
     double getExpected(final double stepSize) {
         return myRate * stepSize;
@@ -83,6 +76,11 @@ public final class PoissonProcess extends AbstractProcess<Poisson> {
         return 0;
     }
 
+    @Override
+    double getNormalisedRandomIncrement(final SimulationStream stream) {
+        return stream.nextPoisson(ONE);
+    }
+
     @Override
     double getStandardDeviation(final double stepSize) {
         return PrimitiveFunction.SQRT.invoke(myRate * stepSize);
@@ -99,4 +97,9 @@ public final class PoissonProcess extends AbstractProcess<Poisson> {
         return myRate * stepSize;
     }
 
+    @Override
+    double next(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
+        return currentValue + ((myRate * stepSize) * normalisedRandomIncrement);
+    }
+
 }
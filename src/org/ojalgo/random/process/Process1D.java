@@ -21,18 +21,41 @@
  */
 package org.ojalgo.random.process;
 
+import static org.ojalgo.constant.PrimitiveMath.*;
+
 import java.util.List;
 
 import org.ojalgo.access.Access1D;
 import org.ojalgo.access.Access2D;
 import org.ojalgo.array.Array1D;
 import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
 import org.ojalgo.random.ContinuousDistribution;
 import org.ojalgo.random.Random1D;
 import org.ojalgo.random.process.RandomProcess.SimulationResults;
 
+/**
+ * A set of (possibly correlated) processes.
+ *
+ * @author apete
+ */
 abstract class Process1D<D extends ContinuousDistribution, P extends AbstractProcess<D>> {
 
+    /**
+     * The number of steps' random increments generated (and correlated) at once
+     */
+    static final int BATCH_SIZE = 32;
+
+    /**
+     * The rows of the lower triangular Cholesky factor of the correlations matrix, or null if uncorrelated.
+     */
+    private final double[][] myCholesky;
+    /**
+     * Correlated random increments, one step per row, consumed by {@link #step(double)}
+     */
+    private PrimitiveDenseStore myBatch = null;
+    private int myBatchRow = 0;
     private final Random1D myGenerator;
     private final AbstractProcess<? extends D>[] myProcesses;
 
@@ -43,6 +66,17 @@ abstract class Process1D<D extends ContinuousDistribution, P extends AbstractPro
 
         myGenerator = new Random1D(correlations);
         myProcesses = processes.toArray(new AbstractProcess[processes.size()]);
+
+        final MatrixStore<Double> tmpL = myGenerator.getCholesky();
+
+        final int tmpSize = (int) tmpL.countRows();
+        myCholesky = new double[tmpSize][];
+        for (int i = 0; i < tmpSize; i++) {
+            myCholesky[i] = new double[i + 1];
+            for (int j = 0; j <= i; j++) {
+                myCholesky[i][j] = tmpL.doubleValue(i, j);
+            }
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -51,6 +85,7 @@ abstract class Process1D<D extends ContinuousDistribution, P extends AbstractPro
         super();
 
         final int tmpSize = processes.size();
+        myCholesky = null;
         myGenerator = new Random1D(tmpSize);
         myProcesses = processes.toArray(new AbstractProcess[tmpSize]);
     }
@@ -87,12 +122,22 @@ abstract class Process1D<D extends ContinuousDistribution, P extends AbstractPro
 
     public Array1D<Double> step(final double stepSize) {
 
-        final Array1D<Double> retVal = myGenerator.nextGaussian();
+        if ((myBatch == null) || (myBatchRow == BATCH_SIZE)) {
+            if (myBatch == null) {
+                myBatch = PrimitiveDenseStore.FACTORY.makeZero(BATCH_SIZE, myProcesses.length);
+            }
+            myGenerator.nextGaussian(myBatch);
+            myBatchRow = 0;
+        }
+
+        final Array1D<Double> retVal = Array1D.PRIMITIVE64.makeZero(myProcesses.length);
 
         for (int p = 0; p < myProcesses.length; p++) {
-            retVal.set(p, myProcesses[p].step(this.getValue(p), stepSize, retVal.doubleValue(p)));
+            retVal.set(p, myProcesses[p].step(this.getValue(p), stepSize, myBatch.doubleValue(myBatchRow, p)));
         }
 
+        myBatchRow++;
+
         return retVal;
     }
 
@@ -100,6 +145,32 @@ abstract class Process1D<D extends ContinuousDistribution, P extends AbstractPro
         return myProcesses[index];
     }
 
+    /**
+     * Transforms a batch of vectors of uncorrelated (standard normal) random numbers to correlated ones, in
+     * place. Each row of the Cholesky factor is read once per batch, rather than once per vector – with many
+     * variables the factor doesn't fit in the cache. Thread safe.
+     *
+     * @param increments The random numbers, the vectors stored one after the other
+     * @param offset The index of the first element of the first vector
+     * @param count The number of vectors
+     */
+    void correlate(final double[] increments, final int offset, final int count) {
+        if (myCholesky != null) {
+            final int tmpSize = myCholesky.length;
+            // Row i only uses elements [0,i] – going backwards they're still unmodified
+            for (int i = tmpSize - 1; i >= 0; i--) {
+                final double[] tmpRow = myCholesky[i];
+                for (int v = 0, tmpFirst = offset; v < count; v++, tmpFirst += tmpSize) {
+                    double tmpSum = ZERO;
+                    for (int j = 0; j <= i; j++) {
+                        tmpSum += tmpRow[j] * increments[tmpFirst + j];
+                    }
+                    increments[tmpFirst + i] = tmpSum;
+                }
+            }
+        }
+    }
+
     D getDistribution(final int index, final double stepSize) {
         return myProcesses[index].getDistribution(stepSize);
     }
@@ -21,9 +21,13 @@
  */
 package org.ojalgo.random.process;
 
+import org.ojalgo.access.Access1D;
 import org.ojalgo.array.Array1D;
 import org.ojalgo.array.Array2D;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.function.UnaryFunction;
 import org.ojalgo.random.Distribution;
+import org.ojalgo.random.Normal;
 import org.ojalgo.random.SampleSet;
 import org.ojalgo.series.primitive.PrimitiveSeries;
 
@@ -37,8 +41,8 @@ public interface RandomProcess<D extends Distribution> {
 
     public static final class SimulationResults {
 
+        private final boolean myAntithetic;
         private final double myInitialValue;
-
         private final Array2D<Double> myResults;
 
         /**
@@ -46,11 +50,21 @@ public interface RandomProcess<D extends Distribution> {
          * @param results (Random values) scenarios/realisations/series in rows, and sample sets in columns.
          */
         public SimulationResults(final double initialValue, final Array2D<Double> results) {
+            this(initialValue, results, false);
+        }
+
+        /**
+         * @param initialValue
+         * @param results (Random values) scenarios/realisations/series in rows, and sample sets in columns.
+         * @param antithetic true if the scenarios are (even, odd) antithetic pairs
+         */
+        public SimulationResults(final double initialValue, final Array2D<Double> results, final boolean antithetic) {
 
             super();
 
             myInitialValue = initialValue;
             myResults = results;
+            myAntithetic = antithetic;
         }
 
         @SuppressWarnings("unused")
@@ -60,6 +74,7 @@ public interface RandomProcess<D extends Distribution> {
 
             myInitialValue = 0.0;
             myResults = null;
+            myAntithetic = false;
         }
 
         public int countSampleSets() {
@@ -70,6 +85,67 @@ public interface RandomProcess<D extends Distribution> {
             return (int) myResults.countRows();
         }
 
+        /**
+         * Monte Carlo estimate of the expected value of some function of the process value. If the scenarios
+         * are antithetic pairs, the pair averages are treated as the independent samples.
+         *
+         * @param sampleSetIndex Which step
+         * @param function The function to evaluate for each scenario (a payoff)
+         * @return The estimate (expected value) and its standard error (standard deviation)
+         */
+        public Normal estimate(final int sampleSetIndex, final UnaryFunction<Double> function) {
+
+            final double[] tmpSamples = this.samples(sampleSetIndex, function);
+
+            final SampleSet tmpSampleSet = SampleSet.wrap(Access1D.wrapAccess1D(tmpSamples));
+
+            return new Normal(tmpSampleSet.getMean(), tmpSampleSet.getStandardDeviation() / PrimitiveFunction.SQRT.invoke(tmpSamples.length));
+        }
+
+        /**
+         * Monte Carlo estimate using the process value itself as a control variate – typically its expected
+         * value is known analytically (see {@link RandomProcess#getDistribution(double)}). The optimal
+         * control coefficient is estimated from the same samples.
+         *
+         * @param sampleSetIndex Which step
+         * @param function The function to evaluate for each scenario (a payoff)
+         * @param expectedValue The known expected value of the process at that step
+         * @return The estimate (expected value) and its standard error (standard deviation)
+         */
+        public Normal estimate(final int sampleSetIndex, final UnaryFunction<Double> function, final double expectedValue) {
+
+            final double[] tmpSamples = this.samples(sampleSetIndex, function);
+            final PrimitiveFunction.Unary tmpIdentity = arg -> arg;
+            final double[] tmpControls = this.samples(sampleSetIndex, tmpIdentity);
+            final int tmpCount = tmpSamples.length;
+
+            double tmpMeanSample = 0.0, tmpMeanControl = 0.0;
+            for (int i = 0; i < tmpCount; i++) {
+                tmpMeanSample += tmpSamples[i];
+                tmpMeanControl += tmpControls[i];
+            }
+            tmpMeanSample /= tmpCount;
+            tmpMeanControl /= tmpCount;
+
+            double tmpCovariance = 0.0, tmpVariance = 0.0;
+            for (int i = 0; i < tmpCount; i++) {
+                tmpCovariance += (tmpSamples[i] - tmpMeanSample) * (tmpControls[i] - tmpMeanControl);
+                tmpVariance += (tmpControls[i] - tmpMeanControl) * (tmpControls[i] - tmpMeanControl);
+            }
+            final double tmpCoefficient = tmpVariance > 0.0 ? tmpCovariance / tmpVariance : 0.0;
+
+            double tmpResidualVariance = 0.0;
+            for (int i = 0; i < tmpCount; i++) {
+                final double tmpResidual = (tmpSamples[i] - tmpMeanSample) - (tmpCoefficient * (tmpControls[i] - tmpMeanControl));
+                tmpResidualVariance += tmpResidual * tmpResidual;
+            }
+            tmpResidualVariance /= (tmpCount - 2);
+
+            final double tmpEstimate = tmpMeanSample - (tmpCoefficient * (tmpMeanControl - expectedValue));
+
+            return new Normal(tmpEstimate, PrimitiveFunction.SQRT.invoke(tmpResidualVariance / tmpCount));
+        }
+
         public double getInitialValue() {
             return myInitialValue;
         }
@@ -105,6 +181,36 @@ public interface RandomProcess<D extends Distribution> {
             };
         }
 
+        /**
+         * @return true if the scenarios are (even, odd) antithetic pairs
+         */
+        public boolean isAntithetic() {
+            return myAntithetic;
+        }
+
+        /**
+         * The function values, or pair averages of the function values if antithetic.
+         */
+        private double[] samples(final int sampleSetIndex, final UnaryFunction<Double> function) {
+
+            final int tmpScenarios = this.countScenarios();
+
+            if (myAntithetic) {
+                final double[] retVal = new double[tmpScenarios / 2];
+                for (int i = 0; i < retVal.length; i++) {
+                    retVal[i] = (function.invoke(myResults.doubleValue(2 * i, sampleSetIndex))
+                            + function.invoke(myResults.doubleValue((2 * i) + 1, sampleSetIndex))) / 2.0;
+                }
+                return retVal;
+            } else {
+                final double[] retVal = new double[tmpScenarios];
+                for (int i = 0; i < retVal.length; i++) {
+                    retVal[i] = function.invoke(myResults.doubleValue(i, sampleSetIndex));
+                }
+                return retVal;
+            }
+        }
+
     }
 
     /**
@@ -0,0 +1,433 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.random.process;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.array.Array2D;
+import org.ojalgo.concurrent.ParallelScope;
+import org.ojalgo.random.Halton;
+import org.ojalgo.random.QuasiRandom;
+import org.ojalgo.random.Sobol;
+import org.ojalgo.random.Xoshiro256;
+
+/**
+ * Simulates (Markov) processes in parallel. The realisations are split in fixed size blocks, and each block
+ * gets its own {@link Xoshiro256} stream – all of them split (jumped) from one root stream before any work
+ * is started. Which thread simulates which block doesn't matter; for a given seed the results are identical
+ * regardless of the parallelism. The process state is kept in per thread primitive buffers, and the
+ * results are written directly to a preallocated {@link Array2D}.
+ * <p>
+ * The engine itself has no mutable state. Every call to one of the simulate methods starts over from the
+ * seed.
+ * </p>
+ * <p>
+ * Apart from plain pseudo-random sampling there are variance reduction options – see {@link Sampling}. The
+ * Brownian bridge path construction, as well as all sampling options other than plain pseudo-random, are
+ * only available for diffusion processes ({@link WienerProcess} and {@link GeometricBrownianMotion}). The
+ * low-discrepancy sequences are only available for 1-dimensional processes.
+ * </p>
+ *
+ * @author apete
+ */
+public final class SimulationEngine {
+
+    @FunctionalInterface
+    interface Block {
+
+        void simulate(SimulationStream stream, int first, int limit);
+
+    }
+
+    public static enum Sampling {
+
+        /**
+         * Realisations in (even, odd) pairs where the odd one uses the negated random increments of the even
+         * one. The {@link RandomProcess.SimulationResults} know about this, and take it into account when
+         * estimating standard errors.
+         */
+        ANTITHETIC,
+        /**
+         * Scrambled (random digit permutations) Halton sequence, one dimension per step
+         */
+        HALTON,
+        /**
+         * Plain pseudo-random sampling
+         */
+        PSEUDO_RANDOM,
+        /**
+         * Scrambled (random digital shift) Sobol sequence, one dimension per step
+         */
+        SOBOL;
+
+    }
+
+    /**
+     * The number of realisations simulated with the same random number stream. Must not change, or results
+     * would not be reproducible between versions.
+     */
+    static final int BLOCK_SIZE = 64;
+
+    private final boolean myBridge;
+    private final int myParallelism;
+    private final Sampling mySampling;
+    private final long mySeed;
+
+    /**
+     * Random seed, and as many threads as the (current) {@link ParallelScope} allows.
+     */
+    public SimulationEngine() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * As many threads as the (current) {@link ParallelScope} allows.
+     */
+    public SimulationEngine(final long seed) {
+        this(seed, ParallelScope.parallelism());
+    }
+
+    /**
+     * @param seed The root random number seed
+     * @param parallelism The (max) number of threads used, also limited by the {@link ParallelScope} – does not affect
+     *        the results
+     */
+    public SimulationEngine(final long seed, final int parallelism) {
+        this(seed, parallelism, Sampling.PSEUDO_RANDOM, false);
+    }
+
+    /**
+     * @param seed The root random number seed (also used to scramble the low-discrepancy sequences)
+     * @param parallelism The (max) number of threads used, also limited by the {@link ParallelScope} – does not affect
+     *        the results
+     * @param sampling How to sample the random increments
+     * @param bridge Construct the paths using a Brownian bridge (always first the terminal value, then the
+     *        value half way...) – most useful together with the low-discrepancy sequences.
+     */
+    public SimulationEngine(final long seed, final int parallelism, final Sampling sampling, final boolean bridge) {
+
+        super();
+
+        if ((parallelism < 1) || (sampling == null)) {
+            throw new IllegalArgumentException();
+        }
+
+        mySeed = seed;
+        myParallelism = parallelism;
+        mySampling = sampling;
+        myBridge = bridge;
+    }
+
+    public int getParallelism() {
+        return myParallelism;
+    }
+
+    public Sampling getSampling() {
+        return mySampling;
+    }
+
+    public long getSeed() {
+        return mySeed;
+    }
+
+    public boolean isBridge() {
+        return myBridge;
+    }
+
+    /**
+     * Simulates the sum of the component process values (a portfolio).
+     *
+     * @param process The (multi dimensional) process, its state is not modified
+     * @param numberOfRealisations The number of realisations/scenarios
+     * @param numberOfSteps The number of steps in each realisation
+     * @param stepSize The size of each step
+     * @param rebalancingInterval Every so many steps the total value is redistributed among the components,
+     *        according to the initial relative values. 0 means never.
+     */
+    public RandomProcess.SimulationResults simulate(final Process1D<?, ?> process, final int numberOfRealisations, final int numberOfSteps,
+            final double stepSize, final int rebalancingInterval) {
+
+        final Array2D<Double> tmpResults = Array2D.PRIMITIVE64.makeDense(numberOfRealisations, numberOfSteps);
+
+        this.simulate(process, stepSize, rebalancingInterval, tmpResults);
+
+        double tmpInitialValue = ZERO;
+        for (int p = 0; p < process.size(); p++) {
+            tmpInitialValue += process.getValue(p);
+        }
+
+        return new RandomProcess.SimulationResults(tmpInitialValue, tmpResults, mySampling == Sampling.ANTITHETIC);
+    }
+
+    /**
+     * @param process The (multi dimensional) process, its state is not modified
+     * @param stepSize The size of each step
+     * @param rebalancingInterval Every so many steps the total value is redistributed among the components,
+     *        according to the initial relative values. 0 means never.
+     * @param destination Realisations in rows and steps in columns. Must be dense, see
+     *        {@link Array2D.Factory#makeDense(long, long)}.
+     * @throws IllegalArgumentException If the engine's sampling options are not supported for this process
+     */
+    public void simulate(final Process1D<?, ?> process, final double stepSize, final int rebalancingInterval, final Array2D<Double> destination) {
+
+        if ((rebalancingInterval < 0) || myBridge || ((mySampling != Sampling.PSEUDO_RANDOM) && (mySampling != Sampling.ANTITHETIC))) {
+            throw new IllegalArgumentException();
+        }
+
+        final int tmpDim = process.size();
+        final int tmpNumberOfSteps = (int) destination.countColumns();
+
+        final AbstractProcess<?>[] tmpProcesses = new AbstractProcess<?>[tmpDim];
+        final double[] tmpInitialValues = new double[tmpDim];
+        double tmpSum = ZERO;
+        for (int p = 0; p < tmpDim; p++) {
+            tmpProcesses[p] = process.getProcess(p);
+            this.validate(tmpProcesses[p], (int) destination.countRows());
+            tmpInitialValues[p] = tmpProcesses[p].getValue();
+            tmpSum += tmpInitialValues[p];
+        }
+        final double tmpInitialValue = tmpSum;
+
+        final double[] tmpWeights = new double[tmpDim];
+        for (int p = 0; p < tmpDim; p++) {
+            tmpWeights[p] = tmpInitialValues[p] / tmpInitialValue;
+        }
+
+        // The increments of Process1D.BATCH_SIZE steps are generated, and correlated, at once. Antithetic
+        // sampling requires the (correlated) increments of the entire path to be stored.
+        final boolean tmpAntithetic = mySampling == Sampling.ANTITHETIC;
+        final int tmpIncrementsLength = tmpDim * (tmpAntithetic ? tmpNumberOfSteps : Math.min(tmpNumberOfSteps, Process1D.BATCH_SIZE));
+
+        this.execute((int) destination.countRows(), () -> new SimulationStream(tmpIncrementsLength, tmpDim, null), (stream, first, limit) -> {
+
+            final double[] tmpIncrements = stream.increments;
+            final double[] tmpValues = stream.values;
+
+            for (int r = first; r < limit; r++) {
+
+                System.arraycopy(tmpInitialValues, 0, tmpValues, 0, tmpDim);
+                double tmpTotal = tmpInitialValue;
+
+                final boolean tmpMirror = tmpAntithetic && ((r & 1) == 1);
+
+                for (int s = 0; s < tmpNumberOfSteps; s++) {
+
+                    if ((rebalancingInterval != 0) && (s != 0) && ((s % rebalancingInterval) == 0)) {
+                        for (int p = 0; p < tmpDim; p++) {
+                            tmpValues[p] = tmpTotal * tmpWeights[p];
+                        }
+                    }
+
+                    final int tmpOffset = (tmpAntithetic ? s : s % Process1D.BATCH_SIZE) * tmpDim;
+
+                    if ((s % Process1D.BATCH_SIZE) == 0) {
+
+                        final int tmpCount = Math.min(tmpNumberOfSteps - s, Process1D.BATCH_SIZE);
+                        final int tmpLimit = tmpOffset + (tmpCount * tmpDim);
+
+                        if (tmpMirror) {
+                            for (int i = tmpOffset; i < tmpLimit; i++) {
+                                tmpIncrements[i] = -tmpIncrements[i];
+                            }
+                        } else {
+                            for (int i = tmpOffset; i < tmpLimit; i += tmpDim) {
+                                for (int p = 0; p < tmpDim; p++) {
+                                    tmpIncrements[i + p] = tmpProcesses[p].getNormalisedRandomIncrement(stream);
+                                }
+                            }
+                            process.correlate(tmpIncrements, tmpOffset, tmpCount);
+                        }
+                    }
+
+                    tmpTotal = ZERO;
+                    for (int p = 0; p < tmpDim; p++) {
+                        tmpValues[p] = tmpProcesses[p].next(tmpValues[p], stepSize, tmpIncrements[tmpOffset + p]);
+                        tmpTotal += tmpValues[p];
+                    }
+
+                    destination.set(r, s, tmpTotal);
+                }
+            }
+        });
+    }
+
+    /**
+     * @param process The process to simulate, its state is not modified. Processes that are not Markov
+     *        (currently {@link GaussianProcess}) are simulated by the process itself, single threaded and not
+     *        reproducible.
+     * @param numberOfRealisations The number of realisations/scenarios
+     * @param numberOfSteps The number of steps in each realisation
+     * @param stepSize The size of each step
+     */
+    public RandomProcess.SimulationResults simulate(final RandomProcess<?> process, final int numberOfRealisations, final int numberOfSteps,
+            final double stepSize) {
+
+        if (!SimulationEngine.isSimulatable(process)) {
+            return process.simulate(numberOfRealisations, numberOfSteps, stepSize);
+        }
+
+        final Array2D<Double> tmpResults = Array2D.PRIMITIVE64.makeDense(numberOfRealisations, numberOfSteps);
+
+        this.simulate(process, stepSize, tmpResults);
+
+        return new RandomProcess.SimulationResults(((AbstractProcess<?>) process).getValue(), tmpResults, mySampling == Sampling.ANTITHETIC);
+    }
+
+    /**
+     * @param process The process to simulate, its state is not modified
+     * @param stepSize The size of each step
+     * @param destination Realisations in rows and steps in columns. Must be dense, see
+     *        {@link Array2D.Factory#makeDense(long, long)}.
+     * @throws IllegalArgumentException If the process is not a Markov process, or if the engine's sampling
+     *         options are not supported for this process
+     */
+    public void simulate(final RandomProcess<?> process, final double stepSize, final Array2D<Double> destination) {
+
+        if (!SimulationEngine.isSimulatable(process)) {
+            throw new IllegalArgumentException();
+        }
+
+        final AbstractProcess<?> tmpProcess = (AbstractProcess<?>) process;
+        this.validate(tmpProcess, (int) destination.countRows());
+
+        final double tmpInitialValue = tmpProcess.getValue();
+        final int tmpNumberOfSteps = (int) destination.countColumns();
+
+        final boolean tmpAntithetic = mySampling == Sampling.ANTITHETIC;
+        final BrownianBridge tmpBridge = myBridge ? new BrownianBridge(tmpNumberOfSteps) : null;
+
+        this.execute((int) destination.countRows(), () -> new SimulationStream(tmpNumberOfSteps, tmpNumberOfSteps, this.makeSequence(tmpNumberOfSteps)),
+                (stream, first, limit) -> {
+
+                    final double[] tmpIncrements = stream.increments;
+                    final double[] tmpNormals = stream.values;
+
+                    if (stream.sequence != null) {
+                        stream.sequence.skipTo(first + 1L);
+                    }
+
+                    for (int r = first; r < limit; r++) {
+
+                        if (tmpAntithetic && ((r & 1) == 1)) {
+                            // The bridge construction is linear – negating its output is the same as negating its input
+                            for (int s = 0; s < tmpNumberOfSteps; s++) {
+                                tmpIncrements[s] = -tmpIncrements[s];
+                            }
+                        } else {
+                            if (stream.sequence != null) {
+                                stream.sequence.nextGaussian(tmpNormals);
+                            } else {
+                                for (int s = 0; s < tmpNumberOfSteps; s++) {
+                                    tmpNormals[s] = tmpProcess.getNormalisedRandomIncrement(stream);
+                                }
+                            }
+                            if (tmpBridge != null) {
+                                tmpBridge.construct(tmpNormals, tmpIncrements);
+                            } else {
+                                System.arraycopy(tmpNormals, 0, tmpIncrements, 0, tmpNumberOfSteps);
+                            }
+                        }
+
+                        double tmpValue = tmpInitialValue;
+                        for (int s = 0; s < tmpNumberOfSteps; s++) {
+                            tmpValue = tmpProcess.next(tmpValue, stepSize, tmpIncrements[s]);
+                            destination.set(r, s, tmpValue);
+                        }
+                    }
+                });
+    }
+
+    private static boolean isSimulatable(final RandomProcess<?> process) {
+        return (process instanceof AbstractProcess<?>) && ((AbstractProcess<?>) process).isMarkov();
+    }
+
+    private void execute(final int numberOfRealisations, final Supplier<SimulationStream> streams, final Block block) {
+
+        final int tmpNumberOfBlocks = (numberOfRealisations + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+        final Xoshiro256 tmpRoot = new Xoshiro256(mySeed);
+        final Xoshiro256[] tmpRandoms = new Xoshiro256[tmpNumberOfBlocks];
+        for (int b = 0; b < tmpNumberOfBlocks; b++) {
+            tmpRandoms[b] = tmpRoot.split();
+        }
+
+        final AtomicInteger tmpNextBlock = new AtomicInteger();
+
+        final Runnable tmpWorker = () -> {
+            final SimulationStream tmpStream = streams.get();
+            int b;
+            while ((b = tmpNextBlock.getAndIncrement()) < tmpNumberOfBlocks) {
+                tmpStream.reset(tmpRandoms[b]);
+                final int tmpFirst = b * BLOCK_SIZE;
+                block.simulate(tmpStream, tmpFirst, Math.min(tmpFirst + BLOCK_SIZE, numberOfRealisations));
+            }
+        };
+
+        final int tmpNumberOfWorkers = Math.min(Math.min(myParallelism, ParallelScope.parallelism()), tmpNumberOfBlocks);
+
+        final Future<?>[] tmpFutures = new Future<?>[Math.max(0, tmpNumberOfWorkers - 1)];
+        for (int w = 0; w < tmpFutures.length; w++) {
+            tmpFutures[w] = ParallelScope.fork(tmpWorker);
+        }
+
+        tmpWorker.run(); // The calling thread does its share
+
+        try {
+            for (final Future<?> tmpFuture : tmpFutures) {
+                tmpFuture.get();
+            }
+        } catch (final InterruptedException | ExecutionException exception) {
+            throw new ProgrammingError(exception);
+        }
+    }
+
+    private QuasiRandom makeSequence(final int dimension) {
+        switch (mySampling) {
+        case SOBOL:
+            return new Sobol(dimension, mySeed);
+        case HALTON:
+            return new Halton(dimension, mySeed);
+        default:
+            return null;
+        }
+    }
+
+    private void validate(final AbstractProcess<?> process, final int numberOfRealisations) {
+        if (!process.isMarkov()) {
+            throw new IllegalArgumentException("Not a Markov process!");
+        }
+        if ((myBridge || (mySampling != Sampling.PSEUDO_RANDOM)) && !process.isDiffusion()) {
+            throw new IllegalArgumentException("Only diffusion processes support bridge/antithetic/quasi-random sampling!");
+        }
+        if ((mySampling == Sampling.ANTITHETIC) && ((numberOfRealisations % 2) != 0)) {
+            throw new IllegalArgumentException("Antithetic sampling requires an even number of realisations!");
+        }
+    }
+
+}
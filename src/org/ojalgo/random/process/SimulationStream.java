@@ -0,0 +1,85 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.random.process;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.random.QuasiRandom;
+import org.ojalgo.random.Xoshiro256;
+
+/**
+ * One (independent) stream of random numbers, and the primitive work buffers, used by one
+ * {@link SimulationEngine} task. Not thread safe – each instance is only used by one thread at a time.
+ *
+ * @author apete
+ */
+final class SimulationStream {
+
+    final double[] increments;
+    /**
+     * Low-discrepancy sequence, or null
+     */
+    final QuasiRandom sequence;
+    final double[] values;
+
+    private Xoshiro256 myRandom = null;
+
+    SimulationStream(final int incrementsLength, final int valuesLength, final QuasiRandom sequence) {
+
+        super();
+
+        increments = new double[incrementsLength];
+        values = new double[valuesLength];
+        this.sequence = sequence;
+    }
+
+    double nextGaussian() {
+        return myRandom.nextGaussian();
+    }
+
+    /**
+     * The same algorithm as {@link org.ojalgo.random.Poisson}
+     */
+    double nextPoisson(final double lambda) {
+
+        int retVal = -1;
+        double tmpVal = ZERO;
+
+        while (tmpVal <= ONE) {
+
+            retVal++;
+
+            tmpVal -= PrimitiveFunction.LOG.invoke(myRandom.nextDouble()) / lambda;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Switch to another (independent) stream of random numbers – the work buffers are reused.
+     */
+    void reset(final Xoshiro256 random) {
+        myRandom = random;
+    }
+
+}
@@ -55,13 +55,6 @@ public final class WienerProcess extends AbstractProcess<Normal> {
         return GENERATOR.doubleValue();
     }
 
-    @Override
-    protected double step(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
-        final double retVal = currentValue + (PrimitiveFunction.SQRT.invoke(stepSize) * normalisedRandomIncrement);
-        this.setValue(retVal);
-        return retVal;
-    }
-
     @Override
     double getExpected(final double stepSize) {
         return this.getValue();
@@ -87,4 +80,14 @@ public final class WienerProcess extends AbstractProcess<Normal> {
         return stepSize;
     }
 
+    @Override
+    boolean isDiffusion() {
+        return true;
+    }
+
+    @Override
+    double next(final double currentValue, final double stepSize, final double normalisedRandomIncrement) {
+        return currentValue + (PrimitiveFunction.SQRT.invoke(stepSize) * normalisedRandomIncrement);
+    }
+
 }
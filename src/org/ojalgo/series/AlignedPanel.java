@@ -0,0 +1,470 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.series;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.series.primitive.PrimitiveSeries;
+import org.ojalgo.type.CalendarDate;
+import org.ojalgo.type.CalendarDateUnit;
+
+/**
+ * A set of series aligned to one shared time axis, with the values in one column-major double[] block -
+ * one row per point in time and one column per series.
+ * <p>
+ * All series are first bucketed to the resolution (the last value in each bucket is kept), then the axis is
+ * created from the range where all series have data: either the union of their (bucketed) keys, merged in
+ * a single k-way pass, or a regular grid with one point per resolution step. Gaps are filled according to
+ * {@link Fill}. The bucketing and filling are done in parallel across the series.
+ *
+ * @author apete
+ */
+public final class AlignedPanel {
+
+    /**
+     * How to fill in values for points on the axis where a series has no value.
+     */
+    public static enum Fill {
+
+        /**
+         * Use the previous value
+         */
+        FORWARD,
+
+        /**
+         * Interpolate (linearly in time) between the previous and next values
+         */
+        LINEAR,
+
+        /**
+         * Leave them as NaN
+         */
+        NONE;
+
+    }
+
+    @FunctionalInterface
+    interface Task {
+
+        void execute(int first, int limit);
+
+    }
+
+    /**
+     * Series are processed in parallel when there are more of them than this.
+     */
+    static final int THRESHOLD = 64;
+
+    /**
+     * @param series The series to align; their names become the column names
+     * @param resolution The resolution of the shared axis
+     * @param regular true means one row per resolution step; false means one row per point in time where at
+     *        least one of the series has a value
+     * @param fill How to fill in missing values
+     */
+    public static AlignedPanel align(final List<? extends BasicSeries<CalendarDate, ? extends Number>> series, final CalendarDateUnit resolution,
+            final boolean regular, final Fill fill) {
+
+        final List<String> tmpNames = new ArrayList<>(series.size());
+        for (final BasicSeries<CalendarDate, ?> tmpSeries : series) {
+            tmpNames.add(tmpSeries.getName());
+        }
+
+        return AlignedPanel.align(series, tmpNames, resolution, regular, fill);
+    }
+
+    static AlignedPanel align(final List<? extends BasicSeries<CalendarDate, ? extends Number>> series, final List<String> names,
+            final CalendarDateUnit resolution, final boolean regular, final Fill fill) {
+
+        final int tmpColumns = series.size();
+
+        final long[][] tmpKeys = new long[tmpColumns][];
+        final double[][] tmpValues = new double[tmpColumns][];
+
+        AlignedPanel.process(tmpColumns, (first, limit) -> {
+            for (int j = first; j < limit; j++) {
+                AlignedPanel.bucket(series.get(j), resolution, tmpKeys, tmpValues, j);
+            }
+        });
+
+        long tmpFrom = Long.MIN_VALUE;
+        long tmpTo = Long.MAX_VALUE;
+        for (int j = 0; j < tmpColumns; j++) {
+            if (tmpKeys[j].length == 0) {
+                tmpFrom = Long.MAX_VALUE;
+                tmpTo = Long.MIN_VALUE;
+            } else {
+                tmpFrom = Math.max(tmpFrom, tmpKeys[j][0]);
+                tmpTo = Math.min(tmpTo, tmpKeys[j][tmpKeys[j].length - 1]);
+            }
+        }
+
+        final long[] tmpAxis;
+        if ((tmpColumns == 0) || (tmpTo < tmpFrom)) {
+            tmpAxis = new long[0];
+        } else if (regular) {
+            tmpAxis = AlignedPanel.grid(tmpFrom, tmpTo, resolution);
+        } else {
+            tmpAxis = AlignedPanel.merge(tmpKeys, tmpFrom, tmpTo);
+        }
+
+        final int tmpRows = tmpAxis.length;
+        final PrimitiveDenseStore tmpBlock = PrimitiveDenseStore.FACTORY.makeZero(tmpRows, tmpColumns);
+
+        AlignedPanel.process(tmpColumns, (first, limit) -> {
+            for (int j = first; j < limit; j++) {
+                AlignedPanel.fill(tmpAxis, tmpKeys[j], tmpValues[j], fill, tmpBlock.data, j * tmpRows);
+            }
+        });
+
+        return new AlignedPanel(tmpAxis, tmpBlock, new ArrayList<>(names), resolution);
+    }
+
+    static void bucket(final BasicSeries<CalendarDate, ? extends Number> series, final CalendarDateUnit resolution, final long[][] keys,
+            final double[][] values, final int index) {
+
+        final int tmpSize = series.size();
+        final long[] tmpKeys = new long[tmpSize];
+        final double[] tmpValues = new double[tmpSize];
+
+        final boolean tmpCalendar = resolution.isCalendarUnit();
+
+        int tmpCount = 0;
+        for (final Map.Entry<CalendarDate, ? extends Number> tmpEntry : series.entrySet()) {
+
+            final CalendarDate tmpDate = tmpEntry.getKey();
+            final long tmpKey = tmpCalendar ? tmpDate.filter(resolution).millis : resolution.toTimeInMillis(tmpDate.millis);
+
+            if ((tmpCount > 0) && (tmpKeys[tmpCount - 1] == tmpKey)) {
+                // Same bucket - the last value wins
+                tmpValues[tmpCount - 1] = tmpEntry.getValue().doubleValue();
+            } else {
+                tmpKeys[tmpCount] = tmpKey;
+                tmpValues[tmpCount] = tmpEntry.getValue().doubleValue();
+                tmpCount++;
+            }
+        }
+
+        keys[index] = tmpCount == tmpSize ? tmpKeys : Arrays.copyOf(tmpKeys, tmpCount);
+        values[index] = tmpValues;
+    }
+
+    /**
+     * Two pointer walk along the axis and the series' own keys.
+     */
+    static void fill(final long[] axis, final long[] keys, final double[] values, final Fill fill, final double[] block, final int offset) {
+
+        final int tmpLength = keys.length;
+
+        int p = 0;
+        for (int i = 0; i < axis.length; i++) {
+
+            final long tmpTime = axis[i];
+
+            while ((p < tmpLength) && (keys[p] < tmpTime)) {
+                p++;
+            }
+
+            if ((p < tmpLength) && (keys[p] == tmpTime)) {
+                block[offset + i] = values[p];
+            } else if ((p == 0) || (fill == Fill.NONE)) {
+                block[offset + i] = NaN;
+            } else if ((fill == Fill.FORWARD) || (p == tmpLength)) {
+                block[offset + i] = values[p - 1];
+            } else {
+                final double tmpFactor = (double) (tmpTime - keys[p - 1]) / (double) (keys[p] - keys[p - 1]);
+                block[offset + i] = values[p - 1] + (tmpFactor * (values[p] - values[p - 1]));
+            }
+        }
+    }
+
+    static long[] grid(final long from, final long to, final CalendarDateUnit resolution) {
+
+        if (resolution.isCalendarUnit()) {
+
+            final List<CalendarDate> tmpDates = new ArrayList<>();
+            for (CalendarDate tmpDate = new CalendarDate(from); tmpDate.millis <= to; tmpDate = tmpDate.step(1, resolution)) {
+                tmpDates.add(tmpDate);
+            }
+
+            final long[] retVal = new long[tmpDates.size()];
+            for (int i = 0; i < retVal.length; i++) {
+                retVal[i] = tmpDates.get(i).millis;
+            }
+            return retVal;
+
+        } else {
+
+            final long tmpStep = resolution.size();
+
+            final long[] retVal = new long[(int) (((to - from) / tmpStep) + 1L)];
+            for (int i = 0; i < retVal.length; i++) {
+                retVal[i] = from + (i * tmpStep);
+            }
+            return retVal;
+        }
+    }
+
+    /**
+     * K-way merge, using a binary heap of series indices ordered by their next key, of all keys in the range
+     * [from,to].
+     */
+    static long[] merge(final long[][] keys, final long from, final long to) {
+
+        final int tmpNumberOfSeries = keys.length;
+
+        final int[] tmpNext = new int[tmpNumberOfSeries];
+        final int[] tmpHeap = new int[tmpNumberOfSeries];
+        int tmpHeapSize = 0;
+
+        int tmpCapacity = 0;
+        for (int j = 0; j < tmpNumberOfSeries; j++) {
+            int tmpFirst = Arrays.binarySearch(keys[j], from);
+            tmpNext[j] = tmpFirst >= 0 ? tmpFirst : -(tmpFirst + 1);
+            tmpCapacity = Math.max(tmpCapacity, keys[j].length);
+            if ((tmpNext[j] < keys[j].length) && (keys[j][tmpNext[j]] <= to)) {
+                tmpHeap[tmpHeapSize] = j;
+                AlignedPanel.siftUp(tmpHeap, tmpHeapSize++, keys, tmpNext);
+            }
+        }
+
+        long[] retVal = new long[tmpCapacity];
+        int tmpCount = 0;
+
+        while (tmpHeapSize > 0) {
+
+            final int tmpSeries = tmpHeap[0];
+            final long tmpKey = keys[tmpSeries][tmpNext[tmpSeries]];
+
+            if ((tmpCount == 0) || (retVal[tmpCount - 1] != tmpKey)) {
+                if (tmpCount == retVal.length) {
+                    retVal = Arrays.copyOf(retVal, tmpCount + (tmpCount >> 1) + 1);
+                }
+                retVal[tmpCount++] = tmpKey;
+            }
+
+            tmpNext[tmpSeries]++;
+            if ((tmpNext[tmpSeries] >= keys[tmpSeries].length) || (keys[tmpSeries][tmpNext[tmpSeries]] > to)) {
+                tmpHeap[0] = tmpHeap[--tmpHeapSize];
+            }
+            AlignedPanel.siftDown(tmpHeap, tmpHeapSize, keys, tmpNext);
+        }
+
+        return Arrays.copyOf(retVal, tmpCount);
+    }
+
+    static void process(final int count, final AlignedPanel.Task task) {
+        if (count > THRESHOLD) {
+            new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    task.execute(first, limit);
+                }
+
+            }.invoke(0, count, THRESHOLD);
+        } else {
+            task.execute(0, count);
+        }
+    }
+
+    private static long peek(final int series, final long[][] keys, final int[] next) {
+        return keys[series][next[series]];
+    }
+
+    private static void siftDown(final int[] heap, final int size, final long[][] keys, final int[] next) {
+        int tmpParent = 0;
+        while (true) {
+            final int tmpLeft = (2 * tmpParent) + 1;
+            if (tmpLeft >= size) {
+                return;
+            }
+            int tmpChild = tmpLeft;
+            if (((tmpLeft + 1) < size) && (AlignedPanel.peek(heap[tmpLeft + 1], keys, next) < AlignedPanel.peek(heap[tmpLeft], keys, next))) {
+                tmpChild = tmpLeft + 1;
+            }
+            if (AlignedPanel.peek(heap[tmpChild], keys, next) >= AlignedPanel.peek(heap[tmpParent], keys, next)) {
+                return;
+            }
+            final int tmpSwap = heap[tmpParent];
+            heap[tmpParent] = heap[tmpChild];
+            heap[tmpChild] = tmpSwap;
+            tmpParent = tmpChild;
+        }
+    }
+
+    private static void siftUp(final int[] heap, final int position, final long[][] keys, final int[] next) {
+        int tmpChild = position;
+        while (tmpChild > 0) {
+            final int tmpParent = (tmpChild - 1) / 2;
+            if (AlignedPanel.peek(heap[tmpParent], keys, next) <= AlignedPanel.peek(heap[tmpChild], keys, next)) {
+                return;
+            }
+            final int tmpSwap = heap[tmpParent];
+            heap[tmpParent] = heap[tmpChild];
+            heap[tmpChild] = tmpSwap;
+            tmpChild = tmpParent;
+        }
+    }
+
+    private final long[] myAxis;
+    private final PrimitiveDenseStore myBlock;
+    private final List<String> myNames;
+    private final CalendarDateUnit myResolution;
+
+    AlignedPanel(final long[] axis, final PrimitiveDenseStore block, final List<String> names, final CalendarDateUnit resolution) {
+
+        super();
+
+        myAxis = axis;
+        myBlock = block;
+        myNames = Collections.unmodifiableList(names);
+        myResolution = resolution;
+    }
+
+    public int countColumns() {
+        return myNames.size();
+    }
+
+    public int countRows() {
+        return myAxis.length;
+    }
+
+    /**
+     * @return The axis keys (millis), not a copy - do not modify
+     */
+    public long[] getAxis() {
+        return myAxis;
+    }
+
+    /**
+     * @return The entire block, rows (time) x columns (series), as a MatrixStore - not a copy
+     */
+    public MatrixStore<Double> getBlock() {
+        return myBlock;
+    }
+
+    /**
+     * @return A view of one column/series - not a copy
+     */
+    public PrimitiveSeries getColumn(final int index) {
+
+        final double[] tmpData = myBlock.data;
+        final int tmpRows = myAxis.length;
+        final int tmpOffset = index * tmpRows;
+
+        return new PrimitiveSeries() {
+
+            @Override
+            public int size() {
+                return tmpRows;
+            }
+
+            @Override
+            public double value(final int index) {
+                return tmpData[tmpOffset + index];
+            }
+
+        };
+    }
+
+    public PrimitiveSeries getColumn(final String name) {
+        final int tmpIndex = myNames.indexOf(name);
+        if (tmpIndex < 0) {
+            throw new IllegalArgumentException("No such series: " + name);
+        }
+        return this.getColumn(tmpIndex);
+    }
+
+    public List<String> getNames() {
+        return myNames;
+    }
+
+    public CalendarDateUnit getResolution() {
+        return myResolution;
+    }
+
+    /**
+     * Rows that fall in the same bucket (of the new, typically coarser, resolution) are reduced to the last of
+     * them.
+     */
+    public AlignedPanel resample(final CalendarDateUnit resolution) {
+
+        final int tmpOldRows = myAxis.length;
+        final boolean tmpCalendar = resolution.isCalendarUnit();
+
+        final long[] tmpAxis = new long[tmpOldRows];
+        final int[] tmpSource = new int[tmpOldRows];
+        int tmpNewRows = 0;
+
+        for (int i = 0; i < tmpOldRows; i++) {
+            final long tmpKey = tmpCalendar ? new CalendarDate(myAxis[i]).filter(resolution).millis : resolution.toTimeInMillis(myAxis[i]);
+            if ((tmpNewRows == 0) || (tmpAxis[tmpNewRows - 1] != tmpKey)) {
+                tmpAxis[tmpNewRows++] = tmpKey;
+            }
+            tmpSource[tmpNewRows - 1] = i;
+        }
+
+        final int tmpRows = tmpNewRows;
+        final PrimitiveDenseStore tmpBlock = PrimitiveDenseStore.FACTORY.makeZero(tmpRows, myNames.size());
+
+        final double[] tmpOldData = myBlock.data;
+        final double[] tmpNewData = tmpBlock.data;
+        AlignedPanel.process(myNames.size(), (first, limit) -> {
+            for (int j = first; j < limit; j++) {
+                final int tmpOldOffset = j * tmpOldRows;
+                final int tmpNewOffset = j * tmpRows;
+                for (int i = 0; i < tmpRows; i++) {
+                    tmpNewData[tmpNewOffset + i] = tmpOldData[tmpOldOffset + tmpSource[i]];
+                }
+            }
+        });
+
+        return new AlignedPanel(Arrays.copyOf(tmpAxis, tmpRows), tmpBlock, new ArrayList<>(myNames), resolution);
+    }
+
+    /**
+     * @return A copy of one column/series as a {@link CalendarDateSeries}
+     */
+    public CalendarDateSeries<Double> toSeries(final int index) {
+
+        final CalendarDateSeries<Double> retVal = new CalendarDateSeries<Double>(myResolution).name(myNames.get(index));
+
+        final double[] tmpData = myBlock.data;
+        final int tmpOffset = index * myAxis.length;
+        for (int i = 0; i < myAxis.length; i++) {
+            retVal.put(new CalendarDate(myAxis[i]), tmpData[tmpOffset + i]);
+        }
+
+        return retVal;
+    }
+
+}
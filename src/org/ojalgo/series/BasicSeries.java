@@ -149,6 +149,18 @@ public interface BasicSeries<K extends Comparable<? super K>, V extends Number>
             return this.doBuild(arrayFactory, accumularor);
         }
 
+        /**
+         * @return A series with primitive columnar (long[] keys and double[] values) storage
+         */
+        public ColumnarSeries<K> buildColumnar() {
+            return new ColumnarSeries<>(this.getMapper(), null, 16);
+        }
+
+        public ColumnarSeries<K> buildColumnar(final BinaryFunction<Double> accumulator) {
+            ProgrammingError.throwIfNull(accumulator);
+            return new ColumnarSeries<>(this.getMapper(), accumulator, 16);
+        }
+
         public TimeSeriesBuilder<K> reference(final K reference) {
             myReference = reference;
             return this;
@@ -160,17 +172,21 @@ public interface BasicSeries<K extends Comparable<? super K>, V extends Number>
         }
 
         private <N extends Number> BasicSeries.NaturallySequenced<K, N> doBuild(final DenseArray.Factory<N> arrayFactory, final BinaryFunction<N> accumularor) {
+            return new MappedIndexSeries<>(arrayFactory, this.getMapper(), accumularor);
+        }
+
+        private IndexMapper<K> getMapper() {
             if (myReference != null) {
                 if (myResolution != null) {
-                    return new MappedIndexSeries<>(arrayFactory, myTimeIndex.from(myReference, myResolution), accumularor);
+                    return myTimeIndex.from(myReference, myResolution);
                 } else {
-                    return new MappedIndexSeries<>(arrayFactory, myTimeIndex.from(myReference), accumularor);
+                    return myTimeIndex.from(myReference);
                 }
             } else {
                 if (myResolution != null) {
-                    return new MappedIndexSeries<>(arrayFactory, myTimeIndex.plain(myResolution), accumularor);
+                    return myTimeIndex.plain(myResolution);
                 } else {
-                    return new MappedIndexSeries<>(arrayFactory, myTimeIndex.plain(), accumularor);
+                    return myTimeIndex.plain();
                 }
             }
         }
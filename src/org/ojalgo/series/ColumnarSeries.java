@@ -0,0 +1,571 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.series;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+
+import org.ojalgo.access.IndexMapper;
+import org.ojalgo.function.BinaryFunction;
+import org.ojalgo.netio.ASCII;
+import org.ojalgo.series.primitive.PrimitiveSeries;
+import org.ojalgo.type.CalendarDate.Resolution;
+import org.ojalgo.type.ColourData;
+import org.ojalgo.type.TypeUtils;
+
+/**
+ * A {@link BasicSeries} that stores its keys, mapped to long indices, in a sorted long[] and the values in a
+ * parallel double[]. That's 16 bytes per entry (plus spare capacity) compared to about 80 bytes for the
+ * TreeMap based {@link CalendarDateSeries}.
+ * <ul>
+ * <li>Lookup is a binary search - O(log n)</li>
+ * <li>Appending (in key order) is amortised O(1). Inserting in the middle shifts the tail.</li>
+ * <li>{@link #headMap(Comparable)}, {@link #tailMap(Comparable)} and
+ * {@link #subMap(Comparable, Comparable)} return live views backed by the same arrays - nothing is
+ * copied.</li>
+ * <li>{@link #asPrimitive()} wraps the values without copying them. It covers the entries present when it
+ * was created, and later structural changes (inserts/removes) corrupt it.</li>
+ * </ul>
+ * Create instances using {@link BasicSeries.TimeSeriesBuilder#buildColumnar()}.
+ *
+ * @author apete
+ */
+public final class ColumnarSeries<K extends Comparable<? super K>> extends AbstractMap<K, Double> implements BasicSeries.NaturallySequenced<K, Double> {
+
+    static final class Storage {
+
+        long[] keys;
+        int modifications = 0;
+        int size = 0;
+        double[] values;
+
+        Storage(final int initialCapacity) {
+            super();
+            keys = new long[initialCapacity];
+            values = new double[initialCapacity];
+        }
+
+        /**
+         * @return The position of the first key greater than or equal to the given key
+         */
+        int ceiling(final long key) {
+            final int tmpIndex = Arrays.binarySearch(keys, 0, size, key);
+            return tmpIndex >= 0 ? tmpIndex : -(tmpIndex + 1);
+        }
+
+        int find(final long key) {
+            if ((size > 0) && (keys[size - 1] == key)) {
+                // Most recent entry - typical when appending/updating the latest observation
+                return size - 1;
+            } else {
+                return Arrays.binarySearch(keys, 0, size, key);
+            }
+        }
+
+        void insert(final int position, final long key, final double value) {
+
+            if (size == keys.length) {
+                final int tmpCapacity = Math.max(16, size + (size >> 1));
+                keys = Arrays.copyOf(keys, tmpCapacity);
+                values = Arrays.copyOf(values, tmpCapacity);
+            }
+
+            if (position < size) {
+                System.arraycopy(keys, position, keys, position + 1, size - position);
+                System.arraycopy(values, position, values, position + 1, size - position);
+            }
+
+            keys[position] = key;
+            values[position] = value;
+            size++;
+            modifications++;
+        }
+
+        void remove(final int first, final int limit) {
+            if (limit > first) {
+                System.arraycopy(keys, limit, keys, first, size - limit);
+                System.arraycopy(values, limit, values, first, size - limit);
+                size -= limit - first;
+                modifications++;
+            }
+        }
+
+    }
+
+    private final BinaryFunction<Double> myAccumulator;
+    private ColourData myColour = null;
+    /**
+     * Inclusive
+     */
+    private final long myFrom;
+    private final IndexMapper<K> myMapper;
+    private String myName = null;
+    private final Storage myStorage;
+    /**
+     * Inclusive
+     */
+    private final long myTo;
+
+    private ColumnarSeries(final ColumnarSeries<K> parent, final long from, final long to) {
+
+        super();
+
+        myMapper = parent.mapper();
+        myAccumulator = parent.getAccumulator();
+        myStorage = parent.getStorage();
+        myFrom = Math.max(from, parent.getFrom());
+        myTo = Math.min(to, parent.getTo());
+
+        myName = parent.getName();
+        myColour = parent.getColour();
+    }
+
+    ColumnarSeries(final IndexMapper<K> indexMapper, final BinaryFunction<Double> accumulator, final int initialCapacity) {
+
+        super();
+
+        myMapper = indexMapper;
+        myAccumulator = accumulator;
+        myStorage = new Storage(initialCapacity);
+        myFrom = Long.MIN_VALUE;
+        myTo = Long.MAX_VALUE;
+    }
+
+    public PrimitiveSeries asPrimitive() {
+
+        final double[] tmpValues = myStorage.values;
+        final int tmpFirst = this.first();
+        final int tmpSize = Math.max(0, this.limit() - tmpFirst);
+
+        return new PrimitiveSeries() {
+
+            @Override
+            public int size() {
+                return tmpSize;
+            }
+
+            @Override
+            public double value(final int index) {
+                return tmpValues[tmpFirst + index];
+            }
+
+        };
+    }
+
+    @Override
+    public void clear() {
+        myStorage.remove(this.first(), this.limit());
+    }
+
+    public ColumnarSeries<K> colour(final ColourData colour) {
+        myColour = colour;
+        return this;
+    }
+
+    public Comparator<? super K> comparator() {
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean containsKey(final Object key) {
+        if (key instanceof Comparable<?>) {
+            return this.find(myMapper.toIndex((K) key)) >= 0;
+        } else {
+            return false;
+        }
+    }
+
+    public double doubleValue(final K key) {
+        return this.doubleValue(myMapper.toIndex(key));
+    }
+
+    /**
+     * @param index The mapped (long) key
+     * @return The value, or NaN if there is no such key
+     */
+    public double doubleValue(final long index) {
+        final int tmpPosition = this.find(index);
+        return tmpPosition >= 0 ? myStorage.values[tmpPosition] : NaN;
+    }
+
+    @Override
+    public Set<Map.Entry<K, Double>> entrySet() {
+        return new AbstractSet<Map.Entry<K, Double>>() {
+
+            @Override
+            public Iterator<Map.Entry<K, Double>> iterator() {
+
+                final int tmpFirst = ColumnarSeries.this.first();
+
+                return new Iterator<Map.Entry<K, Double>>() {
+
+                    int tmpExpected = myStorage.modifications;
+                    int tmpLast = -1; // Returned by next(), and not yet removed
+                    int tmpLimit = ColumnarSeries.this.limit();
+                    int tmpNext = tmpFirst;
+
+                    public boolean hasNext() {
+                        return tmpNext < tmpLimit;
+                    }
+
+                    public Map.Entry<K, Double> next() {
+
+                        if (tmpNext >= tmpLimit) {
+                            throw new NoSuchElementException();
+                        }
+                        if (tmpExpected != myStorage.modifications) {
+                            throw new ConcurrentModificationException();
+                        }
+
+                        final int tmpPosition = tmpNext++;
+                        tmpLast = tmpPosition;
+
+                        return new Map.Entry<K, Double>() {
+
+                            public K getKey() {
+                                return myMapper.toKey(myStorage.keys[tmpPosition]);
+                            }
+
+                            public Double getValue() {
+                                return myStorage.values[tmpPosition];
+                            }
+
+                            public Double setValue(final Double value) {
+                                final double retVal = myStorage.values[tmpPosition];
+                                myStorage.values[tmpPosition] = value;
+                                return retVal;
+                            }
+
+                            @Override
+                            public String toString() {
+                                return this.getKey() + "=" + this.getValue();
+                            }
+
+                        };
+                    }
+
+                    public void remove() {
+                        if (tmpLast < 0) {
+                            throw new IllegalStateException();
+                        }
+                        if (tmpExpected != myStorage.modifications) {
+                            throw new ConcurrentModificationException();
+                        }
+                        myStorage.remove(tmpLast, tmpLast + 1);
+                        tmpNext = tmpLast;
+                        tmpLimit--;
+                        tmpLast = -1;
+                        tmpExpected = myStorage.modifications;
+                    }
+
+                };
+            }
+
+            @Override
+            public int size() {
+                return ColumnarSeries.this.size();
+            }
+        };
+    }
+
+    public K firstKey() {
+        final int tmpFirst = this.first();
+        if (tmpFirst < this.limit()) {
+            return myMapper.toKey(myStorage.keys[tmpFirst]);
+        } else {
+            throw new NoSuchElementException();
+        }
+    }
+
+    public Double firstValue() {
+        final int tmpFirst = this.first();
+        return tmpFirst < this.limit() ? myStorage.values[tmpFirst] : null;
+    }
+
+    public Double get(final K key) {
+        return this.get(myMapper.toIndex(key));
+    }
+
+    public Double get(final long index) {
+        final int tmpPosition = this.find(index);
+        return tmpPosition >= 0 ? myStorage.values[tmpPosition] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Double get(final Object key) {
+        if (key instanceof Comparable<?>) {
+            return this.get(myMapper.toIndex((K) key));
+        } else {
+            return null;
+        }
+    }
+
+    public ColourData getColour() {
+        if (myColour == null) {
+            myColour = ColourData.random();
+        }
+        return myColour;
+    }
+
+    public String getName() {
+        if (myName == null) {
+            myName = UUID.randomUUID().toString();
+        }
+        return myName;
+    }
+
+    /**
+     * @return A copy of the mapped (long) keys, in order
+     */
+    public long[] getPrimitiveKeys() {
+        final int tmpFirst = this.first();
+        return Arrays.copyOfRange(myStorage.keys, tmpFirst, Math.max(tmpFirst, this.limit()));
+    }
+
+    @Override
+    public ColumnarSeries<K> headMap(final K toKey) {
+        return new ColumnarSeries<>(this, Long.MIN_VALUE, myMapper.toIndex(toKey) - 1L);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    public K lastKey() {
+        final int tmpLimit = this.limit();
+        if (this.first() < tmpLimit) {
+            return myMapper.toKey(myStorage.keys[tmpLimit - 1]);
+        } else {
+            throw new NoSuchElementException();
+        }
+    }
+
+    public Double lastValue() {
+        final int tmpLimit = this.limit();
+        return this.first() < tmpLimit ? myStorage.values[tmpLimit - 1] : null;
+    }
+
+    public IndexMapper<K> mapper() {
+        return myMapper;
+    }
+
+    public ColumnarSeries<K> name(final String name) {
+        myName = name;
+        return this;
+    }
+
+    public double put(final K key, final double value) {
+        return this.put(myMapper.toIndex(key), value);
+    }
+
+    @Override
+    public Double put(final K key, final Double value) {
+        return this.put(myMapper.toIndex(key), value);
+    }
+
+    /**
+     * With an accumulator the new/accumulated value is returned, otherwise the old value or NaN if there was
+     * none.
+     */
+    public double put(final long index, final double value) {
+
+        if ((index < myFrom) || (index > myTo)) {
+            throw new IllegalArgumentException("Key out of range!");
+        }
+
+        final int tmpPosition = myStorage.find(index);
+
+        if (tmpPosition >= 0) {
+            final double tmpOldValue = myStorage.values[tmpPosition];
+            if (myAccumulator != null) {
+                return myStorage.values[tmpPosition] = myAccumulator.invoke(tmpOldValue, value);
+            } else {
+                myStorage.values[tmpPosition] = value;
+                return tmpOldValue;
+            }
+        } else {
+            myStorage.insert(-(tmpPosition + 1), index, value);
+            return myAccumulator != null ? value : NaN;
+        }
+    }
+
+    public Double put(final long index, final Double value) {
+        final boolean tmpExisting = myAccumulator == null ? this.find(index) >= 0 : true;
+        final double retVal = this.put(index, value.doubleValue());
+        return tmpExisting ? retVal : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Double remove(final Object key) {
+        if (key instanceof Comparable<?>) {
+            final int tmpPosition = this.find(myMapper.toIndex((K) key));
+            if (tmpPosition >= 0) {
+                final double retVal = myStorage.values[tmpPosition];
+                myStorage.remove(tmpPosition, tmpPosition + 1);
+                return retVal;
+            }
+        }
+        return null;
+    }
+
+    public ColumnarSeries<K> resample(final K firstKey, final K lastKey, final Resolution resolution) {
+        return this.subMap(firstKey, this.step(lastKey)).resample(resolution);
+    }
+
+    /**
+     * Assumes the mapped (long) keys are in milliseconds. Entries mapping to the same resampled key are
+     * accumulated, or the last one is kept if there is no accumulator.
+     */
+    public ColumnarSeries<K> resample(final Resolution resolution) {
+
+        final long tmpConversion = resolution.toDurationInMillis();
+
+        final ColumnarSeries<K> retVal = new ColumnarSeries<>(new IndexMapper<K>() {
+
+            public long toIndex(final K key) {
+                return myMapper.toIndex(key) / tmpConversion;
+            }
+
+            public K toKey(final long index) {
+                return myMapper.toKey(index * tmpConversion);
+            }
+
+        }, myAccumulator, 16);
+
+        final long[] tmpKeys = myStorage.keys;
+        final double[] tmpValues = myStorage.values;
+        for (int p = this.first(), tmpLimit = this.limit(); p < tmpLimit; p++) {
+            retVal.put(tmpKeys[p] / tmpConversion, tmpValues[p]);
+        }
+
+        retVal.name(this.getName()).colour(this.getColour());
+
+        return retVal;
+    }
+
+    @Override
+    public int size() {
+        return Math.max(0, this.limit() - this.first());
+    }
+
+    public K step(final K key) {
+        return myMapper.next(key);
+    }
+
+    @Override
+    public ColumnarSeries<K> subMap(final K fromKey, final K toKey) {
+        return new ColumnarSeries<>(this, myMapper.toIndex(fromKey), myMapper.toIndex(toKey) - 1L);
+    }
+
+    @Override
+    public ColumnarSeries<K> tailMap(final K fromKey) {
+        return new ColumnarSeries<>(this, myMapper.toIndex(fromKey), Long.MAX_VALUE);
+    }
+
+    @Override
+    public String toString() {
+
+        final StringBuilder retVal = new StringBuilder();
+
+        if (myName != null) {
+            retVal.append(myName);
+            retVal.append(ASCII.NBSP);
+        }
+
+        if (myColour != null) {
+            retVal.append(TypeUtils.toHexString(myColour.getRGB()));
+            retVal.append(ASCII.NBSP);
+        }
+
+        if (this.size() <= 30) {
+            retVal.append(super.toString());
+        } else {
+            retVal.append("First:");
+            retVal.append(this.firstKey());
+            retVal.append(ASCII.EQUALS);
+            retVal.append(this.firstValue());
+            retVal.append(ASCII.NBSP);
+            retVal.append("Last:");
+            retVal.append(this.lastKey());
+            retVal.append(ASCII.EQUALS);
+            retVal.append(this.lastValue());
+            retVal.append(ASCII.NBSP);
+            retVal.append("Size:");
+            retVal.append(this.size());
+        }
+
+        return retVal.toString();
+    }
+
+    private int find(final long index) {
+        if ((index < myFrom) || (index > myTo)) {
+            return -1;
+        } else {
+            return myStorage.find(index);
+        }
+    }
+
+    /**
+     * @return The position of the first entry in this (sub)series
+     */
+    private int first() {
+        return myFrom == Long.MIN_VALUE ? 0 : myStorage.ceiling(myFrom);
+    }
+
+    /**
+     * @return The position after the last entry in this (sub)series
+     */
+    private int limit() {
+        return myTo == Long.MAX_VALUE ? myStorage.size : myStorage.ceiling(myTo + 1L);
+    }
+
+    BinaryFunction<Double> getAccumulator() {
+        return myAccumulator;
+    }
+
+    long getFrom() {
+        return myFrom;
+    }
+
+    Storage getStorage() {
+        return myStorage;
+    }
+
+    long getTo() {
+        return myTo;
+    }
+
+}
@@ -85,6 +85,33 @@ public class CoordinationSet<N extends Number> extends HashMap<String, CalendarD
         super(members);
     }
 
+    /**
+     * Aligns the named series to the union of their keys, in the range where all of them have data, at this
+     * set's resolution. Gaps are forward filled.
+     *
+     * @see AlignedPanel#align(List, CalendarDateUnit, boolean, AlignedPanel.Fill)
+     */
+    public AlignedPanel align(final List<String> seriesNames) {
+        return this.align(seriesNames, this.getResolution(), false, AlignedPanel.Fill.FORWARD);
+    }
+
+    /**
+     * @see AlignedPanel#align(List, CalendarDateUnit, boolean, AlignedPanel.Fill)
+     */
+    public AlignedPanel align(final List<String> seriesNames, final CalendarDateUnit resolution, final boolean regular, final AlignedPanel.Fill fill) {
+
+        final List<CalendarDateSeries<N>> tmpSeries = new ArrayList<>(seriesNames.size());
+        for (final String tmpName : seriesNames) {
+            final CalendarDateSeries<N> tmpMember = this.get(tmpName);
+            if (tmpMember == null) {
+                throw new IllegalArgumentException("No such series: " + tmpName);
+            }
+            tmpSeries.add(tmpMember);
+        }
+
+        return AlignedPanel.align(tmpSeries, seriesNames, resolution, regular, fill);
+    }
+
     /**
      * Will call {@link CalendarDateSeries#complete()} on each of the instances in this set.
      */
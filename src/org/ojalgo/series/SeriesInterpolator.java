@@ -22,6 +22,7 @@
 package org.ojalgo.series;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.TreeMap;
 
 import org.ojalgo.constant.PrimitiveMath;
@@ -32,7 +33,7 @@ import org.ojalgo.type.context.NumberContext;
 public class SeriesInterpolator {
 
     private final NumberContext myContext;
-    private CoordinationSet<Double> myCoordinatedSet = null;
+    private AlignedPanel myAlignedPanel = null;
     private final TreeMap<BigDecimal, String> myKeys = new TreeMap<>();
     private final CoordinationSet<Double> myOriginalSet = new CoordinationSet<>();
 
@@ -53,19 +54,18 @@ public class SeriesInterpolator {
 
         myKeys.put(tmpKey, series.getName());
         myOriginalSet.put(series);
-        myCoordinatedSet = null;
+        myAlignedPanel = null;
     }
 
     public CalendarDateSeries<Double> getCombination(final Number inputKey) {
 
         final BigDecimal tmpInputKey = TypeUtils.toBigDecimal(inputKey, myContext);
 
-        if (myCoordinatedSet == null) {
-            myCoordinatedSet = myOriginalSet.prune();
-            myCoordinatedSet.complete();
+        if (myAlignedPanel == null) {
+            myAlignedPanel = myOriginalSet.align(new ArrayList<>(myKeys.values()), myOriginalSet.getResolution(), true, AlignedPanel.Fill.FORWARD);
         }
 
-        final CalendarDateSeries<Double> retVal = new CalendarDateSeries<>(myCoordinatedSet.getResolution());
+        final CalendarDateSeries<Double> retVal = new CalendarDateSeries<>(myAlignedPanel.getResolution());
 
         BigDecimal tmpLowerKey = null;
         BigDecimal tmpUpperKey = null;
@@ -85,8 +85,7 @@ public class SeriesInterpolator {
             }
         }
 
-        @SuppressWarnings("unchecked")
-        final long[] tmpSeriesKeys = ((CalendarDateSeries<Double>) myCoordinatedSet.values().toArray()[0]).getPrimitiveKeys();
+        final long[] tmpSeriesKeys = myAlignedPanel.getAxis();
         double tmpFactor;
         double[] tmpSeriesValues;
 
@@ -94,7 +93,7 @@ public class SeriesInterpolator {
 
             tmpFactor = tmpInputKey.doubleValue() / tmpUpperKey.doubleValue();
 
-            tmpSeriesValues = myCoordinatedSet.get(myKeys.get(tmpUpperKey)).asPrimitive().toRawCopy1D();
+            tmpSeriesValues = myAlignedPanel.getColumn(myKeys.get(tmpUpperKey)).toRawCopy1D();
             for (int i = 0; i < tmpSeriesValues.length; i++) {
                 tmpSeriesValues[i] *= tmpFactor;
             }
@@ -103,7 +102,7 @@ public class SeriesInterpolator {
 
             tmpFactor = tmpInputKey.doubleValue() / tmpLowerKey.doubleValue();
 
-            tmpSeriesValues = myCoordinatedSet.get(myKeys.get(tmpLowerKey)).asPrimitive().toRawCopy1D();
+            tmpSeriesValues = myAlignedPanel.getColumn(myKeys.get(tmpLowerKey)).toRawCopy1D();
             for (int i = 0; i < tmpSeriesValues.length; i++) {
                 tmpSeriesValues[i] *= tmpFactor;
             }
@@ -112,12 +111,12 @@ public class SeriesInterpolator {
 
             if (tmpLowerKey.equals(tmpUpperKey)) {
 
-                tmpSeriesValues = myCoordinatedSet.get(myKeys.get(tmpLowerKey)).asPrimitive().toRawCopy1D();
+                tmpSeriesValues = myAlignedPanel.getColumn(myKeys.get(tmpLowerKey)).toRawCopy1D();
 
             } else {
 
-                final double[] tmpLowerValues = myCoordinatedSet.get(myKeys.get(tmpLowerKey)).asPrimitive().toRawCopy1D();
-                final double[] tmpUpperValues = myCoordinatedSet.get(myKeys.get(tmpUpperKey)).asPrimitive().toRawCopy1D();
+                final double[] tmpLowerValues = myAlignedPanel.getColumn(myKeys.get(tmpLowerKey)).toRawCopy1D();
+                final double[] tmpUpperValues = myAlignedPanel.getColumn(myKeys.get(tmpUpperKey)).toRawCopy1D();
 
                 tmpFactor = (tmpInputKey.doubleValue() - tmpLowerKey.doubleValue()) / (tmpUpperKey.doubleValue() - tmpLowerKey.doubleValue());
 
@@ -125,6 +125,31 @@ public abstract class PrimitiveSeries implements Access1D<Double> {
         return new QuotientsSeries(this, period);
     }
 
+    /**
+     * Aggregates each full window of consecutive values. The returned series has (size - window + 1)
+     * elements, the first of which aggregates values [0,window).
+     *
+     * @param aggregator Will be reset before use
+     */
+    public PrimitiveSeries rolling(final RollingAggregator aggregator) {
+
+        aggregator.reset();
+
+        final int tmpSize = this.size();
+        final int tmpWindow = aggregator.window();
+
+        final double[] tmpValues = new double[Math.max(0, (tmpSize - tmpWindow) + 1)];
+
+        for (int i = 0; i < tmpSize; i++) {
+            aggregator.invoke(this.value(i));
+            if (i >= (tmpWindow - 1)) {
+                tmpValues[(i - tmpWindow) + 1] = aggregator.doubleValue();
+            }
+        }
+
+        return DataSeries.wrap(tmpValues);
+    }
+
     public PrimitiveSeries runningProduct(final double initialValue) {
 
         final int tmpNewSize = this.size() + 1;
@@ -0,0 +1,514 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.series.primitive;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.access.AccessScalar;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.function.VoidFunction;
+
+/**
+ * Aggregates the most recent (window size) values pushed to it. Each push is O(1) - amortised for
+ * {@link #maximum(int)} and {@link #minimum(int)} - or O(log window) for the quantiles, compared to
+ * O(window) when re-aggregating the entire window.
+ * <p>
+ * Use it as a push-based streaming operator (it's a {@link VoidFunction} and a
+ * {@link java.util.function.DoubleConsumer}) reading {@link #doubleValue()} after each push, or with
+ * {@link PrimitiveSeries#rolling(RollingAggregator)}.
+ *
+ * @author apete
+ */
+public abstract class RollingAggregator implements VoidFunction<Double>, AccessScalar<Double> {
+
+    /**
+     * Monotonic deque of the values that may still become the extreme value of the window.
+     */
+    static final class Extreme extends RollingAggregator {
+
+        private int myFirst = 0;
+        private final boolean myMaximum;
+        private final long[] mySequence;
+        private int mySize = 0;
+        private final double[] myValues;
+
+        Extreme(final int window, final boolean maximum) {
+
+            super(window);
+
+            myMaximum = maximum;
+            mySequence = new long[window];
+            myValues = new double[window];
+        }
+
+        @Override
+        public double doubleValue() {
+            return mySize > 0 ? myValues[myFirst] : NaN;
+        }
+
+        @Override
+        void add(final double value, final long sequence) {
+
+            final int tmpLength = myValues.length;
+
+            while ((mySize > 0) && this.dominates(value, myValues[(myFirst + mySize - 1) % tmpLength])) {
+                mySize--;
+            }
+
+            final int tmpLast = (myFirst + mySize) % tmpLength;
+            myValues[tmpLast] = value;
+            mySequence[tmpLast] = sequence;
+            mySize++;
+        }
+
+        @Override
+        void clear() {
+            myFirst = 0;
+            mySize = 0;
+        }
+
+        @Override
+        void remove(final double value, final long sequence) {
+            if ((mySize > 0) && (mySequence[myFirst] == sequence)) {
+                myFirst = (myFirst + 1) % myValues.length;
+                mySize--;
+            }
+        }
+
+        private boolean dominates(final double value, final double other) {
+            return myMaximum ? value >= other : value <= other;
+        }
+
+    }
+
+    /**
+     * Kahan compensated sum, and a Welford style (add/remove) update of the mean and sum of squared
+     * deviations.
+     */
+    static final class Moments extends RollingAggregator {
+
+        private double myCompensation = ZERO;
+        private long myCount = 0L;
+        private double myMean = ZERO;
+        private double mySquares = ZERO;
+        private final int myStatistic;
+        private double mySum = ZERO;
+
+        /**
+         * @param statistic 0=sum, 1=mean, 2=variance, 3=standard deviation
+         */
+        Moments(final int window, final int statistic) {
+
+            super(window);
+
+            myStatistic = statistic;
+        }
+
+        @Override
+        public double doubleValue() {
+            switch (myStatistic) {
+            case 0:
+                return mySum;
+            case 1:
+                return myCount > 0L ? mySum / myCount : NaN;
+            case 2:
+                return this.variance();
+            default:
+                return PrimitiveFunction.SQRT.invoke(this.variance());
+            }
+        }
+
+        @Override
+        void add(final double value, final long sequence) {
+
+            this.accumulate(value);
+
+            myCount++;
+            final double tmpDelta = value - myMean;
+            myMean += tmpDelta / myCount;
+            mySquares += tmpDelta * (value - myMean);
+        }
+
+        @Override
+        void clear() {
+            myCompensation = ZERO;
+            myCount = 0L;
+            myMean = ZERO;
+            mySquares = ZERO;
+            mySum = ZERO;
+        }
+
+        @Override
+        void remove(final double value, final long sequence) {
+
+            this.accumulate(-value);
+
+            if (myCount <= 1L) {
+                myCount = 0L;
+                myMean = ZERO;
+                mySquares = ZERO;
+            } else {
+                final double tmpOldMean = myMean;
+                myCount--;
+                myMean -= (value - myMean) / myCount;
+                mySquares = Math.max(ZERO, mySquares - ((value - myMean) * (value - tmpOldMean)));
+            }
+        }
+
+        private void accumulate(final double value) {
+            final double tmpAddend = value - myCompensation;
+            final double tmpSum = mySum + tmpAddend;
+            myCompensation = (tmpSum - mySum) - tmpAddend;
+            mySum = tmpSum;
+        }
+
+        private double variance() {
+            return myCount > 1L ? mySquares / (myCount - 1L) : ZERO;
+        }
+
+    }
+
+    /**
+     * An order statistic tree (a treap with subtree sizes, in arrays) of the window's values. Equal values are
+     * ordered by their sequence number.
+     */
+    static final class Quantile extends RollingAggregator {
+
+        private static final int NULL = -1;
+
+        private final int[] myLeft;
+        private final int[] myPriority;
+        private final double myProbability;
+        private int myRandom = 0x9E3779B9;
+        private final int[] myRight;
+        private int myRoot = NULL;
+        private final long[] mySequence;
+        private final int[] mySize;
+        private final double[] myValue;
+
+        Quantile(final int window, final double probability) {
+
+            super(window);
+
+            myProbability = probability;
+
+            myLeft = new int[window];
+            myRight = new int[window];
+            myPriority = new int[window];
+            mySize = new int[window];
+            mySequence = new long[window];
+            myValue = new double[window];
+        }
+
+        /**
+         * Linear interpolation between the closest ranks - the same as {@link #median(int)} for p=0.5
+         */
+        @Override
+        public double doubleValue() {
+
+            final int tmpCount = this.size(myRoot);
+
+            if (tmpCount == 0) {
+                return NaN;
+            }
+
+            final double tmpRank = myProbability * (tmpCount - 1);
+            final int tmpLower = (int) Math.floor(tmpRank);
+            final double tmpFraction = tmpRank - tmpLower;
+
+            final double retVal = this.select(tmpLower);
+
+            if ((tmpFraction > ZERO) && ((tmpLower + 1) < tmpCount)) {
+                return retVal + (tmpFraction * (this.select(tmpLower + 1) - retVal));
+            } else {
+                return retVal;
+            }
+        }
+
+        @Override
+        void add(final double value, final long sequence) {
+
+            // The node slot is given by the sequence number, and is free when the window is full since the
+            // value pushed 'window' steps ago has already been removed.
+            final int tmpNode = (int) (sequence % myValue.length);
+
+            myValue[tmpNode] = value;
+            mySequence[tmpNode] = sequence;
+            myLeft[tmpNode] = NULL;
+            myRight[tmpNode] = NULL;
+            mySize[tmpNode] = 1;
+            myRandom ^= myRandom << 13;
+            myRandom ^= myRandom >>> 17;
+            myRandom ^= myRandom << 5;
+            myPriority[tmpNode] = myRandom;
+
+            myRoot = this.insert(myRoot, tmpNode);
+        }
+
+        @Override
+        void clear() {
+            myRoot = NULL;
+        }
+
+        @Override
+        void remove(final double value, final long sequence) {
+            myRoot = this.delete(myRoot, value, sequence);
+        }
+
+        private int compare(final double value, final long sequence, final int node) {
+            final int retVal = Double.compare(value, myValue[node]);
+            return retVal != 0 ? retVal : Long.compare(sequence, mySequence[node]);
+        }
+
+        private int delete(final int root, final double value, final long sequence) {
+
+            if (root == NULL) {
+                return NULL;
+            }
+
+            final int tmpComparison = this.compare(value, sequence, root);
+
+            if (tmpComparison < 0) {
+                myLeft[root] = this.delete(myLeft[root], value, sequence);
+            } else if (tmpComparison > 0) {
+                myRight[root] = this.delete(myRight[root], value, sequence);
+            } else {
+                return this.join(myLeft[root], myRight[root]);
+            }
+
+            this.update(root);
+            return root;
+        }
+
+        private int insert(final int root, final int node) {
+
+            if (root == NULL) {
+                return node;
+            }
+
+            if (this.compare(myValue[node], mySequence[node], root) < 0) {
+                myLeft[root] = this.insert(myLeft[root], node);
+                if (myPriority[myLeft[root]] > myPriority[root]) {
+                    return this.rotateRight(root);
+                }
+            } else {
+                myRight[root] = this.insert(myRight[root], node);
+                if (myPriority[myRight[root]] > myPriority[root]) {
+                    return this.rotateLeft(root);
+                }
+            }
+
+            this.update(root);
+            return root;
+        }
+
+        private int join(final int left, final int right) {
+
+            if (left == NULL) {
+                return right;
+            } else if (right == NULL) {
+                return left;
+            } else if (myPriority[left] > myPriority[right]) {
+                myRight[left] = this.join(myRight[left], right);
+                this.update(left);
+                return left;
+            } else {
+                myLeft[right] = this.join(left, myLeft[right]);
+                this.update(right);
+                return right;
+            }
+        }
+
+        private int rotateLeft(final int root) {
+            final int retVal = myRight[root];
+            myRight[root] = myLeft[retVal];
+            myLeft[retVal] = root;
+            this.update(root);
+            this.update(retVal);
+            return retVal;
+        }
+
+        private int rotateRight(final int root) {
+            final int retVal = myLeft[root];
+            myLeft[root] = myRight[retVal];
+            myRight[retVal] = root;
+            this.update(root);
+            this.update(retVal);
+            return retVal;
+        }
+
+        private double select(final int rank) {
+
+            int tmpNode = myRoot;
+            int tmpRank = rank;
+
+            while (tmpNode != NULL) {
+                final int tmpLeftSize = this.size(myLeft[tmpNode]);
+                if (tmpRank < tmpLeftSize) {
+                    tmpNode = myLeft[tmpNode];
+                } else if (tmpRank > tmpLeftSize) {
+                    tmpRank -= tmpLeftSize + 1;
+                    tmpNode = myRight[tmpNode];
+                } else {
+                    return myValue[tmpNode];
+                }
+            }
+
+            return NaN;
+        }
+
+        private int size(final int node) {
+            return node == NULL ? 0 : mySize[node];
+        }
+
+        private void update(final int node) {
+            mySize[node] = 1 + this.size(myLeft[node]) + this.size(myRight[node]);
+        }
+
+    }
+
+    public static RollingAggregator maximum(final int window) {
+        return new Extreme(window, true);
+    }
+
+    public static RollingAggregator mean(final int window) {
+        return new Moments(window, 1);
+    }
+
+    public static RollingAggregator median(final int window) {
+        return new Quantile(window, HALF);
+    }
+
+    public static RollingAggregator minimum(final int window) {
+        return new Extreme(window, false);
+    }
+
+    /**
+     * @param window The window size
+     * @param probability [0,1]
+     */
+    public static RollingAggregator quantile(final int window, final double probability) {
+        if ((probability < ZERO) || (probability > ONE)) {
+            throw new IllegalArgumentException("The probability must be in [0,1]!");
+        }
+        return new Quantile(window, probability);
+    }
+
+    public static RollingAggregator standardDeviation(final int window) {
+        return new Moments(window, 3);
+    }
+
+    public static RollingAggregator sum(final int window) {
+        return new Moments(window, 0);
+    }
+
+    /**
+     * Sample variance - divides by n-1
+     */
+    public static RollingAggregator variance(final int window) {
+        return new Moments(window, 2);
+    }
+
+    private long myCount = 0L;
+    private final double[] myWindow;
+
+    RollingAggregator(final int window) {
+
+        super();
+
+        if (window < 1) {
+            throw new IllegalArgumentException("The window size must be at least 1!");
+        }
+
+        myWindow = new double[window];
+    }
+
+    /**
+     * @return The number of values currently in the window
+     */
+    public final int count() {
+        return (int) Math.min(myCount, myWindow.length);
+    }
+
+    /**
+     * @return The aggregated value of the current window, NaN if nothing has been pushed yet (0.0 for the sum
+     *         and variance)
+     */
+    public abstract double doubleValue();
+
+    public final Double getNumber() {
+        return Double.valueOf(this.doubleValue());
+    }
+
+    /**
+     * Push a new value, and if the window is full drop the oldest.
+     */
+    public final void invoke(final double value) {
+
+        final int tmpPosition = (int) (myCount % myWindow.length);
+
+        if (myCount >= myWindow.length) {
+            this.remove(myWindow[tmpPosition], myCount - myWindow.length);
+        }
+
+        myWindow[tmpPosition] = value;
+        this.add(value, myCount);
+
+        myCount++;
+    }
+
+    public final void invoke(final Double value) {
+        this.invoke(value.doubleValue());
+    }
+
+    /**
+     * @return true when the window is full (at least window size values have been pushed)
+     */
+    public final boolean isFull() {
+        return myCount >= myWindow.length;
+    }
+
+    public final RollingAggregator reset() {
+        myCount = 0L;
+        Arrays.fill(myWindow, ZERO);
+        this.clear();
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + " " + this.count() + "/" + myWindow.length + " = " + this.doubleValue();
+    }
+
+    public final int window() {
+        return myWindow.length;
+    }
+
+    abstract void add(double value, long sequence);
+
+    abstract void clear();
+
+    abstract void remove(double value, long sequence);
+
+}
@@ -0,0 +1,523 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.tensor;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.access.AccessAnyD;
+
+/**
+ * A primitive (double) tensor of any shape, stored as a strided view of a double[]. The first index varies
+ * fastest - the same layout as {@link org.ojalgo.array.ArrayAnyD} and the (column-major) matrices.
+ * <p>
+ * {@link #permute(int...)}, {@link #slice(int, int)}, {@link #slice(int, int, int)},
+ * {@link #diagonal(int, int)}, {@link #broadcast(int...)} and (for contiguous instances)
+ * {@link #reshape(int...)} only create new views of the same data - nothing is copied.
+ * <p>
+ * {@link #einsum(String, StridedTensor...)} and {@link #contract(StridedTensor, int[], int[])} contract
+ * tensors over named or indexed axes. Multi-operand contractions are performed pairwise, in the order that
+ * minimises the total number of multiply-adds, and each pairwise contraction is reduced to (batched) matrix
+ * multiplication using the {@link org.ojalgo.matrix.store.PrimitiveDenseStore} kernels.
+ *
+ * @author apete
+ */
+public final class StridedTensor implements AccessAnyD<Double> {
+
+    public static StridedTensor copy(final AccessAnyD<?> source) {
+
+        final long[] tmpShape = source.shape();
+        final int[] tmpIntShape = new int[tmpShape.length];
+        for (int a = 0; a < tmpShape.length; a++) {
+            tmpIntShape[a] = Math.toIntExact(tmpShape[a]);
+        }
+
+        final StridedTensor retVal = StridedTensor.make(tmpIntShape);
+
+        if (source instanceof StridedTensor) {
+            ((StridedTensor) source).copyTo(retVal.getData(), 0);
+        } else {
+            final double[] tmpData = retVal.getData();
+            for (int i = 0; i < tmpData.length; i++) {
+                tmpData[i] = source.doubleValue(i);
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Contract the operands according to an Einstein summation expression like "ij,jk->ik" (matrix
+     * multiplication), "ijk,il,jm,kn->lmn" (change of basis of a rank-3 tensor) or "ii->" (trace). Axes are
+     * labelled with letters. If the "->output" part is omitted the output labels are those occurring exactly
+     * once, in alphabetical order. All axes with the same label must have the same size.
+     */
+    public static StridedTensor einsum(final String expression, final StridedTensor... operands) {
+        return TensorContraction.parse(expression, operands).execute();
+    }
+
+    /**
+     * @return A new, zero filled, contiguous tensor
+     */
+    public static StridedTensor make(final int... shape) {
+        return new StridedTensor(new double[StridedTensor.count(shape)], 0, shape.clone(), StridedTensor.strides(shape));
+    }
+
+    /**
+     * @param data Element values, first index varies fastest
+     * @param shape The shape
+     * @return A tensor backed by the data array - not a copy
+     */
+    public static StridedTensor wrap(final double[] data, final int... shape) {
+        if (data.length != StridedTensor.count(shape)) {
+            throw new IllegalArgumentException("Data length does not match the shape!");
+        }
+        return new StridedTensor(data, 0, shape.clone(), StridedTensor.strides(shape));
+    }
+
+    static int count(final int[] shape) {
+        long retVal = 1L;
+        for (int a = 0; a < shape.length; a++) {
+            retVal *= shape[a];
+        }
+        return Math.toIntExact(retVal);
+    }
+
+    static int[] strides(final int[] shape) {
+        final int[] retVal = new int[shape.length];
+        int tmpStride = 1;
+        for (int a = 0; a < shape.length; a++) {
+            retVal[a] = tmpStride;
+            tmpStride *= shape[a];
+        }
+        return retVal;
+    }
+
+    private final double[] myData;
+    private final int myOffset;
+    private final int[] myShape;
+    private final int[] myStrides;
+
+    StridedTensor(final double[] data, final int offset, final int[] shape, final int[] strides) {
+
+        super();
+
+        myData = data;
+        myOffset = offset;
+        myShape = shape;
+        myStrides = strides;
+    }
+
+    /**
+     * Axes of size 1 can be broadcast to any size (using stride 0). Other axes must keep their size.
+     */
+    public StridedTensor broadcast(final int... shape) {
+
+        if (shape.length != myShape.length) {
+            throw new IllegalArgumentException("Can't change the rank when broadcasting!");
+        }
+
+        final int[] tmpStrides = myStrides.clone();
+        for (int a = 0; a < shape.length; a++) {
+            if (shape[a] != myShape[a]) {
+                if (myShape[a] != 1) {
+                    throw new IllegalArgumentException("Only axes of size 1 can be broadcast!");
+                }
+                tmpStrides[a] = 0;
+            }
+        }
+
+        return new StridedTensor(myData, myOffset, shape.clone(), tmpStrides);
+    }
+
+    /**
+     * Contract (sum over) pairs of axes, one from this and one from the other tensor. The resulting axes are
+     * this tensor's remaining axes followed by the other tensor's remaining axes.
+     */
+    public StridedTensor contract(final StridedTensor other, final int[] axes, final int[] otherAxes) {
+
+        if (axes.length != otherAxes.length) {
+            throw new IllegalArgumentException("Axes must be given in pairs!");
+        }
+
+        final char[] tmpLeft = new char[myShape.length];
+        final char[] tmpRight = new char[other.rank()];
+        char tmpLabel = 'A';
+        for (int a = 0; a < tmpLeft.length; a++) {
+            tmpLeft[a] = tmpLabel++;
+        }
+        for (int b = 0; b < tmpRight.length; b++) {
+            tmpRight[b] = tmpLabel++;
+        }
+        for (int p = 0; p < axes.length; p++) {
+            tmpRight[otherAxes[p]] = tmpLeft[axes[p]];
+        }
+
+        final StringBuilder tmpOutput = new StringBuilder();
+        for (int a = 0; a < tmpLeft.length; a++) {
+            if (!StridedTensor.contains(axes, a)) {
+                tmpOutput.append(tmpLeft[a]);
+            }
+        }
+        for (int b = 0; b < tmpRight.length; b++) {
+            if (!StridedTensor.contains(otherAxes, b)) {
+                tmpOutput.append(tmpRight[b]);
+            }
+        }
+
+        return StridedTensor.einsum(new String(tmpLeft) + "," + new String(tmpRight) + "->" + tmpOutput, this, other);
+    }
+
+    /**
+     * @return A contiguous copy
+     */
+    public StridedTensor copy() {
+        final StridedTensor retVal = StridedTensor.make(myShape);
+        this.copyTo(retVal.getData(), 0);
+        return retVal;
+    }
+
+    public long count() {
+        return StridedTensor.count(myShape);
+    }
+
+    public long count(final int dimension) {
+        return myShape[dimension];
+    }
+
+    /**
+     * @return A view of the diagonal of two (equally sized) axes, replacing them by one axis at the position
+     *         of the first
+     */
+    public StridedTensor diagonal(final int axis, final int otherAxis) {
+
+        if ((axis == otherAxis) || (myShape[axis] != myShape[otherAxis])) {
+            throw new IllegalArgumentException("The diagonal requires two different axes of the same size!");
+        }
+
+        final int[] tmpShape = new int[myShape.length - 1];
+        final int[] tmpStrides = new int[myShape.length - 1];
+        for (int a = 0, t = 0; a < myShape.length; a++) {
+            if (a == axis) {
+                tmpShape[t] = myShape[a];
+                tmpStrides[t++] = myStrides[axis] + myStrides[otherAxis];
+            } else if (a != otherAxis) {
+                tmpShape[t] = myShape[a];
+                tmpStrides[t++] = myStrides[a];
+            }
+        }
+
+        return new StridedTensor(myData, myOffset, tmpShape, tmpStrides);
+    }
+
+    public double doubleValue(final int... ref) {
+        return myData[this.position(ref)];
+    }
+
+    @Override
+    public double doubleValue(final long index) {
+        int tmpPosition = myOffset;
+        long tmpRemaining = index;
+        for (int a = 0; a < myShape.length; a++) {
+            tmpPosition += (int) (tmpRemaining % myShape[a]) * myStrides[a];
+            tmpRemaining /= myShape[a];
+        }
+        return myData[tmpPosition];
+    }
+
+    public double doubleValue(final long[] ref) {
+        int tmpPosition = myOffset;
+        for (int a = 0; a < myShape.length; a++) {
+            tmpPosition += (int) ref[a] * myStrides[a];
+        }
+        return myData[tmpPosition];
+    }
+
+    @Override
+    public Double get(final long index) {
+        return this.doubleValue(index);
+    }
+
+    public Double get(final long[] ref) {
+        return this.doubleValue(ref);
+    }
+
+    /**
+     * @return true if the elements are stored contiguously, in (first index fastest) order, without gaps
+     */
+    public boolean isContiguous() {
+        int tmpStride = 1;
+        for (int a = 0; a < myShape.length; a++) {
+            if ((myShape[a] != 1) && (myStrides[a] != tmpStride)) {
+                return false;
+            }
+            tmpStride *= myShape[a];
+        }
+        return true;
+    }
+
+    /**
+     * @param axes The new order of the axes: the i:th axis of the view is axes[i] of this tensor
+     */
+    public StridedTensor permute(final int... axes) {
+
+        if (axes.length != myShape.length) {
+            throw new IllegalArgumentException("Must specify all axes!");
+        }
+
+        final int[] tmpShape = new int[axes.length];
+        final int[] tmpStrides = new int[axes.length];
+        final boolean[] tmpUsed = new boolean[axes.length];
+        for (int a = 0; a < axes.length; a++) {
+            if (tmpUsed[axes[a]]) {
+                throw new IllegalArgumentException("Not a permutation!");
+            }
+            tmpUsed[axes[a]] = true;
+            tmpShape[a] = myShape[axes[a]];
+            tmpStrides[a] = myStrides[axes[a]];
+        }
+
+        return new StridedTensor(myData, myOffset, tmpShape, tmpStrides);
+    }
+
+    public int rank() {
+        return myShape.length;
+    }
+
+    /**
+     * A view if this tensor is contiguous, otherwise a reshaped copy.
+     */
+    public StridedTensor reshape(final int... shape) {
+
+        if (StridedTensor.count(shape) != this.count()) {
+            throw new IllegalArgumentException("Can't change the number of elements when reshaping!");
+        }
+
+        if (this.isContiguous()) {
+            return new StridedTensor(myData, myOffset, shape.clone(), StridedTensor.strides(shape));
+        } else {
+            final StridedTensor tmpCopy = this.copy();
+            return new StridedTensor(tmpCopy.getData(), 0, shape.clone(), StridedTensor.strides(shape));
+        }
+    }
+
+    public void set(final double value, final int... ref) {
+        myData[this.position(ref)] = value;
+    }
+
+    public long[] shape() {
+        final long[] retVal = new long[myShape.length];
+        for (int a = 0; a < myShape.length; a++) {
+            retVal[a] = myShape[a];
+        }
+        return retVal;
+    }
+
+    /**
+     * @return A view with the axis removed, fixed at the index
+     */
+    public StridedTensor slice(final int axis, final int index) {
+
+        if ((index < 0) || (index >= myShape[axis])) {
+            throw new IllegalArgumentException("Index out of range!");
+        }
+
+        final int[] tmpShape = new int[myShape.length - 1];
+        final int[] tmpStrides = new int[myShape.length - 1];
+        for (int a = 0, t = 0; a < myShape.length; a++) {
+            if (a != axis) {
+                tmpShape[t] = myShape[a];
+                tmpStrides[t++] = myStrides[a];
+            }
+        }
+
+        return new StridedTensor(myData, myOffset + (index * myStrides[axis]), tmpShape, tmpStrides);
+    }
+
+    /**
+     * @return A view with the range [first,limit) of the axis
+     */
+    public StridedTensor slice(final int axis, final int first, final int limit) {
+
+        if ((first < 0) || (limit > myShape[axis]) || (first > limit)) {
+            throw new IllegalArgumentException("Range out of bounds!");
+        }
+
+        final int[] tmpShape = myShape.clone();
+        tmpShape[axis] = limit - first;
+
+        return new StridedTensor(myData, myOffset + (first * myStrides[axis]), tmpShape, myStrides.clone());
+    }
+
+    /**
+     * @return A new contiguous tensor with the given axes summed out
+     */
+    public StridedTensor sum(final int... axes) {
+
+        final int tmpRank = myShape.length;
+
+        final int[] tmpOrder = new int[tmpRank];
+        final int[] tmpShape = new int[tmpRank - axes.length];
+        int tmpBlock = 1;
+        int o = 0;
+        for (final int tmpAxis : axes) {
+            tmpOrder[o++] = tmpAxis;
+            tmpBlock *= myShape[tmpAxis];
+        }
+        for (int a = 0, t = 0; a < tmpRank; a++) {
+            if (!StridedTensor.contains(axes, a)) {
+                tmpOrder[o++] = a;
+                tmpShape[t++] = myShape[a];
+            }
+        }
+
+        final StridedTensor retVal = StridedTensor.make(tmpShape);
+        final double[] tmpData = retVal.getData();
+
+        if (tmpBlock == 1) {
+            this.permute(tmpOrder).copyTo(tmpData, 0);
+        } else {
+            final double[] tmpAll = new double[tmpData.length * tmpBlock];
+            this.permute(tmpOrder).copyTo(tmpAll, 0);
+            for (int j = 0; j < tmpData.length; j++) {
+                double tmpSum = ZERO;
+                for (int i = j * tmpBlock, tmpLimit = i + tmpBlock; i < tmpLimit; i++) {
+                    tmpSum += tmpAll[i];
+                }
+                tmpData[j] = tmpSum;
+            }
+        }
+
+        return retVal;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder retVal = new StringBuilder(this.getClass().getSimpleName());
+        retVal.append(Arrays.toString(myShape));
+        if (this.count() <= 100L) {
+            retVal.append(Arrays.toString(this.toRawCopy1D()));
+        }
+        return retVal.toString();
+    }
+
+    @Override
+    public double[] toRawCopy1D() {
+        final double[] retVal = new double[(int) this.count()];
+        this.copyTo(retVal, 0);
+        return retVal;
+    }
+
+    private static boolean contains(final int[] values, final int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int position(final int[] ref) {
+        if (ref.length != myShape.length) {
+            throw new IllegalArgumentException("Wrong number of indices!");
+        }
+        int retVal = myOffset;
+        for (int a = 0; a < myShape.length; a++) {
+            if ((ref[a] < 0) || (ref[a] >= myShape[a])) {
+                throw new IndexOutOfBoundsException();
+            }
+            retVal += ref[a] * myStrides[a];
+        }
+        return retVal;
+    }
+
+    /**
+     * Copy all elements, in (first index fastest) order, to the destination
+     */
+    void copyTo(final double[] destination, final int offset) {
+
+        final int tmpRank = myShape.length;
+        final int tmpCount = (int) this.count();
+
+        if (tmpCount == 0) {
+            return;
+        }
+
+        if (tmpRank == 0) {
+            destination[offset] = myData[myOffset];
+            return;
+        }
+
+        if (this.isContiguous()) {
+            System.arraycopy(myData, myOffset, destination, offset, tmpCount);
+            return;
+        }
+
+        final int tmpInnerLength = myShape[0];
+        final int tmpInnerStride = myStrides[0];
+        final int[] tmpCounter = new int[tmpRank];
+
+        int tmpBase = myOffset;
+        int d = offset;
+        for (int o = 0, tmpOuter = tmpCount / tmpInnerLength; o < tmpOuter; o++) {
+
+            for (int i = 0, p = tmpBase; i < tmpInnerLength; i++, p += tmpInnerStride) {
+                destination[d++] = myData[p];
+            }
+
+            for (int a = 1; a < tmpRank; a++) {
+                tmpBase += myStrides[a];
+                if (++tmpCounter[a] < myShape[a]) {
+                    break;
+                }
+                tmpBase -= myStrides[a] * myShape[a];
+                tmpCounter[a] = 0;
+            }
+        }
+    }
+
+    /**
+     * @return A view of the leading axes, with the trailing axes fixed at the position given by a (first
+     *         index fastest) linear index
+     */
+    StridedTensor block(final int leadingRank, final int trailingIndex) {
+
+        int tmpOffset = myOffset;
+        int tmpRemaining = trailingIndex;
+        for (int a = leadingRank; a < myShape.length; a++) {
+            tmpOffset += (tmpRemaining % myShape[a]) * myStrides[a];
+            tmpRemaining /= myShape[a];
+        }
+
+        return new StridedTensor(myData, tmpOffset, Arrays.copyOf(myShape, leadingRank), Arrays.copyOf(myStrides, leadingRank));
+    }
+
+    double[] getData() {
+        return myData;
+    }
+
+    int[] getShape() {
+        return myShape;
+    }
+
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.tensor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+
+/**
+ * Plans and executes an Einstein summation. Axis labels are represented by bits in a long mask.
+ *
+ * @author apete
+ */
+final class TensorContraction {
+
+    static final class Term {
+
+        final String labels;
+        final StridedTensor tensor;
+
+        Term(final StridedTensor tensor, final String labels) {
+            super();
+            this.tensor = tensor;
+            this.labels = labels;
+        }
+
+        long mask() {
+            return TensorContraction.mask(labels);
+        }
+
+    }
+
+    /**
+     * With at most this many operands the optimal pairwise order is found (dynamic programming over all
+     * subsets); with more a greedy order is used.
+     */
+    static final int OPTIMAL = 12;
+
+    /**
+     * Batched matrix multiplications are done in parallel when the total number of multiply-adds exceeds
+     * this.
+     */
+    static final long PARALLEL = 1L << 15;
+
+    static int index(final char label) {
+        if ((label >= 'a') && (label <= 'z')) {
+            return label - 'a';
+        } else if ((label >= 'A') && (label <= 'Z')) {
+            return 26 + (label - 'A');
+        } else {
+            throw new IllegalArgumentException("Axis labels must be letters: " + label);
+        }
+    }
+
+    static long mask(final String labels) {
+        long retVal = 0L;
+        for (int i = 0; i < labels.length(); i++) {
+            retVal |= 1L << TensorContraction.index(labels.charAt(i));
+        }
+        return retVal;
+    }
+
+    static PrimitiveDenseStore multiply(final StridedTensor left, final StridedTensor right, final int rows, final int complexity, final int columns) {
+
+        final PrimitiveDenseStore tmpLeft = PrimitiveDenseStore.FACTORY.makeZero(rows, complexity);
+        final PrimitiveDenseStore tmpRight = PrimitiveDenseStore.FACTORY.makeZero(complexity, columns);
+        left.copyTo(tmpLeft.data, 0);
+        right.copyTo(tmpRight.data, 0);
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(rows, columns);
+        retVal.fillByMultiplying(tmpLeft, tmpRight);
+        return retVal;
+    }
+
+    static int[] order(final String from, final String to) {
+        final int[] retVal = new int[to.length()];
+        for (int a = 0; a < retVal.length; a++) {
+            retVal[a] = from.indexOf(to.charAt(a));
+        }
+        return retVal;
+    }
+
+    static TensorContraction parse(final String expression, final StridedTensor[] operands) {
+
+        final String tmpExpression = expression.replaceAll("\\s", "");
+
+        final int tmpArrow = tmpExpression.indexOf("->");
+        final String[] tmpInputs = (tmpArrow >= 0 ? tmpExpression.substring(0, tmpArrow) : tmpExpression).split(",", -1);
+
+        if (tmpInputs.length != operands.length) {
+            throw new IllegalArgumentException("The expression specifies " + tmpInputs.length + " operands, but " + operands.length + " were given!");
+        }
+
+        final long[] tmpSizes = new long[52];
+        final int[] tmpOccurrences = new int[52];
+
+        for (int t = 0; t < tmpInputs.length; t++) {
+            final String tmpLabels = tmpInputs[t];
+            if (tmpLabels.length() != operands[t].rank()) {
+                throw new IllegalArgumentException("Operand " + t + " has rank " + operands[t].rank() + " but is labelled '" + tmpLabels + "'!");
+            }
+            for (int a = 0; a < tmpLabels.length(); a++) {
+                final int tmpIndex = TensorContraction.index(tmpLabels.charAt(a));
+                final long tmpSize = operands[t].count(a);
+                if ((tmpSizes[tmpIndex] != 0L) && (tmpSizes[tmpIndex] != tmpSize)) {
+                    throw new IllegalArgumentException("Axes labelled '" + tmpLabels.charAt(a) + "' have different sizes!");
+                }
+                tmpSizes[tmpIndex] = tmpSize;
+                tmpOccurrences[tmpIndex]++;
+            }
+        }
+
+        final String tmpOutput;
+        if (tmpArrow >= 0) {
+            tmpOutput = tmpExpression.substring(tmpArrow + 2);
+            for (int a = 0; a < tmpOutput.length(); a++) {
+                final int tmpIndex = TensorContraction.index(tmpOutput.charAt(a));
+                if ((tmpOccurrences[tmpIndex] == 0) || (tmpOutput.indexOf(tmpOutput.charAt(a)) != a)) {
+                    throw new IllegalArgumentException("Invalid output label '" + tmpOutput.charAt(a) + "'!");
+                }
+            }
+        } else {
+            final StringBuilder tmpImplicit = new StringBuilder();
+            for (int i = 0; i < 52; i++) {
+                if (tmpOccurrences[i] == 1) {
+                    tmpImplicit.append(i < 26 ? (char) ('a' + i) : (char) ('A' + (i - 26)));
+                }
+            }
+            final char[] tmpSorted = tmpImplicit.toString().toCharArray();
+            Arrays.sort(tmpSorted);
+            tmpOutput = new String(tmpSorted);
+        }
+
+        final long tmpOutputMask = TensorContraction.mask(tmpOutput);
+
+        final List<Term> tmpTerms = new ArrayList<>(operands.length);
+        for (int t = 0; t < operands.length; t++) {
+
+            StridedTensor tmpTensor = operands[t];
+            StringBuilder tmpLabels = new StringBuilder(tmpInputs[t]);
+
+            // Repeated labels within one operand - take the diagonal (a view)
+            for (int a = 0; a < tmpLabels.length(); a++) {
+                for (int b = tmpLabels.length() - 1; b > a; b--) {
+                    if (tmpLabels.charAt(a) == tmpLabels.charAt(b)) {
+                        tmpTensor = tmpTensor.diagonal(a, b);
+                        tmpLabels.deleteCharAt(b);
+                        tmpOccurrences[TensorContraction.index(tmpLabels.charAt(a))]--;
+                    }
+                }
+            }
+
+            // Labels that only occur here, and not in the output, are summed out
+            final int[] tmpSummed = new int[tmpLabels.length()];
+            int tmpNumberOfSummed = 0;
+            final StringBuilder tmpKept = new StringBuilder();
+            for (int a = 0; a < tmpLabels.length(); a++) {
+                final int tmpIndex = TensorContraction.index(tmpLabels.charAt(a));
+                if ((tmpOccurrences[tmpIndex] == 1) && ((tmpOutputMask & (1L << tmpIndex)) == 0L)) {
+                    tmpSummed[tmpNumberOfSummed++] = a;
+                } else {
+                    tmpKept.append(tmpLabels.charAt(a));
+                }
+            }
+            if (tmpNumberOfSummed > 0) {
+                tmpTensor = tmpTensor.sum(Arrays.copyOf(tmpSummed, tmpNumberOfSummed));
+                tmpLabels = tmpKept;
+            }
+
+            tmpTerms.add(new Term(tmpTensor, tmpLabels.toString()));
+        }
+
+        return new TensorContraction(tmpTerms, tmpOutput, tmpSizes);
+    }
+
+    private final String myOutput;
+    private final long[] mySizes;
+    private final List<Term> myTerms;
+
+    TensorContraction(final List<Term> terms, final String output, final long[] sizes) {
+
+        super();
+
+        myTerms = terms;
+        myOutput = output;
+        mySizes = sizes;
+    }
+
+    StridedTensor execute() {
+
+        Term tmpResult;
+
+        final int tmpNumberOfTerms = myTerms.size();
+
+        if (tmpNumberOfTerms == 1) {
+            tmpResult = myTerms.get(0);
+        } else if (tmpNumberOfTerms <= OPTIMAL) {
+            tmpResult = this.executeOptimal();
+        } else {
+            tmpResult = this.executeGreedy();
+        }
+
+        final int[] tmpOrder = new int[myOutput.length()];
+        boolean tmpIdentity = true;
+        for (int a = 0; a < tmpOrder.length; a++) {
+            tmpOrder[a] = tmpResult.labels.indexOf(myOutput.charAt(a));
+            tmpIdentity &= tmpOrder[a] == a;
+        }
+
+        final StridedTensor tmpPermuted = tmpIdentity ? tmpResult.tensor : tmpResult.tensor.permute(tmpOrder);
+
+        if (tmpPermuted.isContiguous() && !myTerms.contains(tmpResult)) {
+            return tmpPermuted;
+        } else {
+            return tmpPermuted.copy();
+        }
+    }
+
+    /**
+     * The number of multiply-adds needed to contract two tensors with these labels
+     */
+    long cost(final long labels) {
+        long retVal = 1L;
+        long tmpRemaining = labels;
+        while (tmpRemaining != 0L) {
+            final int tmpIndex = Long.numberOfTrailingZeros(tmpRemaining);
+            retVal *= mySizes[tmpIndex];
+            tmpRemaining &= tmpRemaining - 1L;
+        }
+        return retVal;
+    }
+
+    Term executeGreedy() {
+
+        final List<Term> tmpTerms = new ArrayList<>(myTerms);
+        final long tmpOutputMask = TensorContraction.mask(myOutput);
+
+        while (tmpTerms.size() > 1) {
+
+            long tmpBestCost = Long.MAX_VALUE;
+            int tmpBestLeft = 0, tmpBestRight = 1;
+            long tmpBestKeep = 0L;
+
+            for (int l = 0; l < tmpTerms.size(); l++) {
+                for (int r = l + 1; r < tmpTerms.size(); r++) {
+
+                    long tmpOthers = tmpOutputMask;
+                    for (int o = 0; o < tmpTerms.size(); o++) {
+                        if ((o != l) && (o != r)) {
+                            tmpOthers |= tmpTerms.get(o).mask();
+                        }
+                    }
+
+                    final long tmpUnion = tmpTerms.get(l).mask() | tmpTerms.get(r).mask();
+                    final long tmpCost = this.cost(tmpUnion);
+                    if (tmpCost < tmpBestCost) {
+                        tmpBestCost = tmpCost;
+                        tmpBestLeft = l;
+                        tmpBestRight = r;
+                        tmpBestKeep = tmpUnion & tmpOthers;
+                    }
+                }
+            }
+
+            final Term tmpRight = tmpTerms.remove(tmpBestRight);
+            final Term tmpLeft = tmpTerms.remove(tmpBestLeft);
+            tmpTerms.add(this.pairwise(tmpLeft, tmpRight, tmpBestKeep));
+        }
+
+        return tmpTerms.get(0);
+    }
+
+    Term executeOptimal() {
+
+        final int tmpNumberOfTerms = myTerms.size();
+        final int tmpAll = (1 << tmpNumberOfTerms) - 1;
+
+        final long tmpOutputMask = TensorContraction.mask(myOutput);
+
+        final long[] tmpUnion = new long[tmpAll + 1];
+        for (int s = 1; s <= tmpAll; s++) {
+            final int tmpLowest = Integer.numberOfTrailingZeros(s);
+            tmpUnion[s] = tmpUnion[s & (s - 1)] | myTerms.get(tmpLowest).mask();
+        }
+
+        // The labels of the intermediate result of contracting a subset of the terms
+        final long[] tmpKeep = new long[tmpAll + 1];
+        for (int s = 1; s <= tmpAll; s++) {
+            tmpKeep[s] = tmpUnion[s] & (tmpOutputMask | tmpUnion[tmpAll & ~s]);
+        }
+
+        final double[] tmpCost = new double[tmpAll + 1];
+        final int[] tmpSplit = new int[tmpAll + 1];
+
+        for (int s = 1; s <= tmpAll; s++) {
+
+            if ((s & (s - 1)) == 0) {
+                continue;
+            }
+
+            final int tmpLowestBit = s & -s;
+
+            tmpCost[s] = Double.POSITIVE_INFINITY;
+            for (int l = (s - 1) & s; l > 0; l = (l - 1) & s) {
+                if ((l & tmpLowestBit) != 0) {
+                    final int r = s ^ l;
+                    final double tmpTotal = tmpCost[l] + tmpCost[r] + this.cost(tmpKeep[l] | tmpKeep[r]);
+                    if (tmpTotal < tmpCost[s]) {
+                        tmpCost[s] = tmpTotal;
+                        tmpSplit[s] = l;
+                    }
+                }
+            }
+        }
+
+        return this.evaluate(tmpAll, tmpSplit, tmpKeep);
+    }
+
+    Term pairwise(final Term left, final Term right, final long keep) {
+
+        final long tmpLeftMask = left.mask();
+        final long tmpRightMask = right.mask();
+
+        final StringBuilder tmpFreeLeft = new StringBuilder();
+        final StringBuilder tmpFreeRight = new StringBuilder();
+        final StringBuilder tmpContracted = new StringBuilder();
+        final StringBuilder tmpBatch = new StringBuilder();
+
+        for (int a = 0; a < left.labels.length(); a++) {
+            final char tmpLabel = left.labels.charAt(a);
+            final long tmpBit = 1L << TensorContraction.index(tmpLabel);
+            if ((tmpRightMask & tmpBit) == 0L) {
+                tmpFreeLeft.append(tmpLabel);
+            } else if ((keep & tmpBit) != 0L) {
+                tmpBatch.append(tmpLabel);
+            } else {
+                tmpContracted.append(tmpLabel);
+            }
+        }
+        for (int b = 0; b < right.labels.length(); b++) {
+            final char tmpLabel = right.labels.charAt(b);
+            if ((tmpLeftMask & (1L << TensorContraction.index(tmpLabel))) == 0L) {
+                tmpFreeRight.append(tmpLabel);
+            }
+        }
+
+        final String tmpLeftOrder = tmpFreeLeft.toString() + tmpContracted + tmpBatch;
+        final String tmpRightOrder = tmpContracted.toString() + tmpFreeRight + tmpBatch;
+        final String tmpResultLabels = tmpFreeLeft.toString() + tmpFreeRight + tmpBatch;
+
+        final StridedTensor tmpLeftView = left.tensor.permute(TensorContraction.order(left.labels, tmpLeftOrder));
+        final StridedTensor tmpRightView = right.tensor.permute(TensorContraction.order(right.labels, tmpRightOrder));
+
+        final int tmpRows = (int) this.cost(TensorContraction.mask(tmpFreeLeft.toString()));
+        final int tmpComplexity = (int) this.cost(TensorContraction.mask(tmpContracted.toString()));
+        final int tmpColumns = (int) this.cost(TensorContraction.mask(tmpFreeRight.toString()));
+        final int tmpBatches = (int) this.cost(TensorContraction.mask(tmpBatch.toString()));
+
+        final int tmpLeftRank = tmpFreeLeft.length() + tmpContracted.length();
+        final int tmpRightRank = tmpContracted.length() + tmpFreeRight.length();
+
+        final int[] tmpResultShape = new int[tmpResultLabels.length()];
+        for (int a = 0; a < tmpResultShape.length; a++) {
+            tmpResultShape[a] = (int) mySizes[TensorContraction.index(tmpResultLabels.charAt(a))];
+        }
+
+        if (tmpBatches == 1) {
+
+            final PrimitiveDenseStore tmpProduct = TensorContraction.multiply(tmpLeftView, tmpRightView, tmpRows, tmpComplexity, tmpColumns);
+
+            return new Term(StridedTensor.wrap(tmpProduct.data, tmpResultShape), tmpResultLabels);
+
+        } else {
+
+            final StridedTensor tmpResult = StridedTensor.make(tmpResultShape);
+            final double[] tmpResultData = tmpResult.getData();
+            final int tmpBlockSize = tmpRows * tmpColumns;
+
+            final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    for (int b = first; b < limit; b++) {
+                        final PrimitiveDenseStore tmpProduct = TensorContraction.multiply(tmpLeftView.block(tmpLeftRank, b),
+                                tmpRightView.block(tmpRightRank, b), tmpRows, tmpComplexity, tmpColumns);
+                        System.arraycopy(tmpProduct.data, 0, tmpResultData, b * tmpBlockSize, tmpBlockSize);
+                    }
+                }
+
+            };
+
+            // A threshold equal to the count means no splitting - all done in this thread
+            tmpConquerer.invoke(0, tmpBatches, (((long) tmpBlockSize * tmpComplexity * tmpBatches) > PARALLEL) ? 1 : tmpBatches);
+
+            return new Term(tmpResult, tmpResultLabels);
+        }
+    }
+
+    private Term evaluate(final int subset, final int[] split, final long[] keep) {
+        if ((subset & (subset - 1)) == 0) {
+            return myTerms.get(Integer.numberOfTrailingZeros(subset));
+        } else {
+            final int tmpLeft = split[subset];
+            final int tmpRight = subset ^ tmpLeft;
+            return this.pairwise(this.evaluate(tmpLeft, split, keep), this.evaluate(tmpRight, split, keep), keep[subset]);
+        }
+    }
+
+}
@@ -21,6 +21,11 @@
  */
 package org.ojalgo.array;
 
+import java.util.Arrays;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.access.DoubleSpliterator;
+
 /**
  * AbstractArrayTest
  *
@@ -36,6 +41,31 @@ public class SegmentedArrayTest extends ArrayTests {
         super(aName);
     }
 
+    public void testDoubleStream() {
+
+        final long tmpCount = 10_000L;
+
+        // Segments of 1024 elements
+        final SegmentedArray<Double> tmpArray = new SegmentedArray<>(tmpCount, 10, Primitive64Array.FACTORY);
+        final double[] tmpExpected = new double[(int) tmpCount];
+        for (int i = 0; i < tmpCount; i++) {
+            tmpExpected[i] = i % 97;
+            tmpArray.set(i, tmpExpected[i]);
+        }
+
+        TestUtils.assertTrue(Arrays.equals(tmpExpected, tmpArray.doubleStream(true).toArray()));
+        TestUtils.assertTrue(Arrays.equals(Arrays.copyOfRange(tmpExpected, 1000, 5000), tmpArray.asArray1D().sliceRange(1000L, 5000L).doubleStream(true).toArray()));
+
+        final DoubleSpliterator tmpSpliterator = tmpArray.doubleSpliterator(100L, 5000L);
+        final DoubleSpliterator tmpPrefix = tmpSpliterator.trySplit();
+        TestUtils.assertEquals(0L, (100L + tmpPrefix.estimateSize()) % 1024L);
+        TestUtils.assertEquals(4900L, tmpPrefix.estimateSize() + tmpSpliterator.estimateSize());
+
+        // Within a segment split on cache line boundaries
+        final DoubleSpliterator tmpWithin = tmpArray.doubleSpliterator(3L, 1000L);
+        TestUtils.assertEquals(0L, (3L + tmpWithin.trySplit().estimateSize()) % 8L);
+    }
+
     public void testRandomSetAndGetBackPrimitive64() {
 
         final long tmpCount = 5000L;
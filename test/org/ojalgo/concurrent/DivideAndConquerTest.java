@@ -0,0 +1,169 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.concurrent;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.ojalgo.FunctionalityTest;
+import org.ojalgo.TestUtils;
+import org.ojalgo.function.aggregator.Aggregator;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.operation.AggregateAll;
+import org.ojalgo.random.Uniform;
+
+public class DivideAndConquerTest extends FunctionalityTest {
+
+    static final class Counting extends DivideAndConquer {
+
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicIntegerArray hits;
+        final AtomicInteger max = new AtomicInteger();
+        final int nested;
+        final Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+        Counting(final int count, final int nested) {
+            super();
+            hits = new AtomicIntegerArray(count);
+            this.nested = nested;
+        }
+
+        @Override
+        protected void conquer(final int first, final int limit) {
+
+            if (nested > 0) {
+                // Nested parallelism within a part gets that part's share of the workers
+                final Counting tmpInner = new Counting(nested, 0);
+                tmpInner.invoke(0, nested, 1);
+                TestUtils.assertTrue(tmpInner.max.get() <= ParallelScope.parallelism());
+            }
+
+            max.accumulateAndGet(active.incrementAndGet(), Math::max);
+            threads.add(Thread.currentThread());
+            for (int i = first; i < limit; i++) {
+                hits.incrementAndGet(i);
+            }
+            try {
+                Thread.sleep(2L);
+            } catch (final InterruptedException exception) {
+                throw new IllegalStateException(exception);
+            }
+            active.decrementAndGet();
+        }
+
+        void assertAllOnce() {
+            for (int i = 0; i < hits.length(); i++) {
+                TestUtils.assertEquals(1, hits.get(i));
+            }
+        }
+
+    }
+
+    public DivideAndConquerTest() {
+        super();
+    }
+
+    public DivideAndConquerTest(final String someName) {
+        super(someName);
+    }
+
+    public void testParallelismCap() {
+
+        final ForkJoinPool tmpPool = new ForkJoinPool(8);
+
+        try {
+
+            for (final int tmpCap : new int[] { 1, 2, 3, 5 }) {
+
+                final Counting tmpTask = new Counting(200, 0);
+
+                final Thread tmpCaller = Thread.currentThread();
+                ParallelScope.run(tmpPool, tmpCap, () -> {
+                    TestUtils.assertEquals(tmpCap, ParallelScope.parallelism());
+                    tmpTask.invoke(0, 200, 1);
+                });
+
+                tmpTask.assertAllOnce();
+                TestUtils.assertTrue(tmpTask.max.get() <= tmpCap);
+                TestUtils.assertTrue(tmpTask.threads.size() <= tmpCap);
+                // The caller always participates
+                TestUtils.assertTrue(tmpTask.threads.contains(tmpCaller));
+            }
+
+            // Outside the scope the default applies again
+            TestUtils.assertEquals(ParallelScope.current().getParallelism(), ParallelScope.parallelism());
+
+        } finally {
+            tmpPool.shutdown();
+        }
+    }
+
+    /**
+     * The invoking thread conquers one of the parts, and must not mix up its (thread local) state with that of
+     * the overall computation.
+     */
+    public void testAggregateAllInScope() {
+
+        final PrimitiveDenseStore tmpMatrix = PrimitiveDenseStore.FACTORY.makeFilled(ReproducibleReduction.BLOCK, 4 * AggregateAll.THRESHOLD, new Uniform());
+        final double tmpExpected = tmpMatrix.aggregateAll(Aggregator.SUM);
+
+        final ForkJoinPool tmpPool = new ForkJoinPool(4);
+
+        try {
+            for (final Aggregator tmpAggregator : new Aggregator[] { Aggregator.SUM, Aggregator.MAXIMUM, Aggregator.CARDINALITY }) {
+                final double tmpSerial = ParallelScope.call(1, () -> tmpMatrix.aggregateAll(tmpAggregator));
+                final double tmpParallel = ParallelScope.call(tmpPool, () -> tmpMatrix.aggregateAll(tmpAggregator));
+                TestUtils.assertEquals(tmpSerial, tmpParallel, 1E-10);
+            }
+            TestUtils.assertEquals(tmpExpected, ParallelScope.call(tmpPool, 3, () -> tmpMatrix.aggregateAll(Aggregator.SUM)), 1E-10);
+        } finally {
+            tmpPool.shutdown();
+        }
+    }
+
+    public void testNestedWithinCap() {
+
+        final ForkJoinPool tmpPool = new ForkJoinPool(8);
+
+        try {
+
+            final Counting tmpOuter = new Counting(16, 64);
+
+            final Integer tmpResult = ParallelScope.call(tmpPool, 4, () -> {
+                tmpOuter.invoke(0, 16, 1);
+                return 4;
+            });
+
+            tmpOuter.assertAllOnce();
+            TestUtils.assertEquals(4, tmpResult.intValue());
+            TestUtils.assertTrue(tmpOuter.max.get() <= 4);
+
+        } finally {
+            tmpPool.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.finance;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.access.Access1D;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.decomposition.Cholesky;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.random.Normal;
+import org.ojalgo.random.SampleSet;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * @author apete
+ */
+public class CovarianceEstimatorTest extends FinanceTests {
+
+    private static PrimitiveDenseStore makeReturns(final int observations, final int variables) {
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeFilled(observations, variables, new Normal(0.001, 0.02));
+
+        // Some common factor, so that there is correlation
+        for (int i = 0; i < observations; i++) {
+            final double tmpFactor = retVal.doubleValue(i, 0);
+            for (int j = 1; j < variables; j++) {
+                retVal.add(i, j, tmpFactor / 2.0);
+            }
+        }
+
+        return retVal;
+    }
+
+    public CovarianceEstimatorTest() {
+        super();
+    }
+
+    public CovarianceEstimatorTest(final String name) {
+        super(name);
+    }
+
+    public void testExponential() {
+
+        final PrimitiveDenseStore tmpReturns = CovarianceEstimatorTest.makeReturns(100, 7);
+
+        // lambda == 1 is equal weights, but dividing by T rather than T-1
+        final PrimitiveDenseStore tmpExpected = CovarianceEstimator.sample(tmpReturns);
+        tmpExpected.modifyAll(PrimitiveFunction.MULTIPLY.second(99.0 / 100.0));
+
+        TestUtils.assertEquals(tmpExpected, CovarianceEstimator.exponential(tmpReturns, 1.0), NumberContext.getGeneral(12));
+
+        // Only the most recent observations matter with a small lambda
+        final PrimitiveDenseStore tmpFast = CovarianceEstimator.exponential(tmpReturns, 0.1);
+        final PrimitiveDenseStore tmpLast = CovarianceEstimator.exponential(tmpReturns.logical().offsets(80, 0).get(), 0.1);
+
+        TestUtils.assertEquals(tmpLast, tmpFast, NumberContext.getGeneral(6));
+    }
+
+    public void testOnline() {
+
+        final PrimitiveDenseStore tmpReturns = CovarianceEstimatorTest.makeReturns(250, 11);
+
+        final CovarianceEstimator tmpEstimator = new CovarianceEstimator(11);
+        for (int i = 0; i < 250; i++) {
+            tmpEstimator.update(tmpReturns.sliceRow(i, 0));
+        }
+
+        TestUtils.assertEquals(250L, tmpEstimator.count());
+        TestUtils.assertEquals(CovarianceEstimator.sample(tmpReturns), tmpEstimator.getCovariances(), NumberContext.getGeneral(12));
+    }
+
+    public void testSample() {
+
+        // 4 column groups + 1, and more than THRESHOLD groups to (potentially) run in parallel
+        for (final int tmpVariables : new int[] { 1, 3, 9, 77 }) {
+
+            final PrimitiveDenseStore tmpReturns = CovarianceEstimatorTest.makeReturns(60, tmpVariables);
+            final PrimitiveDenseStore tmpCovariances = CovarianceEstimator.sample(tmpReturns);
+
+            for (int j = 0; j < tmpVariables; j++) {
+                final SampleSet tmpColSet = SampleSet.wrap(tmpReturns.sliceColumn(0, j));
+                for (int i = 0; i < tmpVariables; i++) {
+                    final Access1D<Double> tmpSamples = tmpReturns.sliceColumn(0, i);
+                    TestUtils.assertEquals(SampleSet.wrap(tmpSamples).getCovariance(tmpColSet), tmpCovariances.doubleValue(i, j), 1E-14);
+                }
+            }
+        }
+    }
+
+    public void testShrunk() {
+
+        // More variables than observations - the sample covariance matrix is singular
+        final PrimitiveDenseStore tmpReturns = CovarianceEstimatorTest.makeReturns(20, 30);
+
+        final Cholesky<Double> tmpCholesky = Cholesky.PRIMITIVE.make();
+
+        TestUtils.assertFalse(tmpCholesky.decompose(CovarianceEstimator.sample(tmpReturns)) && tmpCholesky.isSPD());
+
+        final PrimitiveDenseStore tmpShrunk = CovarianceEstimator.shrunk(tmpReturns);
+
+        TestUtils.assertTrue(tmpCholesky.decompose(tmpShrunk) && tmpCholesky.isSPD());
+        TestUtils.assertEquals(tmpShrunk, tmpShrunk.transpose(), NumberContext.getGeneral(12));
+    }
+
+}
@@ -21,6 +21,13 @@
  */
 package org.ojalgo.finance.data;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.ojalgo.TestUtils;
@@ -77,6 +84,45 @@ public class SymbolDataTest extends FinanceDataTests {
         //        }
     }
 
+    public void testYahooParseBytes() throws IOException {
+
+        final String tmpContents = "Date,Open,High,Low,Close,Adj Close,Volume\n" + "2017-01-03,115.800003,116.330002,114.760002,116.150002,113.013916,28781900\n"
+                + "2017-01-04,115.849998,116.510002,115.750000,116.019997,112.887413,21118100\r\n" + "2017-01-05,null,null,null,null,null,null\n"
+                + "2017-1-6,116.779999,118.160004,116.470001,117.910004,114.726402,31751900\n" + "2017-01-09,117.949997,119.430000,117.940002\n"
+                + "2017-01-10,118.769997,119.379997,118.300003,119.110001,115.893997,24462100";
+
+        final File tmpFile = File.createTempFile("ojAlgo-yahoo", ".csv");
+        tmpFile.deleteOnExit();
+        try (Writer tmpWriter = new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.US_ASCII)) {
+            tmpWriter.write(tmpContents);
+        }
+
+        final YahooSymbol tmpSource = new YahooSymbol(CalendarDateUnit.DAY);
+
+        // parse(String) line by line vs parse(ByteLine) in parallel
+        final List<YahooSymbol.Data> tmpExpected = tmpSource.getHistoricalPrices(new StringReader(tmpContents));
+        final List<YahooSymbol.Data> tmpActual = tmpSource.getHistoricalPrices(tmpFile);
+
+        TestUtils.assertEquals(5, tmpExpected.size());
+        TestUtils.assertEquals(tmpExpected.size(), tmpActual.size());
+
+        for (int i = 0; i < tmpExpected.size(); i++) {
+
+            final YahooSymbol.Data tmpExpectedData = tmpExpected.get(i);
+            final YahooSymbol.Data tmpActualData = tmpActual.get(i);
+
+            TestUtils.assertEquals(tmpExpectedData.getKey(), tmpActualData.getKey());
+            TestUtils.assertEquals(tmpExpectedData.open, tmpActualData.open, 0.0);
+            TestUtils.assertEquals(tmpExpectedData.high, tmpActualData.high, 0.0);
+            TestUtils.assertEquals(tmpExpectedData.low, tmpActualData.low, 0.0);
+            TestUtils.assertEquals(tmpExpectedData.close, tmpActualData.close, 0.0);
+            TestUtils.assertEquals(tmpExpectedData.adjustedClose, tmpActualData.adjustedClose, 0.0);
+            TestUtils.assertEquals(tmpExpectedData.volume, tmpActualData.volume, 0.0);
+        }
+
+        TestUtils.assertTrue(Double.isNaN(tmpActual.get(2).close));
+    }
+
     public void testGoogleDaily() {
 
         final GoogleSymbol tmpGoogle = new GoogleSymbol("NASDAQ:AAPL", CalendarDateUnit.DAY);
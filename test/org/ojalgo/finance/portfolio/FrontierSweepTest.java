@@ -0,0 +1,175 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.finance.portfolio;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.PrimitiveMatrix;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.random.Normal;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * @author apete
+ */
+public class FrontierSweepTest extends FinancePortfolioTests {
+
+    private static final double[] RISK_AVERSIONS = new double[] { 50.0, 0.5, 1.0, 2.0, 5.0, 10.0, 200.0, 1000.0 };
+
+    private static MarkowitzModel makeModel(final int size) {
+
+        final PrimitiveDenseStore tmpFactors = PrimitiveDenseStore.FACTORY.makeFilled(size, size, new Normal(0.0, 0.1));
+        final PhysicalStore<Double> tmpCovariances = tmpFactors.multiply(tmpFactors.transpose()).copy();
+        for (int ij = 0; ij < size; ij++) {
+            tmpCovariances.add(ij, ij, 0.01);
+        }
+
+        final PrimitiveDenseStore tmpReturns = PrimitiveDenseStore.FACTORY.makeFilled(size, 1, new Uniform(0.0, 0.2));
+
+        return new MarkowitzModel(PrimitiveMatrix.FACTORY.copy(tmpCovariances), PrimitiveMatrix.FACTORY.copy(tmpReturns));
+    }
+
+    private static void compare(final MarkowitzModel model, final FrontierSweep sweep, final double... riskAversions) {
+
+        final List<FrontierSweep.Point> tmpPoints = sweep.sweep(riskAversions);
+
+        for (int r = 0; r < riskAversions.length; r++) {
+
+            model.setRiskAversion(riskAversions[r]);
+
+            final FrontierSweep.Point tmpPoint = tmpPoints.get(r);
+            TestUtils.assertEquals(riskAversions[r], tmpPoint.getRiskAversion());
+            TestUtils.assertTrue(tmpPoint.getState().isFeasible());
+            TestUtils.assertEquals(model.getAssetWeights(), tmpPoint.getWeights(), NumberContext.getGeneral(4, 4));
+            TestUtils.assertEquals(model.getMeanReturn(), tmpPoint.getMeanReturn(), 1E-4);
+        }
+    }
+
+    public FrontierSweepTest() {
+        super();
+    }
+
+    public FrontierSweepTest(final String someName) {
+        super(someName);
+    }
+
+    public void testConstrained() {
+
+        // Deterministic data, and not too large risk aversions – with constraints like these the convex solver
+        // occasionally returns infeasible weights, with or without warm starts
+        final double[][] tmpCovariances = new double[12][12];
+        final double[] tmpReturns = new double[12];
+        for (int i = 0; i < 12; i++) {
+            for (int j = 0; j < 12; j++) {
+                tmpCovariances[i][j] = Math.pow(0.4, Math.abs(i - j)) * (0.1 + (0.02 * i)) * (0.1 + (0.02 * j));
+            }
+            tmpReturns[i] = 0.02 + (0.01 * ((i * 7) % 12));
+        }
+
+        final MarkowitzModel tmpModel = new MarkowitzModel(PrimitiveMatrix.FACTORY.rows(tmpCovariances), PrimitiveMatrix.FACTORY.columns(tmpReturns));
+        tmpModel.addConstraint(null, new BigDecimal("0.2"), 0, 1, 2);
+
+        final FrontierSweep tmpSweep = new FrontierSweep(tmpModel);
+
+        TestUtils.assertFalse(tmpSweep.isParametric());
+
+        FrontierSweepTest.compare(tmpModel, tmpSweep, 50.0, 0.5, 1.0, 2.0, 5.0, 10.0);
+    }
+
+    public void testCriticalLine() {
+
+        final MarkowitzModel tmpModel = FrontierSweepTest.makeModel(12);
+        tmpModel.setUpperLimit(3, new BigDecimal("0.3"));
+        tmpModel.setLowerLimit(5, new BigDecimal("0.05"));
+
+        final FrontierSweep tmpSweep = new FrontierSweep(tmpModel);
+
+        TestUtils.assertTrue(tmpSweep.isParametric());
+
+        FrontierSweepTest.compare(tmpModel, tmpSweep, RISK_AVERSIONS);
+
+        // Return and variance both decrease along the frontier
+        final List<FrontierSweep.Point> tmpTurningPoints = tmpSweep.getTurningPoints();
+        for (int k = 1; k < tmpTurningPoints.size(); k++) {
+            TestUtils.assertTrue(tmpTurningPoints.get(k).getMeanReturn() <= (tmpTurningPoints.get(k - 1).getMeanReturn() + 1E-12));
+            TestUtils.assertTrue(tmpTurningPoints.get(k).getReturnVariance() <= (tmpTurningPoints.get(k - 1).getReturnVariance() + 1E-12));
+        }
+    }
+
+    public void testInfeasible() {
+
+        final MarkowitzModel tmpModel = FrontierSweepTest.makeModel(6);
+        tmpModel.addConstraint(new BigDecimal("1.5"), null, 0, 1, 2);
+
+        final FrontierSweep tmpSweep = new FrontierSweep(tmpModel);
+
+        TestUtils.assertFalse(tmpSweep.isParametric());
+
+        for (final FrontierSweep.Point tmpPoint : tmpSweep.sweep(1.0, 10.0)) {
+            TestUtils.assertFalse(tmpPoint.getState().isFeasible());
+            TestUtils.assertTrue(Double.isNaN(tmpPoint.getMeanReturn()));
+        }
+    }
+
+    public void testLimitsChanged() {
+
+        final MarkowitzModel tmpModel = FrontierSweepTest.makeModel(8);
+
+        final FrontierSweep tmpSweep = new FrontierSweep(tmpModel);
+
+        TestUtils.assertTrue(tmpSweep.isParametric());
+        FrontierSweepTest.compare(tmpModel, tmpSweep, RISK_AVERSIONS);
+
+        // Changed after the critical line was first calculated
+        tmpModel.setUpperLimit(2, new BigDecimal("0.1"));
+        tmpModel.setLowerLimit(4, new BigDecimal("0.2"));
+
+        TestUtils.assertTrue(tmpSweep.isParametric());
+        FrontierSweepTest.compare(tmpModel, tmpSweep, RISK_AVERSIONS);
+
+        tmpModel.addConstraint(null, new BigDecimal("0.3"), 0, 1);
+
+        TestUtils.assertFalse(tmpSweep.isParametric());
+        FrontierSweepTest.compare(tmpModel, tmpSweep, 0.5, 5.0, 50.0);
+    }
+
+    public void testShorting() {
+
+        final MarkowitzModel tmpModel = FrontierSweepTest.makeModel(8);
+        tmpModel.setShortingAllowed(true);
+        for (int i = 0; i < 8; i++) {
+            tmpModel.setLowerLimit(i, new BigDecimal("-0.5"));
+            tmpModel.setUpperLimit(i, new BigDecimal("0.8"));
+        }
+
+        final FrontierSweep tmpSweep = new FrontierSweep(tmpModel);
+
+        TestUtils.assertTrue(tmpSweep.isParametric());
+
+        FrontierSweepTest.compare(tmpModel, tmpSweep, RISK_AVERSIONS);
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.finance.portfolio;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.BasicMatrix;
+import org.ojalgo.matrix.PrimitiveMatrix;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * @author apete
+ */
+public class PortfolioBatchTest extends FinancePortfolioTests {
+
+    private static final NumberContext PRECISION = NumberContext.getGeneral(4, 4);
+
+    private static MarketEquilibrium makeUniverse(final int size) {
+
+        final double[][] tmpCovariances = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                tmpCovariances[i][j] = Math.pow(0.5, Math.abs(i - j)) * (0.1 + (0.01 * i)) * (0.1 + (0.01 * j));
+            }
+        }
+
+        return new MarketEquilibrium(PrimitiveMatrix.FACTORY.rows(tmpCovariances), 2.0);
+    }
+
+    private static double[] makeReturns(final int[] assets) {
+        final double[] retVal = new double[assets.length];
+        for (int i = 0; i < assets.length; i++) {
+            retVal[i] = 0.02 + (0.01 * ((assets[i] * 7) % 11));
+        }
+        return retVal;
+    }
+
+    private static MarkowitzModel makeModel(final MarketEquilibrium universe, final int[] assets, final double riskAversion) {
+
+        final BasicMatrix tmpCovariances = universe.getCovariances();
+        final double[][] tmpSubset = new double[assets.length][assets.length];
+        for (int i = 0; i < assets.length; i++) {
+            for (int j = 0; j < assets.length; j++) {
+                tmpSubset[i][j] = tmpCovariances.doubleValue(assets[i], assets[j]);
+            }
+        }
+
+        final MarkowitzModel retVal = new MarkowitzModel(PrimitiveMatrix.FACTORY.rows(tmpSubset),
+                PrimitiveMatrix.FACTORY.columns(PortfolioBatchTest.makeReturns(assets)));
+        retVal.setRiskAversion(riskAversion);
+        return retVal;
+    }
+
+    public PortfolioBatchTest() {
+        super();
+    }
+
+    public PortfolioBatchTest(final String someName) {
+        super(someName);
+    }
+
+    public void testBatch() {
+
+        final MarketEquilibrium tmpUniverse = PortfolioBatchTest.makeUniverse(40);
+        final PortfolioBatch tmpBatch = new PortfolioBatch(tmpUniverse, 4, 8);
+
+        final int[][] tmpSubsets = new int[][] { { 0, 3, 5, 7, 11, 13 }, { 2, 4, 6, 8, 10, 12, 14, 16, 18, 20 }, { 39, 1, 17, 25, 33 } };
+
+        final List<PortfolioBatch.Specification> tmpSpecifications = new ArrayList<>();
+        final List<MarkowitzModel> tmpModels = new ArrayList<>();
+
+        for (int k = 0; k < 30; k++) {
+
+            final int[] tmpAssets = tmpSubsets[k % tmpSubsets.length];
+            final double tmpRiskAversion = 1.0 + k;
+
+            final PortfolioBatch.Specification tmpSpecification = new PortfolioBatch.Specification(tmpAssets, PortfolioBatchTest.makeReturns(tmpAssets));
+            final MarkowitzModel tmpModel = PortfolioBatchTest.makeModel(tmpUniverse, tmpAssets, tmpRiskAversion);
+
+            if ((k % 3) != 2) {
+                // The default risk aversion is the universe's
+                tmpSpecification.setRiskAversion(tmpRiskAversion);
+            } else {
+                tmpModel.setRiskAversion(tmpUniverse.getRiskAversion().getNumber());
+            }
+
+            switch (k % 4) {
+            case 0:
+                // Closed form
+                tmpSpecification.setShortingAllowed(true);
+                tmpModel.setShortingAllowed(true);
+                break;
+            case 1:
+                tmpSpecification.setUpperLimit(1, 0.1);
+                tmpModel.setUpperLimit(1, new BigDecimal("0.1"));
+                break;
+            case 2:
+                tmpSpecification.addConstraint(0.3, null, 2, 3);
+                tmpModel.addConstraint(new BigDecimal("0.3"), null, 2, 3);
+                break;
+            default:
+                break;
+            }
+
+            tmpSpecifications.add(tmpSpecification);
+            tmpModels.add(tmpModel);
+        }
+
+        final List<Optimisation.Result> tmpResults = tmpBatch.optimise(tmpSpecifications);
+
+        TestUtils.assertEquals(tmpSubsets.length, tmpBatch.sizeOfCache());
+
+        for (int k = 0; k < tmpResults.size(); k++) {
+            TestUtils.assertTrue(tmpResults.get(k).getState().isOptimal());
+            TestUtils.assertEquals(tmpModels.get(k).getAssetWeights(), tmpResults.get(k), PRECISION);
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.function;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.array.Array1D;
+import org.ojalgo.concurrent.ParallelScope;
+import org.ojalgo.function.aggregator.Aggregator;
+import org.ojalgo.function.aggregator.PrimitiveStatistics;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.random.Normal;
+import org.ojalgo.random.SampleSet;
+
+/**
+ * Tests {@linkplain org.ojalgo.function.aggregator.PrimitiveAggregator} members and
+ * {@linkplain PrimitiveStatistics}.
+ *
+ * @author apete
+ */
+public class AggregatorCase extends FunctionTests {
+
+    public AggregatorCase() {
+        super();
+    }
+
+    public AggregatorCase(final String arg0) {
+        super(arg0);
+    }
+
+    public void testCompensatedSum() {
+
+        final PrimitiveDenseStore tmpValues = PrimitiveDenseStore.FACTORY.columns(new double[] { 1E16, 1.0, -1E16, 1.0 });
+
+        // Naively summed the result is 1.0
+        TestUtils.assertEquals(2.0, tmpValues.aggregateAll(Aggregator.SUM).doubleValue(), 0.0);
+        TestUtils.assertEquals(2.0, PrimitiveStatistics.of(tmpValues).getSum(), 0.0);
+    }
+
+    public void testParallelIsReproducible() {
+
+        final PrimitiveDenseStore tmpMatrix = PrimitiveDenseStore.FACTORY.makeFilled(2000, 200, new Normal(100.0, 10.0));
+
+        final ForkJoinPool tmpPool = new ForkJoinPool(4);
+        try {
+            for (final Aggregator tmpAggregator : new Aggregator[] { Aggregator.SUM, Aggregator.SUM2, Aggregator.NORM1, Aggregator.NORM2,
+                    Aggregator.MAXIMUM }) {
+
+                final double tmpSequential = ParallelScope.call(1, () -> tmpMatrix.aggregateAll(tmpAggregator)).doubleValue();
+                final double tmpParallel = ParallelScope.call(tmpPool, 4, () -> tmpMatrix.aggregateAll(tmpAggregator)).doubleValue();
+
+                TestUtils.assertEquals(tmpAggregator.name(), Double.doubleToLongBits(tmpSequential), Double.doubleToLongBits(tmpParallel));
+            }
+
+            final PrimitiveStatistics tmpSequential = ParallelScope.call(1, () -> PrimitiveStatistics.of(tmpMatrix));
+            final PrimitiveStatistics tmpParallel = ParallelScope.call(tmpPool, 4, () -> PrimitiveStatistics.of(tmpMatrix));
+
+            TestUtils.assertEquals(tmpSequential.toString(), tmpParallel.toString());
+
+        } finally {
+            tmpPool.shutdown();
+        }
+    }
+
+    public void testStatistics() {
+
+        final Array1D<Double> tmpValues = Array1D.PRIMITIVE64.makeFilled(10_000, new Normal(5.0, 2.0));
+        final SampleSet tmpSampleSet = SampleSet.wrap(tmpValues);
+
+        final PrimitiveStatistics tmpStatistics = PrimitiveStatistics.of(tmpValues);
+
+        TestUtils.assertEquals(10_000L, tmpStatistics.count());
+        TestUtils.assertEquals(tmpSampleSet.getMean(), tmpStatistics.getMean(), 1E-12);
+        TestUtils.assertEquals(tmpSampleSet.getVariance(), tmpStatistics.getVariance(), 1E-12);
+        TestUtils.assertEquals(tmpSampleSet.getMinimum(), tmpStatistics.getMinimum(), 0.0);
+        TestUtils.assertEquals(tmpSampleSet.getMaximum(), tmpStatistics.getMaximum(), 0.0);
+        TestUtils.assertEquals(tmpSampleSet.getMean() * 10_000, tmpStatistics.getSum(), 1E-9);
+
+        final PrimitiveStatistics tmpMerged = new PrimitiveStatistics();
+        tmpMerged.merge(PrimitiveStatistics.of(tmpValues.sliceRange(0L, 3_000L)));
+        tmpMerged.merge(new PrimitiveStatistics());
+        tmpMerged.merge(PrimitiveStatistics.of(tmpValues.sliceRange(3_000L, 10_000L)));
+
+        TestUtils.assertEquals(tmpStatistics.count(), tmpMerged.count());
+        TestUtils.assertEquals(tmpStatistics.getMean(), tmpMerged.getMean(), 1E-12);
+        TestUtils.assertEquals(tmpStatistics.getVariance(), tmpMerged.getVariance(), 1E-12);
+
+        TestUtils.assertTrue(Double.isNaN(new PrimitiveStatistics().getMean()));
+    }
+
+}
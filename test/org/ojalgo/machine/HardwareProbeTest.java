@@ -0,0 +1,143 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.machine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.ojalgo.TestUtils;
+
+public class HardwareProbeTest extends MachineTests {
+
+    static void write(final Path root, final String file, final String contents) throws IOException {
+        final Path tmpPath = root.resolve(file);
+        Files.createDirectories(tmpPath.getParent());
+        Files.write(tmpPath, contents.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Path myRoot;
+
+    public HardwareProbeTest() {
+        super();
+    }
+
+    public HardwareProbeTest(final String someName) {
+        super(someName);
+    }
+
+    /**
+     * 2 sockets, 8 cores each, 2 threads per core
+     */
+    public void testDetect() throws IOException {
+
+        HardwareProbeTest.write(myRoot, "sys/devices/system/cpu/online", "0-31\n");
+        final String[][] tmpCaches = { { "1", "Data", "32K", "0,16" }, { "1", "Instruction", "32K", "0,16" }, { "2", "Unified", "1024K", "0,16" },
+                { "3", "Unified", "22528K", "0-7,16-23" } };
+        for (int i = 0; i < tmpCaches.length; i++) {
+            final String tmpIndex = "sys/devices/system/cpu/cpu0/cache/index" + i + "/";
+            HardwareProbeTest.write(myRoot, tmpIndex + "level", tmpCaches[i][0]);
+            HardwareProbeTest.write(myRoot, tmpIndex + "type", tmpCaches[i][1]);
+            HardwareProbeTest.write(myRoot, tmpIndex + "size", tmpCaches[i][2]);
+            HardwareProbeTest.write(myRoot, tmpIndex + "shared_cpu_list", tmpCaches[i][3]);
+        }
+        HardwareProbeTest.write(myRoot, "proc/meminfo", "MemTotal:       65856152 kB\nMemFree:        1234 kB\n");
+
+        final Hardware tmpHardware = HardwareProbe.detect(myRoot, "x86_64").get();
+
+        TestUtils.assertEquals(32, tmpHardware.threads);
+        TestUtils.assertEquals(16, tmpHardware.cores);
+        TestUtils.assertEquals(2, tmpHardware.units);
+        TestUtils.assertEquals(22528L * 1024L, tmpHardware.cache);
+        TestUtils.assertEquals(65856152L * 1024L, tmpHardware.memory);
+        TestUtils.assertTrue(tmpHardware.isL3Specified());
+
+        TestUtils.assertFalse(HardwareProbe.detect(myRoot.resolve("nothing"), "x86_64").isPresent());
+    }
+
+    public void testLimitsV1() throws IOException {
+
+        HardwareProbeTest.write(myRoot, "proc/self/cgroup", "4:memory:/docker/abc\n3:cpuset:/docker/abc\n2:cpu,cpuacct:/docker/abc\n");
+        HardwareProbeTest.write(myRoot, "sys/fs/cgroup/cpu,cpuacct/docker/abc/cpu.cfs_quota_us", "250000");
+        HardwareProbeTest.write(myRoot, "sys/fs/cgroup/cpu,cpuacct/docker/abc/cpu.cfs_period_us", "100000");
+        HardwareProbeTest.write(myRoot, "sys/fs/cgroup/cpuset/docker/abc/cpuset.cpus", "0-7");
+        HardwareProbeTest.write(myRoot, "sys/fs/cgroup/memory/docker/abc/memory.limit_in_bytes", "2147483648");
+
+        TestUtils.assertEquals(3, HardwareProbe.threadLimit(myRoot));
+        TestUtils.assertEquals(2147483648L, HardwareProbe.memoryLimit(myRoot));
+
+        // No limits
+        HardwareProbeTest.write(myRoot, "sys/fs/cgroup/cpu,cpuacct/docker/abc/cpu.cfs_quota_us", "-1");
+        HardwareProbeTest.write(myRoot, "sys/fs/cgroup/cpuset/docker/abc/cpuset.cpus", "");
+        HardwareProbeTest.write(myRoot, "sys/fs/cgroup/memory/docker/abc/memory.limit_in_bytes", "9223372036854771712");
+
+        TestUtils.assertEquals(Integer.MAX_VALUE, HardwareProbe.threadLimit(myRoot));
+        TestUtils.assertEquals(Long.MAX_VALUE, HardwareProbe.memoryLimit(myRoot));
+    }
+
+    public void testLimitsV2() throws IOException {
+
+        HardwareProbeTest.write(myRoot, "proc/self/cgroup", "0::/\n");
+        HardwareProbeTest.write(myRoot, "sys/fs/cgroup/cpu.max", "150000 100000\n");
+        HardwareProbeTest.write(myRoot, "sys/fs/cgroup/cpuset.cpus.effective", "0-1,4\n");
+        HardwareProbeTest.write(myRoot, "sys/fs/cgroup/memory.max", "max\n");
+
+        TestUtils.assertEquals(2, HardwareProbe.threadLimit(myRoot));
+        TestUtils.assertEquals(Long.MAX_VALUE, HardwareProbe.memoryLimit(myRoot));
+
+        HardwareProbeTest.write(myRoot, "sys/fs/cgroup/cpu.max", "max 100000\n");
+        HardwareProbeTest.write(myRoot, "sys/fs/cgroup/memory.max", "536870912\n");
+
+        TestUtils.assertEquals(3, HardwareProbe.threadLimit(myRoot));
+        TestUtils.assertEquals(536870912L, HardwareProbe.memoryLimit(myRoot));
+    }
+
+    public void testParsing() {
+        TestUtils.assertEquals(12, HardwareProbe.countList("0-3,8,10-11,20-24\n"));
+        TestUtils.assertEquals(1, HardwareProbe.countList("0"));
+        TestUtils.assertEquals(48L * 1024L, HardwareProbe.parseSize("48K"));
+        TestUtils.assertEquals(2L * 1024L * 1024L, HardwareProbe.parseSize("2M"));
+        TestUtils.assertEquals(4096L, HardwareProbe.parseSize("4096"));
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        myRoot = Files.createTempDirectory("ojAlgo-probe");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+
+        super.tearDown();
+
+        try (Stream<Path> tmpPaths = Files.walk(myRoot)) {
+            tmpPaths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+}
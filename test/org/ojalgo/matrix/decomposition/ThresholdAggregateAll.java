@@ -22,6 +22,7 @@
 package org.ojalgo.matrix.decomposition;
 
 import org.ojalgo.LinearAlgebraBenchmark;
+import org.ojalgo.concurrent.ReproducibleReduction;
 import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
@@ -77,7 +78,7 @@ public class ThresholdAggregateAll extends AbstractThresholdTuner {
     @Setup
     public void setup() {
 
-        AggregateAll.THRESHOLD = dim / z;
+        AggregateAll.THRESHOLD = Math.max(1, ((dim * dim) / ReproducibleReduction.BLOCK) / z);
 
         final Uniform tmpSupplier = new Uniform();
 
@@ -0,0 +1,241 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.concurrent.ParallelScope;
+import org.ojalgo.constant.PrimitiveMath;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.function.aggregator.Aggregator;
+import org.ojalgo.matrix.decomposition.Cholesky;
+import org.ojalgo.matrix.store.operation.ModifyAll;
+import org.ojalgo.matrix.transformation.Householder;
+import org.ojalgo.random.Normal;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Small matrices with very few columns per segment, so that everything spans several segments.
+ *
+ * @author apete
+ */
+public class SegmentedCase extends MatrixStoreTests {
+
+    private static final NumberContext CONTEXT = NumberContext.getGeneral(12);
+
+    private static SegmentedDenseStore[] copies(final PrimitiveDenseStore template, final int columnsPerSegment) {
+
+        final SegmentedDenseStore[] retVal = new SegmentedDenseStore[2];
+
+        retVal[0] = new SegmentedDenseStore(SegmentedDenseStore.FACTORY, template.countRows(), template.countColumns(), columnsPerSegment);
+        retVal[1] = new SegmentedDenseStore(SegmentedDenseStore.DIRECT, template.countRows(), template.countColumns(), columnsPerSegment);
+
+        for (final SegmentedDenseStore tmpStore : retVal) {
+            tmpStore.fillMatching(template);
+        }
+
+        return retVal;
+    }
+
+    public SegmentedCase() {
+        super();
+    }
+
+    public SegmentedCase(final String arg0) {
+        super(arg0);
+    }
+
+    public void testCholesky() {
+
+        final PrimitiveDenseStore tmpRandom = PrimitiveDenseStore.FACTORY.makeFilled(11, 11, new Normal());
+        final PrimitiveDenseStore tmpSPD = PrimitiveDenseStore.FACTORY.makeZero(11, 11);
+        tmpSPD.fillByMultiplying(tmpRandom, tmpRandom.transpose());
+
+        final Cholesky<Double> tmpExpected = Cholesky.PRIMITIVE.make();
+        tmpExpected.decompose(tmpSPD);
+
+        for (final SegmentedDenseStore tmpActual : SegmentedCase.copies(tmpSPD, 3)) {
+            TestUtils.assertTrue(tmpActual.computeInPlaceCholesky());
+            TestUtils.assertEquals(tmpExpected.getL(), tmpActual.logical().triangular(false, false).get(), CONTEXT);
+        }
+
+        final PrimitiveDenseStore tmpIndefinite = PrimitiveDenseStore.FACTORY.copy(tmpSPD);
+        tmpIndefinite.set(5, 5, -1.0);
+        TestUtils.assertFalse(SegmentedCase.copies(tmpIndefinite, 3)[1].computeInPlaceCholesky());
+    }
+
+    public void testFillAndAggregate() {
+
+        final PrimitiveDenseStore tmpExpected = PrimitiveDenseStore.FACTORY.makeFilled(9, 7, new Uniform(-1, 2));
+
+        for (final SegmentedDenseStore tmpActual : SegmentedCase.copies(tmpExpected, 2)) {
+
+            TestUtils.assertEquals(tmpExpected, tmpActual);
+            TestUtils.assertEquals(tmpExpected.aggregateAll(Aggregator.SUM), tmpActual.aggregateAll(Aggregator.SUM), CONTEXT);
+            TestUtils.assertEquals(tmpExpected.indexOfLargest(), tmpActual.indexOfLargest());
+            TestUtils.assertEquals(tmpExpected.indexOfLargestInColumn(3L, 5L), tmpActual.indexOfLargestInColumn(3L, 5L));
+            TestUtils.assertEquals(tmpExpected.transpose(), tmpActual.physical().transpose(tmpActual));
+
+            final PrimitiveDenseStore tmpCopy = PrimitiveDenseStore.FACTORY.copy(tmpExpected);
+            tmpCopy.fillRange(10L, 50L, PrimitiveMath.PI);
+            tmpCopy.exchangeRows(1L, 8L);
+            tmpCopy.modifyColumn(2L, 4L, PrimitiveFunction.NEGATE);
+
+            final SegmentedDenseStore tmpSegmented = tmpActual.copy();
+            tmpSegmented.fillRange(10L, 50L, PrimitiveMath.PI);
+            tmpSegmented.exchangeRows(1L, 8L);
+            tmpSegmented.modifyColumn(2L, 4L, PrimitiveFunction.NEGATE);
+
+            TestUtils.assertEquals(tmpCopy, tmpSegmented);
+        }
+    }
+
+    public void testMultiplyAndAxpy() {
+
+        final PrimitiveDenseStore tmpLeft = PrimitiveDenseStore.FACTORY.makeFilled(9, 5, new Normal());
+        final PrimitiveDenseStore tmpRight = PrimitiveDenseStore.FACTORY.makeFilled(5, 7, new Normal());
+
+        final PrimitiveDenseStore tmpExpected = PrimitiveDenseStore.FACTORY.makeZero(9, 7);
+        tmpExpected.fillByMultiplying(tmpLeft, tmpRight);
+
+        final SegmentedDenseStore[] tmpLefts = SegmentedCase.copies(tmpLeft, 2);
+
+        for (final SegmentedDenseStore tmpActual : SegmentedCase.copies(tmpExpected, 2)) {
+
+            tmpActual.fillAll(PrimitiveMath.E);
+            tmpActual.fillByMultiplying(tmpLeft, tmpRight);
+            TestUtils.assertEquals(tmpExpected, tmpActual, CONTEXT);
+
+            for (final SegmentedDenseStore tmpSegmentedLeft : tmpLefts) {
+                tmpActual.fillByMultiplying(tmpSegmentedLeft, tmpRight);
+                TestUtils.assertEquals(tmpExpected, tmpActual, CONTEXT);
+                TestUtils.assertEquals(tmpExpected, tmpSegmentedLeft.multiply(tmpRight), CONTEXT);
+            }
+
+            final SegmentedDenseStore tmpY = tmpActual.copy();
+            tmpActual.axpy(-2.0, tmpY);
+            TestUtils.assertEquals(tmpExpected.multiply(-1.0), tmpY, CONTEXT);
+            TestUtils.assertEquals(tmpExpected.dot(tmpExpected), tmpActual.dot(tmpActual), CONTEXT);
+        }
+    }
+
+    public void testParallelMultiChunk() {
+
+        final int tmpRowDim = 20000;
+        final int tmpColDim = 12;
+
+        final long tmpSegment = SegmentedDenseStore.SEGMENT;
+        final int tmpThreshold = SegmentedDenseStore.THRESHOLD;
+        final int tmpModifyAll = ModifyAll.THRESHOLD;
+
+        final ForkJoinPool tmpPool = new ForkJoinPool(4);
+        try {
+
+            // 5 columns per segment, but only BUFFER / rows = 3 columns per off-heap work chunk
+            SegmentedDenseStore.SEGMENT = 5L * tmpRowDim;
+            SegmentedDenseStore.THRESHOLD = 2;
+            ModifyAll.THRESHOLD = 2;
+            TestUtils.assertTrue((SegmentedDenseStore.BUFFER / tmpRowDim) < SegmentedDenseStore.columnsPerSegment(tmpRowDim, tmpColDim));
+
+            final double[][] tmpColumns = PrimitiveDenseStore.FACTORY.makeFilled(tmpColDim, tmpRowDim, new Normal()).toRawCopy2D();
+            final PrimitiveDenseStore tmpExpected = PrimitiveDenseStore.FACTORY.columns(tmpColumns);
+
+            final PrimitiveDenseStore tmpModified = PrimitiveDenseStore.FACTORY.copy(tmpExpected);
+            tmpModified.modifyAll(PrimitiveFunction.NEGATE);
+            tmpModified.modifyMatching(PrimitiveFunction.MULTIPLY, tmpExpected);
+
+            for (final PhysicalStore.Factory<Double, SegmentedDenseStore> tmpFactory : new PhysicalStore.Factory[] { SegmentedDenseStore.FACTORY,
+                    SegmentedDenseStore.DIRECT }) {
+
+                ParallelScope.call(tmpPool, 4, () -> {
+
+                    final SegmentedDenseStore tmpFromColumns = tmpFactory.columns(tmpColumns);
+                    TestUtils.assertEquals(tmpExpected, tmpFromColumns);
+
+                    final SegmentedDenseStore tmpActual = tmpFactory.makeZero(tmpRowDim, tmpColDim);
+                    tmpActual.fillMatching(tmpExpected);
+                    TestUtils.assertEquals(tmpExpected, tmpActual);
+                    TestUtils.assertEquals(tmpExpected.transpose(), tmpFactory.transpose(tmpActual));
+
+                    final SegmentedDenseStore tmpCopy = tmpActual.copy();
+                    TestUtils.assertEquals(tmpExpected, tmpCopy);
+
+                    tmpCopy.modifyAll(PrimitiveFunction.NEGATE);
+                    tmpCopy.modifyMatching(PrimitiveFunction.MULTIPLY, tmpExpected);
+                    TestUtils.assertEquals(tmpModified, tmpCopy, CONTEXT);
+
+                    tmpActual.axpy(-1.0, tmpFromColumns);
+                    TestUtils.assertEquals(0.0, tmpFromColumns.aggregateAll(Aggregator.LARGEST).doubleValue(), CONTEXT);
+
+                    tmpFromColumns.fillAll(PrimitiveMath.PI);
+                    TestUtils.assertEquals(PrimitiveMath.PI, tmpFromColumns.doubleValue(tmpRowDim - 1, tmpColDim - 1));
+
+                    return tmpActual;
+                });
+            }
+
+        } finally {
+            SegmentedDenseStore.SEGMENT = tmpSegment;
+            SegmentedDenseStore.THRESHOLD = tmpThreshold;
+            ModifyAll.THRESHOLD = tmpModifyAll;
+            tmpPool.shutdown();
+        }
+    }
+
+    public void testSubstituteAndTransform() {
+
+        final PrimitiveDenseStore tmpBody = PrimitiveDenseStore.FACTORY.makeFilled(8, 8, new Uniform(1, 2));
+        final PrimitiveDenseStore tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(8, 5, new Normal());
+
+        final Householder.Primitive tmpHouseholder = new Householder.Primitive(8);
+        tmpHouseholder.first = 2;
+        double tmpNorm2 = PrimitiveMath.ZERO;
+        for (int i = tmpHouseholder.first; i < 8; i++) {
+            tmpHouseholder.vector[i] = i - 3.5;
+            tmpNorm2 += tmpHouseholder.vector[i] * tmpHouseholder.vector[i];
+        }
+        tmpHouseholder.beta = PrimitiveMath.TWO / tmpNorm2;
+
+        final PrimitiveDenseStore tmpExpected = PrimitiveDenseStore.FACTORY.copy(tmpRHS);
+        tmpExpected.substituteForwards(tmpBody, false, false, false);
+        tmpExpected.substituteBackwards(tmpBody, true, true, false);
+        tmpExpected.transformLeft(tmpHouseholder, 1);
+
+        final PrimitiveDenseStore tmpSquare = PrimitiveDenseStore.FACTORY.copy(tmpBody);
+        tmpSquare.transformRight(tmpHouseholder, 3);
+
+        for (final SegmentedDenseStore tmpActual : SegmentedCase.copies(tmpRHS, 2)) {
+            tmpActual.substituteForwards(tmpBody, false, false, false);
+            tmpActual.substituteBackwards(tmpBody, true, true, false);
+            tmpActual.transformLeft(tmpHouseholder, 1);
+            TestUtils.assertEquals(tmpExpected, tmpActual, CONTEXT);
+        }
+
+        for (final SegmentedDenseStore tmpActual : SegmentedCase.copies(tmpBody, 3)) {
+            tmpActual.transformRight(tmpHouseholder, 3);
+            TestUtils.assertEquals(tmpSquare, tmpActual, CONTEXT);
+        }
+    }
+
+}
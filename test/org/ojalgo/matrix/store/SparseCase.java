@@ -0,0 +1,92 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.array.SparseArray;
+import org.ojalgo.random.Uniform;
+
+/**
+ * @author apete
+ */
+public class SparseCase extends MatrixStoreTests {
+
+    public SparseCase() {
+        super();
+    }
+
+    public SparseCase(final String arg0) {
+        super(arg0);
+    }
+
+    public void testMultiply() {
+
+        final Random tmpRandom = new Random(123L);
+
+        final SparseStore<Double> tmpSparse = SparseStore.makePrimitive(200, 150);
+        for (int n = 0; n < 1500; n++) {
+            tmpSparse.set(tmpRandom.nextInt(200), tmpRandom.nextInt(150), tmpRandom.nextGaussian());
+        }
+        final PrimitiveDenseStore tmpDense = PrimitiveDenseStore.FACTORY.copy(tmpSparse);
+
+        for (final int tmpColumns : new int[] { 1, 30 }) {
+
+            final PrimitiveDenseStore tmpRight = PrimitiveDenseStore.FACTORY.makeFilled(150, tmpColumns, new Uniform(-1, 2));
+
+            final PrimitiveDenseStore tmpExpected = PrimitiveDenseStore.FACTORY.makeZero(200, tmpColumns);
+            tmpExpected.fillByMultiplying(tmpDense, tmpRight);
+
+            final PrimitiveDenseStore tmpActual = PrimitiveDenseStore.FACTORY.makeZero(200, tmpColumns);
+            tmpSparse.multiply(tmpRight, tmpActual);
+
+            TestUtils.assertEquals(tmpExpected, tmpActual);
+            TestUtils.assertEquals(tmpExpected, tmpSparse.multiply(tmpRight));
+
+            // Not a dense target – still parallel, but synchronized
+            final SparseStore<Double> tmpSparseActual = SparseStore.makePrimitive(200, tmpColumns);
+            tmpSparse.multiply(tmpRight, tmpSparseActual);
+
+            TestUtils.assertEquals(tmpExpected, tmpSparseActual);
+        }
+    }
+
+    public void testNonzeroStreams() {
+
+        final SparseArray<Double> tmpArray = SparseArray.factory(Primitive64Array.FACTORY, 1_000_000L).make();
+        tmpArray.set(999_999L, 3.0);
+        tmpArray.set(7L, 1.0);
+        tmpArray.set(5_000L, 2.0);
+
+        TestUtils.assertEquals(new long[] { 7L, 5_000L, 999_999L }, tmpArray.nonzeroIndices(true).toArray());
+        TestUtils.assertTrue(Arrays.equals(new double[] { 1.0, 2.0, 3.0 }, tmpArray.nonzeroValues(true).toArray()));
+        TestUtils.assertEquals(6.0, tmpArray.doubleStream(true).sum(), 0.0);
+
+        final StringBuilder tmpVisited = new StringBuilder();
+        tmpArray.visitPrimitiveNonzerosInRange(7L, 999_999L, (index, value) -> tmpVisited.append(index).append('=').append(value).append(' '));
+        TestUtils.assertEquals("7=1.0 5000=2.0 ", tmpVisited.toString());
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.ojalgo.FunctionalityTest;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+
+public class AsyncPrinterTest extends FunctionalityTest {
+
+    public AsyncPrinterTest() {
+        super();
+    }
+
+    public AsyncPrinterTest(final String someName) {
+        super(someName);
+    }
+
+    public void testConcurrentProducers() throws InterruptedException {
+
+        final StringBuilder tmpOutput = new StringBuilder();
+        final int tmpThreads = 4;
+        final int tmpLines = 2000;
+
+        try (AsyncPrinter tmpPrinter = new AsyncPrinter(new BasicLogger.AppendablePrinter(tmpOutput), 1 << 16)) {
+
+            final List<Thread> tmpProducers = new ArrayList<>();
+            for (int t = 0; t < tmpThreads; t++) {
+                final int tmpThread = t;
+                tmpProducers.add(new Thread(() -> {
+                    for (int i = 0; i < tmpLines; i++) {
+                        tmpPrinter.println("{}:{}", tmpThread, i);
+                    }
+                }));
+            }
+            for (final Thread tmpProducer : tmpProducers) {
+                tmpProducer.start();
+            }
+            for (final Thread tmpProducer : tmpProducers) {
+                tmpProducer.join();
+            }
+
+            tmpPrinter.flush();
+            TestUtils.assertEquals(0L, tmpPrinter.countDropped());
+        }
+
+        final String[] tmpPrinted = tmpOutput.toString().split("\n");
+        TestUtils.assertEquals(tmpThreads * tmpLines, tmpPrinted.length);
+
+        // Each producer's lines in order
+        final int[] tmpNext = new int[tmpThreads];
+        for (final String tmpLine : tmpPrinted) {
+            final String[] tmpParts = tmpLine.split(":");
+            final int tmpThread = Integer.parseInt(tmpParts[0]);
+            TestUtils.assertEquals(tmpNext[tmpThread]++, Integer.parseInt(tmpParts[1]));
+        }
+    }
+
+    public void testDropAndDisable() throws InterruptedException {
+
+        final StringBuilder tmpOutput = new StringBuilder();
+        final CountDownLatch tmpBlocked = new CountDownLatch(1);
+        final CountDownLatch tmpRelease = new CountDownLatch(1);
+
+        final BasicLogger.AppendablePrinter tmpSlow = new BasicLogger.AppendablePrinter(tmpOutput) {
+
+            @Override
+            public void print(final String str) {
+                if ("first".equals(str)) {
+                    tmpBlocked.countDown();
+                    try {
+                        tmpRelease.await();
+                    } catch (final InterruptedException cause) {
+                        throw new RuntimeException(cause);
+                    }
+                }
+                super.print(str);
+            }
+
+        };
+
+        try (AsyncPrinter tmpPrinter = new AsyncPrinter(tmpSlow, 6)) {
+
+            try {
+
+                tmpPrinter.println("first");
+                tmpBlocked.await();
+
+                // Capacity rounded up to 8 – and the first is still occupying its slot. A primitive and its new
+                // line share one slot.
+                for (int i = 0; i < 20; i++) {
+                    tmpPrinter.println(i);
+                }
+                TestUtils.assertEquals(13L, tmpPrinter.countDropped());
+
+                tmpPrinter.setEnabled(false);
+                TestUtils.assertFalse(tmpPrinter.isEnabled());
+                tmpPrinter.println("disabled");
+                TestUtils.assertEquals(13L, tmpPrinter.countDropped());
+                tmpPrinter.setEnabled(true);
+
+            } finally {
+                tmpRelease.countDown();
+            }
+
+            tmpPrinter.flush();
+            tmpPrinter.println("last");
+        }
+
+        final String tmpPrinted = tmpOutput.toString();
+        TestUtils.assertTrue(tmpPrinted.startsWith("first\n0\n1\n2\n3\n4\n5\n6\n"));
+        TestUtils.assertTrue(tmpPrinted.contains("[13 messages dropped]"));
+        TestUtils.assertFalse(tmpPrinted.contains("disabled"));
+        TestUtils.assertTrue(tmpPrinted.endsWith("last\n"));
+    }
+
+    public void testPrimitivesAndDeferred() {
+
+        final StringBuilder tmpOutput = new StringBuilder();
+        final PrimitiveDenseStore tmpMatrix = PrimitiveDenseStore.FACTORY.rows(new double[][] { { 1.0, 2.0 } });
+
+        try (AsyncPrinter tmpPrinter = new AsyncPrinter(new BasicLogger.AppendablePrinter(tmpOutput))) {
+            tmpPrinter.print(true);
+            tmpPrinter.print(' ');
+            tmpPrinter.print(1.5);
+            tmpPrinter.print(' ');
+            tmpPrinter.print(2.5F);
+            tmpPrinter.print(' ');
+            tmpPrinter.print(-3);
+            tmpPrinter.print(' ');
+            tmpPrinter.println(Long.MAX_VALUE);
+            tmpPrinter.println("a{}b{}", 1, "c");
+            tmpPrinter.printmtrx(null, tmpMatrix);
+            // The matrix was formatted immediately
+            tmpMatrix.set(0, 0, 9.0);
+        }
+
+        final StringBuilder tmpExpected = new StringBuilder();
+        final BasicLogger.AppendablePrinter tmpDirect = new BasicLogger.AppendablePrinter(tmpExpected);
+        tmpDirect.println("true 1.5 2.5 -3 " + Long.MAX_VALUE);
+        tmpDirect.println("a1bc");
+        tmpDirect.printmtrx(null, PrimitiveDenseStore.FACTORY.rows(new double[][] { { 1.0, 2.0 } }));
+
+        TestUtils.assertEquals(tmpExpected.toString(), tmpOutput.toString());
+    }
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+
+import org.ojalgo.FunctionalityTest;
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.TestUtils;
+import org.ojalgo.concurrent.ParallelScope;
+
+public class BasicParserTest extends FunctionalityTest {
+
+    /**
+     * "index,value,text" lines into "index:value:text" strings, either from the String or from the bytes
+     */
+    static final class Parser implements BasicParser<String> {
+
+        public String parse(final ByteLine line) throws RecoverableCondition {
+            if (line.split(ASCII.COMMA).countFields() != 3) {
+                throw RecoverableCondition.newFailedToParseString(line.toString(), String.class);
+            }
+            try {
+                return line.longValue(0) + ":" + line.doubleValue(1) + ":" + line.toString(2);
+            } catch (final NumberFormatException cause) {
+                throw RecoverableCondition.newFailedToParseString(line.toString(), String.class);
+            }
+        }
+
+        public String parse(final String line) throws RecoverableCondition {
+            final String[] tmpFields = line.split(",", -1);
+            if (tmpFields.length != 3) {
+                throw RecoverableCondition.newFailedToParseString(line, String.class);
+            }
+            try {
+                return Long.parseLong(tmpFields[0]) + ":" + Double.parseDouble(tmpFields[1]) + ":" + tmpFields[2];
+            } catch (final NumberFormatException cause) {
+                throw RecoverableCondition.newFailedToParseString(line, String.class);
+            }
+        }
+
+    }
+
+    static File write(final String contents, final boolean gzip) throws IOException {
+        final File retVal = File.createTempFile("ojAlgo-parse", gzip ? ".csv.gz" : ".csv");
+        retVal.deleteOnExit();
+        try (OutputStream tmpOutput = gzip ? new GZIPOutputStream(new FileOutputStream(retVal)) : new FileOutputStream(retVal)) {
+            tmpOutput.write(contents.getBytes(StandardCharsets.UTF_8));
+        }
+        return retVal;
+    }
+
+    private int myChunk;
+
+    public BasicParserTest() {
+        super();
+    }
+
+    public BasicParserTest(final String someName) {
+        super(someName);
+    }
+
+    public void testByteLine() {
+
+        final byte[] tmpBytes = "2017-01-03,-12.5,,+42,1.5E-7\r".getBytes(StandardCharsets.US_ASCII);
+        final ByteLine tmpLine = new ByteLine().reset(tmpBytes, 0, tmpBytes.length);
+
+        TestUtils.assertEquals(tmpBytes.length - 1, tmpLine.length());
+        TestUtils.assertEquals(5, tmpLine.split(',').countFields());
+        TestUtils.assertEquals("2017-01-03", tmpLine.toString(0));
+        TestUtils.assertEquals(-12.5, tmpLine.doubleValue(1), 0.0);
+        TestUtils.assertTrue(tmpLine.isEmpty(2));
+        TestUtils.assertEquals(42L, tmpLine.longValue(3));
+        TestUtils.assertEquals(1.5E-7, tmpLine.doubleValue(4), 0.0);
+        TestUtils.assertEquals(Long.MIN_VALUE, ByteLine.parseLong("-9223372036854775808".getBytes(StandardCharsets.US_ASCII), 0, 20));
+
+        try {
+            tmpLine.longValue(2);
+            TestUtils.fail();
+        } catch (final NumberFormatException expected) {
+            // Empty field
+        }
+    }
+
+    public void testParallel() throws IOException {
+
+        final Random tmpRandom = new Random(123L);
+        final StringBuilder tmpContents = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            if ((i % 97) == 0) {
+                tmpContents.append("# comment\n\n");
+            }
+            if ((i % 501) == 0) {
+                tmpContents.append("not,a,number\n");
+            }
+            tmpContents.append(i).append(',').append(tmpRandom.nextGaussian()).append(',');
+            // Some lines longer than a chunk, and one longer than what is initially read (chunk + tail)
+            for (int t = i == 2500 ? 100_000 : (i % 1000) == 999 ? 3000 : tmpRandom.nextInt(8); t > 0; t--) {
+                tmpContents.append((char) ('a' + tmpRandom.nextInt(26)));
+            }
+            tmpContents.append((i % 2) == 0 ? "\n" : "\r\n");
+        }
+        tmpContents.append("5000,0.5,no terminator");
+
+        final Parser tmpParser = new Parser();
+
+        for (final boolean tmpGzip : new boolean[] { false, true }) {
+
+            final File tmpFile = BasicParserTest.write(tmpContents.toString(), tmpGzip);
+
+            final List<String> tmpExpected = new ArrayList<>();
+            tmpParser.parse(tmpFile, tmpExpected::add);
+            TestUtils.assertEquals(5001, tmpExpected.size());
+
+            for (final int tmpParallelism : new int[] { 1, 4 }) {
+
+                final List<String> tmpOrdered = new ArrayList<>();
+                final List<String> tmpUnordered = Collections.synchronizedList(new ArrayList<>());
+
+                ParallelScope.run(tmpParallelism, () -> {
+                    tmpParser.parseInParallel(tmpFile, tmpOrdered::add);
+                    tmpParser.parseInParallel(tmpFile, tmpUnordered::add, false);
+                });
+
+                TestUtils.assertEquals(tmpExpected, tmpOrdered);
+
+                final List<String> tmpSorted = new ArrayList<>(tmpUnordered);
+                Collections.sort(tmpSorted);
+                final List<String> tmpExpectedSorted = new ArrayList<>(tmpExpected);
+                Collections.sort(tmpExpectedSorted);
+                TestUtils.assertEquals(tmpExpectedSorted, tmpSorted);
+            }
+
+            // The (only) pool thread is busy until it's all done – the forked workers never start
+            final ForkJoinPool tmpPool = new ForkJoinPool(1);
+            final CountDownLatch tmpLatch = new CountDownLatch(1);
+            try {
+
+                tmpPool.execute(() -> {
+                    try {
+                        tmpLatch.await();
+                    } catch (final InterruptedException cause) {
+                        throw new ProgrammingError(cause);
+                    }
+                });
+
+                final List<String> tmpBusy = new ArrayList<>();
+                ParallelScope.run(tmpPool, 4, () -> tmpParser.parseInParallel(tmpFile, tmpBusy::add));
+
+                TestUtils.assertEquals(tmpExpected, tmpBusy);
+
+            } finally {
+                tmpLatch.countDown();
+                tmpPool.shutdown();
+            }
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        // Small chunks to have many chunk boundaries
+        myChunk = ChunkedParsing.CHUNK;
+        ChunkedParsing.CHUNK = 1 << 10;
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+
+        super.tearDown();
+
+        ChunkedParsing.CHUNK = myChunk;
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.ojalgo.FunctionalityTest;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.series.BasicSeries;
+import org.ojalgo.series.ColumnarSeries;
+
+public class ColumnarFileTest extends FunctionalityTest {
+
+    public ColumnarFileTest() {
+        super();
+    }
+
+    public ColumnarFileTest(final String someName) {
+        super(someName);
+    }
+
+    public void testChecksum() throws IOException {
+
+        final File tmpFile = File.createTempFile("ojAlgo", ".bin");
+        tmpFile.deleteOnExit();
+
+        final int tmpChunk = ColumnarFile.CHUNK;
+        try {
+            ColumnarFile.CHUNK = 16;
+            ColumnarFile.write(tmpFile, PrimitiveDenseStore.FACTORY.makeFilled(10, 10, new Uniform()), true);
+        } finally {
+            ColumnarFile.CHUNK = tmpChunk;
+        }
+
+        ColumnarFile.readMatrix(tmpFile, true);
+
+        try (RandomAccessFile tmpAccess = new RandomAccessFile(tmpFile, "rw")) {
+            tmpAccess.seek(ColumnarFile.HEADER + 500L);
+            final int tmpByte = tmpAccess.read();
+            tmpAccess.seek(ColumnarFile.HEADER + 500L);
+            tmpAccess.write(tmpByte ^ 0x10);
+        }
+
+        // Not verified, so no problem
+        ColumnarFile.readMatrix(tmpFile, false);
+
+        try {
+            ColumnarFile.readMatrix(tmpFile, true);
+            TestUtils.fail("Corruption not detected!");
+        } catch (final IOException expected) {
+            TestUtils.assertTrue(expected.getMessage().contains("chunk 3"));
+        }
+
+        try (RandomAccessFile tmpAccess = new RandomAccessFile(tmpFile, "rw")) {
+            tmpAccess.setLength(tmpAccess.length() - 8L);
+        }
+
+        try {
+            ColumnarFile.header(tmpFile);
+            TestUtils.fail("Truncation not detected!");
+        } catch (final IOException expected) {
+            // Expected
+        }
+    }
+
+    public void testDense() throws IOException {
+
+        final File tmpFile = File.createTempFile("ojAlgo", ".bin");
+        tmpFile.deleteOnExit();
+
+        final PrimitiveDenseStore tmpOriginal = PrimitiveDenseStore.FACTORY.makeFilled(37, 23, new Uniform());
+
+        final int tmpChunk = ColumnarFile.CHUNK;
+        for (final int tmpSize : new int[] { 64, 1024, tmpChunk }) {
+            for (final boolean tmpChecksum : new boolean[] { true, false }) {
+                try {
+                    ColumnarFile.CHUNK = tmpSize;
+                    ColumnarFile.write(tmpFile, tmpOriginal, tmpChecksum);
+                } finally {
+                    ColumnarFile.CHUNK = tmpChunk;
+                }
+
+                final ColumnarFile.Header tmpHeader = ColumnarFile.header(tmpFile);
+                TestUtils.assertEquals(ColumnarFile.Kind.DENSE, tmpHeader.kind);
+                TestUtils.assertEquals(37L, tmpHeader.rows);
+                TestUtils.assertEquals(23L, tmpHeader.columns);
+                TestUtils.assertEquals(tmpSize, tmpHeader.chunk);
+
+                final MatrixStore<Double> tmpMapped = ColumnarFile.readMatrix(tmpFile, true);
+                TestUtils.assertEquals(tmpOriginal, tmpMapped);
+                TestUtils.assertEquals(tmpOriginal.multiply(tmpOriginal.transpose()), tmpMapped.multiply(tmpMapped.transpose()));
+            }
+        }
+    }
+
+    public void testSeries() throws IOException {
+
+        final File tmpFile = File.createTempFile("ojAlgo", ".bin");
+        tmpFile.deleteOnExit();
+
+        final ColumnarSeries<LocalDate> tmpOriginal = BasicSeries.LOCAL_DATE.buildColumnar();
+        LocalDate tmpDate = LocalDate.of(2017, 1, 2);
+        for (int i = 0; i < 250; i++) {
+            tmpOriginal.put(tmpDate, 100.0 + i);
+            tmpDate = tmpDate.plusDays(1 + (i % 3));
+        }
+
+        final int tmpChunk = ColumnarFile.CHUNK;
+        try {
+            ColumnarFile.CHUNK = 32;
+            ColumnarFile.write(tmpFile, tmpOriginal, true);
+        } finally {
+            ColumnarFile.CHUNK = tmpChunk;
+        }
+
+        final ColumnarSeries<LocalDate> tmpCopy = ColumnarFile.readSeries(tmpFile, BasicSeries.LOCAL_DATE, true);
+
+        TestUtils.assertEquals(tmpOriginal.size(), tmpCopy.size());
+        TestUtils.assertEquals(tmpOriginal.firstKey(), tmpCopy.firstKey());
+        TestUtils.assertEquals(tmpOriginal.lastKey(), tmpCopy.lastKey());
+        TestUtils.assertEquals(tmpOriginal, tmpCopy);
+
+        try {
+            ColumnarFile.readMatrix(tmpFile, false);
+            TestUtils.fail("A series is not a matrix!");
+        } catch (final IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+
+    public void testSparse() throws IOException {
+
+        final File tmpFile = File.createTempFile("ojAlgo", ".bin");
+        tmpFile.deleteOnExit();
+
+        final SparseStore<Double> tmpOriginal = SparseStore.makePrimitive(100, 80);
+        final Random tmpRandom = new Random();
+        for (int k = 0; k < 300; k++) {
+            tmpOriginal.set(tmpRandom.nextInt(100), tmpRandom.nextInt(80), tmpRandom.nextDouble());
+        }
+
+        final int tmpChunk = ColumnarFile.CHUNK;
+        try {
+            ColumnarFile.CHUNK = 64;
+            ColumnarFile.write(tmpFile, tmpOriginal, true);
+        } finally {
+            ColumnarFile.CHUNK = tmpChunk;
+        }
+
+        final ColumnarFile.Header tmpHeader = ColumnarFile.header(tmpFile);
+        TestUtils.assertEquals(ColumnarFile.Kind.SPARSE, tmpHeader.kind);
+        TestUtils.assertTrue(tmpHeader.size <= 300L);
+
+        final SparseStore<Double> tmpCopy = ColumnarFile.readSparse(tmpFile, true);
+        TestUtils.assertEquals(tmpOriginal, tmpCopy);
+        TestUtils.assertEquals(tmpOriginal, ColumnarFile.readMatrix(tmpFile, true));
+        TestUtils.assertEquals(tmpOriginal.nonzeros().estimateSize(), tmpCopy.nonzeros().estimateSize());
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.netio;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import org.ojalgo.FunctionalityTest;
+import org.ojalgo.TestUtils;
+import org.ojalgo.concurrent.ParallelScope;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.SparseStore;
+
+public class MatrixFileFormatTest extends FunctionalityTest {
+
+    static SparseStore<Double> read(final MatrixFileFormat format, final String contents) throws IOException {
+        return format.read(new ByteArrayInputStream(contents.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    static SparseStore<Double> roundtrip(final MatrixFileFormat format, final MatrixStore<Double> matrix) throws IOException {
+        final StringBuilder tmpBuilder = new StringBuilder();
+        format.write(matrix, tmpBuilder);
+        return MatrixFileFormatTest.read(format, tmpBuilder.toString());
+    }
+
+    public MatrixFileFormatTest() {
+        super();
+    }
+
+    public MatrixFileFormatTest(final String someName) {
+        super(someName);
+    }
+
+    public void testAssembler() {
+
+        final SparseStore.Assembler tmpAssembler = new SparseStore.Assembler(3, 4);
+        tmpAssembler.add(2, 3, 1.0);
+        tmpAssembler.add(0, 0, 2.0);
+        tmpAssembler.add(2, 3, 3.0);
+        tmpAssembler.add(1, 0, 4.0);
+
+        final SparseStore.Assembler tmpOther = new SparseStore.Assembler(3, 4);
+        tmpOther.add(0, 0, 1.0);
+        tmpOther.add(2, 1, 5.0);
+        tmpAssembler.addAll(tmpOther);
+
+        TestUtils.assertEquals(6, tmpAssembler.size());
+
+        final PrimitiveDenseStore tmpExpected = PrimitiveDenseStore.FACTORY.rows(new double[][] { { 3, 0, 0, 0 }, { 4, 0, 0, 0 }, { 0, 5, 0, 4 } });
+        TestUtils.assertEquals(tmpExpected, tmpAssembler.build());
+
+        try {
+            tmpAssembler.add(3, 0, 1.0);
+            TestUtils.fail("Out of bounds!");
+        } catch (final IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+
+    public void testHarwellBoeing() throws IOException {
+
+        // 5x5 real symmetric, lower triangle stored
+        final String tmpContents = "Small symmetric example                                                 EXAMPLE1\n"
+                + "             4             1             1             2             0\n"
+                + "RSA                        5             5             8             0\n"
+                + "(6I3)           (8I3)           (4E15.7)            \n" + "  1  4  6  7  8  9\n" + "  1  2  5  2  3  3  4  5\n"
+                + "  1.0000000E+00 -2.0000000E+00  3.0000000E+00  4.0000000E+00\n" + "  5.0000000E+00  6.0000000E+00  7.0000000E+00  8.0000000E+00\n";
+
+        final PrimitiveDenseStore tmpExpected = PrimitiveDenseStore.FACTORY.rows(new double[][] { { 1, -2, 0, 0, 3 }, { -2, 4, 5, 0, 0 },
+                { 0, 5, 6, 0, 0 }, { 0, 0, 0, 7, 0 }, { 3, 0, 0, 0, 8 } });
+
+        final SparseStore<Double> tmpRead = MatrixFileFormatTest.read(MatrixFileFormat.HARWELL_BOEING, tmpContents);
+        TestUtils.assertEquals(tmpExpected, tmpRead);
+
+        // Rutherford-Boeing: 4 card counts, lowercase type, and values that run together
+        final String tmpRutherford = "Rutherford-Boeing                                                       RB1\n"
+                + "             3             1             1             1\n" + "rua                        2             3             3             0\n"
+                + "(4I2)           (3I2)           (3D10.3)            \n" + " 1 2 3 4\n" + " 1 2 1\n" + "-1.500D+00 2.500D+00-3.000D+00\n";
+
+        final PrimitiveDenseStore tmpRectangular = PrimitiveDenseStore.FACTORY.rows(new double[][] { { -1.5, 0, -3 }, { 0, 2.5, 0 } });
+        TestUtils.assertEquals(tmpRectangular, MatrixFileFormatTest.read(MatrixFileFormat.HARWELL_BOEING, tmpRutherford));
+
+        TestUtils.assertEquals(tmpExpected, MatrixFileFormatTest.roundtrip(MatrixFileFormat.HARWELL_BOEING, tmpRead));
+        TestUtils.assertEquals(tmpRectangular, MatrixFileFormatTest.roundtrip(MatrixFileFormat.HARWELL_BOEING, tmpRectangular));
+    }
+
+    public void testMatrixMarket() throws IOException {
+
+        final String tmpSymmetric = "%%MatrixMarket matrix coordinate real symmetric\n% A comment\n%\n  3 3 4\n1 1 1.5\n2 1 -2\n3 3 3e0\n3 2   4.25\n";
+        TestUtils.assertEquals(PrimitiveDenseStore.FACTORY.rows(new double[][] { { 1.5, -2, 0 }, { -2, 0, 4.25 }, { 0, 4.25, 3 } }),
+                MatrixFileFormatTest.read(MatrixFileFormat.MATRIX_MARKET, tmpSymmetric));
+
+        final String tmpSkew = "%%MatrixMarket matrix coordinate integer skew-symmetric\n3 3 2\n2 1 5\n3 1 -1\n";
+        TestUtils.assertEquals(PrimitiveDenseStore.FACTORY.rows(new double[][] { { 0, -5, 1 }, { 5, 0, 0 }, { -1, 0, 0 } }),
+                MatrixFileFormatTest.read(MatrixFileFormat.MATRIX_MARKET, tmpSkew));
+
+        final String tmpPattern = "%%MatrixMarket matrix coordinate pattern general\r\n2 3 3\r\n1 3\r\n2 1\r\n2 2\r\n";
+        TestUtils.assertEquals(PrimitiveDenseStore.FACTORY.rows(new double[][] { { 0, 0, 1 }, { 1, 1, 0 } }),
+                MatrixFileFormatTest.read(MatrixFileFormat.MATRIX_MARKET, tmpPattern));
+
+        final String tmpArray = "%%MatrixMarket matrix array real symmetric\n3 3\n1\n2\n3\n4\n5\n6\n";
+        TestUtils.assertEquals(PrimitiveDenseStore.FACTORY.rows(new double[][] { { 1, 2, 3 }, { 2, 4, 5 }, { 3, 5, 6 } }),
+                MatrixFileFormatTest.read(MatrixFileFormat.MATRIX_MARKET, tmpArray));
+
+        try {
+            MatrixFileFormatTest.read(MatrixFileFormat.MATRIX_MARKET, "%%MatrixMarket matrix coordinate real general\n2 2 3\n1 1 1\n2 2 2\n");
+            TestUtils.fail("Missing entry not detected!");
+        } catch (final IOException expected) {
+            // Expected
+        }
+
+        final PrimitiveDenseStore tmpDense = PrimitiveDenseStore.FACTORY.rows(new double[][] { { 1, 0, 0.1 }, { -2, 1E-300, 0 } });
+        TestUtils.assertEquals(tmpDense, MatrixFileFormatTest.roundtrip(MatrixFileFormat.MATRIX_MARKET, tmpDense));
+    }
+
+    public void testParallel() throws IOException {
+
+        final Random tmpRandom = new Random(123L);
+        final SparseStore<Double> tmpOriginal = SparseStore.makePrimitive(500, 300);
+        for (int k = 0; k < 5000; k++) {
+            tmpOriginal.set(tmpRandom.nextInt(500), tmpRandom.nextInt(300), tmpRandom.nextGaussian());
+        }
+
+        final File tmpPlain = File.createTempFile("ojAlgo", ".mtx");
+        tmpPlain.deleteOnExit();
+        MatrixFileFormat.MATRIX_MARKET.write(tmpOriginal, tmpPlain);
+
+        final File tmpCompressed = File.createTempFile("ojAlgo", ".mtx.gz");
+        tmpCompressed.deleteOnExit();
+        try (Writer tmpWriter = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(tmpCompressed)), StandardCharsets.US_ASCII)) {
+            MatrixFileFormat.MATRIX_MARKET.write(tmpOriginal, tmpWriter);
+        }
+
+        final int tmpChunk = ChunkedParsing.CHUNK;
+        try {
+            ChunkedParsing.CHUNK = 1024;
+            for (final int tmpParallelism : new int[] { 1, 4 }) {
+                for (final File tmpFile : new File[] { tmpPlain, tmpCompressed }) {
+                    final SparseStore<Double> tmpRead = ParallelScope.call(tmpParallelism, () -> MatrixFileFormat.MATRIX_MARKET.read(tmpFile));
+                    TestUtils.assertEquals(tmpOriginal, tmpRead);
+                    TestUtils.assertEquals(tmpOriginal.nonzeros().estimateSize(), tmpRead.nonzeros().estimateSize());
+                }
+            }
+        } finally {
+            ChunkedParsing.CHUNK = tmpChunk;
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.ojalgo.TestUtils;
+
+public class ModelFileFormatTest extends OptimisationTests {
+
+    private static final String LINEAR = "./test/org/ojalgo/optimisation/linear/";
+    private static final String INTEGER = "./test/org/ojalgo/optimisation/integer/";
+
+    static ExpressionsBasedModel read(final ModelFileFormat format, final String contents) throws IOException {
+        return format.read(Channels.newChannel(new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    static ExpressionsBasedModel roundtrip(final ModelFileFormat format, final ExpressionsBasedModel model) throws IOException {
+        final StringBuilder tmpBuilder = new StringBuilder();
+        format.write(model, tmpBuilder);
+        return ModelFileFormatTest.read(format, tmpBuilder.toString());
+    }
+
+    public ModelFileFormatTest() {
+        super();
+    }
+
+    public ModelFileFormatTest(final String someName) {
+        super(someName);
+    }
+
+    public void testCplexLp() throws IOException {
+
+        final String tmpContents = "\\ A small example\n" + "Maximize\n" + " obj: 3 x + 2 y\n" + "   - 0.5e1 z\n" + "Subject To\n" + " c1: x + y + z <= 4\n"
+                + " c2: 1 <= x - y\n" + "   <= 3\n" + " -2 x + y >= -10\n" + "Bounds\n" + " x <= 3\n" + " -1 <= z <= 2\n" + "General\n" + " y\n" + "End\n";
+
+        final ExpressionsBasedModel tmpModel = ModelFileFormatTest.read(ModelFileFormat.CPLEX_LP, tmpContents);
+
+        TestUtils.assertTrue(tmpModel.isMaximisation());
+        TestUtils.assertEquals(3, tmpModel.getVariables().size());
+        TestUtils.assertEquals(3L, tmpModel.constraints().count());
+        TestUtils.assertTrue(tmpModel.getVariable(1).isInteger());
+        TestUtils.assertEquals(-1, tmpModel.getExpression("c2").getLowerLimit().compareTo(tmpModel.getExpression("c2").getUpperLimit()));
+        // Unnamed constraints are named by their row number, as CPLEX does
+        TestUtils.assertTrue(tmpModel.getExpression("R3") != null);
+
+        final ExpressionsBasedModel tmpCopy = ModelFileFormatTest.roundtrip(ModelFileFormat.CPLEX_LP, tmpModel);
+
+        // x=3, y=2, z=-1 => 18
+        TestUtils.assertEquals(18.0, tmpModel.maximise().getValue(), 1E-9);
+        TestUtils.assertEquals(18.0, tmpCopy.maximise().getValue(), 1E-9);
+
+        final ExpressionsBasedModel tmpBounds = ModelFileFormatTest.read(ModelFileFormat.CPLEX_LP,
+                "min\n obj: a + b + c + d\nst\n a + b + c + d >= 1\nbounds\n -inf <= a <= 1\n b free\n c >= -1e30\n 2 >= d\nend\n");
+
+        TestUtils.assertFalse(tmpBounds.getVariable(0).isLowerLimitSet());
+        TestUtils.assertEquals(1.0, tmpBounds.getVariable(0).getUpperLimit().doubleValue());
+        TestUtils.assertFalse(tmpBounds.getVariable(1).isLowerLimitSet() || tmpBounds.getVariable(1).isUpperLimitSet());
+        TestUtils.assertFalse(tmpBounds.getVariable(2).isLowerLimitSet());
+        TestUtils.assertEquals(2.0, tmpBounds.getVariable(3).getUpperLimit().doubleValue());
+        TestUtils.assertEquals(0.0, tmpBounds.getVariable(3).getLowerLimit().doubleValue());
+    }
+
+    public void testFreeAndFixedMPS() throws IOException {
+
+        for (final String tmpName : new String[] { "afiro", "adlittle", "testprob", "empstest", "boeing2" }) {
+
+            final File tmpFile = new File(LINEAR + tmpName + ".mps");
+
+            final ExpressionsBasedModel tmpFree = ModelFileFormat.FREE_MPS.read(tmpFile);
+            final ExpressionsBasedModel tmpFixed = ModelFileFormat.FIXED_MPS.read(tmpFile);
+
+            TestUtils.assertEquals(tmpName, tmpFixed.getVariables().size(), tmpFree.getVariables().size());
+            TestUtils.assertEquals(tmpName, tmpFixed.getExpressions().size(), tmpFree.getExpressions().size());
+
+            for (final Expression tmpExpression : tmpFixed.getExpressions()) {
+                final Expression tmpOther = tmpFree.getExpression(tmpExpression.getName());
+                TestUtils.assertEquals(tmpName, (Object) tmpExpression.getLowerLimit(), (Object) tmpOther.getLowerLimit());
+                TestUtils.assertEquals(tmpName, (Object) tmpExpression.getUpperLimit(), (Object) tmpOther.getUpperLimit());
+                TestUtils.assertEquals(tmpName, (Object) tmpExpression.getLinearEntrySet(), (Object) tmpOther.getLinearEntrySet());
+            }
+        }
+    }
+
+    public void testParseDouble() {
+        for (final String tmpNumber : new String[] { "0", "-0.0", "1", "+12.5", ".25", "1e3", "1.5E-7", "-123456.789", "0.1", "3.141592653589793",
+                "1.7976931348623157E308", "4.9E-324", "123456789012345678", "1D2", "0000.00012" }) {
+            final byte[] tmpBytes = tmpNumber.getBytes(StandardCharsets.US_ASCII);
+            final double tmpExpected = Double.parseDouble(tmpNumber.replace('D', 'E'));
+            TestUtils.assertEquals(tmpNumber, tmpExpected, ModelFileTokenizer.parseDouble(tmpBytes, 0, tmpBytes.length), 0.0);
+        }
+    }
+
+    /**
+     * Write and read back; should still have the same optimal value.
+     */
+    public void testRoundtrip() throws IOException {
+
+        for (final String tmpPath : new String[] { LINEAR + "afiro.mps", LINEAR + "adlittle.mps", LINEAR + "testprob.mps", INTEGER + "pk1.mps" }) {
+
+            final ExpressionsBasedModel tmpModel = ModelFileFormat.FREE_MPS.read(new File(tmpPath));
+            final double tmpExpected = tmpModel.relax(false).minimise().getValue();
+
+            for (final ModelFileFormat tmpFormat : new ModelFileFormat[] { ModelFileFormat.FREE_MPS, ModelFileFormat.CPLEX_LP }) {
+
+                if ((tmpFormat == ModelFileFormat.CPLEX_LP) && tmpPath.contains("adlittle")) {
+                    // Column names starting with a digit are not valid in LP files
+                    continue;
+                }
+
+                final ExpressionsBasedModel tmpCopy = ModelFileFormatTest.roundtrip(tmpFormat, tmpModel);
+
+                TestUtils.assertEquals(tmpPath, tmpModel.getVariables().size(), tmpCopy.getVariables().size());
+                TestUtils.assertEquals(tmpPath, tmpModel.getIntegerVariables().size(), tmpCopy.getIntegerVariables().size());
+                TestUtils.assertEquals(tmpPath + " " + tmpFormat, tmpExpected, tmpCopy.relax(false).minimise().getValue(), 1E-6);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.optimisation.integer.IntegerSolver;
+import org.ojalgo.optimisation.linear.LinearSolver;
+
+public class SolverRaceTest extends OptimisationTests {
+
+    private static final String INTEGER = "./test/org/ojalgo/optimisation/integer/";
+    private static final String LINEAR = "./test/org/ojalgo/optimisation/linear/";
+
+    static ExpressionsBasedModel makeIntegerModel() {
+
+        final int[] tmpCosts = new int[] { 7, 3, 9, 4, 6, 5, 8, 2, 6, 4 };
+        final int[] tmpSizes = new int[] { 5, 2, 8, 3, 4, 4, 6, 1, 5, 3 };
+
+        final ExpressionsBasedModel retVal = new ExpressionsBasedModel();
+        for (int i = 0; i < tmpCosts.length; i++) {
+            retVal.addVariable(Variable.make("X" + i).integer(true).lower(0).upper(2).weight(tmpCosts[i]));
+        }
+
+        final Expression tmpCover = retVal.addExpression("Cover");
+        for (int i = 0; i < tmpSizes.length; i++) {
+            tmpCover.set(i, tmpSizes[i]);
+        }
+        tmpCover.lower(29);
+
+        retVal.addExpression("Pair").set(0, 1).set(2, 1).upper(1);
+
+        return retVal;
+    }
+
+    static ExpressionsBasedModel makeQuadraticModel() {
+
+        final ExpressionsBasedModel retVal = new ExpressionsBasedModel();
+        retVal.addVariable(Variable.make("X").lower(0.0));
+        retVal.addVariable(Variable.make("Y").lower(0.0));
+        retVal.addVariable(Variable.make("Z").lower(0.0));
+
+        // min (x-1)^2 + (y-2)^2 + z^2 - z s.t. x + y + z <= 1
+        final Expression tmpObjective = retVal.addExpression("Objective").weight(1.0);
+        tmpObjective.set(0, 0, 1.0).set(1, 1, 1.0).set(2, 2, 1.0).set(0, -2.0).set(1, -4.0).set(2, -1.0);
+        retVal.addExpression("Sum").set(0, 1.0).set(1, 1.0).set(2, 1.0).upper(1.0);
+
+        return retVal;
+    }
+
+    public SolverRaceTest() {
+        super();
+    }
+
+    public SolverRaceTest(final String someName) {
+        super(someName);
+    }
+
+    public void testContenders() throws IOException {
+
+        final SolverRace.ModelIntegration tmpIntegration = new SolverRace.ModelIntegration();
+
+        TestUtils.assertTrue(tmpIntegration.isCapable(ModelFileFormat.FREE_MPS.read(new File(LINEAR + "afiro.mps"))));
+        TestUtils.assertTrue(tmpIntegration.isCapable(ModelFileFormat.FREE_MPS.read(new File(INTEGER + "pk1.mps"))));
+        TestUtils.assertTrue(tmpIntegration.isCapable(SolverRaceTest.makeQuadraticModel()));
+
+        // Node models (work copies) are never raced
+        TestUtils.assertFalse(tmpIntegration.isCapable(SolverRaceTest.makeQuadraticModel().relax(false)));
+
+        // Explicit contenders are filtered by capability
+        final SolverRace.ModelIntegration tmpLinearOnly = new SolverRace.ModelIntegration(
+                Arrays.asList(new LinearSolver.ModelIntegration(Boolean.FALSE), new LinearSolver.ModelIntegration(Boolean.TRUE)));
+        TestUtils.assertFalse(tmpLinearOnly.isCapable(SolverRaceTest.makeQuadraticModel()));
+    }
+
+    public void testPeers() throws IOException {
+
+        final ExpressionsBasedModel tmpModel = ModelFileFormat.FREE_MPS.read(new File(INTEGER + "pk1.mps"));
+
+        final IntegerSolver tmpSolver = new IntegerSolver.ModelIntegration(false).build(tmpModel);
+
+        try {
+            tmpSolver.addPeer(tmpSolver);
+            TestUtils.fail("A solver can't be its own peer!");
+        } catch (final IllegalArgumentException expected) {
+            // Expected
+        }
+
+        try {
+            tmpSolver.addPeer(new IntegerSolver.ModelIntegration(true).build(tmpModel.copy()));
+            TestUtils.fail("Peers must solve the same model!");
+        } catch (final IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+
+    /**
+     * Racing should give the same optimal values as solving the usual way.
+     */
+    public void testSameResults() throws IOException {
+
+        final ExpressionsBasedModel[] tmpModels = new ExpressionsBasedModel[] { ModelFileFormat.FREE_MPS.read(new File(LINEAR + "afiro.mps")),
+                ModelFileFormat.FREE_MPS.read(new File(LINEAR + "adlittle.mps")), SolverRaceTest.makeIntegerModel(), SolverRaceTest.makeQuadraticModel() };
+
+        final double[] tmpExpected = new double[tmpModels.length];
+        for (int m = 0; m < tmpModels.length; m++) {
+            tmpExpected[m] = tmpModels[m].copy().minimise().getValue();
+        }
+
+        final SolverRace.ModelIntegration tmpIntegration = new SolverRace.ModelIntegration();
+        ExpressionsBasedModel.addIntegration(tmpIntegration);
+        try {
+
+            for (int m = 0; m < tmpModels.length; m++) {
+
+                final ExpressionsBasedModel tmpModel = tmpModels[m];
+
+                TestUtils.assertTrue(tmpModel.getIntegration() == tmpIntegration);
+
+                final Optimisation.Result tmpResult = tmpModel.minimise();
+
+                TestUtils.assertTrue(tmpResult.toString(), tmpResult.getState().isOptimal());
+                TestUtils.assertEquals(tmpExpected[m], tmpResult.getValue(), 1E-6 * Math.max(1.0, Math.abs(tmpExpected[m])));
+                TestUtils.assertTrue(tmpModel.validate(tmpResult));
+            }
+
+        } finally {
+            ExpressionsBasedModel.removeIntegration(tmpIntegration);
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.optimisation.SolverStatistics.Event;
+import org.ojalgo.optimisation.SolverStatistics.Histogram;
+import org.ojalgo.optimisation.SolverStatistics.Phase;
+
+public class SolverStatisticsTest extends OptimisationTests {
+
+    public SolverStatisticsTest() {
+        super();
+    }
+
+    public SolverStatisticsTest(final String someName) {
+        super(someName);
+    }
+
+    public void testConvex() {
+
+        final ExpressionsBasedModel tmpModel = new ExpressionsBasedModel();
+        tmpModel.addVariable(Variable.make("X"));
+        tmpModel.addVariable(Variable.make("Y"));
+
+        // min (x-1)^2 + (y-2)^2 s.t. x + y <= 1
+        final Expression tmpObjective = tmpModel.addExpression("Objective").weight(1.0);
+        tmpObjective.set(0, 0, 1.0).set(1, 1, 1.0).set(0, -2.0).set(1, -4.0);
+        tmpModel.addExpression("Sum").set(0, 1.0).set(1, 1.0).upper(1.0);
+
+        final SolverStatistics tmpStatistics = new SolverStatistics();
+        tmpModel.options.statistics = tmpStatistics;
+
+        final Optimisation.Result tmpResult = tmpModel.minimise();
+
+        TestUtils.assertTrue(tmpResult.getState().isOptimal());
+        TestUtils.assertEquals(0.0, tmpResult.doubleValue(0), 1E-9);
+        TestUtils.assertEquals(1.0, tmpResult.doubleValue(1), 1E-9);
+
+        TestUtils.assertTrue(tmpStatistics.count(Event.ITERATION) > 0L);
+        TestUtils.assertTrue(tmpStatistics.count(Event.FACTORISATION) > 0L);
+        TestUtils.assertTrue((tmpStatistics.count(Event.INCLUDE) + tmpStatistics.count(Event.EXCLUDE)) > 0L);
+        TestUtils.assertEquals(1L, tmpStatistics.getPhase(Phase.CONVEX).count());
+    }
+
+    public void testHistogram() {
+
+        final Histogram tmpHistogram = new SolverStatistics().getPhase(Phase.NODE);
+
+        for (int i = 0; i < 100; i++) {
+            tmpHistogram.record(i);
+        }
+        tmpHistogram.record(-1L);
+
+        TestUtils.assertEquals(101L, tmpHistogram.count());
+        TestUtils.assertEquals(4950L, tmpHistogram.sum());
+        TestUtils.assertEquals(3L, tmpHistogram.count(0)); // -1, 0 and 1
+        TestUtils.assertEquals(32L, tmpHistogram.count(5)); // [32,64)
+        TestUtils.assertEquals(63L, tmpHistogram.quantile(0.5));
+        TestUtils.assertEquals(127L, tmpHistogram.quantile(1.0));
+    }
+
+    public void testInteger() {
+
+        final int[] tmpCosts = new int[] { 7, 3, 9, 4, 6, 5, 8, 2 };
+        final int[] tmpSizes = new int[] { 5, 2, 8, 3, 4, 4, 6, 1 };
+
+        final ExpressionsBasedModel tmpModel = new ExpressionsBasedModel();
+        for (int i = 0; i < tmpCosts.length; i++) {
+            tmpModel.addVariable(Variable.makeBinary("X" + i).weight(tmpCosts[i]));
+        }
+        final Expression tmpCover = tmpModel.addExpression("Cover");
+        for (int i = 0; i < tmpSizes.length; i++) {
+            tmpCover.set(i, tmpSizes[i]);
+        }
+        tmpCover.lower(17);
+
+        final SolverStatistics tmpStatistics = new SolverStatistics(2);
+        final AtomicInteger tmpNotified = new AtomicInteger();
+        tmpStatistics.addListener((event, count, value) -> {
+            if ((event == Event.NODE) && ((count % 2L) == 0L)) {
+                tmpNotified.incrementAndGet();
+            }
+        });
+        tmpModel.options.statistics = tmpStatistics;
+
+        final Optimisation.Result tmpResult = tmpModel.minimise();
+
+        TestUtils.assertTrue(tmpResult.getState().isOptimal());
+
+        final long tmpNodes = tmpStatistics.count(Event.NODE);
+        TestUtils.assertTrue(tmpNodes > 0L);
+        TestUtils.assertEquals(tmpNodes / 2L, tmpNotified.get());
+        TestUtils.assertTrue(tmpStatistics.count(Event.PIVOT) > 0L);
+        TestUtils.assertTrue(
+                (tmpStatistics.count(Event.NODE_BRANCHED) + tmpStatistics.count(Event.NODE_INTEGER) + tmpStatistics.count(Event.NODE_INFEASIBLE)) <= tmpNodes);
+
+        TestUtils.assertEquals(tmpResult.getValue(), tmpStatistics.getIncumbent(), 1E-9);
+        TestUtils.assertTrue(tmpStatistics.getBound() <= (tmpStatistics.getIncumbent() + 1E-9));
+        TestUtils.assertTrue(tmpStatistics.getGap() >= 0.0);
+        TestUtils.assertEquals(1L, tmpStatistics.getPhase(Phase.BRANCH_AND_BOUND).count());
+        TestUtils.assertTrue(tmpStatistics.getPhase(Phase.NODE).count() > 0L);
+
+        final Map<String, Number> tmpExport = tmpStatistics.export();
+        TestUtils.assertEquals(tmpNodes, tmpExport.get("node").longValue());
+        TestUtils.assertTrue(tmpExport.containsKey("time.simplex_phase2.nanos"));
+
+        tmpStatistics.reset();
+        TestUtils.assertEquals(0L, tmpStatistics.count(Event.NODE));
+        TestUtils.assertTrue(Double.isNaN(tmpStatistics.getIncumbent()));
+    }
+
+}
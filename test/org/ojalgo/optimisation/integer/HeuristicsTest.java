@@ -0,0 +1,175 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Variable;
+
+/**
+ * Each heuristic should, for a simple covering problem, find an integer solution that is feasible.
+ *
+ * @author apete
+ */
+public class HeuristicsTest extends OptimisationIntegerTests {
+
+    static final int[] COSTS = new int[] { 7, 3, 9, 4, 6, 5, 8, 2 };
+    static final int[] SIZES = new int[] { 5, 2, 8, 3, 4, 4, 6, 1 };
+
+    static ExpressionsBasedModel makeCoveringModel() {
+
+        final ExpressionsBasedModel retVal = new ExpressionsBasedModel();
+
+        for (int i = 0; i < COSTS.length; i++) {
+            retVal.addVariable(Variable.makeBinary("X" + i).weight(COSTS[i]));
+        }
+
+        final Expression tmpCover = retVal.addExpression("Cover");
+        for (int i = 0; i < SIZES.length; i++) {
+            tmpCover.set(i, SIZES[i]);
+        }
+        tmpCover.lower(17);
+
+        final Expression tmpPair = retVal.addExpression("Pair");
+        tmpPair.set(0, 1).set(2, 1).upper(1);
+
+        retVal.setMinimisation();
+
+        return retVal;
+    }
+
+    public HeuristicsTest() {
+        super();
+    }
+
+    public HeuristicsTest(final String someName) {
+        super(someName);
+    }
+
+    public void testFeasibilityPump() {
+        this.doTestFound(Heuristics.FEASIBILITY_PUMP, false);
+    }
+
+    public void testFractionalDiving() {
+        this.doTestFound(Heuristics.FRACTIONAL_DIVING, false);
+    }
+
+    public void testGuidedDiving() {
+        this.doTestFound(Heuristics.GUIDED_DIVING, true);
+    }
+
+    public void testRINS() {
+
+        final ExpressionsBasedModel tmpModel = HeuristicsTest.makeCoveringModel();
+        final IntegerSolver tmpSolver = IntegerSolver.make(tmpModel);
+        final IntegerSolver.HeuristicContext tmpContext = this.makeContext(tmpModel, tmpSolver, true);
+
+        final Optimisation.Result tmpResult = Heuristics.RINS.search(tmpContext);
+
+        TestUtils.assertTrue(tmpResult != null);
+        this.assertValidInteger(tmpModel, tmpResult);
+        TestUtils.assertTrue(tmpSolver.evaluateFunction(tmpResult) < tmpContext.getIncumbent().getValue());
+    }
+
+    public void testShiftRounding() {
+        this.doTestFound(Heuristics.SHIFT_ROUNDING, false);
+    }
+
+    public void testSimpleRounding() {
+
+        final ExpressionsBasedModel tmpModel = HeuristicsTest.makeCoveringModel();
+        final IntegerSolver tmpSolver = IntegerSolver.make(tmpModel);
+        final IntegerSolver.HeuristicContext tmpContext = this.makeContext(tmpModel, tmpSolver, false);
+
+        final Optimisation.Result tmpResult = Heuristics.SIMPLE_ROUNDING.search(tmpContext);
+
+        TestUtils.assertEquals(tmpModel.countVariables(), tmpResult.count());
+        for (int i = 0; i < tmpResult.count(); i++) {
+            final double tmpValue = tmpResult.doubleValue(i);
+            TestUtils.assertTrue((tmpValue == 0.0) || (tmpValue == 1.0));
+        }
+    }
+
+    public void testSolveWithHeuristics() {
+
+        final IntegerSolver.Heuristic[] tmpHeuristics = new IntegerSolver.Heuristic[] { Heuristics.SIMPLE_ROUNDING, Heuristics.SHIFT_ROUNDING,
+                Heuristics.FRACTIONAL_DIVING, Heuristics.FEASIBILITY_PUMP, Heuristics.GUIDED_DIVING, Heuristics.RINS };
+
+        final ExpressionsBasedModel tmpModel = HeuristicsTest.makeCoveringModel();
+        final Optimisation.Result tmpWith;
+        try {
+            for (final IntegerSolver.Heuristic tmpHeuristic : tmpHeuristics) {
+                IntegerSolver.addHeuristic(tmpHeuristic);
+            }
+            tmpWith = tmpModel.minimise();
+        } finally {
+            for (final IntegerSolver.Heuristic tmpHeuristic : tmpHeuristics) {
+                IntegerSolver.removeHeuristic(tmpHeuristic);
+            }
+        }
+
+        final ExpressionsBasedModel tmpReference = HeuristicsTest.makeCoveringModel();
+        final Optimisation.Result tmpWithout = IntegerSolver.makeWithoutHeuristics(tmpReference, tmpReference.options).solve(null);
+
+        TestUtils.assertStateNotLessThanOptimal(tmpWith);
+        TestUtils.assertStateNotLessThanOptimal(tmpWithout);
+        TestUtils.assertEquals(tmpWithout.getValue(), tmpWith.getValue(), 1E-8);
+    }
+
+    private void assertValidInteger(final ExpressionsBasedModel model, final Optimisation.Result result) {
+        for (int i = 0; i < result.count(); i++) {
+            final double tmpValue = result.doubleValue(i);
+            TestUtils.assertEquals(Math.rint(tmpValue), tmpValue, 1E-7);
+        }
+        TestUtils.assertTrue(model.validate(result));
+    }
+
+    private void doTestFound(final IntegerSolver.Heuristic heuristic, final boolean incumbent) {
+
+        final ExpressionsBasedModel tmpModel = HeuristicsTest.makeCoveringModel();
+        final IntegerSolver tmpSolver = IntegerSolver.make(tmpModel);
+        final IntegerSolver.HeuristicContext tmpContext = this.makeContext(tmpModel, tmpSolver, incumbent);
+
+        final Optimisation.Result tmpResult = heuristic.search(tmpContext);
+
+        TestUtils.assertTrue(tmpResult != null);
+        this.assertValidInteger(tmpModel, tmpResult);
+    }
+
+    private IntegerSolver.HeuristicContext makeContext(final ExpressionsBasedModel model, final IntegerSolver solver, final boolean incumbent) {
+
+        if (incumbent) {
+            // Feasible, but far from optimal
+            final double[] tmpPoint = new double[] { 0, 1, 1, 1, 0, 1, 1, 1 };
+            final Optimisation.Result tmpIncumbent = new Optimisation.Result(Optimisation.State.FEASIBLE, Primitive64Array.wrap(tmpPoint));
+            solver.markInteger(null, new Optimisation.Result(Optimisation.State.FEASIBLE, solver.evaluateFunction(tmpIncumbent), tmpIncumbent));
+        }
+
+        final Optimisation.Result tmpRelaxed = model.relax(false).solve(model.getVariableValues());
+
+        return solver.new HeuristicContext(model, tmpRelaxed);
+    }
+
+}
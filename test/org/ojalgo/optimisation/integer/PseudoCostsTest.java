@@ -0,0 +1,88 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+
+/**
+ * @author apete
+ */
+public class PseudoCostsTest extends OptimisationIntegerTests {
+
+    public PseudoCostsTest() {
+        super();
+    }
+
+    public PseudoCostsTest(final String someName) {
+        super(someName);
+    }
+
+    public void testReliabilityBranching() {
+
+        final ExpressionsBasedModel tmpModel = HeuristicsTest.makeCoveringModel();
+
+        tmpModel.setMinimisation();
+
+        // The old (depth-first) solver, without pseudocosts, as reference – minimise() uses the new one
+        final IntegerSolver tmpReference = new IntegerSolver.ModelIntegration(false).build(tmpModel);
+        final Optimisation.Result tmpExpected = tmpReference.solve();
+        TestUtils.assertTrue(tmpReference instanceof OldIntegerSolver);
+        TestUtils.assertStateNotLessThanOptimal(tmpExpected);
+
+        final NewIntegerSolver tmpSolver = new NewIntegerSolver(tmpModel, tmpModel.options);
+        final Optimisation.Result tmpActual = tmpSolver.solve();
+
+        TestUtils.assertStateNotLessThanOptimal(tmpActual);
+        TestUtils.assertEquals(tmpExpected.getValue(), tmpActual.getValue(), 1E-9);
+        TestUtils.assertTrue(tmpModel.validate(tmpActual));
+    }
+
+    public void testUpdateAndScore() {
+
+        final PseudoCosts tmpPseudoCosts = new PseudoCosts(2);
+
+        // Before any observations the fallback is 1.0 per unit change
+        TestUtils.assertEquals(1.0, tmpPseudoCosts.getDown(0), 1E-12);
+        TestUtils.assertEquals(1.0, tmpPseudoCosts.getUp(1), 1E-12);
+        TestUtils.assertFalse(tmpPseudoCosts.isReliable(0, 1));
+
+        tmpPseudoCosts.update(0, false, 0.5, 2.0);
+        tmpPseudoCosts.update(0, true, 0.5, 4.0);
+        tmpPseudoCosts.update(0, true, 0.25, 2.0);
+
+        TestUtils.assertEquals(1, tmpPseudoCosts.countDown(0));
+        TestUtils.assertEquals(2, tmpPseudoCosts.countUp(0));
+        TestUtils.assertEquals(4.0, tmpPseudoCosts.getDown(0), 1E-12);
+        TestUtils.assertEquals(8.0, tmpPseudoCosts.getUp(0), 1E-12);
+        TestUtils.assertTrue(tmpPseudoCosts.isReliable(0, 1));
+        TestUtils.assertFalse(tmpPseudoCosts.isReliable(0, 2));
+
+        // Unobserved variables use the averages of the observed ones
+        TestUtils.assertEquals(4.0, tmpPseudoCosts.getDown(1), 1E-12);
+        TestUtils.assertEquals(8.0, tmpPseudoCosts.getUp(1), 1E-12);
+
+        TestUtils.assertTrue(tmpPseudoCosts.score(0, 0.5) > tmpPseudoCosts.score(0, 0.9));
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.random;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.access.Access1D;
+
+/**
+ * @author apete
+ */
+public class QuasiRandomTest extends RandomTests {
+
+    public QuasiRandomTest() {
+        super();
+    }
+
+    public QuasiRandomTest(final String arg0) {
+        super(arg0);
+    }
+
+    public void testHalton() {
+
+        final Halton tmpHalton = new Halton(2);
+        final double[] tmpPoint = new double[2];
+
+        final double[][] tmpExpected = { { 1.0 / 2.0, 1.0 / 3.0 }, { 1.0 / 4.0, 2.0 / 3.0 }, { 3.0 / 4.0, 1.0 / 9.0 }, { 1.0 / 8.0, 4.0 / 9.0 } };
+        for (final double[] tmpExpectedPoint : tmpExpected) {
+            tmpHalton.next(tmpPoint);
+            TestUtils.assertEquals(tmpExpectedPoint[0], tmpPoint[0], 1E-15);
+            TestUtils.assertEquals(tmpExpectedPoint[1], tmpPoint[1], 1E-15);
+        }
+
+        TestUtils.assertEquals(10, Halton.primes(10).length);
+        TestUtils.assertEquals(29, Halton.primes(10)[9]);
+    }
+
+    public void testIntegration() {
+
+        // The integral of the product of (2 x_i) over the unit hypercube is 1.0
+        final int tmpDim = 5;
+        final int tmpCount = 1 << 14;
+
+        final QuasiRandom[] tmpSequences = { new Sobol(tmpDim), new Sobol(tmpDim, 1L), new Halton(tmpDim, 1L) };
+
+        final double[] tmpPoint = new double[tmpDim];
+
+        for (final QuasiRandom tmpSequence : tmpSequences) {
+            double tmpSum = 0.0;
+            for (int n = 0; n < tmpCount; n++) {
+                tmpSequence.next(tmpPoint);
+                double tmpProduct = 1.0;
+                for (int d = 0; d < tmpDim; d++) {
+                    tmpProduct *= 2.0 * tmpPoint[d];
+                }
+                tmpSum += tmpProduct;
+            }
+            // Plain Monte Carlo would have a standard error of about 0.01
+            TestUtils.assertEquals(tmpSequence.getClass().getSimpleName(), 1.0, tmpSum / tmpCount, 0.002);
+        }
+    }
+
+    public void testNormalQuantile() {
+
+        TestUtils.assertEquals(0.0, RandomUtils.normalQuantile(0.5), 1E-15);
+        TestUtils.assertEquals(1.959963984540054, RandomUtils.normalQuantile(0.975), 1E-14);
+        TestUtils.assertEquals(-1.959963984540054, RandomUtils.normalQuantile(0.025), 1E-14);
+        TestUtils.assertEquals(-6.361340902404056, RandomUtils.normalQuantile(1E-10), 1E-12);
+
+        final Normal tmpNormal = new Normal();
+        for (int i = 1; i < 100; i++) {
+            final double tmpProbability = i / 100.0;
+            TestUtils.assertEquals(tmpProbability, tmpNormal.getDistribution(RandomUtils.normalQuantile(tmpProbability)), 1E-9);
+        }
+
+        TestUtils.assertTrue(Double.isInfinite(RandomUtils.normalQuantile(0.0)));
+    }
+
+    public void testSobol() {
+
+        final Sobol tmpSobol = new Sobol(3);
+        final double[] tmpPoint = new double[3];
+
+        final double[][] tmpExpected = { { 0.5, 0.5, 0.5 }, { 0.75, 0.25, 0.25 }, { 0.25, 0.75, 0.75 }, { 0.375, 0.375, 0.625 } };
+        for (final double[] tmpExpectedPoint : tmpExpected) {
+            tmpSobol.next(tmpPoint);
+            for (int d = 0; d < 3; d++) {
+                TestUtils.assertEquals(tmpExpectedPoint[d], tmpPoint[d], 1E-9);
+            }
+        }
+
+        // Skipping gives the same points
+        final Sobol tmpSkipped = new Sobol(300, 7L);
+        final Sobol tmpSequential = new Sobol(300, 7L);
+        final double[] tmpSkippedPoint = new double[300];
+        final double[] tmpSequentialPoint = new double[300];
+        for (int n = 1; n < 100; n++) {
+            tmpSequential.next(tmpSequentialPoint);
+        }
+        tmpSkipped.skipTo(100L);
+        tmpSkipped.next(tmpSkippedPoint);
+        tmpSequential.next(tmpSequentialPoint);
+        TestUtils.assertEquals(Access1D.wrapAccess1D(tmpSequentialPoint), Access1D.wrapAccess1D(tmpSkippedPoint));
+
+        // All polynomials (also those generated beyond the table) are primitive
+        for (final int[] tmpEntry : Sobol.polynomials(300)) {
+            TestUtils.assertTrue(Sobol.isPrimitive(tmpEntry[0], tmpEntry[1]));
+            for (int i = 1; i <= tmpEntry[0]; i++) {
+                TestUtils.assertEquals(1, tmpEntry[1 + i] % 2);
+                TestUtils.assertTrue(tmpEntry[1 + i] < (1 << i));
+            }
+        }
+    }
+
+}
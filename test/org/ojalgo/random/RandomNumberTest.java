@@ -27,7 +27,10 @@ import org.ojalgo.TestUtils;
 import org.ojalgo.access.Access1D;
 import org.ojalgo.array.Primitive64Array;
 import org.ojalgo.constant.PrimitiveMath;
+import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.RawStore;
 import org.ojalgo.scalar.PrimitiveScalar;
 import org.ojalgo.series.CalendarDateSeries;
 import org.ojalgo.type.context.NumberContext;
@@ -385,6 +388,31 @@ public class RandomNumberTest extends RandomTests {
 
     }
 
+    public void testNormal1D() {
+
+        final double[][] tmpCovariances = new double[][] { { 4.0, 1.2, -0.3 }, { 1.2, 1.0, 0.15 }, { -0.3, 0.15, 0.25 } };
+        final Normal1D tmpDistribution = new Normal1D(Primitive64Array.wrap(new double[] { ONE, -TWO, HALF }), new RawStore(tmpCovariances));
+
+        final int tmpCount = 200_000;
+        final PrimitiveDenseStore tmpDraws = PrimitiveDenseStore.FACTORY.makeZero(tmpCount, 3);
+        tmpDistribution.fill(tmpDraws);
+
+        for (int j = 0; j < 3; j++) {
+            TestUtils.assertEquals(tmpDistribution.getExpected().doubleValue(j), tmpDraws.aggregateColumn(j, Aggregator.SUM).doubleValue() / tmpCount, 0.02);
+        }
+
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                double tmpSum = ZERO;
+                for (int r = 0; r < tmpCount; r++) {
+                    tmpSum += (tmpDraws.doubleValue(r, i) - tmpDistribution.getExpected().doubleValue(i))
+                            * (tmpDraws.doubleValue(r, j) - tmpDistribution.getExpected().doubleValue(j));
+                }
+                TestUtils.assertEquals(tmpCovariances[i][j], tmpSum / tmpCount, 0.05);
+            }
+        }
+    }
+
     public void testSampledMean() {
 
         final RandomNumber[] tmpRndNmbrs = new RandomNumber[] { new Exponential(), new LogNormal(), new Normal(), new Uniform(), new Binomial(),
@@ -0,0 +1,135 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.random;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+
+/**
+ * @author apete
+ */
+public class Xoshiro256Test extends RandomTests {
+
+    public Xoshiro256Test() {
+        super();
+    }
+
+    public Xoshiro256Test(final String arg0) {
+        super(arg0);
+    }
+
+    public void testFill() {
+
+        final Normal tmpNormal = new Normal(2.0, 3.0);
+        tmpNormal.setGenerator(new Xoshiro256(1L));
+
+        final double[] tmpArray = new double[100_000];
+        tmpNormal.fill(tmpArray);
+
+        final SampleSet tmpSampleSet = SampleSet.wrap(PrimitiveDenseStore.FACTORY.columns(tmpArray));
+        TestUtils.assertEquals(2.0, tmpSampleSet.getMean(), 0.05);
+        TestUtils.assertEquals(3.0, tmpSampleSet.getStandardDeviation(), 0.05);
+
+        final PrimitiveDenseStore tmpStore = PrimitiveDenseStore.FACTORY.makeZero(100, 100);
+        final Exponential tmpExponential = new Exponential(2.0);
+        tmpExponential.fill(tmpStore);
+
+        final SampleSet tmpExpSet = SampleSet.wrap(tmpStore);
+        TestUtils.assertEquals(0.5, tmpExpSet.getMean(), 0.025);
+        TestUtils.assertEquals(0.5, tmpExpSet.getStandardDeviation(), 0.025);
+        TestUtils.assertTrue(tmpExpSet.getMinimum() >= 0.0);
+    }
+
+    /**
+     * Same seed gives the same sequence, and split streams are different.
+     */
+    public void testPerThreadByDefault() throws InterruptedException {
+
+        TestUtils.assertTrue(Xoshiro256.current() == Xoshiro256.current());
+
+        final Xoshiro256[] tmpOther = new Xoshiro256[1];
+        final Thread tmpThread = new Thread(() -> tmpOther[0] = Xoshiro256.current());
+        tmpThread.start();
+        tmpThread.join();
+
+        TestUtils.assertTrue(tmpOther[0] != null);
+        TestUtils.assertTrue(tmpOther[0] != Xoshiro256.current());
+    }
+
+    public void testReproducibleAndSplit() {
+
+        final Xoshiro256 tmpFirst = new Xoshiro256(123L);
+        final Xoshiro256 tmpSecond = new Xoshiro256(123L);
+
+        for (int i = 0; i < 100; i++) {
+            TestUtils.assertEquals(tmpFirst.nextLong(), tmpSecond.nextLong());
+        }
+
+        final Xoshiro256 tmpSplit = tmpFirst.split();
+        tmpSecond.jump();
+
+        // After split the original has jumped, the new one continues where the original was
+        TestUtils.assertEquals(tmpSecond.nextLong(), tmpFirst.nextLong());
+        TestUtils.assertFalse(tmpSplit.nextLong() == new Xoshiro256(123L).nextLong());
+    }
+
+    /**
+     * The ziggurat normal and exponential samplers should match the moments and tail probabilities
+     */
+    public void testZiggurat() {
+
+        final Xoshiro256 tmpRandom = new Xoshiro256(42L);
+
+        final int tmpCount = 1_000_000;
+
+        double tmpNormSum = 0.0, tmpNormSum2 = 0.0, tmpExpSum = 0.0, tmpExpSum2 = 0.0;
+        int tmpNormTail = 0, tmpExpTail = 0;
+
+        for (int i = 0; i < tmpCount; i++) {
+
+            final double tmpNorm = tmpRandom.nextGaussian();
+            tmpNormSum += tmpNorm;
+            tmpNormSum2 += tmpNorm * tmpNorm;
+            if (Math.abs(tmpNorm) > 3.0) {
+                tmpNormTail++;
+            }
+
+            final double tmpExp = tmpRandom.nextExponential();
+            tmpExpSum += tmpExp;
+            tmpExpSum2 += tmpExp * tmpExp;
+            if (tmpExp > 5.0) {
+                tmpExpTail++;
+            }
+        }
+
+        TestUtils.assertEquals(0.0, tmpNormSum / tmpCount, 0.005);
+        TestUtils.assertEquals(1.0, tmpNormSum2 / tmpCount, 0.005);
+        // P(|X|>3) = 0.0026998
+        TestUtils.assertEquals(0.0027, (double) tmpNormTail / tmpCount, 0.0003);
+
+        TestUtils.assertEquals(1.0, tmpExpSum / tmpCount, 0.005);
+        TestUtils.assertEquals(2.0, tmpExpSum2 / tmpCount, 0.02);
+        // P(X>5) = 0.0067379
+        TestUtils.assertEquals(0.006738, (double) tmpExpTail / tmpCount, 0.0005);
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.random.process;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.array.Array2D;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.random.Normal;
+import org.ojalgo.random.SampleSet;
+import org.ojalgo.random.process.RandomProcess.SimulationResults;
+
+/**
+ * @author apete
+ */
+public class SimulationEngineTest extends RandomProcessTests {
+
+    public SimulationEngineTest() {
+        super();
+    }
+
+    public SimulationEngineTest(final String aName) {
+        super(aName);
+    }
+
+    public void testExpectedValue() {
+
+        final GeometricBrownianMotion tmpProcess = GeometricBrownianMotion.make(100.0, 110.0, 400.0, 1.0);
+
+        final SimulationResults tmpResults = new SimulationEngine(123L).simulate(tmpProcess, 10_000, 10, 0.1);
+
+        final SampleSet tmpLast = tmpResults.getSampleSet(9);
+        TestUtils.assertEquals(110.0, tmpLast.getMean(), 1.0);
+        TestUtils.assertEquals(20.0, tmpLast.getStandardDeviation(), 1.0);
+
+        // The process state is not modified
+        TestUtils.assertEquals(100.0, tmpProcess.getValue());
+        TestUtils.assertEquals(100.0, tmpResults.getInitialValue());
+    }
+
+    public void testReproducible() {
+
+        final GeometricBrownianMotion tmpProcess = GeometricBrownianMotion.make(1.0, 1.1, 0.04, 1.0);
+
+        final Array2D<Double> tmpSequential = Array2D.PRIMITIVE64.makeDense(1000, 12);
+        final Array2D<Double> tmpParallel = Array2D.PRIMITIVE64.makeDense(1000, 12);
+
+        new SimulationEngine(42L, 1).simulate(tmpProcess, 1.0 / 12.0, tmpSequential);
+        new SimulationEngine(42L, 4).simulate(tmpProcess, 1.0 / 12.0, tmpParallel);
+
+        for (long i = 0L; i < tmpSequential.count(); i++) {
+            TestUtils.assertEquals(tmpSequential.doubleValue(i), tmpParallel.doubleValue(i), 0.0);
+        }
+
+        new SimulationEngine(43L, 4).simulate(tmpProcess, 1.0 / 12.0, tmpParallel);
+
+        TestUtils.assertFalse(tmpSequential.doubleValue(0L) == tmpParallel.doubleValue(0L));
+
+        final List<GeometricBrownianMotion> tmpProcesses = new ArrayList<>();
+        tmpProcesses.add(GeometricBrownianMotion.make(1.0, 1.1, 0.04, 1.0));
+        tmpProcesses.add(GeometricBrownianMotion.make(2.0, 2.1, 0.09, 1.0));
+        tmpProcesses.add(GeometricBrownianMotion.make(3.0, 3.1, 0.16, 1.0));
+
+        final PrimitiveDenseStore tmpCorrelations = PrimitiveDenseStore.FACTORY
+                .rows(new double[][] { { 1.0, 0.5, 0.2 }, { 0.5, 1.0, 0.3 }, { 0.2, 0.3, 1.0 } });
+        final GeometricBrownian1D tmpPortfolio = new GeometricBrownian1D(tmpCorrelations, tmpProcesses);
+
+        final SimulationResults tmpResults1 = new SimulationEngine(7L, 1).simulate(tmpPortfolio, 500, 24, 1.0 / 12.0, 3);
+        final SimulationResults tmpResults3 = new SimulationEngine(7L, 3).simulate(tmpPortfolio, 500, 24, 1.0 / 12.0, 3);
+
+        TestUtils.assertEquals(6.0, tmpResults1.getInitialValue());
+        for (int s = 0; s < 24; s++) {
+            TestUtils.assertEquals(tmpResults1.getSampleSet(s).getMean(), tmpResults3.getSampleSet(s).getMean(), 0.0);
+            TestUtils.assertEquals(tmpResults1.getSampleSet(s).getMaximum(), tmpResults3.getSampleSet(s).getMaximum(), 0.0);
+        }
+    }
+
+    /**
+     * Each of the sampling options should give (approximately) the correct distribution, and the variance
+     * reduction techniques should reduce the standard error.
+     */
+    public void testSampling() {
+
+        final GeometricBrownianMotion tmpProcess = GeometricBrownianMotion.make(100.0, 110.0, 400.0, 1.0);
+        final double tmpExpected = tmpProcess.getDistribution(1.0).getExpected();
+
+        // Call option payoff
+        final PrimitiveFunction.Unary tmpPayoff = arg -> Math.max(arg - 105.0, 0.0);
+
+        final SimulationResults tmpPlain = new SimulationEngine(1L, 2).simulate(tmpProcess, 4096, 16, 1.0 / 16.0);
+        final Normal tmpPlainEstimate = tmpPlain.estimate(15, tmpPayoff);
+
+        for (final SimulationEngine.Sampling tmpSampling : SimulationEngine.Sampling.values()) {
+            for (final boolean tmpBridge : new boolean[] { false, true }) {
+
+                final SimulationEngine tmpEngine = new SimulationEngine(1L, 2, tmpSampling, tmpBridge);
+                final SimulationResults tmpResults = tmpEngine.simulate(tmpProcess, 4096, 16, 1.0 / 16.0);
+
+                TestUtils.assertEquals(tmpSampling == SimulationEngine.Sampling.ANTITHETIC, tmpResults.isAntithetic());
+
+                final SampleSet tmpMid = tmpResults.getSampleSet(7);
+                final SampleSet tmpLast = tmpResults.getSampleSet(15);
+                TestUtils.assertEquals(tmpSampling + " " + tmpBridge, tmpProcess.getDistribution(0.5).getExpected(), tmpMid.getMean(), 1.0);
+                TestUtils.assertEquals(tmpSampling + " " + tmpBridge, tmpExpected, tmpLast.getMean(), 1.0);
+                TestUtils.assertEquals(tmpSampling + " " + tmpBridge, 20.0, tmpLast.getStandardDeviation(), 1.0);
+
+                final Normal tmpEstimate = tmpResults.estimate(15, tmpPayoff);
+                TestUtils.assertEquals(tmpPlainEstimate.getExpected(), tmpEstimate.getExpected(), 3.0 * tmpPlainEstimate.getStandardDeviation());
+            }
+        }
+
+        final SimulationResults tmpAntithetic = new SimulationEngine(1L, 2, SimulationEngine.Sampling.ANTITHETIC, false).simulate(tmpProcess, 4096, 16,
+                1.0 / 16.0);
+        TestUtils.assertTrue(tmpAntithetic.estimate(15, tmpPayoff).getStandardDeviation() < tmpPlainEstimate.getStandardDeviation());
+
+        final Normal tmpControlled = tmpPlain.estimate(15, tmpPayoff, tmpExpected);
+        TestUtils.assertTrue(tmpControlled.getStandardDeviation() < (tmpPlainEstimate.getStandardDeviation() / 2.0));
+        TestUtils.assertEquals(tmpPlainEstimate.getExpected(), tmpControlled.getExpected(), 3.0 * tmpPlainEstimate.getStandardDeviation());
+
+        // Only diffusion processes
+        try {
+            new SimulationEngine(1L, 1, SimulationEngine.Sampling.SOBOL, false).simulate(new PoissonProcess(1.0), 64, 4, 1.0);
+            TestUtils.fail();
+        } catch (final IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+
+}
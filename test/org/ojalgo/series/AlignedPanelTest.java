@@ -0,0 +1,166 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.series;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.series.primitive.PrimitiveSeries;
+import org.ojalgo.type.CalendarDate;
+import org.ojalgo.type.CalendarDateUnit;
+
+/**
+ * @author apete
+ */
+public class AlignedPanelTest extends SeriesTests {
+
+    private static final long DAY = CalendarDateUnit.DAY.size();
+
+    private static List<CalendarDateSeries<Double>> makeRandom(final int numberOfSeries, final Random random) {
+
+        final List<CalendarDateSeries<Double>> retVal = new ArrayList<>();
+
+        for (int j = 0; j < numberOfSeries; j++) {
+
+            final CalendarDateSeries<Double> tmpSeries = new CalendarDateSeries<Double>(CalendarDateUnit.DAY).name("S" + j);
+
+            long tmpDay = random.nextInt(10);
+            final long tmpLast = 200 + random.nextInt(10);
+            while (tmpDay <= tmpLast) {
+                tmpSeries.put(new CalendarDate(tmpDay * DAY), 100.0 + random.nextGaussian());
+                tmpDay += 1 + random.nextInt(4);
+            }
+
+            retVal.add(tmpSeries);
+        }
+
+        return retVal;
+    }
+
+    public AlignedPanelTest() {
+        super();
+    }
+
+    public AlignedPanelTest(final String arg0) {
+        super(arg0);
+    }
+
+    public void testFill() {
+
+        final CalendarDateSeries<Double> tmpA = new CalendarDateSeries<Double>(CalendarDateUnit.DAY).name("A");
+        final CalendarDateSeries<Double> tmpB = new CalendarDateSeries<Double>(CalendarDateUnit.DAY).name("B");
+
+        tmpA.put(new CalendarDate(0L), 1.0);
+        tmpA.put(new CalendarDate(4 * DAY), 5.0);
+        tmpA.put(new CalendarDate(6 * DAY), 7.0);
+
+        tmpB.put(new CalendarDate(1 * DAY), 10.0);
+        tmpB.put(new CalendarDate(2 * DAY), 20.0);
+        tmpB.put(new CalendarDate(5 * DAY), 50.0);
+        tmpB.put(new CalendarDate(7 * DAY), 70.0);
+
+        final List<CalendarDateSeries<Double>> tmpSeries = new ArrayList<>();
+        tmpSeries.add(tmpA);
+        tmpSeries.add(tmpB);
+
+        // Range is [1,6], union axis is 1,2,4,5,6
+        final AlignedPanel tmpForward = AlignedPanel.align(tmpSeries, CalendarDateUnit.DAY, false, AlignedPanel.Fill.FORWARD);
+        TestUtils.assertEquals(5, tmpForward.countRows());
+        TestUtils.assertEquals(Primitive64Array.wrap(new double[] { 1.0, 1.0, 5.0, 5.0, 7.0 }), tmpForward.getColumn("A"));
+        TestUtils.assertEquals(Primitive64Array.wrap(new double[] { 10.0, 20.0, 20.0, 50.0, 50.0 }), tmpForward.getColumn("B"));
+
+        final AlignedPanel tmpLinear = AlignedPanel.align(tmpSeries, CalendarDateUnit.DAY, true, AlignedPanel.Fill.LINEAR);
+        TestUtils.assertEquals(6, tmpLinear.countRows());
+        TestUtils.assertEquals(Primitive64Array.wrap(new double[] { 2.0, 3.0, 4.0, 5.0, 6.0, 7.0 }), tmpLinear.getColumn(0));
+        TestUtils.assertEquals(Primitive64Array.wrap(new double[] { 10.0, 20.0, 30.0, 40.0, 50.0, 60.0 }), tmpLinear.getColumn(1));
+
+        final AlignedPanel tmpNone = AlignedPanel.align(tmpSeries, CalendarDateUnit.DAY, true, AlignedPanel.Fill.NONE);
+        TestUtils.assertTrue(Double.isNaN(tmpNone.getBlock().doubleValue(2, 0)));
+        TestUtils.assertEquals(50.0, tmpNone.getBlock().doubleValue(4, 1));
+    }
+
+    public void testRegularSameAsCompleteAndPrune() {
+
+        final List<CalendarDateSeries<Double>> tmpSeries = AlignedPanelTest.makeRandom(100, new Random(42L));
+
+        final AlignedPanel tmpPanel = AlignedPanel.align(tmpSeries, CalendarDateUnit.DAY, true, AlignedPanel.Fill.FORWARD);
+
+        final CoordinationSet<Double> tmpSet = new CoordinationSet<>(tmpSeries);
+        tmpSet.complete();
+        final CoordinationSet<Double> tmpPruned = tmpSet.prune(CalendarDateUnit.DAY);
+
+        for (int j = 0; j < tmpSeries.size(); j++) {
+
+            final CalendarDateSeries<Double> tmpExpected = tmpPruned.get("S" + j);
+            final PrimitiveSeries tmpActual = tmpPanel.getColumn(j);
+
+            TestUtils.assertEquals(tmpExpected.getPrimitiveKeys(), tmpPanel.getAxis());
+            TestUtils.assertEquals(tmpExpected.asPrimitive(), tmpActual);
+        }
+
+        final AlignedPanel tmpWeekly = tmpPanel.resample(CalendarDateUnit.WEEK);
+        for (int j = 0; j < tmpSeries.size(); j += 17) {
+            final CalendarDateSeries<Double> tmpExpected = tmpPanel.toSeries(j).resample(CalendarDateUnit.WEEK);
+            TestUtils.assertEquals(tmpExpected.getPrimitiveKeys(), tmpWeekly.getAxis());
+            TestUtils.assertEquals(tmpExpected.asPrimitive(), tmpWeekly.getColumn(j));
+        }
+    }
+
+    public void testUnion() {
+
+        final List<CalendarDateSeries<Double>> tmpSeries = AlignedPanelTest.makeRandom(100, new Random(7L));
+
+        final CoordinationSet<Double> tmpSet = new CoordinationSet<>(tmpSeries);
+
+        final List<String> tmpNames = new ArrayList<>();
+        for (final CalendarDateSeries<Double> tmpMember : tmpSeries) {
+            tmpNames.add(tmpMember.getName());
+        }
+
+        final AlignedPanel tmpPanel = tmpSet.align(tmpNames);
+
+        final CalendarDate tmpFirst = tmpSet.getLatestFirstKey();
+        final CalendarDate tmpLast = tmpSet.getEarliestLastKey();
+
+        final TreeSet<CalendarDate> tmpUnion = new TreeSet<>();
+        for (final CalendarDateSeries<Double> tmpMember : tmpSeries) {
+            tmpUnion.addAll(tmpMember.subMap(tmpFirst, true, tmpLast, true).keySet());
+        }
+
+        TestUtils.assertEquals(tmpUnion.size(), tmpPanel.countRows());
+
+        int i = 0;
+        for (final CalendarDate tmpDate : tmpUnion) {
+            TestUtils.assertEquals(tmpDate.millis, tmpPanel.getAxis()[i]);
+            for (int j = 0; j < tmpSeries.size(); j++) {
+                final double tmpExpected = tmpSeries.get(j).floorEntry(tmpDate).getValue();
+                TestUtils.assertEquals(tmpExpected, tmpPanel.getBlock().doubleValue(i, j));
+            }
+            i++;
+        }
+    }
+
+}
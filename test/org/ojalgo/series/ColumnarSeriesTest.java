@@ -0,0 +1,164 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.series;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.series.primitive.PrimitiveSeries;
+import org.ojalgo.type.CalendarDate;
+import org.ojalgo.type.CalendarDateUnit;
+
+/**
+ * @author apete
+ */
+public class ColumnarSeriesTest extends SeriesTests {
+
+    private static void assertSame(final SortedMap<CalendarDate, Double> expected, final ColumnarSeries<CalendarDate> actual) {
+
+        TestUtils.assertEquals(expected.size(), actual.size());
+        TestUtils.assertEquals(expected, actual);
+
+        if (!expected.isEmpty()) {
+            TestUtils.assertEquals(expected.firstKey(), actual.firstKey());
+            TestUtils.assertEquals(expected.lastKey(), actual.lastKey());
+        }
+
+        final PrimitiveSeries tmpPrimitive = actual.asPrimitive();
+        TestUtils.assertEquals(expected.size(), tmpPrimitive.size());
+        int i = 0;
+        for (final Double tmpValue : expected.values()) {
+            TestUtils.assertEquals(tmpValue.doubleValue(), tmpPrimitive.value(i++));
+        }
+    }
+
+    public ColumnarSeriesTest() {
+        super();
+    }
+
+    public ColumnarSeriesTest(final String arg0) {
+        super(arg0);
+    }
+
+    public void testAccumulator() {
+
+        final ColumnarSeries<CalendarDate> tmpSeries = BasicSeries.CALENDAR_DATE.resolution(CalendarDateUnit.DAY).buildColumnar(PrimitiveFunction.ADD);
+
+        final CalendarDate tmpDay = new CalendarDate(0L);
+        TestUtils.assertEquals(1.0, tmpSeries.put(tmpDay, 1.0));
+        TestUtils.assertEquals(3.0, tmpSeries.put(tmpDay, 2.0));
+        TestUtils.assertEquals(1, tmpSeries.size());
+
+        final ColumnarSeries<CalendarDate> tmpMillis = BasicSeries.CALENDAR_DATE.resolution(CalendarDateUnit.MILLIS).buildColumnar(PrimitiveFunction.ADD);
+        for (int h = 0; h < 72; h++) {
+            tmpMillis.put(new CalendarDate(h * CalendarDateUnit.HOUR.size()), 1.0);
+        }
+
+        final ColumnarSeries<CalendarDate> tmpDaily = tmpMillis.resample(CalendarDateUnit.DAY);
+        TestUtils.assertEquals(3, tmpDaily.size());
+        TestUtils.assertEquals(24.0, tmpDaily.lastValue().doubleValue());
+    }
+
+    public void testAgainstTreeMap() {
+
+        final Random tmpRandom = new Random(123L);
+
+        final TreeMap<CalendarDate, Double> tmpExpected = new TreeMap<>();
+        final ColumnarSeries<CalendarDate> tmpActual = BasicSeries.CALENDAR_DATE.resolution(CalendarDateUnit.MINUTE).buildColumnar();
+
+        // Mostly appending, with some out of order inserts, overwrites and removes
+        long tmpMinute = 0L;
+        for (int i = 0; i < 5000; i++) {
+
+            final CalendarDate tmpKey;
+            final int tmpCase = tmpRandom.nextInt(10);
+            if (tmpCase < 7) {
+                tmpKey = new CalendarDate((tmpMinute += 1 + tmpRandom.nextInt(3)) * 60_000L);
+            } else {
+                tmpKey = new CalendarDate(tmpRandom.nextInt((int) tmpMinute + 1) * 60_000L);
+            }
+            final double tmpValue = tmpRandom.nextGaussian();
+
+            if (tmpCase == 9) {
+                TestUtils.assertEquals((Object) tmpExpected.remove(tmpKey), (Object) tmpActual.remove(tmpKey));
+            } else {
+                TestUtils.assertEquals((Object) tmpExpected.put(tmpKey, tmpValue), (Object) tmpActual.put(tmpKey, (Double) tmpValue));
+            }
+        }
+
+        ColumnarSeriesTest.assertSame(tmpExpected, tmpActual);
+
+        final CalendarDate tmpFrom = new CalendarDate((tmpMinute / 3) * 60_000L);
+        final CalendarDate tmpTo = new CalendarDate(((2 * tmpMinute) / 3) * 60_000L);
+
+        ColumnarSeriesTest.assertSame(tmpExpected.headMap(tmpTo), tmpActual.headMap(tmpTo));
+        ColumnarSeriesTest.assertSame(tmpExpected.tailMap(tmpFrom), tmpActual.tailMap(tmpFrom));
+        ColumnarSeriesTest.assertSame(tmpExpected.subMap(tmpFrom, tmpTo), tmpActual.subMap(tmpFrom, tmpTo));
+        ColumnarSeriesTest.assertSame(tmpExpected.subMap(tmpTo, tmpTo), tmpActual.subMap(tmpTo, tmpTo));
+
+        // Views are live
+        final ColumnarSeries<CalendarDate> tmpView = tmpActual.subMap(tmpFrom, tmpTo);
+        tmpView.put(tmpFrom, 42.0);
+        TestUtils.assertEquals(42.0, tmpActual.doubleValue(tmpFrom));
+        tmpExpected.put(tmpFrom, 42.0);
+
+        final Iterator<Map.Entry<CalendarDate, Double>> tmpIterator = tmpView.entrySet().iterator();
+        try {
+            tmpIterator.remove();
+            TestUtils.fail("Nothing to remove!");
+        } catch (final IllegalStateException cause) {
+            // Expected
+        }
+        while (tmpIterator.hasNext()) {
+            if (tmpIterator.next().getValue() < 0.0) {
+                tmpIterator.remove();
+                try {
+                    tmpIterator.remove();
+                    TestUtils.fail("Already removed!");
+                } catch (final IllegalStateException cause) {
+                    // Expected
+                }
+            }
+        }
+        tmpExpected.subMap(tmpFrom, tmpTo).values().removeIf(v -> v < 0.0);
+
+        ColumnarSeriesTest.assertSame(tmpExpected, tmpActual);
+
+        tmpActual.headMap(tmpFrom).clear();
+        tmpExpected.headMap(tmpFrom).clear();
+
+        ColumnarSeriesTest.assertSame(tmpExpected, tmpActual);
+
+        try {
+            tmpView.put(tmpTo, 1.0);
+            TestUtils.fail("Key out of range!");
+        } catch (final IllegalArgumentException cause) {
+            // Expected
+        }
+    }
+
+}
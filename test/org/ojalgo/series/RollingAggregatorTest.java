@@ -0,0 +1,127 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.series;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.ojalgo.TestUtils;
+import org.ojalgo.random.SampleSet;
+import org.ojalgo.series.primitive.DataSeries;
+import org.ojalgo.series.primitive.PrimitiveSeries;
+import org.ojalgo.series.primitive.RollingAggregator;
+
+/**
+ * @author apete
+ */
+public class RollingAggregatorTest extends SeriesTests {
+
+    private static double quantile(final double[] values, final int first, final int limit, final double probability) {
+        final double[] tmpSorted = Arrays.copyOfRange(values, first, limit);
+        Arrays.sort(tmpSorted);
+        final double tmpRank = probability * (tmpSorted.length - 1);
+        final int tmpLower = (int) Math.floor(tmpRank);
+        if ((tmpLower + 1) < tmpSorted.length) {
+            return tmpSorted[tmpLower] + ((tmpRank - tmpLower) * (tmpSorted[tmpLower + 1] - tmpSorted[tmpLower]));
+        } else {
+            return tmpSorted[tmpLower];
+        }
+    }
+
+    public RollingAggregatorTest() {
+        super();
+    }
+
+    public RollingAggregatorTest(final String arg0) {
+        super(arg0);
+    }
+
+    public void testAgainstFullAggregation() {
+
+        final Random tmpRandom = new Random(1L);
+        final double[] tmpValues = new double[2000];
+        for (int i = 0; i < tmpValues.length; i++) {
+            // Large offset, and some repeated values
+            tmpValues[i] = 1E6 + (tmpRandom.nextInt(50) / 4.0);
+        }
+        final PrimitiveSeries tmpSeries = DataSeries.wrap(tmpValues);
+
+        for (final int tmpWindow : new int[] { 1, 2, 7, 100 }) {
+
+            final PrimitiveSeries tmpSum = tmpSeries.rolling(RollingAggregator.sum(tmpWindow));
+            final PrimitiveSeries tmpMean = tmpSeries.rolling(RollingAggregator.mean(tmpWindow));
+            final PrimitiveSeries tmpVariance = tmpSeries.rolling(RollingAggregator.variance(tmpWindow));
+            final PrimitiveSeries tmpMin = tmpSeries.rolling(RollingAggregator.minimum(tmpWindow));
+            final PrimitiveSeries tmpMax = tmpSeries.rolling(RollingAggregator.maximum(tmpWindow));
+            final PrimitiveSeries tmpMedian = tmpSeries.rolling(RollingAggregator.median(tmpWindow));
+            final PrimitiveSeries tmpQuantile = tmpSeries.rolling(RollingAggregator.quantile(tmpWindow, 0.9));
+
+            TestUtils.assertEquals((tmpValues.length - tmpWindow) + 1, tmpSum.size());
+
+            for (int i = 0; i < tmpSum.size(); i++) {
+
+                final double[] tmpWindowValues = Arrays.copyOfRange(tmpValues, i, i + tmpWindow);
+                final SampleSet tmpSampleSet = SampleSet.wrap(DataSeries.wrap(tmpWindowValues));
+
+                double tmpExpectedSum = 0.0;
+                for (final double tmpValue : tmpWindowValues) {
+                    tmpExpectedSum += tmpValue;
+                }
+
+                TestUtils.assertEquals(tmpExpectedSum, tmpSum.value(i), 1E-6);
+                TestUtils.assertEquals(tmpSampleSet.getMean(), tmpMean.value(i), 1E-9);
+                if (tmpWindow > 1) {
+                    TestUtils.assertEquals(tmpSampleSet.getVariance(), tmpVariance.value(i), 1E-6);
+                }
+                TestUtils.assertEquals(tmpSampleSet.getMinimum(), tmpMin.value(i));
+                TestUtils.assertEquals(tmpSampleSet.getMaximum(), tmpMax.value(i));
+                TestUtils.assertEquals(RollingAggregatorTest.quantile(tmpValues, i, i + tmpWindow, 0.5), tmpMedian.value(i));
+                TestUtils.assertEquals(RollingAggregatorTest.quantile(tmpValues, i, i + tmpWindow, 0.9), tmpQuantile.value(i), 1E-9);
+            }
+        }
+    }
+
+    public void testStreaming() {
+
+        final RollingAggregator tmpMax = RollingAggregator.maximum(3);
+
+        tmpMax.accept(1.0);
+        TestUtils.assertFalse(tmpMax.isFull());
+        TestUtils.assertEquals(1.0, tmpMax.doubleValue());
+
+        tmpMax.accept(3.0);
+        tmpMax.accept(2.0);
+        TestUtils.assertTrue(tmpMax.isFull());
+        TestUtils.assertEquals(3.0, tmpMax.doubleValue());
+
+        tmpMax.accept(1.0);
+        TestUtils.assertEquals(3.0, tmpMax.doubleValue());
+
+        tmpMax.accept(0.0);
+        TestUtils.assertEquals(2.0, tmpMax.doubleValue());
+
+        TestUtils.assertEquals(3, tmpMax.count());
+        TestUtils.assertEquals(0, tmpMax.reset().count());
+        TestUtils.assertTrue(Double.isNaN(tmpMax.doubleValue()));
+    }
+
+}
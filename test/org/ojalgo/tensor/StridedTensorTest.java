@@ -0,0 +1,217 @@
+/*
+ * Copyright 1997-2017 Optimatika (www.optimatika.se)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.tensor;
+
+import java.util.Random;
+
+import org.ojalgo.FunctionalityTest;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * @author apete
+ */
+public class StridedTensorTest extends FunctionalityTest {
+
+    private static final NumberContext PRECISION = NumberContext.getGeneral(12, 12);
+
+    /**
+     * Loops through every combination of all labels - slow but obviously correct.
+     */
+    private static StridedTensor brute(final String expression, final StridedTensor... operands) {
+
+        final String[] tmpParts = expression.split("->");
+        final String[] tmpInputs = tmpParts[0].split(",");
+        final String tmpOutput = tmpParts.length > 1 ? tmpParts[1] : "";
+
+        final StringBuilder tmpAll = new StringBuilder();
+        final int[] tmpSizes = new int[128];
+        for (int t = 0; t < tmpInputs.length; t++) {
+            for (int a = 0; a < tmpInputs[t].length(); a++) {
+                final char tmpLabel = tmpInputs[t].charAt(a);
+                if (tmpAll.indexOf(String.valueOf(tmpLabel)) < 0) {
+                    tmpAll.append(tmpLabel);
+                }
+                tmpSizes[tmpLabel] = (int) operands[t].count(a);
+            }
+        }
+
+        final int[] tmpOutputShape = new int[tmpOutput.length()];
+        for (int a = 0; a < tmpOutputShape.length; a++) {
+            tmpOutputShape[a] = tmpSizes[tmpOutput.charAt(a)];
+        }
+        final StridedTensor retVal = StridedTensor.make(tmpOutputShape);
+
+        final int[] tmpValues = new int[128];
+        long tmpCombinations = 1L;
+        for (int i = 0; i < tmpAll.length(); i++) {
+            tmpCombinations *= tmpSizes[tmpAll.charAt(i)];
+        }
+
+        for (long c = 0L; c < tmpCombinations; c++) {
+
+            long tmpRemaining = c;
+            for (int i = 0; i < tmpAll.length(); i++) {
+                final char tmpLabel = tmpAll.charAt(i);
+                tmpValues[tmpLabel] = (int) (tmpRemaining % tmpSizes[tmpLabel]);
+                tmpRemaining /= tmpSizes[tmpLabel];
+            }
+
+            double tmpProduct = 1.0;
+            for (int t = 0; t < tmpInputs.length; t++) {
+                final int[] tmpRef = new int[tmpInputs[t].length()];
+                for (int a = 0; a < tmpRef.length; a++) {
+                    tmpRef[a] = tmpValues[tmpInputs[t].charAt(a)];
+                }
+                tmpProduct *= operands[t].doubleValue(tmpRef);
+            }
+
+            final int[] tmpRef = new int[tmpOutput.length()];
+            for (int a = 0; a < tmpRef.length; a++) {
+                tmpRef[a] = tmpValues[tmpOutput.charAt(a)];
+            }
+            retVal.set(retVal.doubleValue(tmpRef) + tmpProduct, tmpRef);
+        }
+
+        return retVal;
+    }
+
+    private static StridedTensor random(final Random random, final int... shape) {
+        final StridedTensor retVal = StridedTensor.make(shape);
+        final double[] tmpData = retVal.getData();
+        for (int i = 0; i < tmpData.length; i++) {
+            tmpData[i] = random.nextGaussian();
+        }
+        return retVal;
+    }
+
+    private static PrimitiveDenseStore toMatrix(final StridedTensor matrix) {
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(matrix.count(0), matrix.count(1));
+        matrix.copyTo(retVal.data, 0);
+        return retVal;
+    }
+
+    public StridedTensorTest() {
+        super();
+    }
+
+    public StridedTensorTest(final String someName) {
+        super(someName);
+    }
+
+    public void testEinsum() {
+
+        final Random tmpRandom = new Random(3L);
+
+        final StridedTensor tmpMatrixA = StridedTensorTest.random(tmpRandom, 5, 7);
+        final StridedTensor tmpMatrixB = StridedTensorTest.random(tmpRandom, 7, 4);
+        final StridedTensor tmpSquare = StridedTensorTest.random(tmpRandom, 6, 6);
+        final StridedTensor tmpBatchA = StridedTensorTest.random(tmpRandom, 3, 5, 7);
+        final StridedTensor tmpBatchB = StridedTensorTest.random(tmpRandom, 3, 7, 2);
+        final StridedTensor tmpRank4 = StridedTensorTest.random(tmpRandom, 3, 4, 2, 3);
+        final StridedTensor tmpReturns = StridedTensorTest.random(tmpRandom, 20, 4);
+        final StridedTensor tmpVector = StridedTensorTest.random(tmpRandom, 7);
+
+        final String[] tmpExpressions = { "ij,jk->ik", "ij,jk", "ii->", "ii->i", "ij->", "ij->ji", "bij,bjk->bik", "bij,bjk->ikb", "i,jk->ijk",
+                "ijkl,ia,jb,kc,ld->abcd", "ti,tj,tk->ijk", "ti,tj,tk,tl->ijkl", "ij,j->i", "ij,ij->", "ijkl->lkji", "iijk,ab->kjba" };
+        final StridedTensor[][] tmpOperands = { { tmpMatrixA, tmpMatrixB }, { tmpMatrixA, tmpMatrixB }, { tmpSquare }, { tmpSquare }, { tmpMatrixA },
+                { tmpMatrixA }, { tmpBatchA, tmpBatchB }, { tmpBatchA, tmpBatchB }, { tmpVector, tmpMatrixA }, { tmpRank4, tmpSquare.slice(1, 0, 3).permute(1, 0),
+                        tmpSquare.slice(0, 0, 4), tmpSquare.slice(0, 1, 3), tmpSquare.slice(0, 2, 5) },
+                { tmpReturns, tmpReturns, tmpReturns }, { tmpReturns, tmpReturns, tmpReturns, tmpReturns }, { tmpMatrixA, tmpVector },
+                { tmpMatrixA, tmpMatrixA }, { tmpRank4 }, { tmpRank4.slice(1, 0, 3), tmpMatrixB } };
+
+        for (int e = 0; e < tmpExpressions.length; e++) {
+
+            final String tmpExpression = tmpExpressions[e];
+            final String tmpExplicit = tmpExpression.contains("->") ? tmpExpression : tmpExpression + "->ik";
+
+            final StridedTensor tmpExpected = StridedTensorTest.brute(tmpExplicit, tmpOperands[e]);
+            final StridedTensor tmpActual = StridedTensor.einsum(tmpExpression, tmpOperands[e]);
+
+            TestUtils.assertEquals(tmpExpression, tmpExpected.shape(), tmpActual.shape());
+            TestUtils.assertEquals(tmpExpression, tmpExpected, tmpActual, PRECISION);
+        }
+
+        // Same as the matrix kernels
+        final MatrixStore<Double> tmpProduct = StridedTensorTest.toMatrix(tmpMatrixA).multiply(StridedTensorTest.toMatrix(tmpMatrixB));
+        TestUtils.assertEquals(tmpProduct, StridedTensor.einsum("ij,jk->ik", tmpMatrixA, tmpMatrixB), PRECISION);
+
+        // tensordot
+        final StridedTensor tmpOther = tmpBatchA.slice(1, 0, 4).slice(2, 0, 3).permute(1, 0, 2);
+        TestUtils.assertEquals(StridedTensorTest.brute("ijkl,jbl->ikb", tmpRank4, tmpOther), tmpRank4.contract(tmpOther, new int[] { 1, 3 }, new int[] { 0, 2 }),
+                PRECISION);
+
+        try {
+            StridedTensor.einsum("ij,jk->ik", tmpMatrixA, tmpMatrixA);
+            TestUtils.fail("Sizes don't match!");
+        } catch (final IllegalArgumentException cause) {
+            // Expected
+        }
+    }
+
+    public void testViews() {
+
+        final double[] tmpData = new double[24];
+        for (int i = 0; i < tmpData.length; i++) {
+            tmpData[i] = i;
+        }
+        final StridedTensor tmpTensor = StridedTensor.wrap(tmpData, 2, 3, 4);
+
+        TestUtils.assertEquals(1 + (2 * 2) + (3 * 6), tmpTensor.doubleValue(1, 2, 3), 0.0);
+
+        final StridedTensor tmpPermuted = tmpTensor.permute(2, 0, 1);
+        TestUtils.assertEquals(new long[] { 4, 2, 3 }, tmpPermuted.shape());
+        TestUtils.assertEquals(tmpTensor.doubleValue(1, 2, 3), tmpPermuted.doubleValue(3, 1, 2), 0.0);
+        TestUtils.assertFalse(tmpPermuted.isContiguous());
+
+        final StridedTensor tmpSlice = tmpTensor.slice(2, 1);
+        TestUtils.assertEquals(tmpTensor.doubleValue(1, 2, 1), tmpSlice.doubleValue(1, 2), 0.0);
+
+        final StridedTensor tmpRange = tmpTensor.slice(1, 1, 3);
+        TestUtils.assertEquals(new long[] { 2, 2, 4 }, tmpRange.shape());
+        TestUtils.assertEquals(tmpTensor.doubleValue(0, 2, 3), tmpRange.doubleValue(0, 1, 3), 0.0);
+
+        final StridedTensor tmpReshaped = tmpTensor.reshape(6, 4);
+        TestUtils.assertEquals(tmpTensor.doubleValue(1, 2, 3), tmpReshaped.doubleValue(5, 3), 0.0);
+        final StridedTensor tmpCopied = tmpPermuted.reshape(8, 3);
+        TestUtils.assertEquals(tmpPermuted.doubleValue(3, 1, 2), tmpCopied.doubleValue(7, 2), 0.0);
+
+        final StridedTensor tmpBroadcast = tmpTensor.slice(1, 0, 1).broadcast(2, 5, 4);
+        TestUtils.assertEquals(tmpTensor.doubleValue(1, 0, 3), tmpBroadcast.doubleValue(1, 4, 3), 0.0);
+
+        final StridedTensor tmpDiagonal = tmpTensor.slice(2, 0, 3).diagonal(1, 2);
+        TestUtils.assertEquals(tmpTensor.doubleValue(1, 2, 2), tmpDiagonal.doubleValue(1, 2), 0.0);
+
+        // No copies - changes are visible through the views
+        tmpData[1 + (2 * 2) + (3 * 6)] = -1.0;
+        TestUtils.assertEquals(-1.0, tmpPermuted.doubleValue(3, 1, 2), 0.0);
+        TestUtils.assertEquals(-1.0, tmpReshaped.doubleValue(5, 3), 0.0);
+        tmpSlice.set(-2.0, 0, 0);
+        TestUtils.assertEquals(-2.0, tmpTensor.doubleValue(0, 0, 1), 0.0);
+
+        TestUtils.assertEquals(StridedTensor.copy(tmpPermuted), tmpPermuted);
+        TestUtils.assertEquals(tmpPermuted.sum(0, 2).doubleValue(1), StridedTensor.einsum("kij->i", tmpPermuted).doubleValue(1), 1E-12);
+    }
+
+}